@@ -11,6 +11,7 @@ import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
 import com.google.android.exoplayer2.upstream.HttpDataSource;
 import com.google.android.exoplayer2.util.Util;
+import com.tubitv.media.helpers.MediaCache;
 import io.fabric.sdk.android.Fabric;
 import java.util.UUID;
 
@@ -37,6 +38,9 @@ public class DemoApplication extends Application {
         initFabric(this);
 
         userAgent = Util.getUserAgent(this, "ExoPlayerDemo");
+
+        // share one segment cache between the content and the ad players.
+        MediaCache.initialize(this, MediaCache.DEFAULT_MAX_BYTES);
     }
 
     public DataSource.Factory buildDataSourceFactory(DefaultBandwidthMeter bandwidthMeter) {
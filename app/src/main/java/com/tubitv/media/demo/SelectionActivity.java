@@ -9,6 +9,7 @@ import android.widget.Button;
 import com.tubitv.demo.R;
 import com.tubitv.media.activities.DoubleViewTubiPlayerActivity;
 import com.tubitv.media.activities.TubiPlayerActivity;
+import com.tubitv.media.controller.PlayerPreloader;
 import com.tubitv.media.models.MediaModel;
 
 /**
@@ -29,8 +30,11 @@ public class SelectionActivity extends Activity {
                 String subs = "http://s.adrise.tv/88703acf-66a2-4071-8231-d6cffe579f33.srt";
                 String artwork = "http://images.adrise.tv/6sjdZy7rGz23YZ62_diTF26BfgE=/214x306/smart/img.adrise.tv/4b85521c-c3af-41d5-bf52-40b698c6d56d.jpg";
                 String name = "longest weekend";
+                MediaModel movie = MediaModel.video(name, VIDEO_URL, artwork, null);
+                // start buffering the movie while the player activity is shown.
+                PlayerPreloader.get().preload(SelectionActivity.this, movie, null, null, null, 0);
                 Intent intent = new Intent(SelectionActivity.this, DoubleViewTubiPlayerActivity.class);
-                intent.putExtra(TubiPlayerActivity.TUBI_MEDIA_KEY, MediaModel.video(name, VIDEO_URL, artwork, null));
+                intent.putExtra(TubiPlayerActivity.TUBI_MEDIA_KEY, movie);
                 startActivity(intent);
             }
         });
@@ -42,8 +46,11 @@ public class SelectionActivity extends Activity {
 
                 String artwork = "http://images.adrise.tv/q4v7JUQPPHqn8nTmYiudW6l8w_0=/214x306/smart/img.adrise.tv/1c31dfce-5338-4a09-bcb0-f68789153f33.png";
                 String name = "Man on the ledge";
+                MediaModel movie = MediaModel.video(name, VIDEO_URL, artwork, null);
+                // start buffering the movie while the player activity is shown.
+                PlayerPreloader.get().preload(SelectionActivity.this, movie, null, null, null, 0);
                 Intent intent = new Intent(SelectionActivity.this, DoubleViewTubiPlayerActivity.class);
-                intent.putExtra(TubiPlayerActivity.TUBI_MEDIA_KEY, MediaModel.video(name, VIDEO_URL, artwork, null));
+                intent.putExtra(TubiPlayerActivity.TUBI_MEDIA_KEY, movie);
                 startActivity(intent);
             }
         });
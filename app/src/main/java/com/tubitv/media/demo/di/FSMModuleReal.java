@@ -7,6 +7,7 @@ import android.view.View;
 import android.webkit.WebView;
 import com.tubitv.media.controller.PlayerAdLogicController;
 import com.tubitv.media.controller.PlayerUIController;
+import com.tubitv.media.controller.StartupPolicy;
 import com.tubitv.media.demo.vpaid_model.TubiVPAID;
 import com.tubitv.media.di.annotation.ActicityScope;
 import com.tubitv.media.fsm.callback.AdInterface;
@@ -53,12 +54,17 @@ public class FSMModuleReal {
     @ActicityScope
     @Provides
     FsmPlayer provideFsmPlayer(StateFactory factory) {
-        return new FsmPlayerImperial(factory) {
+        FsmPlayer fsmPlayer = new FsmPlayerImperial(factory) {
             @Override
             public Class initializeState() {
                 return FetchCuePointState.class;
             }
         };
+        // the transitions run on the main thread, fsmPlayer.setAsyncExecution(true) opts in to keep the ad calls and
+        // the media source building off it.
+        // a slow ad server never holds the movie start.
+        fsmPlayer.setStartupPolicy(StartupPolicy.DEFERRED);
+        return fsmPlayer;
     }
 
     @ActicityScope
@@ -102,6 +108,9 @@ public class FSMModuleReal {
             }
         };
 
+        // trigger the ad breaks with player messages instead of checking every progress tick.
+        cuePointMonitor.setPlayerMessageTrigger(true);
+
         //        cuePointMonitor.setQuePoints(new int[]{0, 60000, 900000, 1800000, 3600000});
 
         return cuePointMonitor;
@@ -18,10 +18,11 @@ import com.google.android.exoplayer2.source.MediaSource;
 import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.trackselection.TrackSelection;
-import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
 import com.tubitv.media.bindings.UserController;
 import com.tubitv.media.controller.PlayerAdLogicController;
+import com.tubitv.media.controller.PlayerPreloader;
 import com.tubitv.media.controller.PlayerUIController;
+import com.tubitv.media.controller.ProgressScheduler;
 import com.tubitv.media.di.PlayerModuleDefault;
 import com.tubitv.media.di.component.DaggerFsmComonent;
 import com.tubitv.media.fsm.Input;
@@ -31,13 +32,21 @@ import com.tubitv.media.fsm.concrete.VpaidState;
 import com.tubitv.media.fsm.listener.AdPlayingMonitor;
 import com.tubitv.media.fsm.listener.CuePointMonitor;
 import com.tubitv.media.fsm.state_machine.FsmPlayer;
+import com.tubitv.media.helpers.AdCreativePrecacher;
 import com.tubitv.media.helpers.Constants;
+import com.tubitv.media.helpers.LoadControlProfile;
+import com.tubitv.media.helpers.MediaHelper;
+import com.tubitv.media.helpers.PlayerEventBus;
+import com.tubitv.media.helpers.PlayerPool;
+import com.tubitv.media.helpers.ResumeStore;
+import com.tubitv.media.helpers.SeededBandwidthMeter;
 import com.tubitv.media.interfaces.AutoPlay;
 import com.tubitv.media.interfaces.DoublePlayerInterface;
 import com.tubitv.media.models.AdMediaModel;
 import com.tubitv.media.models.AdRetriever;
 import com.tubitv.media.models.CuePointsRetriever;
 import com.tubitv.media.models.MediaModel;
+import com.tubitv.media.models.SessionState;
 import com.tubitv.media.models.VpaidClient;
 import com.tubitv.media.utilities.ExoPlayerLogger;
 import com.tubitv.media.utilities.PlayerDeviceUtils;
@@ -51,7 +60,7 @@ import javax.inject.Inject;
 public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements DoublePlayerInterface, AutoPlay {
 
     private static final String TAG = "DoubleViewTubiPlayerAct";
-    private static final DefaultBandwidthMeter BANDWIDTH_METER_AD = new DefaultBandwidthMeter();
+    private static final String POOL_ROLE_AD = PlayerPool.ROLE_AD;
     protected SimpleExoPlayer adPlayer;
     @Inject
     FsmPlayer fsmPlayer;
@@ -72,6 +81,22 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
     @Inject
     VpaidClient vpaidClient;
     private DefaultTrackSelector trackSelector_ad;
+    private AdCreativePrecacher adCreativePrecacher;
+    /**
+     * what the browse screen has started for this movie through the {@link PlayerPreloader}, until the fsm adopts it.
+     */
+    @Nullable
+    private PlayerPreloader.Preload preload;
+    private ResumeStore resumeStore;
+    /**
+     * wakes the progress up often enough to save the session while the movie plays.
+     */
+    private final ProgressScheduler.Consumer sessionProgress =
+            ProgressScheduler.atResolution(ResumeStore.SAVE_INTERVAL_MS);
+    /**
+     * the subtitles choice of the saved session, on until the store has been read.
+     */
+    private boolean captionPreference = true;
 
     protected AdRetriever getAdRetriever() {
         return adRetriever;
@@ -87,7 +112,11 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        // the sessions are read on the writer of the store while the activity starts.
+        resumeStore = ResumeStore.get(this);
         super.onCreate(savedInstanceState);
+        // the main thread does not wait for the log, the subtitles are switched when it has been read.
+        resumeStore.read(FsmPlayer.sessionIdOf(mediaModel), this::onSessionRead);
 
         injectDependency();
         dependencyPrepare();
@@ -121,12 +150,37 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
     @Override
     protected void initMoviePlayer() {
         super.initMoviePlayer();
-        createMediaSource(mediaModel);
+        PlayerPreloader.Preload preload = PlayerPreloader.get().take(mediaModel.getVideoUrl());
+        if (preload != null) {
+            this.preload = preload;
+            // the pooled player is the preloaded one, prepared with the media source of the preload.
+            if (mMoviePlayerReused && preload.getMediaSource() != null) {
+                mediaModel.setMediaSource(preload.getMediaSource());
+            }
+        }
+        // a warm player is still prepared with the media source of the movie.
+        if (!mMoviePlayerReused || mediaModel.getMediaSource() == null) {
+            createMediaSource(mediaModel);
+        }
         if (!PlayerDeviceUtils.useSinglePlayer()) {
             setupAdPlayer();
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (playerComponentController != null) {
+            playerComponentController.getPlaybackMetrics().export();
+        }
+        if (fsmPlayer != null) {
+            fsmPlayer.release();
+        }
+        if (isFinishing()) {
+            PlayerPool.get().evict(getPoolKey(POOL_ROLE_AD));
+        }
+    }
+
     @Override
     protected void onPlayerReady() {
         prepareFSM();
@@ -135,22 +189,40 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
     @Override
     protected void releaseMoviePlayer() {
         super.releaseMoviePlayer();
+        if (adCreativePrecacher != null) {
+            adCreativePrecacher.cancelAll();
+        }
         if (!PlayerDeviceUtils.useSinglePlayer()) {
             releaseAdPlayer();
         }
     }
 
     private void setupAdPlayer() {
+        PlayerPool.Entry pooled = PlayerPool.get().acquire(getPoolKey(POOL_ROLE_AD));
+        if (pooled != null) {
+            adPlayer = pooled.player;
+            trackSelector_ad = pooled.trackSelector;
+            return;
+        }
+
         TrackSelection.Factory adaptiveTrackSelectionFactory =
-                new AdaptiveTrackSelection.Factory(BANDWIDTH_METER_AD);
+                new AdaptiveTrackSelection.Factory(BANDWIDTH_METER.forSource(SeededBandwidthMeter.SOURCE_AD));
         trackSelector_ad = new DefaultTrackSelector(adaptiveTrackSelectionFactory);
-        adPlayer = ExoPlayerFactory.newSimpleInstance(this, trackSelector_ad);
+        // the renderers keep the context, and the pooled player may outlive the activity.
+        adPlayer = ExoPlayerFactory.newSimpleInstance(getApplicationContext(), trackSelector_ad,
+                LoadControlProfile.forAds(this).createLoadControl());
     }
 
     private void releaseAdPlayer() {
         if (adPlayer != null) {
             updateAdResumePosition();
-            adPlayer.release();
+            PlayerEventBus.release(adPlayer);
+            if (shouldPoolPlayers()) {
+                adPlayer.setPlayWhenReady(false);
+                PlayerPool.get().park(getPoolKey(POOL_ROLE_AD), new PlayerPool.Entry(adPlayer, trackSelector_ad, null));
+            } else {
+                adPlayer.release();
+            }
             adPlayer = null;
             trackSelector_ad = null;
         }
@@ -184,7 +256,7 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
                     :
                     C.TIME_UNSET;
             playerUIController.setMovieResumeInfo(resumeWindow, resumePosition);
-            ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, resumePosition + "");
+            ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "{}", resumePosition);
         }
 
         //keep track of ad player's position when activity resume back, only keep track when current state is in AdPlayingState.
@@ -199,7 +271,18 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
 
     @Override
     protected boolean isCaptionPreferenceEnable() {
-        return true;
+        return captionPreference;
+    }
+
+    private void onSessionRead(@Nullable SessionState session) {
+        boolean enabled = session == null || session.isSubtitlesEnabled();
+        runOnUiThread(() -> {
+            captionPreference = enabled;
+            // the player may have been set up before the log was read.
+            if (isActive) {
+                setCaption(enabled);
+            }
+        });
     }
 
     /**
@@ -209,11 +292,15 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
     public void prepareFSM() {
         //update the playerUIController view, need to update the view everything when two ExoPlayer being recreated in activity lifecycle.
         playerUIController.setContentPlayer(mMoviePlayer);
+        playerUIController.setContentLoadControl(mLoadControl);
 
         if (!PlayerDeviceUtils.useSinglePlayer()) {
             playerUIController.setAdPlayer(adPlayer);
         }
 
+        playerComponentController.getPlaybackMetrics()
+                .attach(playerUIController.getContentPlayer(), playerUIController.getAdPlayer());
+
         playerUIController.setExoPlayerView(mTubiPlayerView);
         playerUIController.setVpaidWebView(vpaidWebView);
 
@@ -223,16 +310,33 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
         fsmPlayer.setAdRetriever(adRetriever);
         fsmPlayer.setCuePointsRetriever(cuePointsRetriever);
         fsmPlayer.setAdServerInterface(adInterface);
+        fsmPlayer.setResumeStore(resumeStore);
 
         //set the PlayerComponentController.
         playerComponentController.setAdPlayingMonitor(adPlayingMonitor);
         playerComponentController.setTubiPlaybackInterface(this);
         playerComponentController.setDoublePlayerInterface(this);
         playerComponentController.setCuePointMonitor(cuePointMonitor);
+        // the movie progress is only needed close to the cue points while the controls are hidden.
+        if (getPlayerController() instanceof UserController) {
+            ((UserController) getPlayerController()).getProgressScheduler().register(cuePointMonitor);
+            ((UserController) getPlayerController()).getProgressScheduler().register(sessionProgress);
+        }
         playerComponentController.setVpaidClient(vpaidClient);
+        if (adCreativePrecacher == null) {
+            adCreativePrecacher = new AdCreativePrecacher(buildDataSourceFactory(false),
+                    MediaHelper.buildManifestDataSourceFactory(this),
+                    BANDWIDTH_METER.forSource(SeededBandwidthMeter.SOURCE_AD));
+        }
+        playerComponentController.setAdCreativePrecacher(adCreativePrecacher);
         fsmPlayer.setPlayerComponentController(playerComponentController);
         fsmPlayer.setLifecycle(getLifecycle());
 
+        if (preload != null) {
+            fsmPlayer.adoptPreload(preload);
+            preload = null;
+        }
+
         if (fsmPlayer.isInitialized()) {
             fsmPlayer.updateSelf();
             Utils.hideSystemUI(this, true);
@@ -312,6 +416,12 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
             MediaSource adMediaSource = buildMediaSource(singleMedia);
             singleMedia.setMediaSource(adMediaSource);
         }
+
+        // download the creatives into the media cache while the movie keeps playing.
+        if (adCreativePrecacher != null) {
+            AdRetriever adRetriever = fsmPlayer.getAdRetriever();
+            adCreativePrecacher.precache(adMediaModel, adRetriever != null ? adRetriever.getCubPoint() : 0);
+        }
     }
 
     @Override
@@ -320,11 +430,20 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
 
         // monitor the movie progress.
         cuePointMonitor.onMovieProgress(milliseconds, durationMillis);
+
+        if (mediaModel != null && !mediaModel.isAd()) {
+            fsmPlayer.onMovieProgress(milliseconds);
+        }
     }
 
     @Override
     public void onSeek(@Nullable MediaModel mediaModel, long oldPositionMillis, long newPositionMillis) {
         //        ExoPlayerLogger.v(TAG, mediaModel.getMediaName() + ": " + mediaModel.toString() + " onSeek : " + "oldPositionMillis: " + oldPositionMillis + " newPositionMillis: " + newPositionMillis);
+
+        // only the movie seek should move the ad break schedule.
+        if (mediaModel != null && !mediaModel.isAd()) {
+            cuePointMonitor.onSeek(newPositionMillis);
+        }
     }
 
     @Override
@@ -347,6 +466,7 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
     @Override
     public void onSubtitles(@Nullable MediaModel mediaModel, boolean enabled) {
         //        ExoPlayerLogger.v(TAG, mediaModel.getMediaName() + ": " + mediaModel.toString() + " onSubtitles :" + mediaModel.getMediaName());
+        fsmPlayer.setSubtitlesEnabled(enabled);
     }
 
     @Override
@@ -356,6 +476,10 @@ public class DoubleViewTubiPlayerActivity extends TubiPlayerActivity implements
 
     @Override
     public void onCuePointReceived(long[] cuePoints) {
+        // the cue points of the monitor have changed, so has the next progress update it needs.
+        if (getPlayerController() instanceof UserController) {
+            ((UserController) getPlayerController()).getProgressScheduler().invalidate();
+        }
 
         cuePointIndictor.setText(printCuePoints(cuePoints));
     }
@@ -6,24 +6,12 @@ import android.graphics.Color;
 import android.os.Bundle;
 import android.os.Handler;
 import android.support.annotation.NonNull;
-import android.text.TextUtils;
 import android.view.View;
 import android.webkit.WebView;
 import android.widget.TextView;
-import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.ExoPlayerFactory;
-import com.google.android.exoplayer2.Format;
 import com.google.android.exoplayer2.SimpleExoPlayer;
-import com.google.android.exoplayer2.extractor.DefaultExtractorsFactory;
-import com.google.android.exoplayer2.source.ExtractorMediaSource;
 import com.google.android.exoplayer2.source.MediaSource;
-import com.google.android.exoplayer2.source.MergingMediaSource;
-import com.google.android.exoplayer2.source.SingleSampleMediaSource;
-import com.google.android.exoplayer2.source.dash.DashMediaSource;
-import com.google.android.exoplayer2.source.dash.DefaultDashChunkSource;
-import com.google.android.exoplayer2.source.hls.HlsMediaSource;
-import com.google.android.exoplayer2.source.smoothstreaming.DefaultSsChunkSource;
-import com.google.android.exoplayer2.source.smoothstreaming.SsMediaSource;
 import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.trackselection.TrackSelection;
@@ -32,10 +20,16 @@ import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
 import com.google.android.exoplayer2.upstream.HttpDataSource;
 import com.google.android.exoplayer2.util.Assertions;
-import com.google.android.exoplayer2.util.MimeTypes;
 import com.google.android.exoplayer2.util.Util;
 import com.tubitv.media.R;
+import com.tubitv.media.helpers.LoadControlProfile;
 import com.tubitv.media.helpers.MediaHelper;
+import com.tubitv.media.helpers.PhasedLoadControl;
+import com.tubitv.media.helpers.PlayerEvent;
+import com.tubitv.media.helpers.PlayerEventBus;
+import com.tubitv.media.helpers.PlayerPool;
+import com.tubitv.media.helpers.SeededBandwidthMeter;
+import com.tubitv.media.helpers.ThroughputHistory;
 import com.tubitv.media.interfaces.PlaybackActionCallback;
 import com.tubitv.media.interfaces.TubiPlaybackControlInterface;
 import com.tubitv.media.models.MediaModel;
@@ -50,14 +44,24 @@ import com.tubitv.media.views.TubiExoPlayerView;
  */
 public abstract class TubiPlayerActivity extends LifeCycleActivity
         implements PlaybackActionCallback {
-    private static final DefaultBandwidthMeter BANDWIDTH_METER = new DefaultBandwidthMeter();
+    /**
+     * shared by the sessions of the process and by the content and ad players, seeded from the {@link
+     * ThroughputHistory} of the network on each {@link #initMoviePlayer()}.
+     */
+    protected static final SeededBandwidthMeter BANDWIDTH_METER = SeededBandwidthMeter.getDefault();
     public static String TUBI_MEDIA_KEY = "tubi_media_key";
+    protected static final String POOL_ROLE_CONTENT = PlayerPool.ROLE_CONTENT;
     protected SimpleExoPlayer mMoviePlayer;
     protected TubiExoPlayerView mTubiPlayerView;
     protected WebView vpaidWebView;
     protected TextView cuePointIndictor;
     protected DefaultTrackSelector mTrackSelector;
+    protected PhasedLoadControl mLoadControl;
     protected boolean isActive = false;
+    /**
+     * true when {@link #mMoviePlayer} has been taken back warm from the {@link PlayerPool}, still prepared.
+     */
+    protected boolean mMoviePlayerReused = false;
     /**
      * ideally, only one instance of {@link MediaModel} and its arrtibute {@link MediaSource} for movie should be created throughout the whole movie playing experiences.
      */
@@ -65,6 +69,7 @@ public abstract class TubiPlayerActivity extends LifeCycleActivity
     protected MediaModel mediaModel;
     private Handler mMainHandler;
     private DataSource.Factory mMediaDataSourceFactory;
+    private DataSource.Factory mAdDataSourceFactory;
     private EventLogger mEventLogger;
 
     public abstract View addUserInteractionView();
@@ -86,7 +91,13 @@ public abstract class TubiPlayerActivity extends LifeCycleActivity
         super.onCreate(savedInstanceState);
         parseIntent();
         Utils.hideSystemUI(this, true);
+        if (BANDWIDTH_METER.getHistory() == null) {
+            BANDWIDTH_METER.setHistory(ThroughputHistory.create(this));
+        }
         mMediaDataSourceFactory = buildDataSourceFactory(true);
+        mAdDataSourceFactory = MediaHelper
+                .buildDataSourceFactory(this, BANDWIDTH_METER.forSource(SeededBandwidthMeter.SOURCE_AD));
+        PlayerPool.get().register(this);
         initLayout();
     }
 
@@ -128,6 +139,15 @@ public abstract class TubiPlayerActivity extends LifeCycleActivity
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // stopped before it was finished, the parked player will not come back.
+        if (isFinishing()) {
+            PlayerPool.get().evict(getPoolKey(POOL_ROLE_CONTENT));
+        }
+    }
+
     @Override
     public boolean isActive() {
         return isActive;
@@ -154,7 +174,7 @@ public abstract class TubiPlayerActivity extends LifeCycleActivity
         mTubiPlayerView.addUserInteractionView(addUserInteractionView());
     }
 
-    private void setCaption(boolean isOn) {
+    protected void setCaption(boolean isOn) {
         if (mediaModel != null && mediaModel.getSubtitlesUrl() != null && mTubiPlayerView != null
                 && mTubiPlayerView.getControlView() != null) {
             mTubiPlayerView.getPlayerController().triggerSubtitlesToggle(isOn);
@@ -171,16 +191,31 @@ public abstract class TubiPlayerActivity extends LifeCycleActivity
     protected void initMoviePlayer() {
         // 1. Create a default TrackSelector
         mMainHandler = new Handler();
-        TrackSelection.Factory videoTrackSelectionFactory =
-                new AdaptiveTrackSelection.Factory(BANDWIDTH_METER);
-        mTrackSelector =
-                new DefaultTrackSelector(videoTrackSelectionFactory);
-
-        // 3. Create the mMoviePlayer
-        mMoviePlayer = ExoPlayerFactory.newSimpleInstance(this, mTrackSelector);
+        // the adaptive selection picks its initial track from the seeded estimate.
+        BANDWIDTH_METER.seed(ThroughputHistory.networkKey(this));
+
+        // the player of this movie may still be warm from a short trip in the background.
+        PlayerPool.Entry pooled = PlayerPool.get().acquire(getPoolKey(POOL_ROLE_CONTENT));
+        mMoviePlayerReused = pooled != null;
+        if (pooled != null) {
+            mMoviePlayer = pooled.player;
+            mTrackSelector = pooled.trackSelector;
+            mLoadControl = (PhasedLoadControl) pooled.loadControl;
+        } else {
+            TrackSelection.Factory videoTrackSelectionFactory =
+                    new AdaptiveTrackSelection.Factory(BANDWIDTH_METER);
+            mTrackSelector =
+                    new DefaultTrackSelector(videoTrackSelectionFactory);
+
+            // 2. Create the LoadControl of the device class
+            mLoadControl = new PhasedLoadControl(LoadControlProfile.forContent(this), LoadControlProfile.BACKGROUND);
+
+            // 3. Create the mMoviePlayer, on the application context, it may outlive the activity in the pool.
+            mMoviePlayer = ExoPlayerFactory.newSimpleInstance(getApplicationContext(), mTrackSelector, mLoadControl);
+        }
 
         mEventLogger = new EventLogger(mTrackSelector);
-        mMoviePlayer.addAnalyticsListener(mEventLogger);
+        PlayerEventBus.of(mMoviePlayer).subscribe(mEventLogger, PlayerEvent.MASK_ALL);
         mMoviePlayer.addMetadataOutput(mEventLogger);
 
         mTubiPlayerView.setPlayer(mMoviePlayer, this);
@@ -190,55 +225,44 @@ public abstract class TubiPlayerActivity extends LifeCycleActivity
     protected void releaseMoviePlayer() {
         if (mMoviePlayer != null) {
             updateResumePosition();
-            mMoviePlayer.release();
+            // the bus goes with its subscribers, the view subscribes again when the parked player comes back.
+            mTubiPlayerView.setPlayer(null, this);
+            PlayerEventBus.release(mMoviePlayer);
+            mMoviePlayer.removeMetadataOutput(mEventLogger);
+            if (shouldPoolPlayers()) {
+                mMoviePlayer.setPlayWhenReady(false);
+                PlayerPool.get().park(getPoolKey(POOL_ROLE_CONTENT),
+                        new PlayerPool.Entry(mMoviePlayer, mTrackSelector, mLoadControl));
+            } else {
+                mMoviePlayer.release();
+            }
             mMoviePlayer = null;
             mTrackSelector = null;
+            mLoadControl = null;
         }
         isActive = false;
     }
 
-    protected MediaSource buildMediaSource(MediaModel model) {
-        MediaSource mediaSource;
-        int type = TextUtils.isEmpty(model.getMediaExtension()) ? Util.inferContentType(model.getVideoUrl())
-                : Util.inferContentType("." + model.getMediaExtension());
-
-        // TODO: Replace deprecated constructors with proper factory
-        switch (type) {
-            case C.TYPE_SS:
-                mediaSource = new SsMediaSource(model.getVideoUrl(), buildDataSourceFactory(false),
-                        new DefaultSsChunkSource.Factory(mMediaDataSourceFactory), mMainHandler, mEventLogger);
-                break;
-            case C.TYPE_DASH:
-                mediaSource = new DashMediaSource(model.getVideoUrl(), buildDataSourceFactory(false),
-                        new DefaultDashChunkSource.Factory(mMediaDataSourceFactory), mMainHandler, mEventLogger);
-                break;
-            case C.TYPE_HLS:
-                mediaSource = new HlsMediaSource(model.getVideoUrl(), mMediaDataSourceFactory, mMainHandler,
-                        mEventLogger);
-                break;
-            case C.TYPE_OTHER:
-                mediaSource = new ExtractorMediaSource(model.getVideoUrl(), mMediaDataSourceFactory,
-                        new DefaultExtractorsFactory(),
-                        mMainHandler, mEventLogger);
-                break;
-            default: {
-                throw new IllegalStateException("Unsupported type: " + type);
-            }
-        }
+    /**
+     * @return true to park the players in the {@link PlayerPool} when they are released, false when the activity is
+     * finishing and they will not come back
+     */
+    protected boolean shouldPoolPlayers() {
+        return !isFinishing();
+    }
 
-        if (model.getSubtitlesUrl() != null) {
-            MediaSource subtitleSource = new SingleSampleMediaSource(
-                    model.getSubtitlesUrl(),
-                    buildDataSourceFactory(false),
-                    Format.createTextSampleFormat(null, MimeTypes.APPLICATION_SUBRIP, null, Format.NO_VALUE,
-                            C.SELECTION_FLAG_DEFAULT, "en", null, 0),
-                    0);
-            // Plays the video with the sideloaded subtitle.
-            mediaSource =
-                    new MergingMediaSource(mediaSource, subtitleSource);
-        }
+    /**
+     * @return the key of the player of the role in the {@link PlayerPool}, only a player of the same movie is reused
+     */
+    protected String getPoolKey(String role) {
+        return PlayerPool.keyOf(role, mediaModel != null ? mediaModel.getVideoUrl() : null);
+    }
 
-        return mediaSource;
+    protected MediaSource buildMediaSource(MediaModel model) {
+        // the ad transfers are measured as the ad source of the shared bandwidth meter.
+        DataSource.Factory dataSourceFactory = model.isAd() ? mAdDataSourceFactory : mMediaDataSourceFactory;
+        return MediaHelper.buildMediaSource(model, dataSourceFactory,
+                MediaHelper.buildManifestDataSourceFactory(this), mMainHandler, mEventLogger);
     }
 
     /**
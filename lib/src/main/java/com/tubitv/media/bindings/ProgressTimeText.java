@@ -0,0 +1,76 @@
+package com.tubitv.media.bindings;
+
+import android.databinding.BaseObservable;
+import android.databinding.BindingAdapter;
+import android.support.annotation.NonNull;
+import android.widget.TextView;
+import com.tubitv.media.utilities.ProgressTimeFormatter;
+
+/**
+ * A playback time bound to a {@link TextView}, formatted into a reused char buffer on every progress tick instead of
+ * a new string. The bound views are only notified when the displayed text changes.
+ * <p>
+ * The text is updated and read on the main thread.
+ */
+public class ProgressTimeText extends BaseObservable {
+
+    /**
+     * the chars held by the bound views.
+     */
+    private char[] chars = new char[ProgressTimeFormatter.MAX_LENGTH];
+
+    /**
+     * the next text is formatted here, so the chars of the views never change under them before they are bound again.
+     */
+    private char[] scratch = new char[ProgressTimeFormatter.MAX_LENGTH];
+
+    private int length;
+
+    public ProgressTimeText() {
+        length = ProgressTimeFormatter.format(0, false, chars);
+    }
+
+    @BindingAdapter("bind:progressTime")
+    public static void setProgressTime(TextView textView, ProgressTimeText text) {
+        if (text != null) {
+            // the text view keeps a wrapper of the chars, instead of a copy of them.
+            textView.setText(text.chars, 0, text.length);
+        }
+    }
+
+    /**
+     * @param timeMs    the time to display
+     * @param remaining true to display the time as remaining, with a minus sign
+     */
+    public void set(long timeMs, boolean remaining) {
+        int newLength = ProgressTimeFormatter.format(timeMs, remaining, scratch);
+        if (newLength == length && equalsRange(scratch, chars, length)) {
+            return;
+        }
+
+        char[] previous = chars;
+        chars = scratch;
+        scratch = previous;
+        length = newLength;
+        notifyChange();
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    private static boolean equalsRange(char[] a, char[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
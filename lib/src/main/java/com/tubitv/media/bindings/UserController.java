@@ -5,20 +5,20 @@ import android.databinding.BaseObservable;
 import android.databinding.ObservableBoolean;
 import android.databinding.ObservableField;
 import android.databinding.ObservableInt;
+import android.databinding.ObservableLong;
 import android.net.Uri;
 import android.os.Handler;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
 import android.view.View;
 import android.widget.SeekBar;
-import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.ExoPlayer;
-import com.google.android.exoplayer2.PlaybackParameters;
 import com.google.android.exoplayer2.SimpleExoPlayer;
-import com.google.android.exoplayer2.Timeline;
-import com.google.android.exoplayer2.source.TrackGroupArray;
-import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
 import com.tubitv.media.R;
+import com.tubitv.media.controller.ProgressScheduler;
+import com.tubitv.media.helpers.PlayerEvent;
+import com.tubitv.media.helpers.PlayerEventBus;
 import com.tubitv.media.interfaces.PlaybackActionCallback;
 import com.tubitv.media.interfaces.TubiPlaybackControlInterface;
 import com.tubitv.media.models.MediaModel;
@@ -35,7 +35,7 @@ import static com.google.android.exoplayer2.ExoPlayer.STATE_ENDED;
  * as interface between Player UI and Business logic, such as seek, pause, UI logic for displaying ads vs movie.
  */
 public class UserController extends BaseObservable
-        implements TubiPlaybackControlInterface, ExoPlayer.EventListener, SeekBar.OnSeekBarChangeListener {
+        implements TubiPlaybackControlInterface, PlayerEventBus.Subscriber, SeekBar.OnSeekBarChangeListener {
 
     private static final String TAG = UserController.class.getSimpleName();
 
@@ -44,7 +44,10 @@ public class UserController extends BaseObservable
     public static final int EDIT_CUSTOM_SEEK_CONTROL_STATE = 3; // After long press left/right will enter this state
     public static final int OPTIONS_CONTROL_STATE = 4; // Every time focus on caption button will enter this state
 
-    private static final long DEFAULT_FREQUENCY = 1000;
+    /**
+     * the time labels display whole seconds.
+     */
+    private static final long TIME_LABEL_RESOLUTION_MS = 1000;
 
     /**
      * video action states
@@ -62,15 +65,18 @@ public class UserController extends BaseObservable
 
     public final ObservableField<String> videoMetaData = new ObservableField("");
 
-    public final ObservableField<Long> videoDuration = new ObservableField<>(0l);
+    public final ObservableLong videoDuration = new ObservableLong(0);
 
-    public final ObservableField<Long> videoCurrentTime = new ObservableField<>(0l);
+    public final ObservableLong videoCurrentTime = new ObservableLong(0);
 
-    public final ObservableField<Long> videoBufferedPosition = new ObservableField<>(0l);
+    public final ObservableLong videoBufferedPosition = new ObservableLong(0);
 
-    public final ObservableField<String> videoRemainInString = new ObservableField<>("");
+    /**
+     * the time texts are updated every second, they are formatted into reused buffers instead of new strings.
+     */
+    public final ProgressTimeText videoRemainText = new ProgressTimeText();
 
-    public final ObservableField<String> videoPositionInString = new ObservableField<>("");
+    public final ProgressTimeText videoPositionText = new ProgressTimeText();
 
     public final ObservableField<Boolean> videoHasSubtitle = new ObservableField<>(false);
 
@@ -113,6 +119,49 @@ public class UserController extends BaseObservable
 
     private int mControlState = NORMAL_CONTROL_STATE;
 
+    /**
+     * decide when the next progress update is needed, instead of updating every second.
+     */
+    private final ProgressScheduler mProgressScheduler = new ProgressScheduler();
+
+    private boolean mControlsVisible = true;
+
+    /**
+     * the time labels and the seek bar only need an update while the controls are shown, right after the displayed
+     * second changes.
+     */
+    private final ProgressScheduler.Consumer mControlsConsumer = positionMs -> mControlsVisible
+            ? TIME_LABEL_RESOLUTION_MS - (positionMs + TIME_LABEL_RESOLUTION_MS / 2) % TIME_LABEL_RESOLUTION_MS
+            : ProgressScheduler.SLEEP;
+
+    public UserController() {
+        mProgressScheduler.register(mControlsConsumer);
+        mProgressScheduler.setInvalidateListener(updateProgressAction);
+    }
+
+    /**
+     * register the consumers of {@link PlaybackActionCallback#onProgress(MediaModel, long, long)} here, or the progress
+     * is only updated while the controls are shown.
+     */
+    public ProgressScheduler getProgressScheduler() {
+        return mProgressScheduler;
+    }
+
+    /**
+     * @param visible true when the seek bar and the time labels are shown to the user
+     */
+    public void setControlsVisible(boolean visible) {
+        if (mControlsVisible == visible) {
+            return;
+        }
+
+        mControlsVisible = visible;
+        if (visible) {
+            // the labels may have been sleeping, refresh them right away.
+            updateProgress();
+        }
+    }
+
     /**
      * Every time the {@link com.tubitv.media.fsm.state_machine.FsmPlayer} change states between
      * {@link com.tubitv.media.fsm.concrete.AdPlayingState} and {@link com.tubitv.media.fsm.concrete.MoviePlayingState},
@@ -183,26 +232,37 @@ public class UserController extends BaseObservable
 
         //remove the old listener
         if (mPlayer != null) {
-            this.mPlayer.removeListener(this);
+            PlayerEventBus.of(mPlayer).unsubscribe(this);
         }
 
         this.mPlayer = player;
 
-        mPlayer.addListener(this);
+        PlayerEventBus.of(mPlayer).subscribe(this, PlayerEvent.MASK_PLAYBACK);
         playerPlaybackState.set(mPlayer.getPlaybackState());
         mPlaybackActionCallback = playbackActionCallback;
         updateProgress();
 
     }
 
+    /**
+     * stop listening to the player, when it is released or parked in the {@link com.tubitv.media.helpers.PlayerPool}
+     * with its {@link PlayerEventBus}, a player set again is subscribed again.
+     */
+    public void clearPlayer() {
+        if (mPlayer != null) {
+            PlayerEventBus.of(mPlayer).unsubscribe(this);
+            mPlayer = null;
+        }
+    }
+
     public void setAvailableAdLeft(int count) {
         numberOfAdsLeft.set(count);
     }
 
     public void updateTimeTextViews(long position, long duration) {
         //translate the movie remaining time number into display string, and update the UI
-        videoRemainInString.set(Utils.getProgressTime((duration - position), true));
-        videoPositionInString.set(Utils.getProgressTime(position, false));
+        videoRemainText.set(duration == C.TIME_UNSET ? 0 : duration - position, true);
+        videoPositionText.set(position, false);
     }
 
     public void togglePlayPause() {
@@ -364,57 +424,25 @@ public class UserController extends BaseObservable
 
     //------------------------------player playback listener-------------------------------------------//
 
+    /**
+     * subscribed to {@link PlayerEvent#MASK_PLAYBACK} only, the other events of the player are never dispatched here.
+     */
     @Override
-    public void onTimelineChanged(final Timeline timeline, final Object manifest, final int reason) {
-        setPlaybackState();
-        updateProgress();
-    }
-
-    @Override
-    public void onPositionDiscontinuity(final int reason) {
-        setPlaybackState();
-        updateProgress();
-    }
-
-    @Override
-    public void onPlayerStateChanged(final boolean playWhenReady, final int playbackState) {
-        playerPlaybackState.set(playbackState);
-        isVideoPlayWhenReady.set(playWhenReady);
-        updateProgress();
-    }
-
-    @Override
-    public void onRepeatModeChanged(final int repeatMode) {
-
-    }
-
-    @Override
-    public void onShuffleModeEnabledChanged(final boolean shuffleModeEnabled) {
-
-    }
-
-    @Override
-    public void onTracksChanged(final TrackGroupArray trackGroups, final TrackSelectionArray trackSelections) {
-        ExoPlayerLogger.i(TAG, "onTracksChanged");
-    }
-
-    @Override
-    public void onLoadingChanged(final boolean isLoading) {
-        ExoPlayerLogger.i(TAG, "onLoadingChanged");
-    }
-
-    @Override
-    public void onPlayerError(final ExoPlaybackException error) {
-        ExoPlayerLogger.i(TAG, "onPlayerError");
-    }
-
-    @Override
-    public void onPlaybackParametersChanged(final PlaybackParameters playbackParameters) {
-    }
-
-    @Override
-    public void onSeekProcessed() {
-
+    public void onPlayerEvent(@NonNull PlayerEvent event) {
+        switch (event.type) {
+            case PlayerEvent.PLAYER_STATE_CHANGED:
+                playerPlaybackState.set(event.playbackState);
+                isVideoPlayWhenReady.set(event.playWhenReady);
+                updateProgress();
+                break;
+            case PlayerEvent.TIMELINE_CHANGED:
+            case PlayerEvent.POSITION_DISCONTINUITY:
+                setPlaybackState();
+                updateProgress();
+                break;
+            default:
+                break;
+        }
     }
 
     //-----------------------------------------SeekBar listener--------------------------------------------------------------//
@@ -470,8 +498,6 @@ public class UserController extends BaseObservable
             updateTimeTextViews(position, duration);
         }
 
-        ExoPlayerLogger.i(TAG, "updateProgress:----->" + videoCurrentTime.get());
-
         if (mPlaybackActionCallback != null && mPlaybackActionCallback.isActive()) {
             mPlaybackActionCallback.onProgress(mMediaModel, position, duration);
         }
@@ -488,8 +514,10 @@ public class UserController extends BaseObservable
                 return;
             }
 
-            long delayMs = DEFAULT_FREQUENCY;
-            mProgressUpdateHandler.postDelayed(updateProgressAction, delayMs);
+            long delayMs = mProgressScheduler.nextDelayMs(position);
+            if (delayMs != ProgressScheduler.SLEEP) {
+                mProgressUpdateHandler.postDelayed(updateProgressAction, delayMs);
+            }
         }
     }
 
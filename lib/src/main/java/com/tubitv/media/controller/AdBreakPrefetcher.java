@@ -0,0 +1,271 @@
+package com.tubitv.media.controller;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.tubitv.media.fsm.callback.RetrieveAdCallback;
+import com.tubitv.media.helpers.Constants;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.AdRetriever;
+import com.tubitv.media.utilities.ExoPlayerLogger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fetch the ad breaks of the next few cue points while the movie plays, so the ad call at a cue point can usually be
+ * answered right away from memory instead of within the short networking lead.
+ * <p>
+ * The prefetch is driven by the movie progress: a break is fetched once its cue point is within the time to live,
+ * less {@link #FETCH_MARGIN_MS}, so it is still fresh when the cue point is reached. Every fetched break is kept with
+ * the time it came back, a break which would be older than the time to live at its cue point, like after a long
+ * pause, is fetched again. The fetches go through the {@link AdFetchCoordinator}, with its fallback, a failed one is
+ * retried after {@link #RETRY_DELAY_MS}. A break can only be taken once, because the ads are consumed while they play.
+ */
+public class AdBreakPrefetcher {
+
+    public static final int DEFAULT_LOOKAHEAD = 2;
+
+    public static final long DEFAULT_TTL_MS = 5 * 60 * 1000;
+
+    /**
+     * how much of the time to live is kept for the fetch itself, and for the ad call point before the cue point.
+     */
+    public static final long FETCH_MARGIN_MS = 30 * 1000;
+
+    /**
+     * the deadline of a prefetch, the cue point is far enough to give the ad servers time.
+     */
+    public static final long FETCH_TIMEOUT_MS = 10 * 1000;
+
+    public static final long RETRY_DELAY_MS = 30 * 1000;
+
+    /**
+     * returned by {@link #nextPrefetchDelayMs(long[], long)} when no break needs to be fetched as the movie plays.
+     */
+    public static final long NO_PREFETCH = Long.MAX_VALUE;
+
+    private final AdFetchCoordinator coordinator;
+
+    private final int lookahead;
+
+    private final long ttlMs;
+
+    private final TimeSource timeSource;
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    public AdBreakPrefetcher(@NonNull AdFetchCoordinator coordinator) {
+        this(coordinator, DEFAULT_LOOKAHEAD, DEFAULT_TTL_MS, SystemClock::elapsedRealtime);
+    }
+
+    /**
+     * @param coordinator fetches from the ad servers
+     * @param lookahead   how many upcoming cue points are fetched ahead
+     * @param ttlMs       how long a fetched break can be played
+     * @param timeSource  the clock of the time to live
+     */
+    public AdBreakPrefetcher(@NonNull AdFetchCoordinator coordinator, int lookahead, long ttlMs,
+            @NonNull TimeSource timeSource) {
+        this.coordinator = coordinator;
+        this.lookahead = lookahead;
+        this.ttlMs = ttlMs;
+        this.timeSource = timeSource;
+    }
+
+    /**
+     * fetch the breaks of the next cue points within the fetch window, which are neither being fetched, fresh until
+     * their cue point, nor waiting to be retried.
+     *
+     * @param template          the ad call information of the movie
+     * @param upcomingCuePoints the pending cue points in order, only the first ones up to the lookahead are used
+     * @param positionMs        the movie position
+     */
+    public void prefetch(@NonNull AdRetriever template, @Nullable long[] upcomingCuePoints, long positionMs) {
+        if (upcomingCuePoints == null) {
+            return;
+        }
+
+        int count = Math.min(lookahead, upcomingCuePoints.length);
+        for (int i = 0; i < count; i++) {
+            long cuePoint = upcomingCuePoints[i];
+            long untilCueMs = Math.max(0, cuePoint - positionMs);
+            if (untilCueMs > getFetchWindowMs()) {
+                // the cue points are in order, the next ones are even further.
+                return;
+            }
+
+            Entry entry;
+            synchronized (this) {
+                Entry existing = entries.get(cuePoint);
+                if (existing != null && dueInMs(existing, untilCueMs) > 0) {
+                    continue;
+                }
+                entry = new Entry();
+                entries.put(cuePoint, entry);
+            }
+
+            ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "prefetch ad break for cue point: {}", cuePoint);
+            AdFetchCoordinator.PendingFetch fetch = coordinator.fetchAd(
+                    new AdRetriever(template.getVideoId(), template.getPublisherId(), cuePoint), FETCH_TIMEOUT_MS,
+                    new EntryCallback(entry));
+            synchronized (this) {
+                entry.fetch = fetch;
+            }
+        }
+    }
+
+    /**
+     * @param upcomingCuePoints the pending cue points in order
+     * @param positionMs        the movie position
+     * @return how long the movie can play before {@link #prefetch(AdRetriever, long[], long)} has a break to fetch,
+     * or {@link #NO_PREFETCH}
+     */
+    public synchronized long nextPrefetchDelayMs(@Nullable long[] upcomingCuePoints, long positionMs) {
+        if (upcomingCuePoints == null) {
+            return NO_PREFETCH;
+        }
+
+        long delayMs = NO_PREFETCH;
+        int count = Math.min(lookahead, upcomingCuePoints.length);
+        for (int i = 0; i < count; i++) {
+            long untilCueMs = Math.max(0, upcomingCuePoints[i] - positionMs);
+            Entry entry = entries.get(upcomingCuePoints[i]);
+            long dueMs = entry != null ? dueInMs(entry, untilCueMs) : untilCueMs - getFetchWindowMs();
+            delayMs = Math.min(delayMs, Math.max(0, dueMs));
+        }
+        return delayMs;
+    }
+
+    /**
+     * @param cuePoint the cue point about to make its ad call
+     * @return the fresh break of the cue point, removed from the cache, or null
+     */
+    @Nullable
+    public synchronized AdMediaModel take(long cuePoint) {
+        Entry entry = entries.get(cuePoint);
+        if (entry == null || entry.inFlight) {
+            return null;
+        }
+
+        entries.remove(cuePoint);
+        return isFresh(entry) ? entry.adMediaModel : null;
+    }
+
+    /**
+     * keep a break fetched somewhere else, to be taken at its cue point.
+     */
+    public synchronized void put(long cuePoint, @NonNull AdMediaModel adMediaModel) {
+        Entry entry = new Entry();
+        entry.onReceived(adMediaModel, timeSource.elapsedRealtimeMs());
+        entries.put(cuePoint, entry);
+    }
+
+    /**
+     * drop the breaks, and cancel the fetches still in flight.
+     */
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            if (entry.inFlight && entry.fetch != null) {
+                entry.fetch.cancel();
+            }
+        }
+        entries.clear();
+    }
+
+    private boolean isFresh(Entry entry) {
+        return !entry.inFlight
+                && entry.adMediaModel != null
+                && timeSource.elapsedRealtimeMs() - entry.receivedAtMs < ttlMs;
+    }
+
+    private long getFetchWindowMs() {
+        return Math.max(0, ttlMs - FETCH_MARGIN_MS);
+    }
+
+    /**
+     * @return how long before the entry has to be fetched again, {@link #NO_PREFETCH} while it is being fetched or
+     * when it is fresh until its cue point: the clock and the movie move together while it plays
+     */
+    private long dueInMs(Entry entry, long untilCueMs) {
+        long now = timeSource.elapsedRealtimeMs();
+        if (entry.inFlight) {
+            return NO_PREFETCH;
+        } else if (entry.adMediaModel == null) {
+            return entry.failedAtMs + RETRY_DELAY_MS - now;
+        } else if (now + untilCueMs - entry.receivedAtMs < ttlMs) {
+            return NO_PREFETCH;
+        }
+        return 0;
+    }
+
+    /**
+     * elapsed time since boot, in milliseconds.
+     */
+    public interface TimeSource {
+
+        long elapsedRealtimeMs();
+    }
+
+    private static class Entry {
+
+        private boolean inFlight = true;
+
+        @Nullable
+        private AdFetchCoordinator.PendingFetch fetch;
+
+        @Nullable
+        private AdMediaModel adMediaModel;
+
+        private long receivedAtMs;
+
+        private long failedAtMs;
+
+        void onReceived(AdMediaModel adMediaModel, long receivedAtMs) {
+            this.inFlight = false;
+            this.adMediaModel = adMediaModel;
+            this.receivedAtMs = receivedAtMs;
+        }
+
+        void onFailed(long failedAtMs) {
+            this.inFlight = false;
+            this.failedAtMs = failedAtMs;
+        }
+    }
+
+    /**
+     * a failed entry is kept until its retry, the ad call at the cue point does not wait for it.
+     */
+    private final class EntryCallback implements RetrieveAdCallback {
+
+        private final Entry entry;
+
+        EntryCallback(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void onReceiveAd(AdMediaModel mediaModels) {
+            synchronized (AdBreakPrefetcher.this) {
+                if (mediaModels == null || mediaModels.nubmerOfAd() == 0) {
+                    entry.onFailed(timeSource.elapsedRealtimeMs());
+                    return;
+                }
+                entry.onReceived(mediaModels, timeSource.elapsedRealtimeMs());
+            }
+        }
+
+        @Override
+        public void onError() {
+            synchronized (AdBreakPrefetcher.this) {
+                entry.onFailed(timeSource.elapsedRealtimeMs());
+            }
+        }
+
+        @Override
+        public void onEmptyAdReceived() {
+            synchronized (AdBreakPrefetcher.this) {
+                entry.onFailed(timeSource.elapsedRealtimeMs());
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.tubitv.media.controller;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.tubitv.media.fsm.callback.AdInterface;
+import com.tubitv.media.fsm.callback.RetrieveAdCallback;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.AdRetriever;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetch an ad break within a deadline, so a slow ad server can never hold the movie.
+ * <p>
+ * The primary and the fallback {@link AdInterface} are called in parallel. The break is delivered as soon as the
+ * primary returns ads, or once every request has answered. When the deadline hits first, whatever has resolved is
+ * delivered: the primary break if it is back, otherwise the fallback one, otherwise an empty break. Responses coming
+ * back after the delivery are dropped, and the callback is called exactly once, on the delivery {@link Executor}.
+ * <p>
+ * The time from the request to the delivery of every fetch which is not canceled is given to the {@link
+ * FetchListener}.
+ */
+public class AdFetchCoordinator {
+
+    /**
+     * time left before the cue point which is kept for preparing the ad player.
+     */
+    public static final long CUE_POINT_MARGIN_MS = 1000;
+
+    /**
+     * the shortest deadline given to an ad call, even when the cue point is closer than that.
+     */
+    public static final long MIN_TIMEOUT_MS = 500;
+
+    /**
+     * deadline of the pre-roll ad call, the movie is waiting on it.
+     */
+    public static final long PREROLL_TIMEOUT_MS = 4000;
+
+    private static ScheduledExecutorService sharedScheduler;
+
+    private final AdInterface primary;
+
+    @Nullable
+    private final AdInterface fallback;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Executor deliveryExecutor;
+
+    @Nullable
+    private volatile FetchListener fetchListener;
+
+    /**
+     * @param primary          the ad server to call
+     * @param fallback         an optional second ad server, called in parallel
+     * @param scheduler        runs the deadline timers
+     * @param deliveryExecutor the thread the {@link RetrieveAdCallback} is called on
+     */
+    public AdFetchCoordinator(@NonNull AdInterface primary, @Nullable AdInterface fallback,
+            @NonNull ScheduledExecutorService scheduler, @NonNull Executor deliveryExecutor) {
+        this.primary = primary;
+        this.fallback = fallback;
+        this.scheduler = scheduler;
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * coordinator delivering on the main thread, with the deadline timers on one thread shared by all the players.
+     */
+    public static AdFetchCoordinator onMainThread(@NonNull AdInterface primary, @Nullable AdInterface fallback) {
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        return new AdFetchCoordinator(primary, fallback, getSharedScheduler(), mainHandler::post);
+    }
+
+    static synchronized ScheduledExecutorService getSharedScheduler() {
+        if (sharedScheduler == null) {
+            sharedScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "AdFetchDeadline");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return sharedScheduler;
+    }
+
+    /**
+     * @param fetchListener told the latency of the fetches delivered from now on, or null
+     */
+    public void setFetchListener(@Nullable FetchListener fetchListener) {
+        this.fetchListener = fetchListener;
+    }
+
+    /**
+     * deadline of an ad call made at the current movie position for the given cue point.
+     */
+    public static long timeoutForCuePoint(long cuePointMs, long positionMs) {
+        return Math.max(MIN_TIMEOUT_MS, cuePointMs - positionMs - CUE_POINT_MARGIN_MS);
+    }
+
+    /**
+     * @param retriever the ad call information, copied before the requests are made
+     * @param timeoutMs the deadline of the break
+     * @param callback  notified once with the result
+     * @return the pending fetch, which can be canceled
+     */
+    @NonNull
+    public PendingFetch fetchAd(@NonNull AdRetriever retriever, long timeoutMs,
+            @NonNull RetrieveAdCallback callback) {
+        PendingFetch fetch = new PendingFetch(callback, fallback != null);
+
+        synchronized (fetch) {
+            fetch.timeout = scheduler.schedule(fetch::onDeadline, timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        primary.fetchAd(copy(retriever), fetch.primaryCallback);
+        if (fallback != null) {
+            fallback.fetchAd(copy(retriever), fetch.fallbackCallback);
+        }
+        return fetch;
+    }
+
+    private static AdRetriever copy(AdRetriever retriever) {
+        return new AdRetriever(retriever.getVideoId(), retriever.getPublisherId(), retriever.getCubPoint());
+    }
+
+    private static boolean hasAds(@Nullable AdMediaModel adMediaModel) {
+        return adMediaModel != null && adMediaModel.nubmerOfAd() > 0;
+    }
+
+    /**
+     * state of one ad break fetch, shared by the two requests and the deadline.
+     */
+    public final class PendingFetch {
+
+        private final RetrieveAdCallback callback;
+
+        private final long requestedAtMs = SystemClock.elapsedRealtime();
+
+        private final RequestCallback primaryCallback = new RequestCallback();
+
+        private final RequestCallback fallbackCallback = new RequestCallback();
+
+        private ScheduledFuture<?> timeout;
+
+        private boolean delivered = false;
+
+        /**
+         * set by {@link #cancel()}, a delivery already posted to the delivery executor is dropped too.
+         */
+        private boolean canceled = false;
+
+        private PendingFetch(RetrieveAdCallback callback, boolean hasFallback) {
+            this.callback = callback;
+            // without fallback, the fallback request counts as answered empty.
+            fallbackCallback.answered = !hasFallback;
+        }
+
+        /**
+         * drop the result, the callback will not be called anymore.
+         */
+        public synchronized void cancel() {
+            delivered = true;
+            canceled = true;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        }
+
+        public synchronized boolean isDone() {
+            return delivered;
+        }
+
+        private synchronized void onAnswer() {
+            if (delivered) {
+                return;
+            }
+
+            if (hasAds(primaryCallback.result)) {
+                deliver();
+            } else if (primaryCallback.answered && fallbackCallback.answered) {
+                deliver();
+            }
+        }
+
+        private synchronized void onDeadline() {
+            if (!delivered) {
+                deliver();
+            }
+        }
+
+        private void deliver() {
+            delivered = true;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+
+            final AdMediaModel result = hasAds(primaryCallback.result) ? primaryCallback.result
+                    : hasAds(fallbackCallback.result) ? fallbackCallback.result : null;
+            final boolean failed = result == null && primaryCallback.failed
+                    && (fallback == null || fallbackCallback.failed);
+
+            deliveryExecutor.execute(() -> {
+                synchronized (PendingFetch.this) {
+                    if (canceled) {
+                        return;
+                    }
+                }
+
+                FetchListener listener = fetchListener;
+                if (listener != null) {
+                    listener.onAdFetched(SystemClock.elapsedRealtime() - requestedAtMs);
+                }
+
+                if (result != null) {
+                    callback.onReceiveAd(result);
+                } else if (failed) {
+                    callback.onError();
+                } else {
+                    callback.onEmptyAdReceived();
+                }
+            });
+        }
+
+        private final class RequestCallback implements RetrieveAdCallback {
+
+            private boolean answered = false;
+
+            private boolean failed = false;
+
+            @Nullable
+            private AdMediaModel result;
+
+            @Override
+            public void onReceiveAd(AdMediaModel mediaModels) {
+                synchronized (PendingFetch.this) {
+                    answered = true;
+                    result = mediaModels;
+                }
+                onAnswer();
+            }
+
+            @Override
+            public void onError() {
+                synchronized (PendingFetch.this) {
+                    answered = true;
+                    failed = true;
+                }
+                onAnswer();
+            }
+
+            @Override
+            public void onEmptyAdReceived() {
+                synchronized (PendingFetch.this) {
+                    answered = true;
+                }
+                onAnswer();
+            }
+        }
+    }
+
+    /**
+     * told about every fetch delivered to its callback, on the delivery {@link Executor}.
+     */
+    public interface FetchListener {
+
+        /**
+         * @param latencyMs from the request to the delivery, whether ads came back or not
+         */
+        void onAdFetched(long latencyMs);
+    }
+}
@@ -0,0 +1,111 @@
+package com.tubitv.media.controller;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.tubitv.media.helpers.Constants;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.MediaModel;
+import com.tubitv.media.utilities.ExoPlayerLogger;
+import com.tubitv.media.utilities.PlayerDeviceUtils;
+
+/**
+ * Prepare the ad player with the first ad of a break while the movie is still playing, so the ad buffer is already
+ * warm when the cue point is reached.
+ * <p>
+ * The ad response comes back {@link com.tubitv.media.fsm.listener.CuePointMonitor#networkingAhead()} before the cue
+ * point, the prefetcher uses that lead window to prepare the ad player paused. At the cue point
+ * {@link com.tubitv.media.fsm.concrete.AdPlayingState} only needs to attach the view and start playing.
+ * Only available with two player instances, a single player is busy playing the movie.
+ */
+public class AdPrefetcher {
+
+    @Nullable
+    private MediaModel prefetchedAd;
+
+    @Nullable
+    private SimpleExoPlayer prefetchedPlayer;
+
+    private long prefetchStartMs = 0;
+
+    private long lastBufferedAheadMs = 0;
+
+    /**
+     * prepare the ad player with the first ad of the break, without playing it.
+     *
+     * @param adPlayer     the player which will play the ads
+     * @param adMediaModel the ad break just received
+     * @return true if the first ad is being buffered ahead of the cue point
+     */
+    public boolean prefetch(@NonNull SimpleExoPlayer adPlayer, @Nullable AdMediaModel adMediaModel) {
+        if (PlayerDeviceUtils.useSinglePlayer() || adMediaModel == null) {
+            return false;
+        }
+
+        MediaModel firstAd = adMediaModel.nextAD();
+        if (firstAd == null || firstAd.isVpaid() || firstAd.getMediaSource() == null) {
+            return false;
+        }
+
+        if (isPrefetched(adPlayer, firstAd)) {
+            return true;
+        }
+
+        adPlayer.setPlayWhenReady(false);
+        adPlayer.prepare(firstAd.getMediaSource(), true, true);
+
+        prefetchedAd = firstAd;
+        prefetchedPlayer = adPlayer;
+        prefetchStartMs = SystemClock.elapsedRealtime();
+
+        ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "prefetch ad: {}", firstAd.getMediaName());
+        return true;
+    }
+
+    /**
+     * @param adPlayer the player which is about to play the ad
+     * @param ad       the ad about to be played
+     * @return true if the player is already prepared with this ad and still has its buffer
+     */
+    public boolean isPrefetched(@NonNull SimpleExoPlayer adPlayer, @Nullable MediaModel ad) {
+        return ad != null
+                && ad == prefetchedAd
+                && adPlayer == prefetchedPlayer
+                && adPlayer.getPlaybackState() != Player.STATE_IDLE;
+    }
+
+    /**
+     * hand the prefetched ad over to playback, and report how much of it has been buffered ahead of time.
+     *
+     * @return the buffered duration ahead of the playing position, in milliseconds
+     */
+    public long consume() {
+        lastBufferedAheadMs = 0;
+
+        if (prefetchedPlayer != null) {
+            lastBufferedAheadMs = Math.max(0,
+                    prefetchedPlayer.getBufferedPosition() - prefetchedPlayer.getCurrentPosition());
+
+            ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING,
+                    "prefetched ad buffered: " + lastBufferedAheadMs + "ms, in "
+                            + (SystemClock.elapsedRealtime() - prefetchStartMs) + "ms lead time");
+        }
+
+        clear();
+        return lastBufferedAheadMs;
+    }
+
+    public void clear() {
+        prefetchedAd = null;
+        prefetchedPlayer = null;
+    }
+
+    /**
+     * @return the buffered duration of the last consumed prefetch, in milliseconds
+     */
+    public long getLastBufferedAheadMs() {
+        return lastBufferedAheadMs;
+    }
+}
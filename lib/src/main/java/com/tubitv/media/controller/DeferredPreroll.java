@@ -0,0 +1,134 @@
+package com.tubitv.media.controller;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import com.tubitv.media.fsm.callback.RetrieveAdCallback;
+import com.tubitv.media.models.AdMediaModel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wait on the pre-roll call up to the deadline of the {@link StartupPolicy}, the movie start is not held longer.
+ * <p>
+ * An answer before the deadline is handed to the callback like any ad call answer. At the deadline the callback is
+ * told the pre-roll is missed, and a break coming back later is handed over as a late one, to be played further in
+ * the movie. A late empty or failed answer is dropped. The callback is called on the delivery {@link Executor}.
+ */
+public class DeferredPreroll implements RetrieveAdCallback {
+
+    private static final int WAITING = 0;
+
+    private static final int ANSWERED = 1;
+
+    private static final int MISSED = 2;
+
+    private static final int CANCELED = 3;
+
+    private final Callback callback;
+
+    private final Executor deliveryExecutor;
+
+    private int state = WAITING;
+
+    private ScheduledFuture<?> deadline;
+
+    /**
+     * @param callback         notified of the answer, or of the missed pre-roll and its late break
+     * @param scheduler        runs the deadline timer
+     * @param deliveryExecutor the thread the callback is called on
+     * @param deadlineMs       how long the movie start waits on the pre-roll
+     */
+    public DeferredPreroll(@NonNull Callback callback, @NonNull ScheduledExecutorService scheduler,
+            @NonNull Executor deliveryExecutor, long deadlineMs) {
+        this.callback = callback;
+        this.deliveryExecutor = deliveryExecutor;
+        synchronized (this) {
+            deadline = scheduler.schedule(this::onDeadline, deadlineMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * deferred pre-roll delivering on the main thread, with the deadline on the timer thread of the ad calls.
+     */
+    public static DeferredPreroll onMainThread(@NonNull Callback callback, long deadlineMs) {
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        return new DeferredPreroll(callback, AdFetchCoordinator.getSharedScheduler(), mainHandler::post, deadlineMs);
+    }
+
+    public synchronized boolean isMissed() {
+        return state == MISSED;
+    }
+
+    /**
+     * drop the pre-roll, the callback will not be called anymore.
+     */
+    public synchronized void cancel() {
+        state = CANCELED;
+        deadline.cancel(false);
+    }
+
+    @Override
+    public void onReceiveAd(final AdMediaModel mediaModels) {
+        int previous = answer();
+        if (previous == WAITING) {
+            deliveryExecutor.execute(() -> callback.onReceiveAd(mediaModels));
+        } else if (previous == MISSED && mediaModels != null) {
+            deliveryExecutor.execute(() -> callback.onLateAdReceived(mediaModels));
+        }
+    }
+
+    @Override
+    public void onError() {
+        if (answer() == WAITING) {
+            deliveryExecutor.execute(callback::onError);
+        }
+    }
+
+    @Override
+    public void onEmptyAdReceived() {
+        if (answer() == WAITING) {
+            deliveryExecutor.execute(callback::onEmptyAdReceived);
+        }
+    }
+
+    /**
+     * @return the state before the answer
+     */
+    private synchronized int answer() {
+        int previous = state;
+        if (state == WAITING || state == MISSED) {
+            state = ANSWERED;
+            deadline.cancel(false);
+        }
+        return previous;
+    }
+
+    private void onDeadline() {
+        synchronized (this) {
+            if (state != WAITING) {
+                return;
+            }
+            state = MISSED;
+        }
+        deliveryExecutor.execute(callback::onPrerollMissed);
+    }
+
+    /**
+     * receives the pre-roll answered before the deadline, like an ad call, or the missed pre-roll.
+     */
+    public interface Callback extends RetrieveAdCallback {
+
+        /**
+         * the deadline has passed before the pre-roll, the movie starts without it.
+         */
+        void onPrerollMissed();
+
+        /**
+         * the break of the missed pre-roll came back after the deadline.
+         */
+        void onLateAdReceived(@NonNull AdMediaModel adMediaModel);
+    }
+}
@@ -0,0 +1,141 @@
+package com.tubitv.media.controller;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.tubitv.media.fsm.callback.AdInterface;
+import com.tubitv.media.fsm.callback.CuePointCallBack;
+import com.tubitv.media.fsm.callback.RetrieveAdCallback;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.AdRetriever;
+import com.tubitv.media.models.CuePointsRetriever;
+
+/**
+ * An ad call made before anyone waits on it, like the pre-roll call of a preloaded movie: the answer is kept until
+ * the callback subscribes, and handed to it right away when it was already back.
+ * <p>
+ * The callback is called exactly once, on the thread of the answer when it comes after the subscription, otherwise on
+ * the subscribing thread. {@link #asAdInterface()} lets an {@link AdFetchCoordinator} wait on the answer within its
+ * deadline, like on an ad server.
+ */
+public class PendingAdResponse implements RetrieveAdCallback {
+
+    private static final int PENDING = 0;
+
+    private static final int RECEIVED = 1;
+
+    private static final int EMPTY = 2;
+
+    private static final int FAILED = 3;
+
+    private final long cuePoint;
+
+    private int answer = PENDING;
+
+    @Nullable
+    private AdMediaModel adMediaModel;
+
+    @Nullable
+    private RetrieveAdCallback callback;
+
+    private boolean delivered = false;
+
+    /**
+     * @param cuePoint the cue point of the ad call, in milliseconds
+     */
+    public PendingAdResponse(long cuePoint) {
+        this.cuePoint = cuePoint;
+    }
+
+    public long getCuePoint() {
+        return cuePoint;
+    }
+
+    public synchronized boolean isAnswered() {
+        return answer != PENDING;
+    }
+
+    /**
+     * hand the answer to the callback, now or when it comes back. Only the first callback is ever called.
+     *
+     * @return false when another callback has already subscribed
+     */
+    public boolean deliverTo(@NonNull RetrieveAdCallback callback) {
+        synchronized (this) {
+            if (this.callback != null) {
+                return false;
+            }
+            this.callback = callback;
+        }
+        deliverIfReady();
+        return true;
+    }
+
+    /**
+     * @return an ad server answering the first ad call with this response, and failing the other calls
+     */
+    @NonNull
+    public AdInterface asAdInterface() {
+        return new AdInterface() {
+            @Override
+            public void fetchAd(AdRetriever retriever, RetrieveAdCallback callback) {
+                if (!deliverTo(callback)) {
+                    callback.onError();
+                }
+            }
+
+            @Override
+            public void fetchQuePoint(CuePointsRetriever retriever, CuePointCallBack callBack) {
+                callBack.onCuePointError();
+            }
+        };
+    }
+
+    @Override
+    public void onReceiveAd(AdMediaModel mediaModels) {
+        answer(RECEIVED, mediaModels);
+    }
+
+    @Override
+    public void onError() {
+        answer(FAILED, null);
+    }
+
+    @Override
+    public void onEmptyAdReceived() {
+        answer(EMPTY, null);
+    }
+
+    private void answer(int answer, @Nullable AdMediaModel adMediaModel) {
+        synchronized (this) {
+            if (this.answer != PENDING) {
+                return;
+            }
+            this.answer = answer;
+            this.adMediaModel = adMediaModel;
+        }
+        deliverIfReady();
+    }
+
+    private void deliverIfReady() {
+        RetrieveAdCallback callback;
+        synchronized (this) {
+            if (delivered || answer == PENDING || this.callback == null) {
+                return;
+            }
+            delivered = true;
+            callback = this.callback;
+        }
+
+        switch (answer) {
+            case RECEIVED:
+                callback.onReceiveAd(adMediaModel);
+                break;
+            case EMPTY:
+                callback.onEmptyAdReceived();
+                break;
+            default:
+                callback.onError();
+                break;
+        }
+    }
+}
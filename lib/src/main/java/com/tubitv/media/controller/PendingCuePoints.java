@@ -0,0 +1,83 @@
+package com.tubitv.media.controller;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.tubitv.media.fsm.callback.CuePointCallBack;
+
+/**
+ * A cue point call made before anyone waits on it, the answer is kept until the callback subscribes, like in
+ * {@link PendingAdResponse}. The callback is called exactly once.
+ */
+public class PendingCuePoints implements CuePointCallBack {
+
+    private boolean answered = false;
+
+    private boolean failed = false;
+
+    @Nullable
+    private long[] cuePoints;
+
+    @Nullable
+    private CuePointCallBack callback;
+
+    private boolean delivered = false;
+
+    public synchronized boolean isAnswered() {
+        return answered;
+    }
+
+    /**
+     * hand the answer to the callback, now or when it comes back. Only the first callback is ever called.
+     *
+     * @return false when another callback has already subscribed
+     */
+    public boolean deliverTo(@NonNull CuePointCallBack callback) {
+        synchronized (this) {
+            if (this.callback != null) {
+                return false;
+            }
+            this.callback = callback;
+        }
+        deliverIfReady();
+        return true;
+    }
+
+    @Override
+    public void onCuePointReceived(long[] quePoints) {
+        answer(false, quePoints);
+    }
+
+    @Override
+    public void onCuePointError() {
+        answer(true, null);
+    }
+
+    private void answer(boolean failed, @Nullable long[] cuePoints) {
+        synchronized (this) {
+            if (answered) {
+                return;
+            }
+            answered = true;
+            this.failed = failed;
+            this.cuePoints = cuePoints;
+        }
+        deliverIfReady();
+    }
+
+    private void deliverIfReady() {
+        CuePointCallBack callback;
+        synchronized (this) {
+            if (delivered || !answered || this.callback == null) {
+                return;
+            }
+            delivered = true;
+            callback = this.callback;
+        }
+
+        if (failed) {
+            callback.onCuePointError();
+        } else {
+            callback.onCuePointReceived(cuePoints);
+        }
+    }
+}
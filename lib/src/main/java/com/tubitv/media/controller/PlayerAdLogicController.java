@@ -3,6 +3,9 @@ package com.tubitv.media.controller;
 import android.support.annotation.Nullable;
 import com.tubitv.media.fsm.listener.AdPlayingMonitor;
 import com.tubitv.media.fsm.listener.CuePointMonitor;
+import com.tubitv.media.helpers.AdBreakSplicer;
+import com.tubitv.media.helpers.AdCreativePrecacher;
+import com.tubitv.media.helpers.PlaybackMetrics;
 import com.tubitv.media.interfaces.DoublePlayerInterface;
 import com.tubitv.media.interfaces.PlaybackActionCallback;
 import com.tubitv.media.models.VpaidClient;
@@ -23,6 +26,14 @@ public class PlayerAdLogicController {
 
     private VpaidClient vpaidClient;
 
+    private final AdPrefetcher adPrefetcher = new AdPrefetcher();
+
+    private final AdBreakSplicer adBreakSplicer = new AdBreakSplicer();
+
+    private AdCreativePrecacher adCreativePrecacher;
+
+    private final PlaybackMetrics playbackMetrics = new PlaybackMetrics();
+
     public PlayerAdLogicController() {
     }
 
@@ -87,6 +98,27 @@ public class PlayerAdLogicController {
     public void setVpaidClient(@Nullable VpaidClient vpaidClient) {
         this.vpaidClient = vpaidClient;
     }
+
+    public AdPrefetcher getAdPrefetcher() {
+        return adPrefetcher;
+    }
+
+    public AdBreakSplicer getAdBreakSplicer() {
+        return adBreakSplicer;
+    }
+
+    @Nullable
+    public AdCreativePrecacher getAdCreativePrecacher() {
+        return adCreativePrecacher;
+    }
+
+    public void setAdCreativePrecacher(@Nullable AdCreativePrecacher adCreativePrecacher) {
+        this.adCreativePrecacher = adCreativePrecacher;
+    }
+
+    public PlaybackMetrics getPlaybackMetrics() {
+        return playbackMetrics;
+    }
 }
 
 
@@ -0,0 +1,277 @@
+package com.tubitv.media.controller;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.ExoPlayerFactory;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import com.tubitv.media.fsm.callback.AdInterface;
+import com.tubitv.media.fsm.callback.CuePointCallBack;
+import com.tubitv.media.fsm.callback.RetrieveAdCallback;
+import com.tubitv.media.helpers.AdCreativePrecacher;
+import com.tubitv.media.helpers.LoadControlProfile;
+import com.tubitv.media.helpers.MediaHelper;
+import com.tubitv.media.helpers.PhasedLoadControl;
+import com.tubitv.media.helpers.PlayerPool;
+import com.tubitv.media.helpers.SeededBandwidthMeter;
+import com.tubitv.media.helpers.ThroughputHistory;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.AdRetriever;
+import com.tubitv.media.models.CuePointsRetriever;
+import com.tubitv.media.models.MediaModel;
+import com.tubitv.media.utilities.ExoPlayerLogger;
+import com.tubitv.media.utilities.PlayerDeviceUtils;
+
+/**
+ * Start the slow steps of a movie launch from the browse screen, while the player activity is being shown: the
+ * content player is built and prepared paused, so the manifest and the first segments load, and the cue points and
+ * the pre-roll ad are fetched.
+ * <p>
+ * The prepared player is parked in the {@link PlayerPool} under the content key of the movie, where the activity
+ * takes it back like a player of its own, and the activity adopts the ad calls through {@link #take(Uri)}. Only the
+ * movie preloaded last is kept, and it is dropped when it is not taken within {@link #MAX_AGE_MS}.
+ * <p>
+ * The preloader is used from the main thread, the ad calls answer on any thread.
+ */
+public class PlayerPreloader {
+
+    private static final String TAG = PlayerPreloader.class.getSimpleName();
+
+    /**
+     * as long as the {@link PlayerPool} keeps the prepared player.
+     */
+    public static final long MAX_AGE_MS = PlayerPool.DEFAULT_IDLE_TIMEOUT_MS;
+
+    private static final PlayerPreloader DEFAULT = new PlayerPreloader();
+
+    @Nullable
+    private Preload preload;
+
+    @Nullable
+    private AdCreativePrecacher adCreativePrecacher;
+
+    @NonNull
+    public static PlayerPreloader get() {
+        return DEFAULT;
+    }
+
+    /**
+     * start loading the movie and fetching its ads, replacing the preload of another movie.
+     *
+     * @param movie              the movie about to be played
+     * @param adInterface        the ad server, null to only prepare the player
+     * @param cuePointsRetriever the cue point call information of the movie
+     * @param adRetriever        the ad call information of the movie, its cue point is set for the pre-roll
+     * @param startPositionMs    the position the movie resumes from, 0 from the start
+     */
+    @NonNull
+    public Preload preload(@NonNull Context context, @NonNull MediaModel movie, @Nullable AdInterface adInterface,
+            @Nullable CuePointsRetriever cuePointsRetriever, @Nullable AdRetriever adRetriever, long startPositionMs) {
+        if (preload != null && preload.videoUrl.equals(movie.getVideoUrl()) && !preload.isExpired()) {
+            return preload;
+        }
+        cancel();
+
+        Context appContext = context.getApplicationContext();
+        Preload preload = new Preload(movie.getVideoUrl(), startPositionMs);
+        this.preload = preload;
+
+        // the single player plays the pre-roll first, it has nothing to prepare ahead of it.
+        if (!PlayerDeviceUtils.useSinglePlayer()) {
+            preparePlayer(appContext, movie, preload);
+        }
+
+        if (adInterface != null && cuePointsRetriever != null) {
+            fetchCuePoints(appContext, adInterface, cuePointsRetriever, adRetriever, preload);
+        }
+
+        ExoPlayerLogger.i(TAG, "preload {} from {}ms", movie.getVideoUrl(), startPositionMs);
+        return preload;
+    }
+
+    /**
+     * hand the preload of the movie over to its player activity, only once.
+     *
+     * @return the preload, or null when the movie has not been preloaded, or too long ago
+     */
+    @Nullable
+    public Preload take(@Nullable Uri videoUrl) {
+        Preload preload = this.preload;
+        if (preload == null || !preload.videoUrl.equals(videoUrl)) {
+            return null;
+        }
+
+        this.preload = null;
+        if (preload.isExpired()) {
+            ExoPlayerLogger.i(TAG, "preload of {} expired", videoUrl);
+            return null;
+        }
+        return preload;
+    }
+
+    /**
+     * drop the preload which has not been taken, the browse screen left the movie.
+     */
+    public void cancel() {
+        Preload preload = this.preload;
+        this.preload = null;
+        if (preload != null) {
+            PlayerPool.get().evict(PlayerPool.keyOf(PlayerPool.ROLE_CONTENT, preload.videoUrl));
+        }
+        if (adCreativePrecacher != null) {
+            adCreativePrecacher.cancelAll();
+        }
+    }
+
+    private void preparePlayer(Context context, MediaModel movie, Preload preload) {
+        SeededBandwidthMeter bandwidthMeter = SeededBandwidthMeter.getDefault();
+        if (bandwidthMeter.getHistory() == null) {
+            bandwidthMeter.setHistory(ThroughputHistory.create(context));
+        }
+        bandwidthMeter.seed(ThroughputHistory.networkKey(context));
+
+        DefaultTrackSelector trackSelector = new DefaultTrackSelector(
+                new AdaptiveTrackSelection.Factory(bandwidthMeter));
+        PhasedLoadControl loadControl = new PhasedLoadControl(LoadControlProfile.forContent(context),
+                LoadControlProfile.BACKGROUND);
+        SimpleExoPlayer player = ExoPlayerFactory.newSimpleInstance(context, trackSelector, loadControl);
+
+        MediaSource mediaSource = MediaHelper.buildMediaSource(movie,
+                MediaHelper.buildDataSourceFactory(context, bandwidthMeter),
+                MediaHelper.buildManifestDataSourceFactory(context), null, null);
+        player.setPlayWhenReady(false);
+        if (preload.startPositionMs > 0) {
+            player.seekTo(preload.startPositionMs);
+        }
+        player.prepare(mediaSource, preload.startPositionMs <= 0, false);
+
+        preload.mediaSource = mediaSource;
+        PlayerPool.get().register(context);
+        PlayerPool.get().park(PlayerPool.keyOf(PlayerPool.ROLE_CONTENT, preload.videoUrl),
+                new PlayerPool.Entry(player, trackSelector, loadControl));
+    }
+
+    private void fetchCuePoints(final Context context, final AdInterface adInterface,
+            CuePointsRetriever cuePointsRetriever, @Nullable final AdRetriever adRetriever, final Preload preload) {
+        adInterface.fetchQuePoint(cuePointsRetriever, new CuePointCallBack() {
+            @Override
+            public void onCuePointReceived(long[] quePoints) {
+                // the pre-roll call is made before the fsm sees the cue points, so it finds the call in flight.
+                boolean hasPreroll = quePoints != null && quePoints.length > 0 && quePoints[0] == 0;
+                if (adRetriever != null && hasPreroll) {
+                    fetchPreroll(context, adInterface, adRetriever, preload);
+                }
+                preload.cuePoints.onCuePointReceived(quePoints);
+            }
+
+            @Override
+            public void onCuePointError() {
+                preload.cuePoints.onCuePointError();
+            }
+        });
+    }
+
+    private void fetchPreroll(Context context, AdInterface adInterface, AdRetriever adRetriever,
+            final Preload preload) {
+        final PendingAdResponse preroll = new PendingAdResponse(preload.startPositionMs);
+        final AdCreativePrecacher precacher = getAdCreativePrecacher(context);
+        adRetriever.setCubPoint(preroll.getCuePoint());
+        preload.preroll = preroll;
+
+        adInterface.fetchAd(adRetriever, new RetrieveAdCallback() {
+            @Override
+            public void onReceiveAd(AdMediaModel mediaModels) {
+                // the creatives download while the activity starts, the ad player then reads them from the cache.
+                precacher.precache(mediaModels, preroll.getCuePoint());
+                preroll.onReceiveAd(mediaModels);
+            }
+
+            @Override
+            public void onError() {
+                preroll.onError();
+            }
+
+            @Override
+            public void onEmptyAdReceived() {
+                preroll.onEmptyAdReceived();
+            }
+        });
+    }
+
+    private synchronized AdCreativePrecacher getAdCreativePrecacher(Context context) {
+        if (adCreativePrecacher == null) {
+            adCreativePrecacher = new AdCreativePrecacher(MediaHelper.buildDataSourceFactory(context, null),
+                    MediaHelper.buildManifestDataSourceFactory(context),
+                    SeededBandwidthMeter.getDefault().forSource(SeededBandwidthMeter.SOURCE_AD));
+        }
+        return adCreativePrecacher;
+    }
+
+    /**
+     * what has been started for a movie, adopted by its player activity.
+     */
+    public static class Preload {
+
+        @NonNull
+        private final Uri videoUrl;
+
+        private final long startPositionMs;
+
+        private final long createdAtMs = SystemClock.elapsedRealtime();
+
+        private final PendingCuePoints cuePoints = new PendingCuePoints();
+
+        @Nullable
+        private volatile PendingAdResponse preroll;
+
+        @Nullable
+        private MediaSource mediaSource;
+
+        private Preload(@NonNull Uri videoUrl, long startPositionMs) {
+            this.videoUrl = videoUrl;
+            this.startPositionMs = startPositionMs;
+        }
+
+        @NonNull
+        public Uri getVideoUrl() {
+            return videoUrl;
+        }
+
+        public long getStartPositionMs() {
+            return startPositionMs;
+        }
+
+        /**
+         * @return the cue points of the movie, answered or still pending
+         */
+        @NonNull
+        public PendingCuePoints getCuePoints() {
+            return cuePoints;
+        }
+
+        /**
+         * @return the pre-roll ad call, null until the cue points have told there is a pre-roll
+         */
+        @Nullable
+        public PendingAdResponse getPreroll() {
+            return preroll;
+        }
+
+        /**
+         * @return the media source the preloaded player has been prepared with, null in single player mode
+         */
+        @Nullable
+        public MediaSource getMediaSource() {
+            return mediaSource;
+        }
+
+        private boolean isExpired() {
+            return SystemClock.elapsedRealtime() - createdAtMs > MAX_AGE_MS;
+        }
+    }
+}
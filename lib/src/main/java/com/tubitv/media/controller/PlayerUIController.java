@@ -5,6 +5,7 @@ import android.view.View;
 import android.webkit.WebView;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.tubitv.media.helpers.PhasedLoadControl;
 import com.tubitv.media.utilities.PlayerDeviceUtils;
 
 /**
@@ -19,6 +20,9 @@ public class PlayerUIController {
 
     private SimpleExoPlayer adPlayer;
 
+    @Nullable
+    private PhasedLoadControl contentLoadControl;
+
     private WebView vpaidWebView;
 
     private View exoPlayerView;
@@ -54,6 +58,15 @@ public class PlayerUIController {
         this.contentPlayer = contentPlayer;
     }
 
+    @Nullable
+    public PhasedLoadControl getContentLoadControl() {
+        return contentLoadControl;
+    }
+
+    public void setContentLoadControl(@Nullable PhasedLoadControl contentLoadControl) {
+        this.contentLoadControl = contentLoadControl;
+    }
+
     public SimpleExoPlayer getAdPlayer() {
         // We'll reuse content player to play ads for single player instance case
         if (PlayerDeviceUtils.useSinglePlayer()) {
@@ -0,0 +1,101 @@
+package com.tubitv.media.controller;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decide when the next progress update of the player is needed, from what its consumers need, instead of updating at
+ * a fixed frequency for the whole movie.
+ * <p>
+ * Every registered {@link Consumer} tells how long from the current position it needs the next update, the earliest
+ * one wins. When no consumer needs an update the progress sleeps, until {@link #invalidate()} is called or the player
+ * changes state. Without any consumer, the progress updates at {@link #DEFAULT_DELAY_MS}.
+ * <p>
+ * The scheduler is used on the main thread.
+ */
+public class ProgressScheduler {
+
+    /**
+     * returned when no update is needed until something changes.
+     */
+    public static final long SLEEP = Long.MAX_VALUE;
+
+    public static final long DEFAULT_DELAY_MS = 1000;
+
+    /**
+     * the shortest delay between two updates, however close a consumer deadline is.
+     */
+    public static final long MIN_DELAY_MS = 100;
+
+    private final List<Consumer> consumers = new ArrayList<>();
+
+    @Nullable
+    private Runnable invalidateListener;
+
+    /**
+     * a consumer which needs an update at every multiple of the resolution, like a label showing the time in seconds.
+     *
+     * @param resolutionMs the resolution of the consumer
+     */
+    @NonNull
+    public static Consumer atResolution(final long resolutionMs) {
+        return positionMs -> resolutionMs - Math.max(0, positionMs) % resolutionMs;
+    }
+
+    public void register(@NonNull Consumer consumer) {
+        if (!consumers.contains(consumer)) {
+            consumers.add(consumer);
+            invalidate();
+        }
+    }
+
+    public void unregister(@NonNull Consumer consumer) {
+        consumers.remove(consumer);
+    }
+
+    /**
+     * @param invalidateListener called when the consumers need their next update to be computed again
+     */
+    public void setInvalidateListener(@Nullable Runnable invalidateListener) {
+        this.invalidateListener = invalidateListener;
+    }
+
+    /**
+     * compute the next update again, when what a consumer needs has changed.
+     */
+    public void invalidate() {
+        if (invalidateListener != null) {
+            invalidateListener.run();
+        }
+    }
+
+    /**
+     * @param positionMs the current position of the player
+     * @return the delay before the next update, or {@link #SLEEP}
+     */
+    public long nextDelayMs(long positionMs) {
+        if (consumers.isEmpty()) {
+            return DEFAULT_DELAY_MS;
+        }
+
+        long delayMs = SLEEP;
+        for (int i = 0; i < consumers.size(); i++) {
+            delayMs = Math.min(delayMs, consumers.get(i).nextProgressDelayMs(positionMs));
+        }
+        return delayMs == SLEEP ? SLEEP : Math.max(MIN_DELAY_MS, delayMs);
+    }
+
+    /**
+     * a consumer of the progress updates.
+     */
+    public interface Consumer {
+
+        /**
+         * @param positionMs the current position of the player
+         * @return how long from now the next update is needed, or {@link #SLEEP}
+         */
+        long nextProgressDelayMs(long positionMs);
+    }
+}
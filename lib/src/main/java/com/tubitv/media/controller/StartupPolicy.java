@@ -0,0 +1,37 @@
+package com.tubitv.media.controller;
+
+/**
+ * How the movie start waits on its pre-roll.
+ * <p>
+ * {@link #BLOCKING} shows the pre-roll first, the movie waits for the ad call up to
+ * {@link AdFetchCoordinator#PREROLL_TIMEOUT_MS}. {@link #DEFERRED} buffers the movie paused while the pre-roll is
+ * fetched, and only waits up to a short deadline: when the ad server is slower than that, the movie starts and the
+ * missed pre-roll is played as an early mid-roll, {@link #missedPrerollOffsetMs} into the movie.
+ */
+public class StartupPolicy {
+
+    public static final StartupPolicy BLOCKING = new StartupPolicy(false, AdFetchCoordinator.PREROLL_TIMEOUT_MS, 0);
+
+    public static final StartupPolicy DEFERRED = new StartupPolicy(true, 1500, 30 * 1000);
+
+    /**
+     * true to start the movie when the pre-roll misses {@link #prerollDeadlineMs}.
+     */
+    public final boolean deferPreroll;
+
+    /**
+     * how long the movie start waits on the pre-roll call.
+     */
+    public final long prerollDeadlineMs;
+
+    /**
+     * where the missed pre-roll plays, from the position the movie started at.
+     */
+    public final long missedPrerollOffsetMs;
+
+    public StartupPolicy(boolean deferPreroll, long prerollDeadlineMs, long missedPrerollOffsetMs) {
+        this.deferPreroll = deferPreroll;
+        this.prerollDeadlineMs = prerollDeadlineMs;
+        this.missedPrerollOffsetMs = missedPrerollOffsetMs;
+    }
+}
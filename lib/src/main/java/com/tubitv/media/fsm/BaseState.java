@@ -1,6 +1,8 @@
 package com.tubitv.media.fsm;
 
 import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.tubitv.media.controller.PlayerAdLogicController;
 import com.tubitv.media.controller.PlayerUIController;
 import com.tubitv.media.fsm.state_machine.FsmPlayer;
@@ -8,6 +10,7 @@ import com.tubitv.media.helpers.Constants;
 import com.tubitv.media.models.AdMediaModel;
 import com.tubitv.media.models.MediaModel;
 import com.tubitv.media.utilities.ExoPlayerLogger;
+import com.tubitv.media.utilities.PlayerDeviceUtils;
 
 /**
  * Created by allensun on 7/31/17.
@@ -52,4 +55,30 @@ public abstract class BaseState implements State {
         movieMedia = fsmPlayer.getMovieMedia();
         adMedia = fsmPlayer.getAdMedia();
     }
+
+    @Override
+    public void performBackgroundWork(@NonNull FsmPlayer fsmPlayer) {
+        // most of the states only update the UI.
+    }
+
+    /**
+     * prepare the movie paused while the startup waits on the ad calls, only with two players, a single player is
+     * needed for the pre-roll. {@link com.tubitv.media.fsm.concrete.MoviePlayingState} then starts a player which is
+     * already buffered.
+     */
+    protected void prebufferMovie(@NonNull FsmPlayer fsmPlayer) {
+        SimpleExoPlayer moviePlayer = controller.getContentPlayer();
+        if (PlayerDeviceUtils.useSinglePlayer() || moviePlayer == null || movieMedia.getMediaSource() == null
+                || moviePlayer.getPlaybackState() != Player.STATE_IDLE) {
+            return;
+        }
+
+        moviePlayer.setPlayWhenReady(false);
+        componentController.getAdBreakSplicer()
+                .prepareContent(moviePlayer, movieMedia.getMediaSource(), !controller.hasHistory(), false);
+        // the history is kept for the pre-roll cue point, MoviePlayingState drops it.
+        if (controller.hasHistory()) {
+            moviePlayer.seekTo(moviePlayer.getCurrentWindowIndex(), fsmPlayer.getPrerollCuePoint());
+        }
+    }
 }
@@ -17,6 +17,10 @@ public enum Input {
      * Only expect inputs of {@link com.tubitv.media.fsm.concrete.MakingPrerollAdCallState}
      */
     PRE_ROLL_AD_RECEIVED,
+    /**
+     * the pre-roll missed the deadline of the {@link com.tubitv.media.controller.StartupPolicy}, the movie starts.
+     */
+    PRE_ROLL_AD_TIMEOUT,
 
     /**
      * Only expect inputs of {@link com.tubitv.media.fsm.concrete.MakingAdCallState}
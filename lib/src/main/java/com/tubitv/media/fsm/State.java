@@ -26,4 +26,12 @@ public interface State {
      */
     void performWorkAndUpdatePlayerUI(@NonNull FsmPlayer fsmPlayer);
 
+    /**
+     * once the UI has been updated, do the work which doesn't touch any view, like the network calls.
+     * in asynchronous mode, this runs on the fsm worker thread instead of the main thread.
+     *
+     * @param fsmPlayer the state machine itself that contains the UI and Business logic parts.
+     */
+    void performBackgroundWork(@NonNull FsmPlayer fsmPlayer);
+
 }
@@ -5,13 +5,17 @@ import android.view.View;
 import android.webkit.WebView;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.tubitv.media.controller.AdPrefetcher;
 import com.tubitv.media.controller.PlayerAdLogicController;
 import com.tubitv.media.controller.PlayerUIController;
 import com.tubitv.media.fsm.BaseState;
 import com.tubitv.media.fsm.Input;
 import com.tubitv.media.fsm.State;
 import com.tubitv.media.fsm.concrete.factory.StateFactory;
+import com.tubitv.media.fsm.listener.AdPlayingMonitor;
 import com.tubitv.media.fsm.state_machine.FsmPlayer;
+import com.tubitv.media.helpers.AdBreakSplicer;
+import com.tubitv.media.helpers.PlayerEventBus;
 import com.tubitv.media.models.AdMediaModel;
 import com.tubitv.media.models.MediaModel;
 import com.tubitv.media.models.VpaidClient;
@@ -89,8 +93,24 @@ public class AdPlayingState extends BaseState {
 
             boolean haveResumePosition = controller.getAdResumePosition() != C.TIME_UNSET;
 
-            //prepare the mediaSource to AdPlayer
-            adPlayer.prepare(adMedia.getMediaSource(), !haveResumePosition, true);
+            AdPrefetcher adPrefetcher = componentController.getAdPrefetcher();
+            AdBreakSplicer adBreakSplicer = componentController.getAdBreakSplicer();
+
+            if (!haveResumePosition && adBreakSplicer.isPlayingAdWindow(adPlayer)) {
+                // single player, the previous ad window has transitioned into this one.
+            } else if (!haveResumePosition && !controller.isPlayingAds
+                    && adBreakSplicer.spliceAds(adPlayer, adMediaModel, controller.getMovieResumePosition())) {
+                // single player, the break has been spliced in front of the movie.
+            } else if (!haveResumePosition && adPrefetcher.isPrefetched(adPlayer, adMedia)) {
+                // the ad has been buffering since the ad response came back, no need to prepare it again.
+                adPrefetcher.consume();
+            } else {
+                adPrefetcher.clear();
+                adBreakSplicer.reset();
+
+                //prepare the mediaSource to AdPlayer
+                adPlayer.prepare(adMedia.getMediaSource(), !haveResumePosition, true);
+            }
             controller.isPlayingAds = true;
 
             if (haveResumePosition) {
@@ -106,7 +126,8 @@ public class AdPlayingState extends BaseState {
 
             //Player the Ad.
             adPlayer.setPlayWhenReady(true);
-            adPlayer.addAnalyticsListener(componentController.getAdPlayingMonitor());
+            PlayerEventBus.of(adPlayer)
+                    .subscribe(componentController.getAdPlayingMonitor(), AdPlayingMonitor.EVENT_MASK);
             adPlayer.setMetadataOutput(componentController.getAdPlayingMonitor());
 
             //hide the subtitle view when ad is playing
@@ -40,10 +40,24 @@ public class FetchCuePointState extends BaseState {
     public void performWorkAndUpdatePlayerUI(@NonNull FsmPlayer fsmPlayer) {
         super.performWorkAndUpdatePlayerUI(fsmPlayer);
 
+        //does nothing with the UI, the speculative startup buffers the movie meanwhile.
+        if (isNull(fsmPlayer) || !fsmPlayer.isSpeculativeStartup()) {
+            return;
+        }
+        prebufferMovie(fsmPlayer);
+    }
+
+    @Override
+    public void performBackgroundWork(@NonNull FsmPlayer fsmPlayer) {
         if (isNull(fsmPlayer)) {
             return;
         }
-        //does nothing with the UI.
+        // the call made while the movie was preloaded may already be back.
+        if (fsmPlayer.receivePreloadedCuePoints((FsmPlayerImperial) fsmPlayer)) {
+            return;
+        }
+        // the pre-roll call goes out along with the cue point call, rather than one round trip later.
+        fsmPlayer.startSpeculativePreroll();
         fetchCuePointCall(fsmPlayer.getAdServerInterface(), fsmPlayer.getCuePointsRetriever(),
                 (FsmPlayerImperial) fsmPlayer);
     }
@@ -1,15 +1,14 @@
 package com.tubitv.media.fsm.concrete;
 
 import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.C;
+import com.tubitv.media.controller.AdFetchCoordinator;
 import com.tubitv.media.fsm.BaseState;
 import com.tubitv.media.fsm.Input;
 import com.tubitv.media.fsm.State;
-import com.tubitv.media.fsm.callback.AdInterface;
-import com.tubitv.media.fsm.callback.RetrieveAdCallback;
 import com.tubitv.media.fsm.concrete.factory.StateFactory;
 import com.tubitv.media.fsm.state_machine.FsmPlayer;
 import com.tubitv.media.models.AdRetriever;
-import com.tubitv.media.utilities.ExoPlayerLogger;
 
 /**
  * Created by allensun on 7/31/17.
@@ -39,21 +38,29 @@ public class MakingAdCallState extends BaseState {
     public void performWorkAndUpdatePlayerUI(@NonNull FsmPlayer fsmPlayer) {
         super.performWorkAndUpdatePlayerUI(fsmPlayer);
 
+        //in the MadingAdCallState, no UI need to be updated.
+    }
+
+    @Override
+    public void performBackgroundWork(@NonNull FsmPlayer fsmPlayer) {
         if (isNull(fsmPlayer)) {
             return;
         }
 
-        fetchAd(fsmPlayer.getAdServerInterface(), fsmPlayer.getAdRetriever(), fsmPlayer);
-
-        //in the MadingAdCallState, no UI need to be updated.
-
-    }
+        // most of the time the break has been fetched while the movie was playing.
+        if (fsmPlayer.receivePrefetchedAd()) {
+            return;
+        }
 
-    private void fetchAd(AdInterface adInterface, AdRetriever retriever, RetrieveAdCallback callback) {
-        if (adInterface != null && retriever != null && callback != null) {
-            adInterface.fetchAd(retriever, callback);
-        } else {
-            ExoPlayerLogger.e("TAG", "fetchAd fail, adInterface or AdRetriever is empty");
+        // the ad break has to be back before the cue point, or the movie goes on without it.
+        // the resume position has just been saved on the main thread, the player is not read from here.
+        long timeoutMs = AdFetchCoordinator.PREROLL_TIMEOUT_MS;
+        AdRetriever retriever = fsmPlayer.getAdRetriever();
+        long positionMs = controller.getMovieResumePosition();
+        if (retriever != null && positionMs != C.TIME_UNSET) {
+            timeoutMs = AdFetchCoordinator.timeoutForCuePoint(retriever.getCubPoint(), positionMs);
         }
+
+        fsmPlayer.fetchAd(timeoutMs);
     }
 }
@@ -2,17 +2,12 @@ package com.tubitv.media.fsm.concrete;
 
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import com.tubitv.media.controller.AdFetchCoordinator;
 import com.tubitv.media.fsm.BaseState;
 import com.tubitv.media.fsm.Input;
 import com.tubitv.media.fsm.State;
-import com.tubitv.media.fsm.callback.AdInterface;
-import com.tubitv.media.fsm.callback.RetrieveAdCallback;
 import com.tubitv.media.fsm.concrete.factory.StateFactory;
 import com.tubitv.media.fsm.state_machine.FsmPlayer;
-import com.tubitv.media.models.AdRetriever;
-import com.tubitv.media.utilities.ExoPlayerLogger;
-
-import static com.tubitv.media.helpers.Constants.FSMPLAYER_TESTING;
 
 /**
  * Created by allensun on 8/18/17.
@@ -27,6 +22,9 @@ public class MakingPrerollAdCallState extends BaseState {
         switch (input) {
             case PRE_ROLL_AD_RECEIVED:
                 return factory.createState(AdPlayingState.class);
+
+            case PRE_ROLL_AD_TIMEOUT:
+                return factory.createState(MoviePlayingState.class);
         }
 
         return null;
@@ -36,25 +34,29 @@ public class MakingPrerollAdCallState extends BaseState {
     public void performWorkAndUpdatePlayerUI(@NonNull FsmPlayer fsmPlayer) {
         super.performWorkAndUpdatePlayerUI(fsmPlayer);
 
-        // don't do any UI work.
-        if (isNull(fsmPlayer)) {
+        // don't do any UI work, a deferred pre-roll buffers the movie meanwhile.
+        if (isNull(fsmPlayer) || !fsmPlayer.getStartupPolicy().deferPreroll) {
             return;
         }
+        prebufferMovie(fsmPlayer);
+    }
 
-        //update the AdRetriever for pre_roll cue point, which is 0.
-        if (controller.hasHistory()) {
-            fsmPlayer.updateCuePointForRetriever(controller.getHistoryPosition());
-        } else {
-            fsmPlayer.updateCuePointForRetriever(0);
+    @Override
+    public void performBackgroundWork(@NonNull FsmPlayer fsmPlayer) {
+        if (isNull(fsmPlayer)) {
+            return;
         }
-        fetchAd(fsmPlayer.getAdServerInterface(), fsmPlayer.getAdRetriever(), fsmPlayer);
-    }
 
-    private void fetchAd(AdInterface adInterface, AdRetriever retriever, RetrieveAdCallback callback) {
-        if (adInterface != null && retriever != null && callback != null) {
-            adInterface.fetchAd(retriever, callback);
-        } else {
-            ExoPlayerLogger.e(FSMPLAYER_TESTING, "fetchAd fail, adInterface or AdRetriever is empty");
+        //update the AdRetriever for pre_roll cue point, which is 0, or the history position.
+        fsmPlayer.updateCuePointForRetriever(fsmPlayer.getPrerollCuePoint());
+        // the movie only waits up to the deadline of the startup policy, then starts without the pre-roll.
+        if (fsmPlayer.getStartupPolicy().deferPreroll) {
+            fsmPlayer.fetchDeferredPreroll();
+            return;
+        }
+        // the movie is waiting on the pre-roll, never let the ad server hold it longer than the pre-roll deadline.
+        if (!fsmPlayer.receivePendingPreroll(AdFetchCoordinator.PREROLL_TIMEOUT_MS)) {
+            fsmPlayer.fetchAd(AdFetchCoordinator.PREROLL_TIMEOUT_MS);
         }
     }
 }
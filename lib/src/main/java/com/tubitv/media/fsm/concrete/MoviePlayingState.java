@@ -13,7 +13,10 @@ import com.tubitv.media.fsm.BaseState;
 import com.tubitv.media.fsm.Input;
 import com.tubitv.media.fsm.State;
 import com.tubitv.media.fsm.concrete.factory.StateFactory;
+import com.tubitv.media.fsm.listener.CuePointMonitor;
 import com.tubitv.media.fsm.state_machine.FsmPlayer;
+import com.tubitv.media.helpers.AdBreakSplicer;
+import com.tubitv.media.helpers.PlayerEventBus;
 import com.tubitv.media.models.MediaModel;
 import com.tubitv.media.models.VpaidClient;
 import com.tubitv.media.utilities.PlayerDeviceUtils;
@@ -47,6 +50,12 @@ public class MoviePlayingState extends BaseState {
         }
 
         stopAdandPlayerMovie(controller, componentController, movieMedia);
+
+        // fetch the breaks already within reach, the movie progress then fetches the next ones.
+        CuePointMonitor cuePointMonitor = componentController.getCuePointMonitor();
+        if (cuePointMonitor != null && controller.getContentPlayer() != null) {
+            cuePointMonitor.prefetchAdBreaks(controller.getContentPlayer().getCurrentPosition());
+        }
     }
 
     private void stopAdandPlayerMovie(PlayerUIController controller, PlayerAdLogicController componentController,
@@ -55,10 +64,21 @@ public class MoviePlayingState extends BaseState {
         SimpleExoPlayer adPlayer = controller.getAdPlayer();
         SimpleExoPlayer moviePlayer = controller.getContentPlayer();
 
-        boolean shouldReprepareForSinglePlayer = PlayerDeviceUtils.useSinglePlayer() && controller.isPlayingAds;
+        // the break has been consumed, stop downloading what is left of it.
+        if (controller.isPlayingAds && componentController.getAdCreativePrecacher() != null) {
+            componentController.getAdCreativePrecacher().cancel(adMedia);
+        }
+
+        AdBreakSplicer adBreakSplicer = componentController.getAdBreakSplicer();
+
+        // single player with the ads spliced in front of the movie, only need to drop the ad windows.
+        boolean shouldRemoveSplicedAds = adBreakSplicer.hasAdWindows() && adBreakSplicer.canSplice(moviePlayer);
 
-        //first remove the AdPlayer's listener and pause the player
-        adPlayer.removeAnalyticsListener(componentController.getAdPlayingMonitor());
+        boolean shouldReprepareForSinglePlayer = PlayerDeviceUtils.useSinglePlayer() && controller.isPlayingAds
+                && !shouldRemoveSplicedAds;
+
+        //first unsubscribe the AdPlayer's monitor and pause the player
+        PlayerEventBus.of(adPlayer).unsubscribe(componentController.getAdPlayingMonitor());
 
         if (shouldReprepareForSinglePlayer) {
             adPlayer.setPlayWhenReady(false);
@@ -75,9 +95,24 @@ public class MoviePlayingState extends BaseState {
 
         boolean isPlayerIdle = moviePlayer.getPlaybackState() == Player.STATE_IDLE;
 
-        if (shouldReprepareForSinglePlayer || isPlayerIdle) {
-            moviePlayer.prepare(movieMedia.getMediaSource(), !haveResumePosition, false);
-            updatePlayerPosition(moviePlayer, controller);
+        if (shouldRemoveSplicedAds) {
+            // the cue messages can only be anchored once the movie window is back at its place.
+            adBreakSplicer.removeAds(moviePlayer, controller.getMovieResumePosition(),
+                    () -> armCuePointMessages(componentController, moviePlayer));
+        } else {
+            if (shouldReprepareForSinglePlayer || isPlayerIdle) {
+                adBreakSplicer.prepareContent(moviePlayer, movieMedia.getMediaSource(), !haveResumePosition, false);
+                updatePlayerPosition(moviePlayer, controller);
+            } else if (controller.hasHistory()) {
+                // a player prepared ahead by the preloader or a warm one starts where it was, not at the history.
+                if (moviePlayer.getCurrentPosition() != controller.getHistoryPosition()) {
+                    moviePlayer.seekTo(moviePlayer.getCurrentWindowIndex(), controller.getHistoryPosition());
+                }
+                controller.clearHistoryRecord();
+            }
+
+            // preparing the player drops the cue messages, anchor the pending breaks again.
+            armCuePointMessages(componentController, moviePlayer);
         }
 
         moviePlayer.setPlayWhenReady(true);
@@ -92,6 +127,12 @@ public class MoviePlayingState extends BaseState {
         }
     }
 
+    private void armCuePointMessages(PlayerAdLogicController componentController, SimpleExoPlayer moviePlayer) {
+        if (componentController.getCuePointMonitor() != null) {
+            componentController.getCuePointMonitor().armPlayerMessages(moviePlayer);
+        }
+    }
+
     private void updatePlayerPosition(SimpleExoPlayer moviePlayer, PlayerUIController controller) {
 
         // if want to play movie from certain position when first open the movie
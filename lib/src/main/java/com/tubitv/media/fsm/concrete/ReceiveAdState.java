@@ -39,6 +39,13 @@ public class ReceiveAdState extends BaseState {
         // this mean, user jump out of the activity lifecycle in ReceivedAdState.
         if (moviePlayer != null && moviePlayer.getPlaybackState() == ExoPlayer.STATE_IDLE) {
             fsmPlayer.transit(Input.ERROR);
+            return;
+        }
+
+        // use the time left before the cue point to buffer the first ad.
+        SimpleExoPlayer adPlayer = controller.getAdPlayer();
+        if (adPlayer != null) {
+            componentController.getAdPrefetcher().prefetch(adPlayer, adMedia);
         }
 
     }
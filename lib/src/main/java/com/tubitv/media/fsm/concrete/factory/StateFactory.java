@@ -33,18 +33,43 @@ import java.util.Map;
  * {@link com.tubitv.media.fsm.concrete.AdPlayingState}
  * {@link com.tubitv.media.fsm.concrete.VpaidState}
  * {@link com.tubitv.media.fsm.concrete.VastAdInteractionSandBoxState}
+ * <p>
+ * The instances of the default states are preallocated in an array, and their transitions are compiled into a
+ * {@link TransitionTable} for the {@link com.tubitv.media.fsm.state_machine.FsmPlayer}.
  */
 public final class StateFactory {
 
     /**
-     * map store singleton instance of every types of {@link State},
+     * the default states, their position is their index in the {@link TransitionTable}.
      */
-    private final Map<Class, State> stateInstance = new HashMap<>();
+    private static final Class[] DEFAULT_STATE_TYPES = {
+            FetchCuePointState.class,
+            MakingPrerollAdCallState.class,
+            MakingAdCallState.class,
+            MoviePlayingState.class,
+            FinishState.class,
+            ReceiveAdState.class,
+            AdPlayingState.class,
+            VpaidState.class,
+            VastAdInteractionSandBoxState.class
+    };
+
+    /**
+     * the type created for every default state, the custom state if there is one.
+     */
+    private final Class[] stateTypes = DEFAULT_STATE_TYPES.clone();
+
+    /**
+     * singleton instance of every default {@link State}, created at once when first needed.
+     */
+    private volatile State[] states;
+
+    private volatile TransitionTable transitionTable;
 
     /**
-     * the key is the default state, and value is the custom state.
+     * map store singleton instance of the other types of {@link State}.
      */
-    private final Map<Class, Class> customStateType = new HashMap<>();
+    private final Map<Class, State> stateInstance = new HashMap<>();
 
     @Nullable
     private synchronized State getCacheInstance(@NonNull Class type) {
@@ -55,56 +80,27 @@ public final class StateFactory {
         stateInstance.put(type, instance);
     }
 
-    /**
-     * convert the default {@link State} into custom State
-     *
-     * @param cla default state type
-     * @return the custom state type
-     */
-    @Nullable
-    private Class convertToCustomClass(@NonNull Class cla) {
-        return customStateType.get(cla);
-    }
-
     /**
      * Method should only be called right after initialization, before {@link #createState} ever been called for max state predictability.
      *
      * @param subClass must be the subclass of {@link com.tubitv.media.fsm.BaseState} to swap original to subclass
      *                 Must be called before any createState method being called.
      */
-    public void overrideStateCreation(@NonNull Class subClass) {
-
-        if (MakingAdCallState.class.isAssignableFrom(subClass)) {
-            customStateType.put(MakingAdCallState.class, subClass);
-
-        } else if (MoviePlayingState.class.isAssignableFrom(subClass)) {
-            customStateType.put(MoviePlayingState.class, subClass);
-
-        } else if (FinishState.class.isAssignableFrom(subClass)) {
-            customStateType.put(FinishState.class, subClass);
+    public synchronized void overrideStateCreation(@NonNull Class subClass) {
 
-        } else if (ReceiveAdState.class.isAssignableFrom(subClass)) {
-            customStateType.put(ReceiveAdState.class, subClass);
+        for (int i = 0; i < DEFAULT_STATE_TYPES.length; i++) {
+            if (DEFAULT_STATE_TYPES[i].isAssignableFrom(subClass)) {
+                stateTypes[i] = subClass;
 
-        } else if (AdPlayingState.class.isAssignableFrom(subClass)) {
-            customStateType.put(AdPlayingState.class, subClass);
-
-        } else if (VpaidState.class.isAssignableFrom(subClass)) {
-            customStateType.put(VpaidState.class, subClass);
-
-        } else if (VastAdInteractionSandBoxState.class.isAssignableFrom(subClass)) {
-            customStateType.put(VastAdInteractionSandBoxState.class, subClass);
-
-        } else if (FetchCuePointState.class.isAssignableFrom(subClass)) {
-            customStateType.put(FetchCuePointState.class, subClass);
-
-        } else if (MakingPrerollAdCallState.class.isAssignableFrom(subClass)) {
-            customStateType.put(MakingPrerollAdCallState.class, subClass);
-
-        } else {
-            throw new IllegalStateException(
-                    String.valueOf(subClass.getName() + "is not a base class of default State class "));
+                // the preallocated states and the table are built again with the custom state.
+                states = null;
+                transitionTable = null;
+                return;
+            }
         }
+
+        throw new IllegalStateException(
+                String.valueOf(subClass.getName() + "is not a base class of default State class "));
     }
 
     @NonNull
@@ -115,32 +111,87 @@ public final class StateFactory {
                     String.valueOf(classType.getName() + "is not a base class of default State class "));
         }
 
-        // null check if there is any custom state class. if there is,
-        Class finalClassType = convertToCustomClass(classType);
-
-        if (finalClassType == null) {
-            finalClassType = classType;
+        int index = indexOfType(classType);
+        if (index != TransitionTable.NO_TRANSITION) {
+            return getStates()[index];
         }
 
-        State buildState = getCacheInstance(finalClassType);
+        State buildState = getCacheInstance(classType);
 
         if (buildState == null) {
-            try {
-
-                Constructor<?> ctor = finalClassType.getConstructor();
-                buildState = (State) ctor.newInstance();
-
-                setCacheInstance(finalClassType, buildState);
-            } catch (NoSuchMethodException e) {
-                e.printStackTrace();
-            } catch (IllegalAccessException e) {
-                e.printStackTrace();
-            } catch (InstantiationException e) {
-                e.printStackTrace();
-            } catch (InvocationTargetException e) {
-                e.printStackTrace();
+            buildState = newInstance(classType);
+            if (buildState != null) {
+                setCacheInstance(classType, buildState);
             }
         }
         return buildState;
     }
+
+    /**
+     * @return the transitions of the states created by this factory, compiled when first needed.
+     */
+    @NonNull
+    public TransitionTable getTransitionTable() {
+        TransitionTable table = transitionTable;
+        if (table == null) {
+            synchronized (this) {
+                if (transitionTable == null) {
+                    transitionTable = new TransitionTable(getStates(), this);
+                }
+                table = transitionTable;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * the index of a default state type, or of its custom state type.
+     */
+    private int indexOfType(@NonNull Class classType) {
+        for (int i = 0; i < DEFAULT_STATE_TYPES.length; i++) {
+            if (DEFAULT_STATE_TYPES[i] == classType || stateTypes[i] == classType) {
+                return i;
+            }
+        }
+        return TransitionTable.NO_TRANSITION;
+    }
+
+    private State[] getStates() {
+        State[] result = states;
+        if (result == null) {
+            synchronized (this) {
+                if (states == null) {
+                    State[] created = new State[stateTypes.length];
+                    for (int i = 0; i < stateTypes.length; i++) {
+                        created[i] = newInstance(stateTypes[i]);
+                        if (created[i] == null) {
+                            throw new IllegalStateException(stateTypes[i].getName() + " can not be created");
+                        }
+                    }
+                    states = created;
+                }
+                result = states;
+            }
+        }
+        return result;
+    }
+
+    @Nullable
+    private static State newInstance(@NonNull Class classType) {
+        try {
+
+            Constructor<?> ctor = classType.getConstructor();
+            return (State) ctor.newInstance();
+
+        } catch (NoSuchMethodException e) {
+            e.printStackTrace();
+        } catch (IllegalAccessException e) {
+            e.printStackTrace();
+        } catch (InstantiationException e) {
+            e.printStackTrace();
+        } catch (InvocationTargetException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
 }
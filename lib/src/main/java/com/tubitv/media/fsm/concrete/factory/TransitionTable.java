@@ -0,0 +1,113 @@
+package com.tubitv.media.fsm.concrete.factory;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.tubitv.media.fsm.Input;
+import com.tubitv.media.fsm.State;
+
+/**
+ * The transitions of the {@link State}s compiled into a table, keyed by the index of the state and the ordinal of the
+ * {@link Input}, so a transition is one array lookup instead of a switch and a {@link StateFactory} lookup.
+ * <p>
+ * The table is compiled once by asking every state where each input leads with
+ * {@link State#transformToState(Input, StateFactory)}, so the switches of the states, and of their custom subclasses
+ * set with {@link StateFactory#overrideStateCreation(Class)}, stay the definition of the transitions. A state must
+ * only look at the input to choose its next state.
+ */
+public final class TransitionTable {
+
+    /**
+     * the input is not expected by the state, the fsm handles it as a flow error.
+     */
+    public static final int NO_TRANSITION = -1;
+
+    private static final Input[] INPUTS = Input.values();
+
+    private final State[] states;
+
+    /**
+     * the index of the next state, at {@code stateIndex * INPUTS.length + input.ordinal()}.
+     */
+    private final int[] transitions;
+
+    TransitionTable(@NonNull State[] states, @NonNull StateFactory factory) {
+        this.states = states;
+        this.transitions = new int[states.length * INPUTS.length];
+
+        for (int stateIndex = 0; stateIndex < states.length; stateIndex++) {
+            for (Input input : INPUTS) {
+                State next = states[stateIndex].transformToState(input, factory);
+                int nextIndex = next == null ? NO_TRANSITION : indexOf(next);
+                if (next != null && nextIndex == NO_TRANSITION) {
+                    throw new IllegalStateException(
+                            next.getClass().getName() + " is not created by the StateFactory of the table");
+                }
+                transitions[stateIndex * INPUTS.length + input.ordinal()] = nextIndex;
+            }
+        }
+    }
+
+    /**
+     * @param stateIndex the index of the current state
+     * @param input      the input received in the current state
+     * @return the index of the next state, or {@link #NO_TRANSITION}
+     */
+    public int transit(int stateIndex, @NonNull Input input) {
+        return transitions[stateIndex * INPUTS.length + input.ordinal()];
+    }
+
+    @NonNull
+    public State getState(int stateIndex) {
+        return states[stateIndex];
+    }
+
+    public int getStateCount() {
+        return states.length;
+    }
+
+    /**
+     * @return the index of the state instance in the table, or {@link #NO_TRANSITION} if it is not one of them
+     */
+    public int indexOf(@Nullable State state) {
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == state) {
+                return i;
+            }
+        }
+        return NO_TRANSITION;
+    }
+
+    /**
+     * a copy of the table for tests and tools, the rows are the states and the columns the {@link Input} ordinals.
+     */
+    @NonNull
+    public int[][] export() {
+        int[][] rows = new int[states.length][INPUTS.length];
+        for (int i = 0; i < states.length; i++) {
+            System.arraycopy(transitions, i * INPUTS.length, rows[i], 0, INPUTS.length);
+        }
+        return rows;
+    }
+
+    /**
+     * the table as a graphviz digraph, one edge per transition labelled with its input.
+     */
+    @NonNull
+    public String toDot() {
+        StringBuilder builder = new StringBuilder("digraph fsm {\n");
+        for (int i = 0; i < states.length; i++) {
+            for (Input input : INPUTS) {
+                int next = transit(i, input);
+                if (next != NO_TRANSITION) {
+                    builder.append("    ").append(name(i)).append(" -> ").append(name(next))
+                            .append(" [label=\"").append(input.name()).append("\"];\n");
+                }
+            }
+        }
+        return builder.append("}\n").toString();
+    }
+
+    private String name(int stateIndex) {
+        return states[stateIndex].getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,180 @@
+package com.tubitv.media.fsm.listener;
+
+import android.support.annotation.Nullable;
+
+/**
+ * Cursor based schedule of the ad breaks of a movie, used by {@link CuePointMonitor}.
+ * <p>
+ * The scheduler keeps one pointer to the next pending ad call point and one to the next pending cue point, so every
+ * progress tick is a constant time comparison instead of a search over the whole array. A search only happens when
+ * the progress jumps (seek, or a resume from a different position), which moves both pointers to the first break that
+ * has not been passed yet.
+ * <p>
+ * Every break can only fire once per pass, the poll methods return the index of the break that fired, or
+ * {@link #NO_BREAK}.
+ */
+public class AdBreakScheduler {
+
+    public static final int NO_BREAK = -1;
+
+    public static final long NO_POINT = -1;
+
+    private static final long UNSET_POSITION = Long.MIN_VALUE;
+
+    /**
+     * how early, in milliseconds, a point is allowed to fire before its exact position.
+     */
+    private final long rangeMs;
+
+    /**
+     * any forward progress bigger than this between two ticks is treated as a seek.
+     */
+    private final long discontinuityThresholdMs;
+
+    @Nullable
+    private long[] cuePoints;
+
+    @Nullable
+    private long[] adCallPoints;
+
+    private int nextAdCallIndex = 0;
+
+    private int nextCueIndex = 0;
+
+    private int lastFiredCueIndex = NO_BREAK;
+
+    private long lastPositionMs = UNSET_POSITION;
+
+    public AdBreakScheduler(long rangeMs, long discontinuityThresholdMs) {
+        this.rangeMs = rangeMs;
+        this.discontinuityThresholdMs = discontinuityThresholdMs;
+    }
+
+    /**
+     * reset the schedule with a new set of breaks, both arrays must be sorted and have the same length.
+     *
+     * @param cuePoints    the positions where the ads should be shown
+     * @param adCallPoints the positions where the ad call of the matching cue point should be made
+     */
+    public void setBreaks(@Nullable long[] cuePoints, @Nullable long[] adCallPoints) {
+        this.cuePoints = cuePoints;
+        this.adCallPoints = adCallPoints;
+        nextAdCallIndex = 0;
+        nextCueIndex = 0;
+        lastFiredCueIndex = NO_BREAK;
+
+        // the first tick after new breaks decides where the cursors start.
+        lastPositionMs = UNSET_POSITION;
+    }
+
+    /**
+     * update the current playing position, a backward move or a forward jump bigger than the threshold is handled as
+     * a seek discontinuity.
+     *
+     * @param positionMs current movie position
+     */
+    public void updatePosition(long positionMs) {
+        if (lastPositionMs == UNSET_POSITION
+                || positionMs < lastPositionMs
+                || positionMs - lastPositionMs > discontinuityThresholdMs) {
+            seekTo(positionMs);
+            return;
+        }
+        lastPositionMs = positionMs;
+    }
+
+    /**
+     * move both cursors to the first break that has not been passed at the given position.
+     *
+     * @param positionMs the new movie position
+     */
+    public void seekTo(long positionMs) {
+        nextAdCallIndex = firstPendingIndex(adCallPoints, positionMs);
+        nextCueIndex = firstPendingIndex(cuePoints, positionMs);
+        lastPositionMs = positionMs;
+    }
+
+    /**
+     * @param positionMs current movie position
+     * @return the index of the break whose ad call should be made now, or {@link #NO_BREAK}
+     */
+    public int pollAdCall(long positionMs) {
+        if (!isDue(adCallPoints, nextAdCallIndex, positionMs)) {
+            return NO_BREAK;
+        }
+        return nextAdCallIndex++;
+    }
+
+    /**
+     * @param positionMs current movie position
+     * @return the index of the break whose ads should be shown now, or {@link #NO_BREAK}
+     */
+    public int pollCue(long positionMs) {
+        if (!isDue(cuePoints, nextCueIndex, positionMs)) {
+            return NO_BREAK;
+        }
+        lastFiredCueIndex = nextCueIndex++;
+        return lastFiredCueIndex;
+    }
+
+    /**
+     * @return the index of the last break whose cue point fired, or {@link #NO_BREAK}
+     */
+    public int getLastFiredCueIndex() {
+        return lastFiredCueIndex;
+    }
+
+    public int getNextAdCallIndex() {
+        return nextAdCallIndex;
+    }
+
+    public int getNextCueIndex() {
+        return nextCueIndex;
+    }
+
+    /**
+     * @return the position of the next pending cue point, or {@link #NO_POINT}
+     */
+    public long getNextCuePoint() {
+        return pointAt(cuePoints, nextCueIndex);
+    }
+
+    /**
+     * @return the position of the next pending ad call point, or {@link #NO_POINT}
+     */
+    public long getNextAdCallPoint() {
+        return pointAt(adCallPoints, nextAdCallIndex);
+    }
+
+    private boolean isDue(@Nullable long[] points, int index, long positionMs) {
+        return points != null && index < points.length && positionMs + rangeMs >= points[index];
+    }
+
+    private static long pointAt(@Nullable long[] points, int index) {
+        return points != null && index < points.length ? points[index] : NO_POINT;
+    }
+
+    /**
+     * binary search for the first point which is still reachable from the position, a point within the range behind
+     * the position is still considered pending.
+     */
+    private int firstPendingIndex(@Nullable long[] points, long positionMs) {
+        if (points == null) {
+            return 0;
+        }
+
+        long key = positionMs - rangeMs;
+        int low = 0;
+        int high = points.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (points[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
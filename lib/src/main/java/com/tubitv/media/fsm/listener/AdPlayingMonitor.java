@@ -5,6 +5,8 @@ import com.google.android.exoplayer2.ExoPlaybackException;
 import com.google.android.exoplayer2.ExoPlayer;
 import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.tubitv.media.controller.PlayerAdLogicController;
+import com.tubitv.media.helpers.PlayerEvent;
 import com.tubitv.media.fsm.state_machine.FsmAdController;
 import com.tubitv.media.fsm.state_machine.FsmPlayer;
 import com.tubitv.media.utilities.EventLogger;
@@ -15,6 +17,12 @@ import com.tubitv.media.utilities.EventLogger;
  */
 public class AdPlayingMonitor extends EventLogger {
 
+    /**
+     * the events of the ad player the monitor reacts to, the others are not dispatched to it by the event bus.
+     */
+    public static final long EVENT_MASK = PlayerEvent.maskOf(PlayerEvent.PLAYER_STATE_CHANGED,
+            PlayerEvent.POSITION_DISCONTINUITY, PlayerEvent.PLAYER_ERROR, PlayerEvent.DROPPED_VIDEO_FRAMES);
+
     public FsmAdController fsmPlayer;
 
     public AdPlayingMonitor(@NonNull FsmPlayer fsmPlayer) {
@@ -32,6 +40,16 @@ public class AdPlayingMonitor extends EventLogger {
         }
     }
 
+    @Override
+    public void onPositionDiscontinuity(EventTime eventTime, int reason) {
+        super.onPositionDiscontinuity(eventTime, reason);
+
+        // with the ads spliced in front of the movie, an ad finishing is a transition to the next window.
+        if (reason == Player.DISCONTINUITY_REASON_PERIOD_TRANSITION && isPlayingSplicedAds()) {
+            fsmPlayer.removePlayedAdAndTransitToNextState();
+        }
+    }
+
     @Override
     public void onPlayerError(EventTime eventTime, ExoPlaybackException error) {
         super.onPlayerError(eventTime, error);
@@ -44,6 +62,15 @@ public class AdPlayingMonitor extends EventLogger {
         seekOrSkip();
     }
 
+    private boolean isPlayingSplicedAds() {
+        if (!(fsmPlayer instanceof FsmPlayer)) {
+            return false;
+        }
+
+        PlayerAdLogicController componentController = ((FsmPlayer) fsmPlayer).getPlayerComponentController();
+        return componentController != null && componentController.getAdBreakSplicer().hasAdWindows();
+    }
+
     // this is a hack to handle when played corrupted video file, it stuck in the buffering state forever.
     private void seekOrSkip() {
         if (fsmPlayer == null) {
@@ -0,0 +1,106 @@
+package com.tubitv.media.fsm.listener;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.PlayerMessage;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.tubitv.media.helpers.Constants;
+import com.tubitv.media.utilities.ExoPlayerLogger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Push based trigger for {@link CuePointMonitor}.
+ * Instead of waiting for the next progress tick, one {@link PlayerMessage} is anchored on the content player at every
+ * pending ad call point and cue point, ExoPlayer delivers them on the main thread when playback reaches the exact
+ * position. Messages are re-armed after every seek or re-prepare of the content player.
+ */
+public class CuePointMessageTrigger implements PlayerMessage.Target {
+
+    public static final int TYPE_AD_CALL_POINT = 1;
+
+    public static final int TYPE_CUE_POINT = 2;
+
+    private final CuePointMonitor monitor;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final List<PlayerMessage> armedMessages = new ArrayList<>();
+
+    @Nullable
+    private SimpleExoPlayer player;
+
+    private int windowIndex = 0;
+
+    public CuePointMessageTrigger(@NonNull CuePointMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * cancel all the messages previously sent, and anchor new ones for every break that is still pending.
+     *
+     * @param player          the content player
+     * @param windowIndex     the window of the movie in the player's timeline
+     * @param adCallPoints    ad call positions, can be null
+     * @param nextAdCallIndex index of the first pending ad call point
+     * @param cuePoints       cue positions, can be null
+     * @param nextCueIndex    index of the first pending cue point
+     */
+    public void arm(@NonNull SimpleExoPlayer player, int windowIndex, @Nullable long[] adCallPoints,
+            int nextAdCallIndex, @Nullable long[] cuePoints, int nextCueIndex) {
+        disarm();
+
+        this.player = player;
+        this.windowIndex = windowIndex;
+
+        sendMessages(TYPE_AD_CALL_POINT, adCallPoints, nextAdCallIndex);
+        sendMessages(TYPE_CUE_POINT, cuePoints, nextCueIndex);
+
+        ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "armed cue messages: {}", armedMessages.size());
+    }
+
+    public void disarm() {
+        for (PlayerMessage message : armedMessages) {
+            message.cancel();
+        }
+        armedMessages.clear();
+        player = null;
+    }
+
+    @Nullable
+    public SimpleExoPlayer getPlayer() {
+        return player;
+    }
+
+    public int getWindowIndex() {
+        return windowIndex;
+    }
+
+    @Override
+    public void handleMessage(int messageType, Object payload) throws ExoPlaybackException {
+        // messages are delivered on the main thread at their exact position, the position is the payload.
+        long positionMs = (Long) payload;
+        monitor.onCueMessage(messageType, positionMs);
+    }
+
+    private void sendMessages(int type, @Nullable long[] points, int fromIndex) {
+        if (points == null || player == null) {
+            return;
+        }
+
+        for (int i = fromIndex; i < points.length; i++) {
+            long point = points[i];
+            PlayerMessage message = player.createMessage(this)
+                    .setType(type)
+                    .setPayload(point)
+                    .setPosition(windowIndex, point)
+                    .setHandler(mainHandler)
+                    .setDeleteAfterDelivery(false)
+                    .send();
+            armedMessages.add(message);
+        }
+    }
+}
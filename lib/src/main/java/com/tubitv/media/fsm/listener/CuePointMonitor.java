@@ -1,12 +1,18 @@
 package com.tubitv.media.fsm.listener;
 
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.tubitv.media.controller.AdBreakPrefetcher;
+import com.tubitv.media.controller.ProgressScheduler;
 import com.tubitv.media.fsm.Input;
 import com.tubitv.media.fsm.concrete.AdPlayingState;
+import com.tubitv.media.fsm.concrete.MoviePlayingState;
 import com.tubitv.media.fsm.concrete.VpaidState;
 import com.tubitv.media.fsm.state_machine.FsmPlayer;
 import com.tubitv.media.helpers.Constants;
 import com.tubitv.media.utilities.ExoPlayerLogger;
+import java.util.Arrays;
 
 /**
  * Created by allensun on 8/7/17.
@@ -15,22 +21,26 @@ import com.tubitv.media.utilities.ExoPlayerLogger;
  * 1. somme abstract two start making the network call to the server relative to cue point
  * 2. when at the cue point, show ads.
  */
-public abstract class CuePointMonitor {
+public abstract class CuePointMonitor implements ProgressScheduler.Consumer {
 
     private static final String TAG = CuePointMonitor.class.getSimpleName();
     private static final long RANGE_FACTOR = 1500;
-    public FsmPlayer fsmPlayer;
     /**
-     * this is the safe check to only call ad work one time given that the range check can make multiple add call for one cuepoint.
+     * progress jumping forward more than this between two ticks is handled as a seek.
      */
-    private boolean safeCheckForAdcall = true;
-    private boolean safeCheckForCue = true;
+    private static final long DISCONTINUITY_THRESHOLD = 4000;
+    public FsmPlayer fsmPlayer;
     private long[] cuePoints;
     private long[] adCallPoints;
     /**
-     * keep track of current relevant cue point this time,
+     * keep track of the next pending ad call and cue point, so each break only fire once.
+     */
+    private final AdBreakScheduler scheduler = new AdBreakScheduler(RANGE_FACTOR, DISCONTINUITY_THRESHOLD);
+    /**
+     * when enabled, breaks are triggered by messages anchored on the content player instead of the progress ticks.
      */
-    private int currentQueuePointPos = -1;
+    private final CuePointMessageTrigger messageTrigger = new CuePointMessageTrigger(this);
+    private boolean usePlayerMessages = false;
 
     public CuePointMonitor(FsmPlayer fsmPlayer) {
         this.fsmPlayer = fsmPlayer;
@@ -68,16 +78,120 @@ public abstract class CuePointMonitor {
 
     public void setQuePoints(@Nullable long[] cuePoints) {
 
-        currentQueuePointPos = -1;
-
         if (cuePoints == null) {
             this.cuePoints = null;
             adCallPoints = null;
+            scheduler.setBreaks(null, null);
             return;
         }
 
         this.cuePoints = cuePoints;
         adCallPoints = getAddCallPoints(cuePoints);
+        scheduler.setBreaks(this.cuePoints, adCallPoints);
+        rearmPlayerMessages();
+    }
+
+    /**
+     * schedule an extra break, like the pre-roll which has missed the movie start, unless a break of the schedule
+     * already comes first.
+     *
+     * @param positionMs the movie position the break is played after
+     * @param cuePoint   the position of the extra break
+     * @return the cue point of the first break after the position, the extra one or the earlier one
+     */
+    public long scheduleEarlyBreak(long positionMs, long cuePoint) {
+        if (cuePoints != null) {
+            for (long existing : cuePoints) {
+                if (existing > positionMs && existing <= cuePoint) {
+                    return existing;
+                }
+            }
+        }
+
+        int count = cuePoints != null ? cuePoints.length : 0;
+        long[] merged = new long[count + 1];
+        if (count > 0) {
+            System.arraycopy(cuePoints, 0, merged, 0, count);
+        }
+        merged[count] = cuePoint;
+        Arrays.sort(merged);
+        setQuePoints(merged);
+        return cuePoint;
+    }
+
+    /**
+     * switch between the progress polling and the {@link com.google.android.exoplayer2.PlayerMessage} based trigger,
+     * the message trigger start working after {@link #armPlayerMessages(SimpleExoPlayer)}.
+     *
+     * @param enabled true to trigger breaks with player messages
+     */
+    public void setPlayerMessageTrigger(boolean enabled) {
+        usePlayerMessages = enabled;
+        if (!enabled) {
+            messageTrigger.disarm();
+        }
+    }
+
+    public boolean isPlayerMessageTrigger() {
+        return usePlayerMessages;
+    }
+
+    /**
+     * anchor the pending breaks on the content player, needs to be called every time the content player is prepared
+     * again, because preparing the player drops all the messages.
+     *
+     * @param contentPlayer the player which plays the movie
+     */
+    public void armPlayerMessages(@NonNull SimpleExoPlayer contentPlayer) {
+        if (!usePlayerMessages) {
+            return;
+        }
+        messageTrigger.arm(contentPlayer, contentPlayer.getCurrentWindowIndex(), adCallPoints,
+                scheduler.getNextAdCallIndex(), cuePoints, scheduler.getNextCueIndex());
+    }
+
+    private void rearmPlayerMessages() {
+        SimpleExoPlayer contentPlayer = messageTrigger.getPlayer();
+        if (contentPlayer != null) {
+            armPlayerMessages(contentPlayer);
+        }
+    }
+
+    /**
+     * notify the monitor that the movie has been seeked, so the next pending break is searched again.
+     *
+     * @param milliseconds the new movie position
+     */
+    public void onSeek(long milliseconds) {
+        scheduler.seekTo(milliseconds);
+        rearmPlayerMessages();
+
+        // the upcoming cue points have changed, fetch the breaks now within reach.
+        prefetchAdBreaks(milliseconds);
+    }
+
+    /**
+     * fetch the breaks of the upcoming cue points which are close enough, while the movie plays.
+     *
+     * @param milliseconds the movie position
+     */
+    public void prefetchAdBreaks(long milliseconds) {
+        if (fsmPlayer.getCurrentState() instanceof MoviePlayingState) {
+            fsmPlayer.prefetchAdBreaks(getUpcomingCuePoints(), milliseconds);
+        }
+    }
+
+    /**
+     * @return the cue points whose ad call has not been made yet, in order, or null when there is no cue point. The
+     * break of a cue point past its ad call point is fetched by the ad call itself.
+     */
+    @Nullable
+    public long[] getUpcomingCuePoints() {
+        if (cuePoints == null) {
+            return null;
+        }
+        return Arrays.copyOfRange(cuePoints, Math.min(scheduler.getNextAdCallIndex(), cuePoints.length),
+                cuePoints.length);
     }
 
     /**
@@ -96,7 +210,7 @@ public abstract class CuePointMonitor {
             return;
         }
 
-        long[] newcuePoints = removeElementFromArray(cuePoints, currentQueuePointPos);
+        long[] newcuePoints = removeElementFromArray(cuePoints, scheduler.getLastFiredCueIndex());
 
         if (newcuePoints != null) {
             setQuePoints(newcuePoints);
@@ -142,66 +256,115 @@ public abstract class CuePointMonitor {
             // if ad playing, do nothing
             return;
         }
+
+        if (fsmPlayer.isSplicingAds()) {
+            // the ad windows are still in front of the movie, the position would look like a seek.
+            return;
+        }
+
+        if (usePlayerMessages) {
+            // the breaks are triggered by the player messages, the progress only fetches them ahead.
+            prefetchAdBreaks(milliseconds);
+            return;
+        }
+
+        // only search for the next break again when the progress jumped.
+        scheduler.updatePosition(milliseconds);
+
         //check if need to request ad call, if does, update the fsmPlayer, Request_AD.
         preformAdCallIfNecessary(milliseconds);
 
         //check if need to show ad, id does, update the fsmPlayer to Show_AD
         preformShowAdIfNecessary(milliseconds);
+
+        prefetchAdBreaks(milliseconds);
     }
 
-    private void preformShowAdIfNecessary(long milliseconds) {
-        if (isProgressActionable(cuePoints, milliseconds) && safeCheckForCue) {
-            safeCheckForCue = false;
-            ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "Show ads at : " + milliseconds);
-            fsmPlayer.transit(Input.SHOW_ADS);
-            return;
-        } else if (!isProgressActionable(cuePoints, milliseconds)) {
-            safeCheckForCue = true;
+    /**
+     * the movie progress is only needed when the next break is due to be prefetched, and shortly before the next ad
+     * call point or cue point, a point fires from {@link #RANGE_FACTOR} before its position, so the update is aimed at
+     * the middle of that range.
+     */
+    @Override
+    public long nextProgressDelayMs(long positionMs) {
+        if (fsmPlayer.getCurrentState() instanceof AdPlayingState
+                || fsmPlayer.getCurrentState() instanceof VpaidState) {
+            // the progress is the one of an ad.
+            return ProgressScheduler.SLEEP;
+        }
+
+        long delayMs = nextPrefetchDelayMs(positionMs);
+        if (usePlayerMessages) {
+            // the breaks are triggered by the player messages.
+            return delayMs;
+        }
+
+        long nextPoint = earliestPoint(scheduler.getNextAdCallPoint(), scheduler.getNextCuePoint());
+        if (nextPoint == AdBreakScheduler.NO_POINT) {
+            return delayMs;
         }
+        return Math.min(delayMs, Math.max(0, nextPoint - RANGE_FACTOR / 2 - positionMs));
     }
 
-    private void preformAdCallIfNecessary(long milliseconds) {
-        if (isProgressActionable(adCallPoints, milliseconds) && safeCheckForAdcall) {
-            safeCheckForAdcall = false;
-
-            //update the cuepoint;
-            if (currentQueuePointPos >= 0) {
-                long currentQueuePoint = cuePoints[currentQueuePointPos];
-
-                // update the cue point infor to AdRetriever and FsmPlayer status.
-                fsmPlayer.updateCuePointForRetriever(currentQueuePoint);
-                ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "make network call at: " + milliseconds);
-                fsmPlayer.transit(Input.MAKE_AD_CALL);
-                return;
-            }
+    private long nextPrefetchDelayMs(long positionMs) {
+        if (!(fsmPlayer.getCurrentState() instanceof MoviePlayingState)) {
+            return ProgressScheduler.SLEEP;
+        }
 
-        } else if (!isProgressActionable(adCallPoints, milliseconds)) {
-            safeCheckForAdcall = true;
+        long delayMs = fsmPlayer.nextPrefetchDelayMs(getUpcomingCuePoints(), positionMs);
+        return delayMs == AdBreakPrefetcher.NO_PREFETCH ? ProgressScheduler.SLEEP : delayMs;
+    }
+
+    private static long earliestPoint(long first, long second) {
+        if (first == AdBreakScheduler.NO_POINT) {
+            return second;
+        }
+        if (second == AdBreakScheduler.NO_POINT) {
+            return first;
         }
+        return Math.min(first, second);
     }
 
     /**
-     * check if current progress millisecond is capable of trigger action
+     * called on the main thread by {@link CuePointMessageTrigger} when playback reaches an anchored point.
      *
-     * @param array           array of relevant check points.
-     * @param currentProgress current milliSecond of movie
-     * @return is current millisecond need to trigger action.
+     * @param messageType {@link CuePointMessageTrigger#TYPE_AD_CALL_POINT} or {@link CuePointMessageTrigger#TYPE_CUE_POINT}
+     * @param milliseconds the position of the point
      */
-    private boolean isProgressActionable(long[] array, long currentProgress) {
-        if (array == null || array.length <= 0) {
-            currentQueuePointPos = -1;
-            return false;
+    void onCueMessage(int messageType, long milliseconds) {
+
+        if (fsmPlayer.getCurrentState() instanceof AdPlayingState || fsmPlayer
+                .getCurrentState() instanceof VpaidState || fsmPlayer.isSplicingAds()) {
+            return;
         }
 
-        int resultPos = binarySerchWithRange(array, currentProgress);
+        scheduler.updatePosition(milliseconds);
 
-        if (resultPos < 0) {
-            currentQueuePointPos = -1;
-            return false;
+        if (messageType == CuePointMessageTrigger.TYPE_AD_CALL_POINT) {
+            preformAdCallIfNecessary(milliseconds);
+        } else if (messageType == CuePointMessageTrigger.TYPE_CUE_POINT) {
+            preformShowAdIfNecessary(milliseconds);
         }
+    }
+
+    private void preformShowAdIfNecessary(long milliseconds) {
+        int cueBreak = scheduler.pollCue(milliseconds);
 
-        currentQueuePointPos = resultPos;
-        return true;
+        if (cueBreak != AdBreakScheduler.NO_BREAK) {
+            ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "Show ads at : {}", milliseconds);
+            fsmPlayer.transit(Input.SHOW_ADS);
+        }
+    }
+
+    private void preformAdCallIfNecessary(long milliseconds) {
+        int adCallBreak = scheduler.pollAdCall(milliseconds);
+
+        if (adCallBreak != AdBreakScheduler.NO_BREAK) {
+            // update the cue point infor to AdRetriever and FsmPlayer status.
+            fsmPlayer.updateCuePointForRetriever(cuePoints[adCallBreak]);
+            ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "make network call at: {}", milliseconds);
+            fsmPlayer.transit(Input.MAKE_AD_CALL);
+        }
     }
 
     /**
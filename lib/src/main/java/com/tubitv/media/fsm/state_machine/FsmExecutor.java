@@ -0,0 +1,88 @@
+package com.tubitv.media.fsm.state_machine;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Threads of the asynchronous mode of {@link FsmPlayer}.
+ * <p>
+ * Inputs are queued on one worker thread and handled one at a time, in the order they came in. The worker computes
+ * the transition and runs the background work of the states, the UI work of a state is posted to the main thread and
+ * the worker waits for it to be done before handling the next input, so the UI always sees the states in order.
+ */
+public class FsmExecutor {
+
+    private static final long UI_WAIT_SLICE_MS = 100;
+
+    private final HandlerThread workerThread;
+
+    private final Handler workerHandler;
+
+    private final Handler mainHandler;
+
+    private volatile boolean released = false;
+
+    public FsmExecutor() {
+        workerThread = new HandlerThread("FsmWorker");
+        workerThread.start();
+        workerHandler = new Handler(workerThread.getLooper());
+        mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    public boolean isOnWorkerThread() {
+        return Looper.myLooper() == workerThread.getLooper();
+    }
+
+    /**
+     * queue a task at the end of the worker queue.
+     */
+    public void execute(@NonNull Runnable task) {
+        if (!released) {
+            workerHandler.post(task);
+        }
+    }
+
+    /**
+     * run the UI work on the main thread, and block the worker until it is done.
+     */
+    public void runOnUiThreadAndWait(@NonNull final Runnable uiWork) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            uiWork.run();
+            return;
+        }
+
+        final CountDownLatch done = new CountDownLatch(1);
+        mainHandler.post(() -> {
+            try {
+                uiWork.run();
+            } finally {
+                done.countDown();
+            }
+        });
+
+        // wait in slices, so a released executor does not keep the worker blocked.
+        while (!released) {
+            try {
+                if (done.await(UI_WAIT_SLICE_MS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * drop the pending inputs and stop the worker thread.
+     */
+    public void release() {
+        released = true;
+        workerHandler.removeCallbacksAndMessages(null);
+        workerThread.quit();
+    }
+}
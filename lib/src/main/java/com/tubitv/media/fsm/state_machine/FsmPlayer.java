@@ -1,26 +1,42 @@
 package com.tubitv.media.fsm.state_machine;
 
 import android.arch.lifecycle.Lifecycle;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.tubitv.media.controller.AdBreakPrefetcher;
+import com.tubitv.media.controller.AdFetchCoordinator;
+import com.tubitv.media.controller.DeferredPreroll;
+import com.tubitv.media.controller.PendingAdResponse;
 import com.tubitv.media.controller.PlayerAdLogicController;
+import com.tubitv.media.controller.PlayerPreloader;
 import com.tubitv.media.controller.PlayerUIController;
+import com.tubitv.media.controller.StartupPolicy;
 import com.tubitv.media.fsm.Input;
 import com.tubitv.media.fsm.State;
 import com.tubitv.media.fsm.callback.AdInterface;
+import com.tubitv.media.fsm.callback.CuePointCallBack;
 import com.tubitv.media.fsm.callback.RetrieveAdCallback;
+import com.tubitv.media.fsm.concrete.AdPlayingState;
 import com.tubitv.media.fsm.concrete.MakingAdCallState;
 import com.tubitv.media.fsm.concrete.MakingPrerollAdCallState;
 import com.tubitv.media.fsm.concrete.MoviePlayingState;
 import com.tubitv.media.fsm.concrete.VpaidState;
 import com.tubitv.media.fsm.concrete.factory.StateFactory;
+import com.tubitv.media.fsm.concrete.factory.TransitionTable;
+import com.tubitv.media.fsm.listener.CuePointMonitor;
 import com.tubitv.media.helpers.Constants;
+import com.tubitv.media.helpers.PhasedLoadControl;
+import com.tubitv.media.helpers.PlaybackMetrics;
+import com.tubitv.media.helpers.ResumeStore;
 import com.tubitv.media.models.AdMediaModel;
 import com.tubitv.media.models.AdRetriever;
 import com.tubitv.media.models.CuePointsRetriever;
 import com.tubitv.media.models.MediaModel;
+import com.tubitv.media.models.SessionState;
 import com.tubitv.media.utilities.ExoPlayerLogger;
 import com.tubitv.media.utilities.PlayerDeviceUtils;
 
@@ -42,6 +58,85 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
      */
     private AdInterface adServerInterface;
 
+    /**
+     * an optional second ad network, called in parallel with {@link #adServerInterface}
+     */
+    private AdInterface fallbackAdServerInterface;
+
+    /**
+     * make the ad calls within a deadline, created from the ad interfaces when first needed.
+     */
+    private AdFetchCoordinator adFetchCoordinator;
+
+    private AdFetchCoordinator.PendingFetch pendingAdFetch;
+
+    /**
+     * keep the ad breaks of the upcoming cue points, fetched ahead while the movie plays.
+     */
+    private AdBreakPrefetcher adBreakPrefetcher;
+
+    /**
+     * the cue point and pre-roll calls made while the movie was preloaded, until the states take them.
+     */
+    @Nullable
+    private PlayerPreloader.Preload preload;
+
+    /**
+     * make the pre-roll call along with the cue point call at startup, rather than once the cue points are back.
+     */
+    private boolean speculativeStartup = false;
+
+    /**
+     * the pre-roll call made along with the cue point call, until the cue points tell whether there is a pre-roll.
+     */
+    @Nullable
+    private volatile PendingAdResponse speculativePreroll;
+
+    @Nullable
+    private volatile AdFetchCoordinator.PendingFetch speculativeAdFetch;
+
+    /**
+     * how long the movie start waits on the pre-roll.
+     */
+    @NonNull
+    private StartupPolicy startupPolicy = StartupPolicy.BLOCKING;
+
+    /**
+     * the pre-roll call of the {@link StartupPolicy#DEFERRED} startup, until it is answered or missed.
+     */
+    @Nullable
+    private DeferredPreroll deferredPreroll;
+
+    /**
+     * the ad call answering {@link #deferredPreroll}, canceled with it so a late answer cannot reach the next movie.
+     */
+    @Nullable
+    private AdFetchCoordinator.PendingFetch deferredPrerollFetch;
+
+    /**
+     * the cue point the missed pre-roll has been moved to.
+     */
+    private volatile long missedPrerollCuePoint = C.TIME_UNSET;
+
+    /**
+     * keep the session of the movie across the process deaths, null to not resume the movies.
+     */
+    @Nullable
+    private ResumeStore resumeStore;
+
+    /**
+     * the session of the movie being played, read from the {@link #resumeStore} when the fsm initializes.
+     */
+    @Nullable
+    private volatile SessionState session;
+
+    /**
+     * the ads of the resumed break which were watched before the movie was left, dropped from its ad response.
+     */
+    private volatile int resumedAdsPlayed;
+
+    private long lastSessionSaveMs;
+
     /**
      * information to use when retrieve ad from server
      */
@@ -65,7 +160,13 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
     /**
      * the central state representing {@link com.google.android.exoplayer2.ExoPlayer} state at any given time.
      */
-    private State currentState = null;
+    private volatile State currentState = null;
+
+    /**
+     * the index of {@link #currentState} in the {@link TransitionTable}, or {@link TransitionTable#NO_TRANSITION} when
+     * the state is not one of the table.
+     */
+    private int currentStateIndex = TransitionTable.NO_TRANSITION;
 
     /**
      * a factory class to create different state when fsm change to a different state.
@@ -82,6 +183,17 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
 
     private Lifecycle mLifecycle;
 
+    /**
+     * the worker thread of the asynchronous mode, null when the transitions run on the calling thread.
+     */
+    private volatile FsmExecutor executor;
+
+    /**
+     * trace the transitions and time the states, null to turn the tracing off.
+     */
+    @Nullable
+    private volatile TransitionTracer transitionTracer = new TransitionTracer();
+
     public FsmPlayer(StateFactory factory) {
         this.factory = factory;
     }
@@ -105,10 +217,62 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
                     : C.TIME_UNSET;
             controller.setMovieResumeInfo(resumeWindow, resumePosition);
 
-            ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, resumePosition + "");
+            ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "{}", resumePosition);
         }
     }
 
+    /**
+     * run the transitions on a worker thread, with the inputs handled one at a time in the order they came in. only
+     * the UI work of the states is posted to the main thread, the worker waits for it before handling the next input.
+     *
+     * @param async true to use a worker thread, false to run the transitions on the calling thread, the default.
+     */
+    public synchronized void setAsyncExecution(boolean async) {
+        if (async && executor == null) {
+            executor = new FsmExecutor();
+        } else if (!async && executor != null) {
+            executor.release();
+            executor = null;
+        }
+    }
+
+    public boolean isAsyncExecution() {
+        return executor != null;
+    }
+
+    /**
+     * stop the worker thread, the inputs which have not been handled yet are dropped, and cancel the ad calls still
+     * in flight so none of them comes back to a stopped fsm.
+     */
+    public void release() {
+        setAsyncExecution(false);
+        cancelAdFetches();
+    }
+
+    /**
+     * cancel the ad call, the pre-roll calls made ahead or deferred and the prefetches of the breaks.
+     */
+    private void cancelAdFetches() {
+        if (pendingAdFetch != null) {
+            pendingAdFetch.cancel();
+            pendingAdFetch = null;
+        }
+        discardSpeculativePreroll();
+        cancelDeferredPreroll();
+        if (adBreakPrefetcher != null) {
+            adBreakPrefetcher.clear();
+        }
+    }
+
+    @Nullable
+    public TransitionTracer getTransitionTracer() {
+        return transitionTracer;
+    }
+
+    public void setTransitionTracer(@Nullable TransitionTracer transitionTracer) {
+        this.transitionTracer = transitionTracer;
+    }
+
     public boolean isInitialized() {
         return isInitialized;
     }
@@ -134,9 +298,345 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
     }
 
     public void setAdServerInterface(@NonNull AdInterface adServerInterface) {
+        if (this.adServerInterface != adServerInterface) {
+            adFetchCoordinator = null;
+            adBreakPrefetcher = null;
+        }
         this.adServerInterface = adServerInterface;
     }
 
+    public AdInterface getFallbackAdServerInterface() {
+        return fallbackAdServerInterface;
+    }
+
+    public void setFallbackAdServerInterface(@Nullable AdInterface fallbackAdServerInterface) {
+        if (this.fallbackAdServerInterface != fallbackAdServerInterface) {
+            adFetchCoordinator = null;
+        }
+        this.fallbackAdServerInterface = fallbackAdServerInterface;
+    }
+
+    /**
+     * replace the default coordinator, which delivers on the main thread.
+     */
+    public void setAdFetchCoordinator(@Nullable AdFetchCoordinator adFetchCoordinator) {
+        this.adFetchCoordinator = adFetchCoordinator;
+        if (adFetchCoordinator != null) {
+            adFetchCoordinator.setFetchListener(this::recordAdFetch);
+        }
+    }
+
+    /**
+     * replace the default prefetcher, to change the lookahead or the time to live of the ad breaks.
+     */
+    public void setAdBreakPrefetcher(@Nullable AdBreakPrefetcher adBreakPrefetcher) {
+        this.adBreakPrefetcher = adBreakPrefetcher;
+    }
+
+    /**
+     * fetch the ad breaks of the next cue points ahead of their ad call, called from the movie progress.
+     *
+     * @param upcomingCuePoints the cue points whose ad call has not been made yet
+     * @param positionMs        the movie position
+     */
+    public void prefetchAdBreaks(@Nullable long[] upcomingCuePoints, long positionMs) {
+        if (adServerInterface == null || adRetriever == null) {
+            return;
+        }
+
+        getAdBreakPrefetcher().prefetch(adRetriever, upcomingCuePoints, positionMs);
+    }
+
+    /**
+     * @return how long the movie can play before the next prefetch, or {@link AdBreakPrefetcher#NO_PREFETCH}
+     */
+    public long nextPrefetchDelayMs(@Nullable long[] upcomingCuePoints, long positionMs) {
+        if (adServerInterface == null || adRetriever == null) {
+            return AdBreakPrefetcher.NO_PREFETCH;
+        }
+
+        return getAdBreakPrefetcher().nextPrefetchDelayMs(upcomingCuePoints, positionMs);
+    }
+
+    private AdBreakPrefetcher getAdBreakPrefetcher() {
+        if (adBreakPrefetcher == null) {
+            // through the coordinator, a prefetch falls back on the second ad server like the ad call.
+            adBreakPrefetcher = new AdBreakPrefetcher(getAdFetchCoordinator());
+        }
+        return adBreakPrefetcher;
+    }
+
+    /**
+     * answer the ad call of the cue point in the {@link AdRetriever} from the prefetched breaks.
+     *
+     * @return true if a fresh break was prefetched, and has been delivered to this fsmPlayer
+     */
+    public boolean receivePrefetchedAd() {
+        if (adBreakPrefetcher == null || adRetriever == null) {
+            return false;
+        }
+
+        AdMediaModel prefetched = adBreakPrefetcher.take(adRetriever.getCubPoint());
+        if (prefetched == null) {
+            return false;
+        }
+
+        ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "AdBreak prefetched");
+        PlayerAdLogicController componentController = playerComponentController;
+        if (componentController != null) {
+            componentController.getPlaybackMetrics().onAdPrefetchHit();
+        }
+        onReceiveAd(prefetched);
+        return true;
+    }
+
+    /**
+     * take over the calls made while the movie was preloaded, before the fsm is initialized.
+     */
+    public void adoptPreload(@Nullable PlayerPreloader.Preload preload) {
+        this.preload = preload;
+    }
+
+    /**
+     * answer the cue point call from the preloaded one, only once.
+     *
+     * @return true if the cue points have been fetched by the preload, and are delivered to the callback
+     */
+    public boolean receivePreloadedCuePoints(@NonNull CuePointCallBack callBack) {
+        PlayerPreloader.Preload preload = this.preload;
+        if (preload == null || !preload.getCuePoints().deliverTo(callBack)) {
+            return false;
+        }
+
+        ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "CuePoint preloaded");
+        return true;
+    }
+
+    public boolean isSpeculativeStartup() {
+        return speculativeStartup;
+    }
+
+    /**
+     * @param speculativeStartup true to make the pre-roll call and buffer the movie while the cue points are fetched,
+     *                           the pre-roll is dropped when the cue points have none
+     */
+    public void setSpeculativeStartup(boolean speculativeStartup) {
+        this.speculativeStartup = speculativeStartup;
+    }
+
+    /**
+     * @return the cue point of the pre-roll call, the history position when the movie resumes from it
+     */
+    public long getPrerollCuePoint() {
+        return controller != null && controller.hasHistory() ? controller.getHistoryPosition() : 0;
+    }
+
+    /**
+     * make the pre-roll call now, in parallel with the cue point call, when the speculative startup is on. The result
+     * waits for {@link #receivePendingPreroll(long)}, or is dropped by {@link #discardSpeculativePreroll()}.
+     */
+    public void startSpeculativePreroll() {
+        if (!speculativeStartup || adServerInterface == null || adRetriever == null) {
+            return;
+        }
+
+        discardSpeculativePreroll();
+        updateCuePointForRetriever(getPrerollCuePoint());
+        PendingAdResponse preroll = new PendingAdResponse(adRetriever.getCubPoint());
+        speculativePreroll = preroll;
+        speculativeAdFetch = getAdFetchCoordinator().fetchAd(adRetriever, AdFetchCoordinator.PREROLL_TIMEOUT_MS,
+                preroll);
+        ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "speculative pre-roll call");
+    }
+
+    /**
+     * drop the speculative pre-roll call, the cue points have no pre-roll.
+     */
+    public void discardSpeculativePreroll() {
+        AdFetchCoordinator.PendingFetch fetch = speculativeAdFetch;
+        if (fetch != null) {
+            fetch.cancel();
+        }
+        speculativeAdFetch = null;
+        speculativePreroll = null;
+    }
+
+    /**
+     * answer the pre-roll call of the cue point in the {@link AdRetriever} from the one made ahead, by the preload or
+     * by the speculative startup, still within the deadline when it has not come back yet. Both are consumed.
+     *
+     * @param timeoutMs the deadline of the ad call
+     * @return true if the pre-roll has been fetched ahead for this cue point
+     */
+    public boolean receivePendingPreroll(long timeoutMs) {
+        PendingAdResponse preroll = takePendingPreroll();
+        if (preroll == null) {
+            return false;
+        }
+
+        ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "pre-roll fetched ahead");
+        if (pendingAdFetch != null) {
+            pendingAdFetch.cancel();
+        }
+        pendingAdFetch = AdFetchCoordinator.onMainThread(preroll.asAdInterface(), null)
+                .fetchAd(adRetriever, timeoutMs, this);
+        return true;
+    }
+
+    /**
+     * @return the pre-roll call made ahead for the cue point in the {@link AdRetriever}, or null. The calls made ahead
+     * are consumed.
+     */
+    @Nullable
+    private PendingAdResponse takePendingPreroll() {
+        PlayerPreloader.Preload preload = this.preload;
+        PendingAdResponse preroll = preload != null ? preload.getPreroll() : null;
+        if (preroll == null) {
+            preroll = speculativePreroll;
+        }
+        this.preload = null;
+        speculativePreroll = null;
+        speculativeAdFetch = null;
+        if (preroll == null || adRetriever == null || preroll.getCuePoint() != adRetriever.getCubPoint()) {
+            return null;
+        }
+        return preroll;
+    }
+
+    @NonNull
+    public StartupPolicy getStartupPolicy() {
+        return startupPolicy;
+    }
+
+    public void setStartupPolicy(@NonNull StartupPolicy startupPolicy) {
+        this.startupPolicy = startupPolicy;
+    }
+
+    /**
+     * make the pre-roll call for the cue point in the {@link AdRetriever}, or take the one made ahead, and wait on it
+     * only up to the deadline of the {@link StartupPolicy}. When the deadline passes first, the movie starts with
+     * {@link Input#PRE_ROLL_AD_TIMEOUT} and the pre-roll is moved to an early break of the {@link CuePointMonitor}.
+     */
+    public void fetchDeferredPreroll() {
+        if (adServerInterface == null || adRetriever == null) {
+            ExoPlayerLogger.e(Constants.FSMPLAYER_TESTING, "fetchAd fail, adInterface or AdRetriever is empty");
+            return;
+        }
+
+        PendingAdResponse speculative = speculativePreroll;
+        AdFetchCoordinator.PendingFetch fetch = speculativeAdFetch;
+        PendingAdResponse preroll = takePendingPreroll();
+        if (preroll == null) {
+            if (fetch != null) {
+                fetch.cancel();
+            }
+            // the call keeps the full pre-roll deadline, its late break is still played further in the movie.
+            preroll = new PendingAdResponse(adRetriever.getCubPoint());
+            fetch = getAdFetchCoordinator().fetchAd(adRetriever, AdFetchCoordinator.PREROLL_TIMEOUT_MS, preroll);
+        } else if (preroll != speculative) {
+            // the call of the preload is owned by the preloader.
+            fetch = null;
+        }
+
+        cancelDeferredPreroll();
+        deferredPreroll = DeferredPreroll.onMainThread(deferredPrerollCallback, startupPolicy.prerollDeadlineMs);
+        deferredPrerollFetch = fetch;
+        preroll.deliverTo(deferredPreroll);
+    }
+
+    private void cancelDeferredPreroll() {
+        if (deferredPreroll != null) {
+            deferredPreroll.cancel();
+            deferredPreroll = null;
+        }
+        if (deferredPrerollFetch != null) {
+            deferredPrerollFetch.cancel();
+            deferredPrerollFetch = null;
+        }
+    }
+
+    private final DeferredPreroll.Callback deferredPrerollCallback = new DeferredPreroll.Callback() {
+        @Override
+        public void onPrerollMissed() {
+            // the fsm may have moved on meanwhile, like on a restart.
+            if (!(currentState instanceof MakingPrerollAdCallState)) {
+                return;
+            }
+
+            long prerollCuePoint = getPrerollCuePoint();
+            long cuePoint = prerollCuePoint + startupPolicy.missedPrerollOffsetMs;
+            CuePointMonitor cuePointMonitor = playerComponentController != null
+                    ? playerComponentController.getCuePointMonitor() : null;
+            if (cuePointMonitor != null) {
+                cuePoint = cuePointMonitor.scheduleEarlyBreak(prerollCuePoint, cuePoint);
+            }
+            missedPrerollCuePoint = cuePoint;
+
+            ExoPlayerLogger.w(Constants.FSMPLAYER_TESTING, "pre-roll at {} missed, moved to: {}", prerollCuePoint,
+                    cuePoint);
+            transit(Input.PRE_ROLL_AD_TIMEOUT);
+        }
+
+        @Override
+        public void onLateAdReceived(@NonNull AdMediaModel adMediaModel) {
+            if (missedPrerollCuePoint != C.TIME_UNSET && adServerInterface != null) {
+                getAdBreakPrefetcher().put(missedPrerollCuePoint, adMediaModel);
+            }
+        }
+
+        @Override
+        public void onReceiveAd(AdMediaModel mediaModels) {
+            FsmPlayer.this.onReceiveAd(mediaModels);
+        }
+
+        @Override
+        public void onError() {
+            FsmPlayer.this.onError();
+        }
+
+        @Override
+        public void onEmptyAdReceived() {
+            FsmPlayer.this.onEmptyAdReceived();
+        }
+    };
+
+    /**
+     * make the ad call for the cue point in the {@link AdRetriever}, the result comes back to this fsmPlayer before the
+     * deadline, as an empty ad when the ad server is too slow.
+     *
+     * @param timeoutMs the deadline of the ad call
+     */
+    public void fetchAd(long timeoutMs) {
+        if (adServerInterface == null || adRetriever == null) {
+            ExoPlayerLogger.e(Constants.FSMPLAYER_TESTING, "fetchAd fail, adInterface or AdRetriever is empty");
+            return;
+        }
+
+        // only the latest ad call can update the fsm.
+        if (pendingAdFetch != null) {
+            pendingAdFetch.cancel();
+        }
+        pendingAdFetch = getAdFetchCoordinator().fetchAd(adRetriever, timeoutMs, this);
+    }
+
+    private AdFetchCoordinator getAdFetchCoordinator() {
+        if (adFetchCoordinator == null) {
+            adFetchCoordinator = AdFetchCoordinator.onMainThread(adServerInterface, fallbackAdServerInterface);
+            adFetchCoordinator.setFetchListener(this::recordAdFetch);
+        }
+        return adFetchCoordinator;
+    }
+
+    /**
+     * the latency of the ad servers, from the request to the delivery of the break.
+     */
+    private void recordAdFetch(long latencyMs) {
+        PlayerAdLogicController componentController = playerComponentController;
+        if (componentController != null) {
+            componentController.getPlaybackMetrics().onAdFetched(latencyMs);
+        }
+    }
+
     public AdRetriever getAdRetriever() {
         return adRetriever;
     }
@@ -208,6 +708,117 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
         }
     }
 
+    /**
+     * @param resumeStore where the session of the movies is kept, the movie resumes from it on initialization
+     */
+    public void setResumeStore(@Nullable ResumeStore resumeStore) {
+        this.resumeStore = resumeStore;
+    }
+
+    @Nullable
+    public SessionState getSession() {
+        return session;
+    }
+
+    /**
+     * @return the key of the session of the movie, its url is the only id the {@link MediaModel} carries
+     */
+    @NonNull
+    public static String sessionIdOf(@NonNull MediaModel movie) {
+        return String.valueOf(movie.getVideoUrl());
+    }
+
+    /**
+     * read the session of the movie, and resume from it unless the controller has been given a history position.
+     */
+    private void startSession() {
+        session = null;
+        resumedAdsPlayed = 0;
+        if (resumeStore == null || movieMedia == null) {
+            return;
+        }
+
+        String videoId = sessionIdOf(movieMedia);
+        SessionState restored = resumeStore.read(videoId);
+        if (restored == null) {
+            session = new SessionState(videoId);
+            return;
+        }
+
+        if (controller != null && !controller.hasHistory() && restored.getContentPositionMs() > 0) {
+            controller.setPlayFromHistory(restored.getContentPositionMs());
+        }
+        // the movie was left in the middle of a break, which is fetched again as the first break of the resume.
+        resumedAdsPlayed = restored.isInAdBreak() ? restored.getAdsPlayed() : 0;
+        session = restored;
+        ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "resume session at {}", restored.getContentPositionMs());
+    }
+
+    /**
+     * update the session with the state the fsm has transited to, and save it.
+     */
+    private void recordSession(@NonNull State state) {
+        SessionState session = this.session;
+        if (session == null) {
+            return;
+        }
+
+        if (state instanceof AdPlayingState || state instanceof VpaidState) {
+            session.startAdBreak(adRetriever != null ? adRetriever.getCubPoint() : getPrerollCuePoint());
+        } else if (state instanceof MoviePlayingState) {
+            session.finishAdBreak();
+        }
+
+        if (controller != null && controller.getMovieResumePosition() != C.TIME_UNSET) {
+            session.setContentPositionMs(controller.getMovieResumePosition());
+        }
+        saveSession(session);
+    }
+
+    /**
+     * save the content position every {@link ResumeStore#SAVE_INTERVAL_MS} while the movie plays.
+     *
+     * @param positionMs the position of the movie
+     */
+    public void onMovieProgress(long positionMs) {
+        SessionState session = this.session;
+        if (session == null || !(currentState instanceof MoviePlayingState) || isSplicingAds()
+                || SystemClock.elapsedRealtime() - lastSessionSaveMs < ResumeStore.SAVE_INTERVAL_MS) {
+            return;
+        }
+
+        session.setContentPositionMs(positionMs);
+        saveSession(session);
+    }
+
+    /**
+     * @return true while the single player has ad windows spliced in front of the movie, its position is not the
+     * movie one then
+     */
+    public boolean isSplicingAds() {
+        return playerComponentController != null && playerComponentController.getAdBreakSplicer().isSplicing();
+    }
+
+    /**
+     * keep whether the subtitles are shown, the text track the movie resumes with.
+     */
+    public void setSubtitlesEnabled(boolean enabled) {
+        SessionState session = this.session;
+        if (session != null && session.isSubtitlesEnabled() != enabled) {
+            session.setSubtitlesEnabled(enabled);
+            saveSession(session);
+        }
+    }
+
+    private void saveSession(@NonNull SessionState session) {
+        ResumeStore resumeStore = this.resumeStore;
+        if (resumeStore != null) {
+            lastSessionSaveMs = SystemClock.elapsedRealtime();
+            // the store only copies the state here, the write is done on its own thread.
+            resumeStore.save(session);
+        }
+    }
+
     @Override
     public State getCurrentState() {
         return currentState;
@@ -217,35 +828,74 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
     public void restart() {
         getController().getContentPlayer().stop();
         getController().getContentPlayer().setPlayWhenReady(false);
-        currentState = null;
         getController().clearMovieResumeInfo();
 
-        getController().getContentPlayer().prepare(movieMedia.getMediaSource(), true, true);
-        transit(Input.INITIALIZE);
+        // the prefetched breaks and the calls made ahead belong to the previous movie.
+        preload = null;
+        cancelAdFetches();
+        missedPrerollCuePoint = C.TIME_UNSET;
+
+        if (playerComponentController != null) {
+            playerComponentController.getAdBreakSplicer()
+                    .prepareContent(getController().getContentPlayer(), movieMedia.getMediaSource(), true, true);
+        } else {
+            getController().getContentPlayer().prepare(movieMedia.getMediaSource(), true, true);
+        }
+
+        // the reset has to wait for the inputs of the previous movie which are still queued.
+        FsmExecutor executor = this.executor;
+        if (executor != null) {
+            executor.execute(() -> {
+                currentState = null;
+                performTransition(Input.INITIALIZE);
+            });
+        } else {
+            currentState = null;
+            transit(Input.INITIALIZE);
+        }
     }
 
     @Override
-    public void transit(Input input) {
+    public void transit(final Input input) {
+        FsmExecutor executor = this.executor;
+        if (executor != null) {
+            // always queue, even on the worker, so an input sent while a state works comes after its transition.
+            executor.execute(() -> performTransition(input));
+        } else {
+            performTransition(input);
+        }
+    }
+
+    /**
+     * compute the next state, then let it update the UI on the main thread and do its background work.
+     */
+    private void performTransition(Input input) {
 
         // if the current lifecycle of activity is after on_stop, omit the transition
-        if (getLifecycle() != null) {
-            if (!getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
-                ExoPlayerLogger.e(Constants.FSMPLAYER_TESTING, "Activity out of lifecycle");
-                return;
-            }
+        if (!isActive()) {
+            ExoPlayerLogger.e(Constants.FSMPLAYER_TESTING, "Activity out of lifecycle");
+            return;
         }
 
+        TransitionTable table = factory.getTransitionTable();
         State transitToState;
+        int transitToIndex;
 
         /**
-         * make state transition.
+         * make state transition, a lookup in the transition table for the states of the table.
          */
-        if (currentState != null) {
+        if (currentState != null && currentStateIndex != TransitionTable.NO_TRANSITION) {
+            transitToIndex = table.transit(currentStateIndex, input);
+            transitToState = transitToIndex != TransitionTable.NO_TRANSITION ? table.getState(transitToIndex) : null;
+        } else if (currentState != null) {
             transitToState = currentState.transformToState(input, factory);
+            transitToIndex = table.indexOf(transitToState);
         } else {
 
             isInitialized = true;
+            startSession();
             transitToState = factory.createState(initializeState());
+            transitToIndex = table.indexOf(transitToState);
 
             ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "initialize fsmPlayer");
         }
@@ -253,11 +903,15 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
         /**
          * check if the transition flow is correct, if not then handle the error case.
          */
+        State previousState = currentState;
+        TransitionTracer tracer = transitionTracer;
+        int traceFlags = 0;
         if (transitToState != null) {
             /**
              * when transition is not null, state change is successful, and transit to a new state
              */
             currentState = transitToState;
+            currentStateIndex = transitToIndex;
 
         } else {
 
@@ -266,24 +920,111 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
              */
             if (currentState instanceof MoviePlayingState) { // if player is current in moviePlayingstate when transition error happen, doesn't nothing.
                 ExoPlayerLogger.e(Constants.FSMPLAYER_TESTING, "FSM flow error: remain in MoviePlayingState");
+                if (tracer != null) {
+                    tracer.onFlowError(input, currentState);
+                }
                 return;
             }
 
             ExoPlayerLogger
                     .e(Constants.FSMPLAYER_TESTING, "FSM flow error:" + "prepare transition to MoviePlayingState");
             currentState = factory.createState(MoviePlayingState.class);
+            currentStateIndex = table.indexOf(currentState);
+            traceFlags = TransitionTracer.FLAG_FALLBACK;
         }
 
-        if (controller != null) {
-            if (!PlayerDeviceUtils.useSinglePlayer() || !controller.isPlayingAds) {
-                updateMovieResumePosition(controller);
+        final State state = currentState;
+        final long traceSequence = tracer != null ? tracer.onTransition(input, previousState, state, traceFlags) : -1;
+        recordTransition(previousState, state);
+        updateLoadPhase(state);
+        runUiWork(() -> {
+            if (controller != null) {
+                if (!PlayerDeviceUtils.useSinglePlayer() || !controller.isPlayingAds) {
+                    updateMovieResumePosition(controller);
+                }
             }
+            recordSession(state);
+
+            ExoPlayerLogger.d(Constants.FSMPLAYER_TESTING, "transit to: {}", state.getClass());
+
+            performUiWork(state, tracer, traceSequence);
+        });
+
+        state.performBackgroundWork(this);
+    }
+
+    /**
+     * tell the playback metrics what is about to be on screen, before the state touches the players.
+     */
+    private void recordTransition(@Nullable State previousState, @NonNull State state) {
+        PlayerAdLogicController componentController = playerComponentController;
+        if (componentController == null) {
+            return;
+        }
+
+        PlaybackMetrics metrics = componentController.getPlaybackMetrics();
+        if (state instanceof MoviePlayingState && !(previousState instanceof MoviePlayingState)) {
+            metrics.onContentStart();
+        } else if (state instanceof AdPlayingState || state instanceof VpaidState) {
+            metrics.onAdStart();
+        }
+    }
+
+    /**
+     * let the content player keep a smaller buffer while the ad player plays, in dual player mode only.
+     */
+    private void updateLoadPhase(@NonNull State state) {
+        PhasedLoadControl loadControl = controller != null ? controller.getContentLoadControl() : null;
+        if (loadControl == null || PlayerDeviceUtils.useSinglePlayer()) {
+            return;
+        }
+
+        if (state instanceof AdPlayingState || state instanceof VpaidState) {
+            loadControl.setPhase(PhasedLoadControl.PHASE_BACKGROUND);
+        } else if (state instanceof MoviePlayingState) {
+            loadControl.setPhase(PhasedLoadControl.PHASE_PLAYING);
+        }
+    }
+
+    /**
+     * let the state update the UI, timed for the tracer when there is one.
+     */
+    private void performUiWork(State state, @Nullable TransitionTracer tracer, long traceSequence) {
+        if (tracer == null) {
+            state.performWorkAndUpdatePlayerUI(this);
+            return;
         }
 
-        ExoPlayerLogger.d(Constants.FSMPLAYER_TESTING, "transit to: " + currentState.getClass().getSimpleName());
+        long startNs = tracer.now();
+        state.performWorkAndUpdatePlayerUI(this);
+        tracer.onUiWorkDone(traceSequence, state, tracer.now() - startNs);
+    }
 
-        currentState.performWorkAndUpdatePlayerUI(this);
+    /**
+     * the players and the views can only be touched on the main thread.
+     */
+    private void runUiWork(Runnable uiWork) {
+        FsmExecutor executor = this.executor;
+        if (executor != null) {
+            // the activity may have stopped while the work was waiting for the main thread.
+            executor.runOnUiThreadAndWait(() -> {
+                if (isActive()) {
+                    uiWork.run();
+                } else {
+                    ExoPlayerLogger.e(Constants.FSMPLAYER_TESTING, "Activity out of lifecycle, skip the UI work");
+                }
+            });
+        } else {
+            uiWork.run();
+        }
+    }
 
+    /**
+     * @return false once the activity is after on_stop, no transition or UI work is done then
+     */
+    private boolean isActive() {
+        Lifecycle lifecycle = getLifecycle();
+        return lifecycle == null || lifecycle.getCurrentState().isAtLeast(Lifecycle.State.STARTED);
     }
 
     @Override
@@ -291,6 +1032,10 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
 
         // need to remove the already played ad first.
         popPlayedAd();
+        SessionState session = this.session;
+        if (session != null) {
+            session.onAdPlayed();
+        }
 
         //then check if there are any ad need to be played.
         if (hasAdToPlay()) {
@@ -319,19 +1064,50 @@ public abstract class FsmPlayer implements Fsm, RetrieveAdCallback, FsmAdControl
 
     @Override
     public void updateSelf() {
-        if (currentState != null) {
-            ExoPlayerLogger
-                    .i(Constants.FSMPLAYER_TESTING,
-                            "Fsm updates self : " + currentState.getClass().getSimpleName());
-            currentState.performWorkAndUpdatePlayerUI(this);
+        FsmExecutor executor = this.executor;
+        if (executor != null) {
+            executor.execute(this::performUpdateSelf);
+        } else {
+            performUpdateSelf();
+        }
+    }
+
+    private void performUpdateSelf() {
+        final State state = currentState;
+        if (state != null) {
+            ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "Fsm updates self : {}", state.getClass());
+            final TransitionTracer tracer = transitionTracer;
+            runUiWork(() -> performUiWork(state, tracer, -1));
+            state.performBackgroundWork(this);
         }
     }
 
     @Override
-    public void onReceiveAd(AdMediaModel mediaModels) {
+    public void onReceiveAd(final AdMediaModel mediaModels) {
+        // the ad media sources are built on the worker, not on the thread the ad server answered on.
+        FsmExecutor executor = this.executor;
+        if (executor != null && !executor.isOnWorkerThread()) {
+            executor.execute(() -> onReceiveAd(mediaModels));
+            return;
+        }
+
         ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "AdBreak received");
 
         adMedia = mediaModels;
+
+        // the first break of the resume is the one partly watched before the movie was left.
+        int watched = resumedAdsPlayed;
+        if (watched > 0) {
+            resumedAdsPlayed = 0;
+            for (int i = 0; i < watched; i++) {
+                adMedia.popFirstAd();
+            }
+            if (!hasAdToPlay()) {
+                onEmptyAdReceived();
+                return;
+            }
+        }
+
         // prepare and build the adMediaModel
         playerComponentController.getDoublePlayerInterface().onPrepareAds(adMedia);
 
@@ -4,6 +4,7 @@ import com.tubitv.media.fsm.Input;
 import com.tubitv.media.fsm.callback.CuePointCallBack;
 import com.tubitv.media.fsm.concrete.factory.StateFactory;
 import com.tubitv.media.helpers.Constants;
+import com.tubitv.media.models.SessionState;
 import com.tubitv.media.utilities.ExoPlayerLogger;
 import java.util.Arrays;
 
@@ -27,13 +28,15 @@ public abstract class FsmPlayerImperial extends FsmPlayer implements CuePointCal
 
         //if it has pre-roll in the list of cue points, remove the pre-roll cue point,
         // because the pre-roll should not managed by the CuePointMonitor
-        if (hasPrerollAd(cuePoints)) {
+        if (hasPrerollAd(cuePoints) && !hasWatchedResumeBreak()) {
 
             updateCuePointsWithRemoveFirstCue(cuePoints, true);
             transit(Input.HAS_PREROLL_AD);
         } else {
 
-            updateCuePointsWithRemoveFirstCue(cuePoints, false);
+            // no pre-roll, the ad of the speculative pre-roll call is not for this movie start.
+            discardSpeculativePreroll();
+            updateCuePointsWithRemoveFirstCue(cuePoints, hasPrerollAd(cuePoints));
             transit(Input.NO_PREROLL_AD);
         }
         /**
@@ -48,6 +51,7 @@ public abstract class FsmPlayerImperial extends FsmPlayer implements CuePointCal
     public void onCuePointError() {
 
         ExoPlayerLogger.e(Constants.FSMPLAYER_TESTING, "CuePoint fetch fail");
+        discardSpeculativePreroll();
         //TODO: need to handle situation when cuepoint not able to retrieve.
         transit(Input.ERROR);
     }
@@ -62,14 +66,41 @@ public abstract class FsmPlayerImperial extends FsmPlayer implements CuePointCal
 
         if (yes) {
             // update the cuePointMonitor with the first cue remove, because it is a pre-roll ad
-            playerComponentController.getCuePointMonitor().setQuePoints(removePreroll(array));
+            playerComponentController.getCuePointMonitor()
+                    .setQuePoints(removeInterruptedBreak(removeConsumed(removePreroll(array))));
 
         } else {
             // update the cuePointMonitor
-            playerComponentController.getCuePointMonitor().setQuePoints(array);
+            playerComponentController.getCuePointMonitor().setQuePoints(removeConsumed(array));
         }
     }
 
+    /**
+     * the pre-roll of a resumed movie is the break of the resume, not needed when a break has just been watched
+     * before the movie was left. A break left in the middle is played, for the ads which have not been watched.
+     */
+    private boolean hasWatchedResumeBreak() {
+        SessionState session = getSession();
+        return session != null && !session.isInAdBreak() && session.hasRecentBreak();
+    }
+
+    /**
+     * the pre-roll is the break of the resume, which plays what is left of the break the movie was left in, so that
+     * break is not scheduled again at its own cue point.
+     */
+    private long[] removeInterruptedBreak(long[] array) {
+        SessionState session = getSession();
+        return session != null && array != null ? session.removeAdBreak(array) : array;
+    }
+
+    /**
+     * the breaks watched before the movie was left are not scheduled again.
+     */
+    private long[] removeConsumed(long[] array) {
+        SessionState session = getSession();
+        return session != null && array != null ? session.removeConsumed(array) : array;
+    }
+
     private boolean hasPrerollAd(long[] cuePoints) {
         if (cuePoints != null && cuePoints.length > 0 && cuePoints[0] == 0l) {
             //TODO: need to remove the time 0 cuePoint indicator.
@@ -0,0 +1,397 @@
+package com.tubitv.media.fsm.state_machine;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.tubitv.media.fsm.Input;
+import com.tubitv.media.fsm.State;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Trace the transitions of a {@link FsmPlayer}: the input, the from and to states, how long the fsm dwelt in the state
+ * it leaves, and how long the {@link State#performWorkAndUpdatePlayerUI(FsmPlayer)} of the new state took. The flow
+ * errors, where the state had no transition for the input, are flagged.
+ * <p>
+ * The durations go to log2 histograms per state class, and the last transitions to a bounded buffer of preallocated
+ * entries, so a transition costs no allocation once each state has been seen. The tracer is synchronized, the fsm
+ * calls it from its worker thread and the UI work is timed on the main thread.
+ */
+public class TransitionTracer {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * the state had no transition for the input, and the fsm forced {@link
+     * com.tubitv.media.fsm.concrete.MoviePlayingState}.
+     */
+    public static final int FLAG_FALLBACK = 1;
+
+    /**
+     * the state had no transition for the input, and the fsm stayed in {@link
+     * com.tubitv.media.fsm.concrete.MoviePlayingState}.
+     */
+    public static final int FLAG_FLOW_ERROR = 1 << 1;
+
+    private final Clock clock;
+
+    private final Transition[] transitions;
+
+    private final Map<Class<? extends State>, StateStats> stats = new HashMap<>();
+
+    private long sequence;
+
+    @Nullable
+    private Class<? extends State> currentState;
+
+    private long enteredAtNs;
+
+    private int flowErrorCount;
+
+    public TransitionTracer() {
+        this(DEFAULT_CAPACITY, System::nanoTime);
+    }
+
+    public TransitionTracer(int capacity, @NonNull Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.clock = clock;
+        transitions = new Transition[capacity];
+        for (int i = 0; i < capacity; i++) {
+            transitions[i] = new Transition();
+        }
+    }
+
+    public long now() {
+        return clock.nanoTime();
+    }
+
+    /**
+     * record the fsm entering a state, before its UI work.
+     *
+     * @param from  the state left, null when the fsm initializes
+     * @param flags {@link #FLAG_FALLBACK} or 0
+     * @return the sequence number of the transition, to pass to {@link #onUiWorkDone(long, State, long)}
+     */
+    public synchronized long onTransition(@NonNull Input input, @Nullable State from, @NonNull State to, int flags) {
+        long now = clock.nanoTime();
+        long dwellNs = 0;
+        Class<? extends State> fromClass = from != null ? from.getClass() : null;
+        if (fromClass != null && fromClass == currentState) {
+            dwellNs = now - enteredAtNs;
+            statsOf(fromClass).dwell.record(dwellNs);
+        }
+        if ((flags & FLAG_FALLBACK) != 0) {
+            flowErrorCount++;
+        }
+
+        Class<? extends State> toClass = to.getClass();
+        statsOf(toClass).entries++;
+        currentState = toClass;
+        enteredAtNs = now;
+        return record(now, input, fromClass, toClass, flags, dwellNs);
+    }
+
+    /**
+     * record an input the current {@link com.tubitv.media.fsm.concrete.MoviePlayingState} had no transition for, the
+     * fsm stays in the state.
+     */
+    public synchronized void onFlowError(@NonNull Input input, @NonNull State state) {
+        flowErrorCount++;
+        record(clock.nanoTime(), input, state.getClass(), state.getClass(), FLAG_FLOW_ERROR, 0);
+    }
+
+    /**
+     * record the time the UI work of a state took.
+     *
+     * @param sequence the number returned by {@link #onTransition(Input, State, State, int)}, or -1 when the state
+     *                 updated itself without a transition
+     */
+    public synchronized void onUiWorkDone(long sequence, @NonNull State state, long durationNs) {
+        statsOf(state.getClass()).uiWork.record(durationNs);
+        if (sequence >= 0 && sequence > this.sequence - transitions.length) {
+            Transition transition = transitions[(int) (sequence % transitions.length)];
+            if (transition.sequence == sequence) {
+                transition.uiWorkNs = durationNs;
+            }
+        }
+    }
+
+    public synchronized int getFlowErrorCount() {
+        return flowErrorCount;
+    }
+
+    /**
+     * @return how long the fsm has been in its current state, 0 before the first transition
+     */
+    public synchronized long getCurrentDwellNs() {
+        return currentState != null ? clock.nanoTime() - enteredAtNs : 0;
+    }
+
+    /**
+     * @return a copy of the statistics of the state class, null if the fsm has not entered it
+     */
+    @Nullable
+    public synchronized StateStats getStats(@NonNull Class<? extends State> stateClass) {
+        StateStats stateStats = stats.get(stateClass);
+        return stateStats != null ? stateStats.copy() : null;
+    }
+
+    /**
+     * @return a copy of the statistics of every state entered
+     */
+    @NonNull
+    public synchronized List<StateStats> getAllStats() {
+        List<StateStats> list = new ArrayList<>(stats.size());
+        for (StateStats stateStats : stats.values()) {
+            list.add(stateStats.copy());
+        }
+        return list;
+    }
+
+    /**
+     * @return copies of the transitions kept, the oldest first
+     */
+    @NonNull
+    public synchronized List<Transition> getRecentTransitions() {
+        int count = (int) Math.min(sequence, transitions.length);
+        List<Transition> list = new ArrayList<>(count);
+        for (long i = sequence - count; i < sequence; i++) {
+            list.add(transitions[(int) (i % transitions.length)].copy());
+        }
+        return list;
+    }
+
+    /**
+     * @return the statistics per state then the transitions kept, one line each
+     */
+    @NonNull
+    public synchronized String dump() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("flow errors: ").append(flowErrorCount).append('\n');
+        for (StateStats stateStats : stats.values()) {
+            builder.append(stateStats).append('\n');
+        }
+        for (Transition transition : getRecentTransitions()) {
+            builder.append(transition).append('\n');
+        }
+        return builder.toString();
+    }
+
+    public synchronized void clear() {
+        stats.clear();
+        for (Transition transition : transitions) {
+            transition.sequence = -1;
+        }
+        sequence = 0;
+        currentState = null;
+        enteredAtNs = 0;
+        flowErrorCount = 0;
+    }
+
+    private long record(long now, Input input, @Nullable Class<? extends State> from, Class<? extends State> to,
+            int flags, long dwellNs) {
+        long number = sequence++;
+        Transition transition = transitions[(int) (number % transitions.length)];
+        transition.sequence = number;
+        transition.timeNs = now;
+        transition.input = input;
+        transition.from = from;
+        transition.to = to;
+        transition.flags = flags;
+        transition.dwellNs = dwellNs;
+        transition.uiWorkNs = -1;
+        return number;
+    }
+
+    private StateStats statsOf(Class<? extends State> stateClass) {
+        StateStats stateStats = stats.get(stateClass);
+        if (stateStats == null) {
+            stateStats = new StateStats(stateClass);
+            stats.put(stateClass, stateStats);
+        }
+        return stateStats;
+    }
+
+    public interface Clock {
+
+        long nanoTime();
+    }
+
+    /**
+     * one traced transition.
+     */
+    public static final class Transition {
+
+        public long sequence = -1;
+
+        public long timeNs;
+
+        public Input input;
+
+        /**
+         * null when the fsm initialized.
+         */
+        @Nullable
+        public Class<? extends State> from;
+
+        public Class<? extends State> to;
+
+        public int flags;
+
+        /**
+         * how long the fsm dwelt in the state it left.
+         */
+        public long dwellNs;
+
+        /**
+         * how long the UI work of the new state took, -1 until it is done.
+         */
+        public long uiWorkNs = -1;
+
+        public boolean isFallback() {
+            return (flags & FLAG_FALLBACK) != 0;
+        }
+
+        Transition copy() {
+            Transition copy = new Transition();
+            copy.sequence = sequence;
+            copy.timeNs = timeNs;
+            copy.input = input;
+            copy.from = from;
+            copy.to = to;
+            copy.flags = flags;
+            copy.dwellNs = dwellNs;
+            copy.uiWorkNs = uiWorkNs;
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "#%d %s: %s -> %s dwell=%.1fms ui=%.1fms%s%s", sequence, input,
+                    from != null ? from.getSimpleName() : "null", to.getSimpleName(), dwellNs / 1e6, uiWorkNs / 1e6,
+                    isFallback() ? " FALLBACK" : "", (flags & FLAG_FLOW_ERROR) != 0 ? " FLOW_ERROR" : "");
+        }
+    }
+
+    /**
+     * the statistics of one state class.
+     */
+    public static final class StateStats {
+
+        public final Class<? extends State> stateClass;
+
+        public int entries;
+
+        /**
+         * how long the fsm dwelt in the state, recorded when it leaves.
+         */
+        public final Histogram dwell;
+
+        public final Histogram uiWork;
+
+        StateStats(Class<? extends State> stateClass) {
+            this(stateClass, new Histogram(), new Histogram());
+        }
+
+        private StateStats(Class<? extends State> stateClass, Histogram dwell, Histogram uiWork) {
+            this.stateClass = stateClass;
+            this.dwell = dwell;
+            this.uiWork = uiWork;
+        }
+
+        StateStats copy() {
+            StateStats copy = new StateStats(stateClass, dwell.copy(), uiWork.copy());
+            copy.entries = entries;
+            return copy;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s entries=%d dwell[%s] ui[%s]", stateClass.getSimpleName(), entries,
+                    dwell, uiWork);
+        }
+    }
+
+    /**
+     * durations in buckets of powers of two microseconds, bucket i holds the durations below 2^i microseconds. A
+     * percentile is the upper bound of its bucket, at most twice the real value.
+     */
+    public static final class Histogram {
+
+        static final int BUCKET_COUNT = 40;
+
+        private final long[] buckets;
+
+        private long count;
+
+        private long totalNs;
+
+        private long maxNs;
+
+        Histogram() {
+            buckets = new long[BUCKET_COUNT];
+        }
+
+        private Histogram(Histogram other) {
+            buckets = other.buckets.clone();
+            count = other.count;
+            totalNs = other.totalNs;
+            maxNs = other.maxNs;
+        }
+
+        void record(long durationNs) {
+            long micros = Math.max(0, durationNs / 1000);
+            int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets[bucket]++;
+            count++;
+            totalNs += durationNs;
+            maxNs = Math.max(maxNs, durationNs);
+        }
+
+        Histogram copy() {
+            return new Histogram(this);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxNs() {
+            return maxNs;
+        }
+
+        public long getMeanNs() {
+            return count > 0 ? totalNs / count : 0;
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the upper bound of the bucket holding the percentile, never above the maximum recorded
+         */
+        public long getPercentileNs(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(maxNs, (1L << i) * 1000);
+                }
+            }
+            return maxNs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "n=%d mean=%.1fms p50=%.1fms p95=%.1fms max=%.1fms", count,
+                    getMeanNs() / 1e6, getPercentileNs(50) / 1e6, getPercentileNs(95) / 1e6, maxNs / 1e6);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.tubitv.media.helpers;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.source.ConcatenatingMediaSource;
+import com.google.android.exoplayer2.source.MediaSource;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.MediaModel;
+import com.tubitv.media.utilities.ExoPlayerLogger;
+import com.tubitv.media.utilities.PlayerDeviceUtils;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single player ad insertion, used when {@link PlayerDeviceUtils#useSinglePlayer()} is true.
+ * <p>
+ * The movie is prepared inside a dynamic {@link ConcatenatingMediaSource}, at a cue point the ads of the break are
+ * spliced in front of the movie window and the player seeks to the first ad. Every ad finishing is then a window
+ * transition of the same player, and the movie comes back by removing the ad windows, the movie {@link MediaSource} is
+ * never prepared again.
+ * <p>
+ * The movie window after the ads starts from its beginning, so it is seeked to the resume position on the transition
+ * from the last ad, before its progress can be seen. Until the ad windows are removed the progress of the player is
+ * not the one of the movie, see {@link #isSplicing()}.
+ * <p>
+ * What the movie had buffered before the break is not kept: the player releases the movie period when it leaves it
+ * for the first ad, and the movie buffers again from the resume position. The splice saves the preparation of the
+ * movie source, its manifests and the reset of the renderers, and the movie period created at the resume position
+ * is kept when the ad windows in front of it are removed.
+ * <p>
+ * Only the leading non vpaid ads of a break are spliced, the rest of the break falls back to the re-prepare path.
+ */
+public class AdBreakSplicer {
+
+    private static final String TAG = AdBreakSplicer.class.getSimpleName();
+
+    private static final long TRANSITION_MASK = PlayerEvent.maskOf(PlayerEvent.POSITION_DISCONTINUITY);
+
+    private boolean enabled = true;
+
+    @Nullable
+    private SimpleExoPlayer player;
+
+    @Nullable
+    private ConcatenatingMediaSource timeline;
+
+    private int adWindowCount = 0;
+
+    /**
+     * the movie position the break has been spliced at.
+     */
+    private long resumePositionMs = C.TIME_UNSET;
+
+    /**
+     * true once the movie window after the ads has been seeked to the resume position.
+     */
+    private boolean contentPositioned = false;
+
+    /**
+     * true from the splice until the ad windows have been removed.
+     */
+    private boolean splicing = false;
+
+    private final PlayerEventBus.Subscriber transitionSubscriber = event -> {
+        if (event.reason == Player.DISCONTINUITY_REASON_PERIOD_TRANSITION && player != null) {
+            positionContent(player);
+        }
+    };
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled && PlayerDeviceUtils.useSinglePlayer();
+    }
+
+    /**
+     * prepare the player with the movie, wrapped in a timeline which ads can be spliced into.
+     *
+     * @param player        the content player
+     * @param contentSource the movie source
+     * @param resetPosition same as {@link SimpleExoPlayer#prepare(MediaSource, boolean, boolean)}
+     * @param resetState    same as {@link SimpleExoPlayer#prepare(MediaSource, boolean, boolean)}
+     */
+    public void prepareContent(@NonNull SimpleExoPlayer player, @NonNull MediaSource contentSource,
+            boolean resetPosition, boolean resetState) {
+        reset();
+
+        if (!isEnabled()) {
+            player.prepare(contentSource, resetPosition, resetState);
+            return;
+        }
+
+        this.player = player;
+        timeline = new ConcatenatingMediaSource(contentSource);
+        player.prepare(timeline, resetPosition, resetState);
+    }
+
+    /**
+     * @return true if the player is still playing the timeline prepared by {@link #prepareContent}
+     */
+    public boolean canSplice(@Nullable SimpleExoPlayer player) {
+        return isEnabled()
+                && player != null
+                && player == this.player
+                && timeline != null
+                && player.getPlaybackState() != Player.STATE_IDLE;
+    }
+
+    /**
+     * insert the leading non vpaid ads of the break in front of the movie, and seek to the first ad.
+     *
+     * @param adMediaModel     the ad break, its {@link MediaSource}s need to be built already
+     * @param resumePositionMs the movie position to resume from after the ads
+     * @return true if at least one ad has been spliced
+     */
+    public boolean spliceAds(@NonNull final SimpleExoPlayer player, @NonNull AdMediaModel adMediaModel,
+            long resumePositionMs) {
+        if (!canSplice(player) || hasAdWindows() || adMediaModel.getListOfAds() == null) {
+            return false;
+        }
+
+        List<MediaSource> adSources = new ArrayList<>();
+        for (MediaModel ad : adMediaModel.getListOfAds()) {
+            if (ad.isVpaid() || ad.getMediaSource() == null) {
+                break;
+            }
+            adSources.add(ad.getMediaSource());
+        }
+
+        if (adSources.isEmpty()) {
+            return false;
+        }
+
+        adWindowCount = adSources.size();
+        this.resumePositionMs = resumePositionMs;
+        contentPositioned = false;
+        splicing = true;
+        PlayerEventBus.of(player).subscribe(transitionSubscriber, TRANSITION_MASK);
+
+        // the seek has to wait for the new windows to reach the player.
+        timeline.addMediaSources(0, adSources, () -> player.seekTo(0, 0));
+
+        ExoPlayerLogger.i(Constants.FSMPLAYER_TESTING, "spliced ads: {}", adWindowCount);
+        return true;
+    }
+
+    public boolean hasAdWindows() {
+        return adWindowCount > 0;
+    }
+
+    /**
+     * @return true from the splice until the movie is the only window left, the position of the player is not the
+     * movie one in the meantime
+     */
+    public boolean isSplicing() {
+        return splicing;
+    }
+
+    /**
+     * @return true if the player is currently in one of the spliced ad windows
+     */
+    public boolean isPlayingAdWindow(@Nullable SimpleExoPlayer player) {
+        return hasAdWindows() && canSplice(player) && player.getCurrentWindowIndex() < adWindowCount;
+    }
+
+    /**
+     * remove the ad windows of the break. The movie keeps playing from the resume position when the last ad has
+     * transitioned into it, and is seeked back to it when the break has been left from an ad window.
+     *
+     * @param resumePositionMs the movie position to resume from
+     * @param onContentReady   run once the movie is the only window left, can be null
+     */
+    public void removeAds(@NonNull final SimpleExoPlayer player, final long resumePositionMs,
+            @Nullable final Runnable onContentReady) {
+        if (timeline == null || !hasAdWindows()) {
+            return;
+        }
+
+        // the transition may not have reached the subscriber yet.
+        this.resumePositionMs = resumePositionMs;
+        positionContent(player);
+        final boolean positioned = contentPositioned;
+
+        int count = adWindowCount;
+        adWindowCount = 0;
+
+        for (int i = count - 1; i > 0; i--) {
+            timeline.removeMediaSource(i);
+        }
+
+        timeline.removeMediaSource(0, () -> {
+            if (!positioned) {
+                player.seekTo(0, resumePositionMs);
+            }
+            endSplicing(player);
+            if (onContentReady != null) {
+                onContentReady.run();
+            }
+        });
+
+        ExoPlayerLogger.d(TAG, "removed ad windows: {}, movie positioned: {}", count, positioned);
+    }
+
+    /**
+     * forget the spliced timeline, the player is about to be prepared with another source.
+     */
+    public void reset() {
+        if (player != null) {
+            endSplicing(player);
+        }
+        player = null;
+        timeline = null;
+        adWindowCount = 0;
+    }
+
+    /**
+     * seek the movie window to the resume position as soon as the last ad has transitioned into it, removing the ad
+     * windows in front of it then keeps the movie period loading from there.
+     */
+    private void positionContent(@NonNull SimpleExoPlayer player) {
+        if (!hasAdWindows() || contentPositioned || player.getCurrentWindowIndex() != adWindowCount
+                || resumePositionMs == C.TIME_UNSET) {
+            return;
+        }
+
+        contentPositioned = true;
+        player.seekTo(adWindowCount, resumePositionMs);
+    }
+
+    private void endSplicing(@NonNull SimpleExoPlayer player) {
+        if (splicing) {
+            PlayerEventBus.of(player).unsubscribe(transitionSubscriber);
+        }
+        splicing = false;
+        contentPositioned = false;
+        resumePositionMs = C.TIME_UNSET;
+    }
+}
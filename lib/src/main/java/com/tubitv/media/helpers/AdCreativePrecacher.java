@@ -0,0 +1,324 @@
+package com.tubitv.media.helpers;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMasterPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMediaPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylistParser;
+import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSourceInputStream;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.util.UriUtil;
+import com.google.android.exoplayer2.util.Util;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.MediaModel;
+import com.tubitv.media.utilities.ExoPlayerLogger;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Download the ad creatives of a break into the {@link MediaCache} in the background, as soon as the ad response comes
+ * back, so the ad player reads them from local storage instead of the network.
+ * <p>
+ * HLS creatives only have their first {@link #DEFAULT_HLS_PRECACHE_SECONDS} seconds of segments downloaded, progressive
+ * files are downloaded whole, and of a master playlist only the variant the ad player starts with. Downloads run by
+ * priority, the break of the earlier cue point and the earlier ad in a break first, with at most
+ * {@link #DEFAULT_MAX_CONCURRENT_DOWNLOADS} at the same time. Nothing is downloaded when the cache is not
+ * enabled, because there would be no place for the player to read the creatives from.
+ */
+public class AdCreativePrecacher {
+
+    public static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 2;
+
+    public static final int DEFAULT_HLS_PRECACHE_SECONDS = 10;
+
+    private static final String TAG = AdCreativePrecacher.class.getSimpleName();
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final DataSource.Factory dataSourceFactory;
+
+    private final DataSource.Factory manifestDataSourceFactory;
+
+    private final BandwidthMeter bandwidthMeter;
+
+    private final long hlsPrecacheUs;
+
+    private final ThreadPoolExecutor executor;
+
+    private final List<PrecacheTask> tasks = new ArrayList<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param dataSourceFactory         a factory reading through the {@link MediaCache}
+     * @param manifestDataSourceFactory reads the playlists, like the one of
+     *                                  {@link MediaHelper#buildManifestDataSourceFactory}
+     * @param bandwidthMeter            the meter of the track selection of the ad player
+     */
+    public AdCreativePrecacher(@NonNull DataSource.Factory dataSourceFactory,
+            @NonNull DataSource.Factory manifestDataSourceFactory, @NonNull BandwidthMeter bandwidthMeter) {
+        this(dataSourceFactory, manifestDataSourceFactory, bandwidthMeter, DEFAULT_MAX_CONCURRENT_DOWNLOADS,
+                DEFAULT_HLS_PRECACHE_SECONDS);
+    }
+
+    public AdCreativePrecacher(@NonNull DataSource.Factory dataSourceFactory,
+            @NonNull DataSource.Factory manifestDataSourceFactory, @NonNull BandwidthMeter bandwidthMeter,
+            int maxConcurrentDownloads, int hlsPrecacheSeconds) {
+        this.dataSourceFactory = dataSourceFactory;
+        this.manifestDataSourceFactory = manifestDataSourceFactory;
+        this.bandwidthMeter = bandwidthMeter;
+        this.hlsPrecacheUs = C.msToUs(hlsPrecacheSeconds * 1000L);
+        this.executor = new ThreadPoolExecutor(maxConcurrentDownloads, maxConcurrentDownloads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * queue the creatives of the break behind the ones of the earlier cue points, the ads keep their order.
+     *
+     * @param adMediaModel the ad break returned by the ad server
+     * @param cuePointMs   the cue point of the break
+     */
+    public void precache(@Nullable AdMediaModel adMediaModel, long cuePointMs) {
+        if (!MediaCache.isEnabled() || adMediaModel == null || adMediaModel.getListOfAds() == null) {
+            return;
+        }
+
+        for (MediaModel ad : adMediaModel.getListOfAds()) {
+            if (ad.isVpaid()) {
+                continue;
+            }
+
+            PrecacheTask task = new PrecacheTask(adMediaModel, ad, cuePointMs, sequence.getAndIncrement());
+            synchronized (tasks) {
+                tasks.add(task);
+            }
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * cancel the downloads of a break, when it has been consumed.
+     */
+    public void cancel(@Nullable AdMediaModel adMediaModel) {
+        synchronized (tasks) {
+            Iterator<PrecacheTask> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                PrecacheTask task = iterator.next();
+                if (task.adBreak == adMediaModel) {
+                    task.cancel();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * cancel every pending and running download, when the activity stops.
+     */
+    public void cancelAll() {
+        synchronized (tasks) {
+            for (PrecacheTask task : tasks) {
+                task.cancel();
+            }
+            tasks.clear();
+        }
+    }
+
+    private void onTaskFinished(PrecacheTask task) {
+        // the list only holds the tasks which can still be canceled.
+        synchronized (tasks) {
+            tasks.remove(task);
+        }
+        ExoPlayerLogger.d(TAG, "precached: {}, completed: {}", task.ad.getMediaName(), task.completed);
+    }
+
+    /**
+     * download the creative of the ad into the cache, until it is done or the download is canceled.
+     */
+    protected void download(@NonNull MediaModel ad, @NonNull Download download) throws IOException {
+        Uri uri = ad.getVideoUrl();
+        if (uri == null) {
+            return;
+        }
+
+        String extension = ad.getMediaExtension();
+        int type = TextUtils.isEmpty(extension) ? Util.inferContentType(uri) : Util.inferContentType("." + extension);
+        if (type == C.TYPE_HLS) {
+            precacheHls(download, uri);
+        } else if (type == C.TYPE_OTHER) {
+            readFully(download, new DataSpec(uri));
+        }
+    }
+
+    private void precacheHls(Download download, Uri playlistUri) throws IOException {
+        HlsPlaylist playlist = loadPlaylist(playlistUri);
+
+        if (playlist instanceof HlsMasterPlaylist) {
+            HlsMasterPlaylist.HlsUrl variant = selectVariant(((HlsMasterPlaylist) playlist).variants,
+                    bandwidthMeter.getBitrateEstimate());
+            if (variant == null) {
+                return;
+            }
+            playlistUri = UriUtil.resolveToUri(playlist.baseUri, variant.url);
+            playlist = loadPlaylist(playlistUri);
+        }
+
+        if (!(playlist instanceof HlsMediaPlaylist)) {
+            return;
+        }
+
+        HlsMediaPlaylist mediaPlaylist = (HlsMediaPlaylist) playlist;
+        long precachedUs = 0;
+
+        for (HlsMediaPlaylist.Segment segment : mediaPlaylist.segments) {
+            if (download.isCanceled() || precachedUs >= hlsPrecacheUs) {
+                return;
+            }
+
+            Uri segmentUri = UriUtil.resolveToUri(mediaPlaylist.baseUri, segment.url);
+            readFully(download, new DataSpec(segmentUri, segment.byterangeOffset, segment.byterangeLength, null));
+            precachedUs += segment.durationUs;
+        }
+    }
+
+    /**
+     * the variant the {@link AdaptiveTrackSelection} of the ad player starts with: the highest bitrate within the
+     * default fraction of the estimate, or within the default initial bitrate without estimate, else the lowest.
+     *
+     * @param variants        the variants of the master playlist
+     * @param bitrateEstimate the estimate of the meter of the ad player, or {@link BandwidthMeter#NO_ESTIMATE}
+     */
+    @Nullable
+    public static HlsMasterPlaylist.HlsUrl selectVariant(@NonNull List<HlsMasterPlaylist.HlsUrl> variants,
+            long bitrateEstimate) {
+        long effectiveBitrate = bitrateEstimate == BandwidthMeter.NO_ESTIMATE
+                ? AdaptiveTrackSelection.DEFAULT_MAX_INITIAL_BITRATE
+                : (long) (bitrateEstimate * AdaptiveTrackSelection.DEFAULT_BANDWIDTH_FRACTION);
+
+        HlsMasterPlaylist.HlsUrl selected = null;
+        HlsMasterPlaylist.HlsUrl lowest = null;
+        for (HlsMasterPlaylist.HlsUrl variant : variants) {
+            int bitrate = variant.format.bitrate;
+            if (bitrate <= effectiveBitrate && (selected == null || bitrate > selected.format.bitrate)) {
+                selected = variant;
+            }
+            if (lowest == null || bitrate < lowest.format.bitrate) {
+                lowest = variant;
+            }
+        }
+        return selected != null ? selected : lowest;
+    }
+
+    private HlsPlaylist loadPlaylist(Uri uri) throws IOException {
+        // a playlist is never cached, like the playlist loads of the player.
+        DataSourceInputStream inputStream = new DataSourceInputStream(manifestDataSourceFactory.createDataSource(),
+                new DataSpec(uri, DataSpec.FLAG_ALLOW_GZIP));
+        try {
+            return new HlsPlaylistParser().parse(uri, inputStream);
+        } finally {
+            Util.closeQuietly(inputStream);
+        }
+    }
+
+    /**
+     * read the whole data spec, the caching data source writes it to the cache on the way.
+     */
+    private void readFully(Download download, DataSpec dataSpec) throws IOException {
+        DataSource dataSource = dataSourceFactory.createDataSource();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try {
+            dataSource.open(dataSpec);
+            while (!download.isCanceled()) {
+                if (dataSource.read(buffer, 0, buffer.length) == C.RESULT_END_OF_INPUT) {
+                    break;
+                }
+            }
+        } finally {
+            Util.closeQuietly(dataSource);
+        }
+    }
+
+    /**
+     * one creative being downloaded.
+     */
+    public interface Download {
+
+        /**
+         * @return true once the break of the creative has been canceled, the download stops as soon as it sees it
+         */
+        boolean isCanceled();
+    }
+
+    private final class PrecacheTask implements Runnable, Comparable<PrecacheTask>, Download {
+
+        private final AdMediaModel adBreak;
+
+        private final MediaModel ad;
+
+        private final long cuePointMs;
+
+        private final long order;
+
+        private volatile boolean canceled = false;
+
+        private volatile boolean completed = false;
+
+        PrecacheTask(AdMediaModel adBreak, MediaModel ad, long cuePointMs, long order) {
+            this.adBreak = adBreak;
+            this.ad = ad;
+            this.cuePointMs = cuePointMs;
+            this.order = order;
+        }
+
+        void cancel() {
+            canceled = true;
+            executor.remove(this);
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @Override
+        public void run() {
+            if (canceled) {
+                return;
+            }
+
+            try {
+                download(ad, this);
+                completed = !canceled;
+            } catch (IOException e) {
+                ExoPlayerLogger.w(TAG, "precache failed: {}, {}", ad.getMediaName(), e.getMessage());
+            } finally {
+                onTaskFinished(this);
+            }
+        }
+
+        @Override
+        public int compareTo(@NonNull PrecacheTask other) {
+            if (cuePointMs != other.cuePointMs) {
+                return cuePointMs < other.cuePointMs ? -1 : 1;
+            }
+            return order < other.order ? -1 : (order == other.order ? 0 : 1);
+        }
+    }
+}
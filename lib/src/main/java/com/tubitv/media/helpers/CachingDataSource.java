@@ -0,0 +1,117 @@
+package com.tubitv.media.helpers;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.FileDataSource;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSink;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import java.io.IOException;
+
+/**
+ * {@link DataSource} reading media segments through the shared {@link MediaCache}.
+ * <p>
+ * Segments are stored under the key built by {@link MediaCache#buildCacheKey(String)}, so the same segment requested
+ * with a different CDN token is still a hit. Manifests and playlists skip the cache and go straight to the upstream.
+ */
+public class CachingDataSource implements DataSource {
+
+    private static final long MAX_CACHE_FILE_SIZE = 2 * 1024 * 1024;
+
+    private final Cache cache;
+
+    private final DataSource upstream;
+
+    private final CacheDataSource cacheDataSource;
+
+    @Nullable
+    private DataSource currentDataSource;
+
+    /**
+     * bytes which are already in the cache from the position opened, used to count the bytes saved.
+     */
+    private long cachedBytesRemaining;
+
+    public CachingDataSource(@NonNull Cache cache, @NonNull DataSource.Factory upstreamFactory) {
+        this.cache = cache;
+        this.upstream = upstreamFactory.createDataSource();
+        this.cacheDataSource = new CacheDataSource(cache, upstreamFactory.createDataSource(), new FileDataSource(),
+                new CacheDataSink(cache, MAX_CACHE_FILE_SIZE),
+                CacheDataSource.FLAG_BLOCK_ON_CACHE | CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR, null);
+    }
+
+    @Override
+    public long open(DataSpec dataSpec) throws IOException {
+        cachedBytesRemaining = 0;
+
+        if (!MediaCache.isCacheable(dataSpec)) {
+            currentDataSource = upstream;
+            return upstream.open(dataSpec);
+        }
+
+        String key = dataSpec.key != null ? dataSpec.key : MediaCache.buildCacheKey(dataSpec.uri.toString());
+        DataSpec keyedDataSpec = new DataSpec(dataSpec.uri, dataSpec.postBody, dataSpec.absoluteStreamPosition,
+                dataSpec.position, dataSpec.length, key, dataSpec.flags);
+
+        long length = dataSpec.length == C.LENGTH_UNSET ? Long.MAX_VALUE : dataSpec.length;
+        cachedBytesRemaining = Math.max(0, cache.getCachedLength(key, dataSpec.position, length));
+        MediaCache.onOpen(cachedBytesRemaining > 0);
+
+        currentDataSource = cacheDataSource;
+        return cacheDataSource.open(keyedDataSpec);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int readLength) throws IOException {
+        if (currentDataSource == null) {
+            throw new IOException("read before open");
+        }
+
+        int bytesRead = currentDataSource.read(buffer, offset, readLength);
+
+        if (bytesRead > 0) {
+            long fromCache = Math.min(bytesRead, cachedBytesRemaining);
+            cachedBytesRemaining -= fromCache;
+            MediaCache.onBytesRead(fromCache, bytesRead - fromCache);
+        }
+        return bytesRead;
+    }
+
+    @Nullable
+    @Override
+    public Uri getUri() {
+        return currentDataSource != null ? currentDataSource.getUri() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (currentDataSource != null) {
+            try {
+                currentDataSource.close();
+            } finally {
+                currentDataSource = null;
+            }
+        }
+    }
+
+    public static class Factory implements DataSource.Factory {
+
+        private final Cache cache;
+
+        private final DataSource.Factory upstreamFactory;
+
+        public Factory(@NonNull Cache cache, @NonNull DataSource.Factory upstreamFactory) {
+            this.cache = cache;
+            this.upstreamFactory = upstreamFactory;
+        }
+
+        @Override
+        public DataSource createDataSource() {
+            return new CachingDataSource(cache, upstreamFactory);
+        }
+    }
+}
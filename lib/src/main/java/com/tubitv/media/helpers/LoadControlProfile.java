@@ -0,0 +1,87 @@
+package com.tubitv.media.helpers;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+import com.tubitv.media.utilities.PlayerDeviceUtils;
+
+/**
+ * The buffer thresholds of a player, per device class and per role of the player.
+ * <p>
+ * The TVs have the memory for a longer buffer, the low RAM devices get a byte cap which wins over the durations, so
+ * the content and the ad players together stay within what a 1GB device can hold. {@link #BACKGROUND} is the buffer
+ * the content player keeps while an ad plays on the ad player.
+ */
+public class LoadControlProfile {
+
+    public static final LoadControlProfile TV = new LoadControlProfile(30000, 60000, 2500, 5000, C.LENGTH_UNSET, true);
+
+    public static final LoadControlProfile PHONE = new LoadControlProfile(15000, 30000, 2500, 5000, C.LENGTH_UNSET,
+            true);
+
+    public static final LoadControlProfile LOW_RAM = new LoadControlProfile(10000, 20000, 2000, 4000,
+            8 * 1024 * 1024, false);
+
+    public static final LoadControlProfile AD = new LoadControlProfile(5000, 15000, 1500, 3000, 6 * 1024 * 1024,
+            false);
+
+    public static final LoadControlProfile AD_LOW_RAM = new LoadControlProfile(5000, 10000, 1500, 3000,
+            3 * 1024 * 1024, false);
+
+    public static final LoadControlProfile BACKGROUND = new LoadControlProfile(5000, 10000, 2500, 5000,
+            4 * 1024 * 1024, false);
+
+    public final int minBufferMs;
+
+    public final int maxBufferMs;
+
+    public final int bufferForPlaybackMs;
+
+    public final int bufferForPlaybackAfterRebufferMs;
+
+    /**
+     * the byte cap of the buffer, or {@link C#LENGTH_UNSET} to size it from the selected tracks.
+     */
+    public final int targetBufferBytes;
+
+    public final boolean prioritizeTimeOverSizeThresholds;
+
+    public LoadControlProfile(int minBufferMs, int maxBufferMs, int bufferForPlaybackMs,
+            int bufferForPlaybackAfterRebufferMs, int targetBufferBytes, boolean prioritizeTimeOverSizeThresholds) {
+        this.minBufferMs = minBufferMs;
+        this.maxBufferMs = maxBufferMs;
+        this.bufferForPlaybackMs = bufferForPlaybackMs;
+        this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+        this.targetBufferBytes = targetBufferBytes;
+        this.prioritizeTimeOverSizeThresholds = prioritizeTimeOverSizeThresholds;
+    }
+
+    /**
+     * @return the profile of the content player on this device
+     */
+    @NonNull
+    public static LoadControlProfile forContent(@NonNull Context context) {
+        if (PlayerDeviceUtils.isLowRamDevice(context)) {
+            return LOW_RAM;
+        }
+        return PlayerDeviceUtils.isTVDevice(context) ? TV : PHONE;
+    }
+
+    /**
+     * @return the profile of the ad player on this device
+     */
+    @NonNull
+    public static LoadControlProfile forAds(@NonNull Context context) {
+        return PlayerDeviceUtils.isLowRamDevice(context) ? AD_LOW_RAM : AD;
+    }
+
+    @NonNull
+    public LoadControl createLoadControl() {
+        return new DefaultLoadControl(new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE), minBufferMs,
+                maxBufferMs, bufferForPlaybackMs, bufferForPlaybackAfterRebufferMs, targetBufferBytes,
+                prioritizeTimeOverSizeThresholds);
+    }
+}
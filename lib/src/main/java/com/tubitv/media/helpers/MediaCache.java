@@ -0,0 +1,198 @@
+package com.tubitv.media.helpers;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+import com.google.android.exoplayer2.util.Util;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide on-disk cache for media segments, shared by the content and the ad players.
+ * <p>
+ * The cache is opt-in, once {@link #initialize(Context, long)} has been called every data source built by
+ * {@link MediaHelper#buildDataSourceFactory} reads through it, the manifest ones built by
+ * {@link MediaHelper#buildManifestDataSourceFactory} never do. Entries are evicted least recently used first when the
+ * byte budget is exceeded.
+ */
+public class MediaCache {
+
+    public static final long DEFAULT_MAX_BYTES = 100 * 1024 * 1024;
+
+    private static final String CACHE_DIRECTORY = "tubi_media_cache";
+
+    /**
+     * the query parameters the usual CDNs sign a request with, lower cased. Every other parameter identifies the
+     * content.
+     */
+    public static final Set<String> DEFAULT_TOKEN_PARAMETERS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "token", "exp", "expires", "signature", "sig", "policy", "key-pair-id", "hdnts", "hdnea", "__token__")));
+
+    private static volatile Set<String> tokenParameters = DEFAULT_TOKEN_PARAMETERS;
+
+    @Nullable
+    private static Cache cache;
+
+    private static final AtomicLong hitCount = new AtomicLong();
+
+    private static final AtomicLong missCount = new AtomicLong();
+
+    private static final AtomicLong bytesFromCache = new AtomicLong();
+
+    private static final AtomicLong bytesFromNetwork = new AtomicLong();
+
+    /**
+     * create the shared cache, only the first call has any effect, because one directory can only be owned by one
+     * {@link SimpleCache} instance.
+     *
+     * @param context  any context, the application context is used
+     * @param maxBytes the byte budget of the cache
+     */
+    public static synchronized void initialize(@NonNull Context context, long maxBytes) {
+        if (cache != null) {
+            return;
+        }
+
+        File directory = new File(context.getApplicationContext().getCacheDir(), CACHE_DIRECTORY);
+        cache = new SimpleCache(directory, new LeastRecentlyUsedCacheEvictor(maxBytes));
+    }
+
+    public static synchronized boolean isEnabled() {
+        return cache != null;
+    }
+
+    @Nullable
+    public static synchronized Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * wrap the upstream factory with the cache, or return it as it is when the cache is not enabled.
+     */
+    @NonNull
+    public static DataSource.Factory wrap(@NonNull DataSource.Factory upstreamFactory) {
+        Cache cache = getCache();
+        if (cache == null) {
+            return upstreamFactory;
+        }
+        return new CachingDataSource.Factory(cache, upstreamFactory);
+    }
+
+    /**
+     * set the query parameters the CDN of the media signs its requests with, they are left out of the cache keys.
+     *
+     * @param parameters the parameter names, in any case, {@link #DEFAULT_TOKEN_PARAMETERS} by default
+     */
+    public static void setTokenParameters(@NonNull Collection<String> parameters) {
+        Set<String> lowerCased = new HashSet<>();
+        for (String parameter : parameters) {
+            lowerCased.add(parameter.toLowerCase(Locale.US));
+        }
+        tokenParameters = Collections.unmodifiableSet(lowerCased);
+    }
+
+    @NonNull
+    public static Set<String> getTokenParameters() {
+        return tokenParameters;
+    }
+
+    /**
+     * key of a media url in the cache. The fragment and the token parameters of the query are dropped, because the CDN
+     * signs every request with a different token while the segment behind it stays the same. The other parameters are
+     * kept, they can be what tells two segments apart.
+     *
+     * @param url the requested url
+     * @return the cache key
+     */
+    @NonNull
+    public static String buildCacheKey(@NonNull String url) {
+        int fragment = url.indexOf('#');
+        if (fragment >= 0) {
+            url = url.substring(0, fragment);
+        }
+
+        int query = url.indexOf('?');
+        if (query < 0) {
+            return url;
+        }
+
+        Set<String> tokenParameters = MediaCache.tokenParameters;
+        StringBuilder key = new StringBuilder(url.length()).append(url, 0, query);
+        char separator = '?';
+        for (String parameter : url.substring(query + 1).split("&")) {
+            int equals = parameter.indexOf('=');
+            String name = equals >= 0 ? parameter.substring(0, equals) : parameter;
+            if (parameter.isEmpty() || tokenParameters.contains(name.toLowerCase(Locale.US))) {
+                continue;
+            }
+            key.append(separator).append(parameter);
+            separator = '&';
+        }
+        return key.toString();
+    }
+
+    /**
+     * Manifests and playlists are always loaded from the network, the cache only keeps the media. The players and
+     * the {@link AdCreativePrecacher} load them with the data sources of
+     * {@link MediaHelper#buildManifestDataSourceFactory}, this only keeps one which comes through a media data source
+     * out of the cache, told apart by the extension of its path like {@link Util#inferContentType(String)} does.
+     *
+     * @param dataSpec the requested data spec
+     * @return true if the data spec can be served from the cache
+     */
+    public static boolean isCacheable(@NonNull DataSpec dataSpec) {
+        String path = dataSpec.uri.getPath();
+        return path == null || Util.inferContentType(path) == C.TYPE_OTHER;
+    }
+
+    static void onOpen(boolean hit) {
+        if (hit) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+    }
+
+    static void onBytesRead(long fromCache, long fromNetwork) {
+        bytesFromCache.addAndGet(fromCache);
+        bytesFromNetwork.addAndGet(fromNetwork);
+    }
+
+    public static long getHitCount() {
+        return hitCount.get();
+    }
+
+    public static long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the bytes served from the cache instead of the network
+     */
+    public static long getBytesSaved() {
+        return bytesFromCache.get();
+    }
+
+    public static long getBytesFromNetwork() {
+        return bytesFromNetwork.get();
+    }
+
+    public static void resetStats() {
+        hitCount.set(0);
+        missCount.set(0);
+        bytesFromCache.set(0);
+        bytesFromNetwork.set(0);
+    }
+}
@@ -1,14 +1,31 @@
 package com.tubitv.media.helpers;
 
 import android.content.Context;
+import android.os.Handler;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.text.TextUtils;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.extractor.DefaultExtractorsFactory;
+import com.google.android.exoplayer2.source.ExtractorMediaSource;
+import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.source.MergingMediaSource;
+import com.google.android.exoplayer2.source.SingleSampleMediaSource;
+import com.google.android.exoplayer2.source.dash.DashMediaSource;
+import com.google.android.exoplayer2.source.dash.DefaultDashChunkSource;
+import com.google.android.exoplayer2.source.hls.HlsMediaSource;
+import com.google.android.exoplayer2.source.smoothstreaming.DefaultSsChunkSource;
+import com.google.android.exoplayer2.source.smoothstreaming.SsMediaSource;
 import com.google.android.exoplayer2.upstream.DataSource;
-import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
 import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
 import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
 import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.google.android.exoplayer2.util.MimeTypes;
 import com.google.android.exoplayer2.util.Util;
+import com.tubitv.media.models.MediaModel;
+import com.tubitv.media.utilities.EventLogger;
 
 /**
  * Created by stoyan on 6/21/17.
@@ -55,20 +72,96 @@ public class MediaHelper {
     //        return linkedList.get(index);
     //    }
 
+    /**
+     * build the data source factory for the players, reading through the {@link MediaCache} when it is enabled.
+     *
+     * @param bandwidthMeter the meter measuring the transfers, like a {@link SeededBandwidthMeter}
+     */
     public static
     @NonNull
     DataSource.Factory buildDataSourceFactory(@NonNull Context context,
-            @Nullable DefaultBandwidthMeter bandwidthMeter) {
-        return new DefaultDataSourceFactory(context, bandwidthMeter,
-                buildHttpDataSourceFactory(context, bandwidthMeter));
+            @Nullable TransferListener<? super DataSource> bandwidthMeter) {
+        return MediaCache.wrap(new DefaultDataSourceFactory(context, bandwidthMeter,
+                buildHttpDataSourceFactory(context, bandwidthMeter)));
+    }
+
+    /**
+     * build the data source factory of the manifests, the playlists and the subtitles, which never reads through the
+     * {@link MediaCache}: a manifest changes behind the same url, and its signed urls expire.
+     */
+    public static
+    @NonNull
+    DataSource.Factory buildManifestDataSourceFactory(@NonNull Context context) {
+        return new DefaultDataSourceFactory(context, null, buildHttpDataSourceFactory(context, null));
     }
 
     //TODO put user agent in meta or attrs
     public static
     @NonNull
     HttpDataSource.Factory buildHttpDataSourceFactory(@NonNull Context context,
-            @NonNull DefaultBandwidthMeter bandwidthMeter) {
+            @Nullable TransferListener<? super DataSource> bandwidthMeter) {
         return new DefaultHttpDataSourceFactory(Util.getUserAgent(context, "TubiExoPlayer"), bandwidthMeter);
     }
 
+    /**
+     * build the media source of the model, with its sideloaded subtitles.
+     *
+     * @param mediaDataSourceFactory    reads the media, measured by the bandwidth meter of the player
+     * @param manifestDataSourceFactory reads the manifests, the HLS playlists and keys and the subtitles, like the
+     *                                  one of {@link #buildManifestDataSourceFactory(Context)}
+     * @param eventHandler              the thread of the event logger, null without logger
+     * @param eventLogger               the logger of the media source events
+     */
+    public static
+    @NonNull
+    MediaSource buildMediaSource(@NonNull MediaModel model, @NonNull DataSource.Factory mediaDataSourceFactory,
+            @NonNull DataSource.Factory manifestDataSourceFactory, @Nullable Handler eventHandler,
+            @Nullable EventLogger eventLogger) {
+        MediaSource mediaSource;
+        int type = TextUtils.isEmpty(model.getMediaExtension()) ? Util.inferContentType(model.getVideoUrl())
+                : Util.inferContentType("." + model.getMediaExtension());
+
+        // TODO: Replace deprecated constructors with proper factory
+        switch (type) {
+            case C.TYPE_SS:
+                mediaSource = new SsMediaSource(model.getVideoUrl(), manifestDataSourceFactory,
+                        new DefaultSsChunkSource.Factory(mediaDataSourceFactory), eventHandler, eventLogger);
+                break;
+            case C.TYPE_DASH:
+                mediaSource = new DashMediaSource(model.getVideoUrl(), manifestDataSourceFactory,
+                        new DefaultDashChunkSource.Factory(mediaDataSourceFactory), eventHandler, eventLogger);
+                break;
+            case C.TYPE_HLS:
+                // only the segments are read by the media factory, the playlists are reloaded from the network.
+                mediaSource = new HlsMediaSource.Factory(dataType -> dataType == C.DATA_TYPE_MEDIA
+                        ? mediaDataSourceFactory.createDataSource() : manifestDataSourceFactory.createDataSource())
+                        .createMediaSource(model.getVideoUrl());
+                if (eventHandler != null && eventLogger != null) {
+                    mediaSource.addEventListener(eventHandler, eventLogger);
+                }
+                break;
+            case C.TYPE_OTHER:
+                mediaSource = new ExtractorMediaSource(model.getVideoUrl(), mediaDataSourceFactory,
+                        new DefaultExtractorsFactory(),
+                        eventHandler, eventLogger);
+                break;
+            default: {
+                throw new IllegalStateException("Unsupported type: " + type);
+            }
+        }
+
+        if (model.getSubtitlesUrl() != null) {
+            MediaSource subtitleSource = new SingleSampleMediaSource(
+                    model.getSubtitlesUrl(),
+                    manifestDataSourceFactory,
+                    Format.createTextSampleFormat(null, MimeTypes.APPLICATION_SUBRIP, null, Format.NO_VALUE,
+                            C.SELECTION_FLAG_DEFAULT, "en", null, 0),
+                    0);
+            // Plays the video with the sideloaded subtitle.
+            mediaSource =
+                    new MergingMediaSource(mediaSource, subtitleSource);
+        }
+
+        return mediaSource;
+    }
 }
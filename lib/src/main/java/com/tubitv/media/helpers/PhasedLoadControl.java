@@ -0,0 +1,59 @@
+package com.tubitv.media.helpers;
+
+import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.DefaultLoadControl;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+
+/**
+ * The load control of the content player, which buffers with its playing profile while the movie plays and caps the
+ * buffer to its background profile while an ad plays on the ad player, so the two players do not compete for the
+ * memory and the bandwidth.
+ * <p>
+ * The background phase only stops the loading past its caps, what is already buffered is kept for the movie to
+ * resume from, and the playing phase tops the buffer up again. The phase is set by the fsm, the load control is read
+ * on the playback thread.
+ */
+public class PhasedLoadControl extends DefaultLoadControl {
+
+    public static final int PHASE_PLAYING = 0;
+
+    public static final int PHASE_BACKGROUND = 1;
+
+    private final long backgroundMaxBufferUs;
+
+    private final int backgroundTargetBufferBytes;
+
+    private volatile int phase = PHASE_PLAYING;
+
+    public PhasedLoadControl(@NonNull LoadControlProfile playing, @NonNull LoadControlProfile background) {
+        super(new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE), playing.minBufferMs, playing.maxBufferMs,
+                playing.bufferForPlaybackMs, playing.bufferForPlaybackAfterRebufferMs, playing.targetBufferBytes,
+                playing.prioritizeTimeOverSizeThresholds);
+        backgroundMaxBufferUs = C.msToUs(background.maxBufferMs);
+        backgroundTargetBufferBytes = background.targetBufferBytes;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * @param phase {@link #PHASE_PLAYING} or {@link #PHASE_BACKGROUND}
+     */
+    public void setPhase(int phase) {
+        this.phase = phase;
+    }
+
+    @Override
+    public boolean shouldContinueLoading(long bufferedDurationUs, float playbackSpeed) {
+        boolean continueLoading = super.shouldContinueLoading(bufferedDurationUs, playbackSpeed);
+        if (!continueLoading || phase == PHASE_PLAYING) {
+            return continueLoading;
+        }
+
+        return bufferedDurationUs < backgroundMaxBufferUs
+                && (backgroundTargetBufferBytes == C.LENGTH_UNSET
+                || getAllocator().getTotalBytesAllocated() < backgroundTargetBufferBytes);
+    }
+}
@@ -0,0 +1,444 @@
+package com.tubitv.media.helpers;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Collect the quality of experience of one playback session from the {@link PlayerEventBus} of the players, and from
+ * the fsm for what the player events cannot tell: whether the content or an ad is on screen, and how long the ad
+ * calls take.
+ * <p>
+ * The rebuffering, the play time, the bitrate switches and the dropped frames are the ones of the content only, a
+ * buffering right after a seek or before the first ready state of a content start is not a rebuffer.
+ * <p>
+ * The player events come on the main thread and the fsm calls from its worker thread, the collector is synchronized.
+ */
+public class PlaybackMetrics {
+
+    private static final long EVENT_MASK = PlayerEvent.maskOf(PlayerEvent.PLAYER_STATE_CHANGED,
+            PlayerEvent.SEEK_STARTED, PlayerEvent.RENDERED_FIRST_FRAME, PlayerEvent.DOWNSTREAM_FORMAT_CHANGED,
+            PlayerEvent.DROPPED_VIDEO_FRAMES);
+
+    private static final int ROLE_CONTENT = 1;
+    private static final int ROLE_AD = 2;
+    private static final int ROLE_SHARED = ROLE_CONTENT | ROLE_AD;
+
+    private final Clock clock;
+
+    private final List<Exporter> exporters = new ArrayList<>();
+
+    @Nullable
+    private Tracker contentTracker;
+
+    @Nullable
+    private Tracker adTracker;
+
+    private long sessionStartMs;
+
+    /**
+     * the role of the player events counted now, the content or an ad.
+     */
+    private int activeRole = ROLE_CONTENT;
+
+    /**
+     * when the first frame of the active role is awaited since, or {@link C#TIME_UNSET}.
+     */
+    private long firstFrameStartMs = C.TIME_UNSET;
+
+    private long startupTimeMs = C.TIME_UNSET;
+
+    private final List<Long> contentFirstFrameMs = new ArrayList<>();
+
+    private final List<Long> adFirstFrameMs = new ArrayList<>();
+
+    private final List<Long> adFetchLatencyMs = new ArrayList<>();
+
+    private int adPrefetchHitCount;
+
+    private boolean contentReadyOnce;
+
+    private boolean seeking;
+
+    private boolean playing;
+
+    private boolean rebuffering;
+
+    /**
+     * when the current playing or rebuffering interval has started.
+     */
+    private long intervalStartMs;
+
+    private long playTimeMs;
+
+    private int rebufferCount;
+
+    private long rebufferTimeMs;
+
+    private int lastVideoBitrate = Format.NO_VALUE;
+
+    private int bitrateSwitchCount;
+
+    private long droppedFrames;
+
+    public PlaybackMetrics() {
+        this(SystemClock::elapsedRealtime);
+    }
+
+    public PlaybackMetrics(@NonNull Clock clock) {
+        this.clock = clock;
+        this.sessionStartMs = clock.elapsedRealtime();
+    }
+
+    /**
+     * subscribe to the players of the session, again each time they are created or taken back from the pool.
+     *
+     * @param adPlayer the ad player, or null or the content player when the ads play in the content player
+     */
+    public synchronized void attach(@NonNull SimpleExoPlayer contentPlayer, @Nullable SimpleExoPlayer adPlayer) {
+        boolean shared = adPlayer == null || adPlayer == contentPlayer;
+        contentTracker = track(contentTracker, contentPlayer, shared ? ROLE_SHARED : ROLE_CONTENT);
+        adTracker = shared ? null : track(adTracker, adPlayer, ROLE_AD);
+    }
+
+    public synchronized void addExporter(@NonNull Exporter exporter) {
+        exporters.add(exporter);
+    }
+
+    //------------------------------called by the fsm------------------------------//
+
+    /**
+     * the content is about to be shown, its first frame is awaited.
+     */
+    public synchronized void onContentStart() {
+        long now = clock.elapsedRealtime();
+        activeRole = ROLE_CONTENT;
+        firstFrameStartMs = now;
+        contentReadyOnce = false;
+        closeInterval(now);
+    }
+
+    /**
+     * an ad is about to be shown, its first frame is awaited and the content stops counting.
+     */
+    public synchronized void onAdStart() {
+        long now = clock.elapsedRealtime();
+        closeInterval(now);
+        playing = false;
+        rebuffering = false;
+        activeRole = ROLE_AD;
+        firstFrameStartMs = now;
+    }
+
+    /**
+     * an ad break has come back from the ad servers, with ads or not.
+     *
+     * @param latencyMs from the request to the delivery of the break
+     */
+    public synchronized void onAdFetched(long latencyMs) {
+        adFetchLatencyMs.add(latencyMs);
+    }
+
+    /**
+     * an ad call has been answered by a prefetched break, without waiting on the ad servers.
+     */
+    public synchronized void onAdPrefetchHit() {
+        adPrefetchHitCount++;
+    }
+
+    //------------------------------snapshot and export------------------------------//
+
+    /**
+     * the metrics so far, with the current playing or rebuffering interval counted until now.
+     */
+    @NonNull
+    public synchronized Snapshot snapshot() {
+        long now = clock.elapsedRealtime();
+        long currentPlayTimeMs = playTimeMs + (playing ? now - intervalStartMs : 0);
+        long currentRebufferTimeMs = rebufferTimeMs + (rebuffering ? now - intervalStartMs : 0);
+        return new Snapshot(now - sessionStartMs, startupTimeMs, toArray(contentFirstFrameMs),
+                toArray(adFirstFrameMs), toArray(adFetchLatencyMs), adPrefetchHitCount, currentPlayTimeMs,
+                rebufferCount, currentRebufferTimeMs, bitrateSwitchCount, droppedFrames);
+    }
+
+    /**
+     * give the snapshot of the session to every exporter, at the end of the session or whenever a report is due.
+     */
+    public void export() {
+        Snapshot snapshot = snapshot();
+        Exporter[] targets;
+        synchronized (this) {
+            targets = exporters.toArray(new Exporter[exporters.size()]);
+        }
+        for (Exporter exporter : targets) {
+            exporter.export(snapshot);
+        }
+    }
+
+    /**
+     * start a new session, for the next media played with the same players.
+     */
+    public synchronized void reset() {
+        sessionStartMs = clock.elapsedRealtime();
+        activeRole = ROLE_CONTENT;
+        firstFrameStartMs = C.TIME_UNSET;
+        startupTimeMs = C.TIME_UNSET;
+        contentFirstFrameMs.clear();
+        adFirstFrameMs.clear();
+        adFetchLatencyMs.clear();
+        adPrefetchHitCount = 0;
+        contentReadyOnce = false;
+        seeking = false;
+        playing = false;
+        rebuffering = false;
+        playTimeMs = 0;
+        rebufferCount = 0;
+        rebufferTimeMs = 0;
+        lastVideoBitrate = Format.NO_VALUE;
+        bitrateSwitchCount = 0;
+        droppedFrames = 0;
+    }
+
+    //------------------------------player events------------------------------//
+
+    private synchronized void onPlayerEvent(int role, @NonNull PlayerEvent event) {
+        if ((role & activeRole) == 0) {
+            // an event of the player not on screen, like the ad player buffering ahead.
+            return;
+        }
+
+        long now = clock.elapsedRealtime();
+        switch (event.type) {
+            case PlayerEvent.RENDERED_FIRST_FRAME:
+                onFirstFrame(now);
+                break;
+            case PlayerEvent.PLAYER_STATE_CHANGED:
+                if (activeRole == ROLE_CONTENT) {
+                    onContentStateChanged(now, event.playWhenReady, event.playbackState);
+                }
+                break;
+            case PlayerEvent.SEEK_STARTED:
+                seeking = true;
+                break;
+            case PlayerEvent.DOWNSTREAM_FORMAT_CHANGED:
+                if (activeRole == ROLE_CONTENT && event.mediaLoadData != null) {
+                    onContentFormat(event.mediaLoadData.trackType, event.mediaLoadData.trackFormat);
+                }
+                break;
+            case PlayerEvent.DROPPED_VIDEO_FRAMES:
+                if (activeRole == ROLE_CONTENT) {
+                    droppedFrames += event.droppedFrames;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onFirstFrame(long now) {
+        if (startupTimeMs == C.TIME_UNSET) {
+            startupTimeMs = now - sessionStartMs;
+        }
+        if (firstFrameStartMs == C.TIME_UNSET) {
+            return;
+        }
+
+        long timeToFirstFrameMs = now - firstFrameStartMs;
+        if (activeRole == ROLE_CONTENT) {
+            contentFirstFrameMs.add(timeToFirstFrameMs);
+        } else {
+            adFirstFrameMs.add(timeToFirstFrameMs);
+        }
+        firstFrameStartMs = C.TIME_UNSET;
+    }
+
+    private void onContentStateChanged(long now, boolean playWhenReady, int playbackState) {
+        closeInterval(now);
+
+        if (playbackState == Player.STATE_READY) {
+            contentReadyOnce = true;
+            seeking = false;
+        }
+
+        playing = playWhenReady && playbackState == Player.STATE_READY;
+        rebuffering = playWhenReady && playbackState == Player.STATE_BUFFERING && contentReadyOnce && !seeking;
+        if (rebuffering) {
+            rebufferCount++;
+        }
+        intervalStartMs = now;
+    }
+
+    private void onContentFormat(int trackType, @Nullable Format format) {
+        if (format == null || format.bitrate == Format.NO_VALUE
+                || (trackType != C.TRACK_TYPE_VIDEO && trackType != C.TRACK_TYPE_DEFAULT)) {
+            return;
+        }
+
+        if (lastVideoBitrate != Format.NO_VALUE && format.bitrate != lastVideoBitrate) {
+            bitrateSwitchCount++;
+        }
+        lastVideoBitrate = format.bitrate;
+    }
+
+    /**
+     * add the current playing or rebuffering interval to the totals.
+     */
+    private void closeInterval(long now) {
+        if (playing) {
+            playTimeMs += now - intervalStartMs;
+        } else if (rebuffering) {
+            rebufferTimeMs += now - intervalStartMs;
+        }
+        intervalStartMs = now;
+    }
+
+    @NonNull
+    private Tracker track(@Nullable Tracker tracker, @NonNull SimpleExoPlayer player, int role) {
+        // a player parked in the pool comes back with a new bus, the released one has no events anymore.
+        PlayerEventBus bus = PlayerEventBus.of(player);
+        if (tracker != null && tracker.player == player && tracker.bus == bus && tracker.role == role) {
+            return tracker;
+        }
+        if (tracker != null) {
+            // the previous player may have been released, its bus is not looked up again.
+            tracker.bus.unsubscribe(tracker);
+        }
+
+        Tracker newTracker = new Tracker(player, bus, role);
+        newTracker.bus.subscribe(newTracker, EVENT_MASK);
+        return newTracker;
+    }
+
+    @NonNull
+    private static long[] toArray(@NonNull List<Long> values) {
+        long[] array = new long[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * the subscriber of one player, which tells the role of the player with its events.
+     */
+    private final class Tracker implements PlayerEventBus.Subscriber {
+
+        final SimpleExoPlayer player;
+
+        final PlayerEventBus bus;
+
+        final int role;
+
+        Tracker(SimpleExoPlayer player, PlayerEventBus bus, int role) {
+            this.player = player;
+            this.bus = bus;
+            this.role = role;
+        }
+
+        @Override
+        public void onPlayerEvent(@NonNull PlayerEvent event) {
+            PlaybackMetrics.this.onPlayerEvent(role, event);
+        }
+    }
+
+    /**
+     * the time source of the metrics, the elapsed realtime of the device.
+     */
+    public interface Clock {
+
+        long elapsedRealtime();
+    }
+
+    /**
+     * where the snapshots of the sessions go, like an analytics backend.
+     */
+    public interface Exporter {
+
+        void export(@NonNull Snapshot snapshot);
+    }
+
+    /**
+     * the metrics of a session at one time, the times are in milliseconds.
+     */
+    public static final class Snapshot {
+
+        public final long sessionTimeMs;
+
+        /**
+         * from the start of the session to the first frame on screen, ad or content, or {@link C#TIME_UNSET}.
+         */
+        public final long startupTimeMs;
+
+        /**
+         * the time to first frame of every content start, the first one is the content startup.
+         */
+        public final long[] contentTimeToFirstFrameMs;
+
+        public final long[] adTimeToFirstFrameMs;
+
+        /**
+         * the latency of every ad break fetched from the ad servers, the prefetched ones included.
+         */
+        public final long[] adFetchLatencyMs;
+
+        /**
+         * the ad calls answered by a prefetched break, which have no latency of their own.
+         */
+        public final int adPrefetchHitCount;
+
+        public final long playTimeMs;
+
+        public final int rebufferCount;
+
+        public final long rebufferTimeMs;
+
+        public final int bitrateSwitchCount;
+
+        public final long droppedFrames;
+
+        Snapshot(long sessionTimeMs, long startupTimeMs, long[] contentTimeToFirstFrameMs,
+                long[] adTimeToFirstFrameMs, long[] adFetchLatencyMs, int adPrefetchHitCount, long playTimeMs,
+                int rebufferCount, long rebufferTimeMs, int bitrateSwitchCount, long droppedFrames) {
+            this.sessionTimeMs = sessionTimeMs;
+            this.startupTimeMs = startupTimeMs;
+            this.contentTimeToFirstFrameMs = contentTimeToFirstFrameMs;
+            this.adTimeToFirstFrameMs = adTimeToFirstFrameMs;
+            this.adFetchLatencyMs = adFetchLatencyMs;
+            this.adPrefetchHitCount = adPrefetchHitCount;
+            this.playTimeMs = playTimeMs;
+            this.rebufferCount = rebufferCount;
+            this.rebufferTimeMs = rebufferTimeMs;
+            this.bitrateSwitchCount = bitrateSwitchCount;
+            this.droppedFrames = droppedFrames;
+        }
+
+        /**
+         * the part of the watching time spent rebuffering, between 0 and 1.
+         */
+        public double getRebufferRatio() {
+            long watchTimeMs = playTimeMs + rebufferTimeMs;
+            return watchTimeMs == 0 ? 0 : (double) rebufferTimeMs / watchTimeMs;
+        }
+
+        public double getDroppedFramesPerMinute() {
+            return playTimeMs == 0 ? 0 : droppedFrames * 60000.0 / playTimeMs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "session=%dms startup=%dms contentFirstFrames=%d adFirstFrames=%d "
+                            + "adFetches=%d prefetchHits=%d play=%dms rebuffers=%d/%dms ratio=%.4f bitrateSwitches=%d "
+                            + "droppedFrames=%.1f/min",
+                    sessionTimeMs, startupTimeMs, contentTimeToFirstFrameMs.length, adTimeToFirstFrameMs.length,
+                    adFetchLatencyMs.length, adPrefetchHitCount, playTimeMs, rebufferCount, rebufferTimeMs,
+                    getRebufferRatio(), bitrateSwitchCount, getDroppedFramesPerMinute());
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.tubitv.media.helpers;
+
+import android.net.NetworkInfo;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.Surface;
+import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.PlaybackParameters;
+import com.google.android.exoplayer2.analytics.AnalyticsListener;
+import com.google.android.exoplayer2.analytics.AnalyticsListener.EventTime;
+import com.google.android.exoplayer2.decoder.DecoderCounters;
+import com.google.android.exoplayer2.metadata.Metadata;
+import com.google.android.exoplayer2.source.MediaSourceEventListener.LoadEventInfo;
+import com.google.android.exoplayer2.source.MediaSourceEventListener.MediaLoadData;
+import com.google.android.exoplayer2.source.TrackGroupArray;
+import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
+import java.io.IOException;
+
+/**
+ * One callback of {@link AnalyticsListener}, dispatched by the {@link PlayerEventBus} to its subscribers.
+ * <p>
+ * The events are preallocated by the bus and reused for every callback, a subscriber must copy what it needs and never
+ * keep the event after {@link PlayerEventBus.Subscriber#onPlayerEvent(PlayerEvent)} returns. Only the fields of the
+ * {@link #type} are set, the others may hold the values of a previous callback.
+ */
+public final class PlayerEvent {
+
+    public static final int PLAYER_STATE_CHANGED = 0;
+    public static final int TIMELINE_CHANGED = 1;
+    public static final int POSITION_DISCONTINUITY = 2;
+    public static final int SEEK_STARTED = 3;
+    public static final int SEEK_PROCESSED = 4;
+    public static final int PLAYBACK_PARAMETERS_CHANGED = 5;
+    public static final int REPEAT_MODE_CHANGED = 6;
+    public static final int SHUFFLE_MODE_CHANGED = 7;
+    public static final int LOADING_CHANGED = 8;
+    public static final int PLAYER_ERROR = 9;
+    public static final int TRACKS_CHANGED = 10;
+    public static final int LOAD_STARTED = 11;
+    public static final int LOAD_COMPLETED = 12;
+    public static final int LOAD_CANCELED = 13;
+    public static final int LOAD_ERROR = 14;
+    public static final int DOWNSTREAM_FORMAT_CHANGED = 15;
+    public static final int UPSTREAM_DISCARDED = 16;
+    public static final int MEDIA_PERIOD_CREATED = 17;
+    public static final int MEDIA_PERIOD_RELEASED = 18;
+    public static final int READING_STARTED = 19;
+    public static final int BANDWIDTH_ESTIMATE = 20;
+    public static final int VIEWPORT_SIZE_CHANGE = 21;
+    public static final int NETWORK_TYPE_CHANGED = 22;
+    public static final int METADATA = 23;
+    public static final int DECODER_ENABLED = 24;
+    public static final int DECODER_INITIALIZED = 25;
+    public static final int DECODER_INPUT_FORMAT_CHANGED = 26;
+    public static final int DECODER_DISABLED = 27;
+    public static final int AUDIO_SESSION_ID = 28;
+    public static final int AUDIO_UNDERRUN = 29;
+    public static final int DROPPED_VIDEO_FRAMES = 30;
+    public static final int VIDEO_SIZE_CHANGED = 31;
+    public static final int RENDERED_FIRST_FRAME = 32;
+    public static final int DRM_KEYS_LOADED = 33;
+    public static final int DRM_SESSION_MANAGER_ERROR = 34;
+    public static final int DRM_KEYS_RESTORED = 35;
+    public static final int DRM_KEYS_REMOVED = 36;
+
+    public static final int TYPE_COUNT = 37;
+
+    /**
+     * every event type, for the subscribers which log the whole player.
+     */
+    public static final long MASK_ALL = (1L << TYPE_COUNT) - 1;
+
+    /**
+     * the events changing what the playback controls display.
+     */
+    public static final long MASK_PLAYBACK = maskOf(PLAYER_STATE_CHANGED, TIMELINE_CHANGED, POSITION_DISCONTINUITY);
+
+    public int type;
+
+    @Nullable
+    public EventTime eventTime;
+
+    public boolean playWhenReady;
+
+    public int playbackState;
+
+    /**
+     * the reason of a {@link #TIMELINE_CHANGED} or {@link #POSITION_DISCONTINUITY}.
+     */
+    public int reason;
+
+    @Nullable
+    public PlaybackParameters playbackParameters;
+
+    public int repeatMode;
+
+    public boolean shuffleModeEnabled;
+
+    public boolean isLoading;
+
+    @Nullable
+    public ExoPlaybackException playerError;
+
+    @Nullable
+    public TrackGroupArray trackGroups;
+
+    @Nullable
+    public TrackSelectionArray trackSelections;
+
+    @Nullable
+    public LoadEventInfo loadEventInfo;
+
+    @Nullable
+    public MediaLoadData mediaLoadData;
+
+    @Nullable
+    public IOException loadError;
+
+    public boolean wasCanceled;
+
+    public int totalLoadTimeMs;
+
+    public long totalBytesLoaded;
+
+    public long bitrateEstimate;
+
+    /**
+     * the size of a {@link #VIEWPORT_SIZE_CHANGE} or {@link #VIDEO_SIZE_CHANGED}.
+     */
+    public int width;
+
+    public int height;
+
+    @Nullable
+    public NetworkInfo networkInfo;
+
+    @Nullable
+    public Metadata metadata;
+
+    public int trackType;
+
+    @Nullable
+    public DecoderCounters decoderCounters;
+
+    @Nullable
+    public String decoderName;
+
+    public long initializationDurationMs;
+
+    @Nullable
+    public Format format;
+
+    public int audioSessionId;
+
+    public int bufferSize;
+
+    public long bufferSizeMs;
+
+    public long elapsedSinceLastFeedMs;
+
+    public int droppedFrames;
+
+    public long elapsedMs;
+
+    public int unappliedRotationDegrees;
+
+    public float pixelWidthHeightRatio;
+
+    @Nullable
+    public Surface surface;
+
+    @Nullable
+    public Exception drmError;
+
+    PlayerEvent() {
+    }
+
+    public static long maskOf(int... types) {
+        long mask = 0;
+        for (int type : types) {
+            mask |= 1L << type;
+        }
+        return mask;
+    }
+
+    /**
+     * call the method of the listener matching this event, for the listeners written against {@link AnalyticsListener}.
+     */
+    public void dispatchTo(@NonNull AnalyticsListener listener) {
+        switch (type) {
+            case PLAYER_STATE_CHANGED:
+                listener.onPlayerStateChanged(eventTime, playWhenReady, playbackState);
+                break;
+            case TIMELINE_CHANGED:
+                listener.onTimelineChanged(eventTime, reason);
+                break;
+            case POSITION_DISCONTINUITY:
+                listener.onPositionDiscontinuity(eventTime, reason);
+                break;
+            case SEEK_STARTED:
+                listener.onSeekStarted(eventTime);
+                break;
+            case SEEK_PROCESSED:
+                listener.onSeekProcessed(eventTime);
+                break;
+            case PLAYBACK_PARAMETERS_CHANGED:
+                listener.onPlaybackParametersChanged(eventTime, playbackParameters);
+                break;
+            case REPEAT_MODE_CHANGED:
+                listener.onRepeatModeChanged(eventTime, repeatMode);
+                break;
+            case SHUFFLE_MODE_CHANGED:
+                listener.onShuffleModeChanged(eventTime, shuffleModeEnabled);
+                break;
+            case LOADING_CHANGED:
+                listener.onLoadingChanged(eventTime, isLoading);
+                break;
+            case PLAYER_ERROR:
+                listener.onPlayerError(eventTime, playerError);
+                break;
+            case TRACKS_CHANGED:
+                listener.onTracksChanged(eventTime, trackGroups, trackSelections);
+                break;
+            case LOAD_STARTED:
+                listener.onLoadStarted(eventTime, loadEventInfo, mediaLoadData);
+                break;
+            case LOAD_COMPLETED:
+                listener.onLoadCompleted(eventTime, loadEventInfo, mediaLoadData);
+                break;
+            case LOAD_CANCELED:
+                listener.onLoadCanceled(eventTime, loadEventInfo, mediaLoadData);
+                break;
+            case LOAD_ERROR:
+                listener.onLoadError(eventTime, loadEventInfo, mediaLoadData, loadError, wasCanceled);
+                break;
+            case DOWNSTREAM_FORMAT_CHANGED:
+                listener.onDownstreamFormatChanged(eventTime, mediaLoadData);
+                break;
+            case UPSTREAM_DISCARDED:
+                listener.onUpstreamDiscarded(eventTime, mediaLoadData);
+                break;
+            case MEDIA_PERIOD_CREATED:
+                listener.onMediaPeriodCreated(eventTime);
+                break;
+            case MEDIA_PERIOD_RELEASED:
+                listener.onMediaPeriodReleased(eventTime);
+                break;
+            case READING_STARTED:
+                listener.onReadingStarted(eventTime);
+                break;
+            case BANDWIDTH_ESTIMATE:
+                listener.onBandwidthEstimate(eventTime, totalLoadTimeMs, totalBytesLoaded, bitrateEstimate);
+                break;
+            case VIEWPORT_SIZE_CHANGE:
+                listener.onViewportSizeChange(eventTime, width, height);
+                break;
+            case NETWORK_TYPE_CHANGED:
+                listener.onNetworkTypeChanged(eventTime, networkInfo);
+                break;
+            case METADATA:
+                listener.onMetadata(eventTime, metadata);
+                break;
+            case DECODER_ENABLED:
+                listener.onDecoderEnabled(eventTime, trackType, decoderCounters);
+                break;
+            case DECODER_INITIALIZED:
+                listener.onDecoderInitialized(eventTime, trackType, decoderName, initializationDurationMs);
+                break;
+            case DECODER_INPUT_FORMAT_CHANGED:
+                listener.onDecoderInputFormatChanged(eventTime, trackType, format);
+                break;
+            case DECODER_DISABLED:
+                listener.onDecoderDisabled(eventTime, trackType, decoderCounters);
+                break;
+            case AUDIO_SESSION_ID:
+                listener.onAudioSessionId(eventTime, audioSessionId);
+                break;
+            case AUDIO_UNDERRUN:
+                listener.onAudioUnderrun(eventTime, bufferSize, bufferSizeMs, elapsedSinceLastFeedMs);
+                break;
+            case DROPPED_VIDEO_FRAMES:
+                listener.onDroppedVideoFrames(eventTime, droppedFrames, elapsedMs);
+                break;
+            case VIDEO_SIZE_CHANGED:
+                listener.onVideoSizeChanged(eventTime, width, height, unappliedRotationDegrees,
+                        pixelWidthHeightRatio);
+                break;
+            case RENDERED_FIRST_FRAME:
+                listener.onRenderedFirstFrame(eventTime, surface);
+                break;
+            case DRM_KEYS_LOADED:
+                listener.onDrmKeysLoaded(eventTime);
+                break;
+            case DRM_SESSION_MANAGER_ERROR:
+                listener.onDrmSessionManagerError(eventTime, drmError);
+                break;
+            case DRM_KEYS_RESTORED:
+                listener.onDrmKeysRestored(eventTime);
+                break;
+            case DRM_KEYS_REMOVED:
+                listener.onDrmKeysRemoved(eventTime);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * drop the references of the last callback, so a reused event does not keep them alive.
+     */
+    void clear() {
+        eventTime = null;
+        playbackParameters = null;
+        playerError = null;
+        trackGroups = null;
+        trackSelections = null;
+        loadEventInfo = null;
+        mediaLoadData = null;
+        loadError = null;
+        networkInfo = null;
+        metadata = null;
+        decoderCounters = null;
+        decoderName = null;
+        format = null;
+        surface = null;
+        drmError = null;
+    }
+}
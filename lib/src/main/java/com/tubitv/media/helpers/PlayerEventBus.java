@@ -0,0 +1,611 @@
+package com.tubitv.media.helpers;
+
+import android.net.NetworkInfo;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.view.Surface;
+import com.google.android.exoplayer2.ExoPlaybackException;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.PlaybackParameters;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.analytics.AnalyticsListener;
+import com.google.android.exoplayer2.decoder.DecoderCounters;
+import com.google.android.exoplayer2.metadata.Metadata;
+import com.google.android.exoplayer2.source.MediaSourceEventListener.LoadEventInfo;
+import com.google.android.exoplayer2.source.MediaSourceEventListener.MediaLoadData;
+import com.google.android.exoplayer2.source.TrackGroupArray;
+import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
+import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Fan out the events of one {@link SimpleExoPlayer} to its subscribers, the bus is added once as the
+ * {@link AnalyticsListener} of the player instead of every component adding and removing its own listener.
+ * <p>
+ * Every subscriber declares the {@link PlayerEvent} types it wants with a mask, and the subscribers are kept per type
+ * in copy-on-write arrays, so a callback nobody wants costs one array read and the logging subscribers are not on the
+ * path of the events they do not log. The events are preallocated and reused, no object is created per callback.
+ * <p>
+ * The player calls the bus on its application thread, the subscriptions can change from any thread.
+ */
+public final class PlayerEventBus implements AnalyticsListener {
+
+    /**
+     * the nested dispatches served by the preallocated events, a subscriber calling the player can trigger a callback
+     * from its own callback.
+     */
+    private static final int MAX_DEPTH = 4;
+
+    private static final Subscriber[] NO_SUBSCRIBERS = {};
+
+    private static final Map<SimpleExoPlayer, PlayerEventBus> BUSES = new WeakHashMap<>();
+
+    private final Object lock = new Object();
+
+    /**
+     * guarded by {@link #lock}.
+     */
+    private Entry[] entries = {};
+
+    /**
+     * the subscribers of every event type, replaced as a whole on every subscription change.
+     */
+    private volatile Subscriber[][] subscribersByType;
+
+    private final PlayerEvent[] events = new PlayerEvent[MAX_DEPTH];
+
+    private int depth;
+
+    public PlayerEventBus() {
+        subscribersByType = new Subscriber[PlayerEvent.TYPE_COUNT][];
+        for (int i = 0; i < PlayerEvent.TYPE_COUNT; i++) {
+            subscribersByType[i] = NO_SUBSCRIBERS;
+        }
+        for (int i = 0; i < MAX_DEPTH; i++) {
+            events[i] = new PlayerEvent();
+        }
+    }
+
+    /**
+     * @return the bus of the player, added as its listener the first time
+     */
+    @NonNull
+    public static PlayerEventBus of(@NonNull SimpleExoPlayer player) {
+        synchronized (BUSES) {
+            PlayerEventBus bus = BUSES.get(player);
+            if (bus == null) {
+                bus = new PlayerEventBus();
+                BUSES.put(player, bus);
+                player.addAnalyticsListener(bus);
+            }
+            return bus;
+        }
+    }
+
+    /**
+     * remove the bus of a released player, and all of its subscribers.
+     */
+    public static void release(@NonNull SimpleExoPlayer player) {
+        PlayerEventBus bus;
+        synchronized (BUSES) {
+            bus = BUSES.remove(player);
+        }
+        if (bus != null) {
+            player.removeAnalyticsListener(bus);
+            bus.clear();
+        }
+    }
+
+    /**
+     * subscribe to the event types of the mask, or change the mask of a subscriber already subscribed.
+     *
+     * @param mask the types of {@link PlayerEvent} to receive, see {@link PlayerEvent#maskOf(int...)}
+     */
+    public void subscribe(@NonNull Subscriber subscriber, long mask) {
+        subscribe(subscriber, subscriber, mask);
+    }
+
+    /**
+     * subscribe a listener written against {@link AnalyticsListener}, it only receives the calls of the mask.
+     */
+    public void subscribe(@NonNull final AnalyticsListener listener, long mask) {
+        subscribe(listener, event -> event.dispatchTo(listener), mask);
+    }
+
+    /**
+     * @param key the {@link Subscriber} or the {@link AnalyticsListener} subscribed
+     */
+    public void unsubscribe(@NonNull Object key) {
+        synchronized (lock) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return;
+            }
+
+            Entry[] newEntries = new Entry[entries.length - 1];
+            System.arraycopy(entries, 0, newEntries, 0, index);
+            System.arraycopy(entries, index + 1, newEntries, index, newEntries.length - index);
+            publish(newEntries);
+        }
+    }
+
+    public void clear() {
+        synchronized (lock) {
+            publish(new Entry[0]);
+        }
+    }
+
+    public boolean hasSubscribers(int type) {
+        return subscribersByType[type].length > 0;
+    }
+
+    private void subscribe(@NonNull Object key, @NonNull Subscriber subscriber, long mask) {
+        synchronized (lock) {
+            int index = indexOf(key);
+            Entry[] newEntries;
+            if (index < 0) {
+                newEntries = new Entry[entries.length + 1];
+                System.arraycopy(entries, 0, newEntries, 0, entries.length);
+                index = entries.length;
+            } else if (entries[index].mask == mask) {
+                return;
+            } else {
+                newEntries = entries.clone();
+            }
+            newEntries[index] = new Entry(key, subscriber, mask);
+            publish(newEntries);
+        }
+    }
+
+    private int indexOf(@NonNull Object key) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].key == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * build the arrays of every type from the entries, in their subscription order. Called with the lock held.
+     */
+    private void publish(@NonNull Entry[] newEntries) {
+        Subscriber[][] byType = new Subscriber[PlayerEvent.TYPE_COUNT][];
+        for (int type = 0; type < PlayerEvent.TYPE_COUNT; type++) {
+            long bit = 1L << type;
+            int count = 0;
+            for (Entry entry : newEntries) {
+                if ((entry.mask & bit) != 0) {
+                    count++;
+                }
+            }
+
+            if (count == 0) {
+                byType[type] = NO_SUBSCRIBERS;
+                continue;
+            }
+
+            Subscriber[] subscribers = new Subscriber[count];
+            count = 0;
+            for (Entry entry : newEntries) {
+                if ((entry.mask & bit) != 0) {
+                    subscribers[count++] = entry.subscriber;
+                }
+            }
+            byType[type] = subscribers;
+        }
+
+        entries = newEntries;
+        subscribersByType = byType;
+    }
+
+    /**
+     * @return the event to fill for the callback, or null when no subscriber wants it
+     */
+    @Nullable
+    private PlayerEvent obtain(int type, @Nullable EventTime eventTime) {
+        if (subscribersByType[type].length == 0) {
+            return null;
+        }
+
+        PlayerEvent event = depth < MAX_DEPTH ? events[depth] : new PlayerEvent();
+        depth++;
+        event.type = type;
+        event.eventTime = eventTime;
+        return event;
+    }
+
+    private void dispatch(@NonNull PlayerEvent event) {
+        Subscriber[] subscribers = subscribersByType[event.type];
+        try {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.onPlayerEvent(event);
+            }
+        } finally {
+            event.clear();
+            depth--;
+        }
+    }
+
+    //------------------------------AnalyticsListener, one event per callback------------------------------//
+
+    @Override
+    public void onPlayerStateChanged(EventTime eventTime, boolean playWhenReady, int playbackState) {
+        PlayerEvent event = obtain(PlayerEvent.PLAYER_STATE_CHANGED, eventTime);
+        if (event != null) {
+            event.playWhenReady = playWhenReady;
+            event.playbackState = playbackState;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onTimelineChanged(EventTime eventTime, int reason) {
+        PlayerEvent event = obtain(PlayerEvent.TIMELINE_CHANGED, eventTime);
+        if (event != null) {
+            event.reason = reason;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onPositionDiscontinuity(EventTime eventTime, int reason) {
+        PlayerEvent event = obtain(PlayerEvent.POSITION_DISCONTINUITY, eventTime);
+        if (event != null) {
+            event.reason = reason;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onSeekStarted(EventTime eventTime) {
+        PlayerEvent event = obtain(PlayerEvent.SEEK_STARTED, eventTime);
+        if (event != null) {
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onSeekProcessed(EventTime eventTime) {
+        PlayerEvent event = obtain(PlayerEvent.SEEK_PROCESSED, eventTime);
+        if (event != null) {
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onPlaybackParametersChanged(EventTime eventTime, PlaybackParameters playbackParameters) {
+        PlayerEvent event = obtain(PlayerEvent.PLAYBACK_PARAMETERS_CHANGED, eventTime);
+        if (event != null) {
+            event.playbackParameters = playbackParameters;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onRepeatModeChanged(EventTime eventTime, int repeatMode) {
+        PlayerEvent event = obtain(PlayerEvent.REPEAT_MODE_CHANGED, eventTime);
+        if (event != null) {
+            event.repeatMode = repeatMode;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onShuffleModeChanged(EventTime eventTime, boolean shuffleModeEnabled) {
+        PlayerEvent event = obtain(PlayerEvent.SHUFFLE_MODE_CHANGED, eventTime);
+        if (event != null) {
+            event.shuffleModeEnabled = shuffleModeEnabled;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onLoadingChanged(EventTime eventTime, boolean isLoading) {
+        PlayerEvent event = obtain(PlayerEvent.LOADING_CHANGED, eventTime);
+        if (event != null) {
+            event.isLoading = isLoading;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onPlayerError(EventTime eventTime, ExoPlaybackException error) {
+        PlayerEvent event = obtain(PlayerEvent.PLAYER_ERROR, eventTime);
+        if (event != null) {
+            event.playerError = error;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onTracksChanged(EventTime eventTime, TrackGroupArray trackGroups,
+            TrackSelectionArray trackSelections) {
+        PlayerEvent event = obtain(PlayerEvent.TRACKS_CHANGED, eventTime);
+        if (event != null) {
+            event.trackGroups = trackGroups;
+            event.trackSelections = trackSelections;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onLoadStarted(EventTime eventTime, LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData) {
+        PlayerEvent event = obtain(PlayerEvent.LOAD_STARTED, eventTime);
+        if (event != null) {
+            event.loadEventInfo = loadEventInfo;
+            event.mediaLoadData = mediaLoadData;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onLoadCompleted(EventTime eventTime, LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData) {
+        PlayerEvent event = obtain(PlayerEvent.LOAD_COMPLETED, eventTime);
+        if (event != null) {
+            event.loadEventInfo = loadEventInfo;
+            event.mediaLoadData = mediaLoadData;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onLoadCanceled(EventTime eventTime, LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData) {
+        PlayerEvent event = obtain(PlayerEvent.LOAD_CANCELED, eventTime);
+        if (event != null) {
+            event.loadEventInfo = loadEventInfo;
+            event.mediaLoadData = mediaLoadData;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onLoadError(EventTime eventTime, LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData,
+            IOException error, boolean wasCanceled) {
+        PlayerEvent event = obtain(PlayerEvent.LOAD_ERROR, eventTime);
+        if (event != null) {
+            event.loadEventInfo = loadEventInfo;
+            event.mediaLoadData = mediaLoadData;
+            event.loadError = error;
+            event.wasCanceled = wasCanceled;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onDownstreamFormatChanged(EventTime eventTime, MediaLoadData mediaLoadData) {
+        PlayerEvent event = obtain(PlayerEvent.DOWNSTREAM_FORMAT_CHANGED, eventTime);
+        if (event != null) {
+            event.mediaLoadData = mediaLoadData;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onUpstreamDiscarded(EventTime eventTime, MediaLoadData mediaLoadData) {
+        PlayerEvent event = obtain(PlayerEvent.UPSTREAM_DISCARDED, eventTime);
+        if (event != null) {
+            event.mediaLoadData = mediaLoadData;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onMediaPeriodCreated(EventTime eventTime) {
+        PlayerEvent event = obtain(PlayerEvent.MEDIA_PERIOD_CREATED, eventTime);
+        if (event != null) {
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onMediaPeriodReleased(EventTime eventTime) {
+        PlayerEvent event = obtain(PlayerEvent.MEDIA_PERIOD_RELEASED, eventTime);
+        if (event != null) {
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onReadingStarted(EventTime eventTime) {
+        PlayerEvent event = obtain(PlayerEvent.READING_STARTED, eventTime);
+        if (event != null) {
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onBandwidthEstimate(EventTime eventTime, int totalLoadTimeMs, long totalBytesLoaded,
+            long bitrateEstimate) {
+        PlayerEvent event = obtain(PlayerEvent.BANDWIDTH_ESTIMATE, eventTime);
+        if (event != null) {
+            event.totalLoadTimeMs = totalLoadTimeMs;
+            event.totalBytesLoaded = totalBytesLoaded;
+            event.bitrateEstimate = bitrateEstimate;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onViewportSizeChange(EventTime eventTime, int width, int height) {
+        PlayerEvent event = obtain(PlayerEvent.VIEWPORT_SIZE_CHANGE, eventTime);
+        if (event != null) {
+            event.width = width;
+            event.height = height;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onNetworkTypeChanged(EventTime eventTime, @Nullable NetworkInfo networkInfo) {
+        PlayerEvent event = obtain(PlayerEvent.NETWORK_TYPE_CHANGED, eventTime);
+        if (event != null) {
+            event.networkInfo = networkInfo;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onMetadata(EventTime eventTime, Metadata metadata) {
+        PlayerEvent event = obtain(PlayerEvent.METADATA, eventTime);
+        if (event != null) {
+            event.metadata = metadata;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onDecoderEnabled(EventTime eventTime, int trackType, DecoderCounters decoderCounters) {
+        PlayerEvent event = obtain(PlayerEvent.DECODER_ENABLED, eventTime);
+        if (event != null) {
+            event.trackType = trackType;
+            event.decoderCounters = decoderCounters;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onDecoderInitialized(EventTime eventTime, int trackType, String decoderName,
+            long initializationDurationMs) {
+        PlayerEvent event = obtain(PlayerEvent.DECODER_INITIALIZED, eventTime);
+        if (event != null) {
+            event.trackType = trackType;
+            event.decoderName = decoderName;
+            event.initializationDurationMs = initializationDurationMs;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onDecoderInputFormatChanged(EventTime eventTime, int trackType, Format format) {
+        PlayerEvent event = obtain(PlayerEvent.DECODER_INPUT_FORMAT_CHANGED, eventTime);
+        if (event != null) {
+            event.trackType = trackType;
+            event.format = format;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onDecoderDisabled(EventTime eventTime, int trackType, DecoderCounters decoderCounters) {
+        PlayerEvent event = obtain(PlayerEvent.DECODER_DISABLED, eventTime);
+        if (event != null) {
+            event.trackType = trackType;
+            event.decoderCounters = decoderCounters;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onAudioSessionId(EventTime eventTime, int audioSessionId) {
+        PlayerEvent event = obtain(PlayerEvent.AUDIO_SESSION_ID, eventTime);
+        if (event != null) {
+            event.audioSessionId = audioSessionId;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onAudioUnderrun(EventTime eventTime, int bufferSize, long bufferSizeMs,
+            long elapsedSinceLastFeedMs) {
+        PlayerEvent event = obtain(PlayerEvent.AUDIO_UNDERRUN, eventTime);
+        if (event != null) {
+            event.bufferSize = bufferSize;
+            event.bufferSizeMs = bufferSizeMs;
+            event.elapsedSinceLastFeedMs = elapsedSinceLastFeedMs;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onDroppedVideoFrames(EventTime eventTime, int droppedFrames, long elapsedMs) {
+        PlayerEvent event = obtain(PlayerEvent.DROPPED_VIDEO_FRAMES, eventTime);
+        if (event != null) {
+            event.droppedFrames = droppedFrames;
+            event.elapsedMs = elapsedMs;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onVideoSizeChanged(EventTime eventTime, int width, int height, int unappliedRotationDegrees,
+            float pixelWidthHeightRatio) {
+        PlayerEvent event = obtain(PlayerEvent.VIDEO_SIZE_CHANGED, eventTime);
+        if (event != null) {
+            event.width = width;
+            event.height = height;
+            event.unappliedRotationDegrees = unappliedRotationDegrees;
+            event.pixelWidthHeightRatio = pixelWidthHeightRatio;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onRenderedFirstFrame(EventTime eventTime, Surface surface) {
+        PlayerEvent event = obtain(PlayerEvent.RENDERED_FIRST_FRAME, eventTime);
+        if (event != null) {
+            event.surface = surface;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onDrmKeysLoaded(EventTime eventTime) {
+        PlayerEvent event = obtain(PlayerEvent.DRM_KEYS_LOADED, eventTime);
+        if (event != null) {
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onDrmSessionManagerError(EventTime eventTime, Exception error) {
+        PlayerEvent event = obtain(PlayerEvent.DRM_SESSION_MANAGER_ERROR, eventTime);
+        if (event != null) {
+            event.drmError = error;
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onDrmKeysRestored(EventTime eventTime) {
+        PlayerEvent event = obtain(PlayerEvent.DRM_KEYS_RESTORED, eventTime);
+        if (event != null) {
+            dispatch(event);
+        }
+    }
+
+    @Override
+    public void onDrmKeysRemoved(EventTime eventTime) {
+        PlayerEvent event = obtain(PlayerEvent.DRM_KEYS_REMOVED, eventTime);
+        if (event != null) {
+            dispatch(event);
+        }
+    }
+
+    /**
+     * a subscriber of the bus.
+     */
+    public interface Subscriber {
+
+        /**
+         * called on the application thread of the player, the event is reused after this call returns.
+         */
+        void onPlayerEvent(@NonNull PlayerEvent event);
+    }
+
+    private static final class Entry {
+
+        final Object key;
+
+        final Subscriber subscriber;
+
+        final long mask;
+
+        Entry(Object key, Subscriber subscriber, long mask) {
+            this.key = key;
+            this.subscriber = subscriber;
+            this.mask = mask;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.tubitv.media.helpers;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import com.tubitv.media.utilities.ExoPlayerLogger;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process wide pool keeping the players of a stopped activity warm, with their renderers, decoders, track selector and
+ * buffer, so the activity resumes from a short trip in the background or a configuration change without building
+ * and preparing the players again.
+ * <p>
+ * A player is parked under a key telling its role and its media, and handed back only for the same key: asking for
+ * another key releases the parked players, which belong to another movie. The parked players are released after
+ * {@link #DEFAULT_IDLE_TIMEOUT_MS}, and as soon as the system reports memory pressure.
+ * <p>
+ * The pool is used from the main thread, the players are paused and detached from their listeners before they are
+ * parked.
+ */
+public class PlayerPool implements ComponentCallbacks2 {
+
+    private static final String TAG = PlayerPool.class.getSimpleName();
+
+    public static final String ROLE_CONTENT = "content";
+
+    public static final String ROLE_AD = "ad";
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 60 * 1000;
+
+    /**
+     * the content and the ad players of one movie.
+     */
+    public static final int MAX_PARKED = 2;
+
+    private static final PlayerPool DEFAULT = new PlayerPool(DEFAULT_IDLE_TIMEOUT_MS);
+
+    private final long idleTimeoutMs;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final Runnable evictIdle = this::evictIdle;
+
+    /**
+     * the parked entries, oldest first.
+     */
+    private final LinkedHashMap<String, Entry> parked = new LinkedHashMap<>();
+
+    private boolean registered;
+
+    public PlayerPool(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    @NonNull
+    public static PlayerPool get() {
+        return DEFAULT;
+    }
+
+    /**
+     * listen to the memory pressure of the application, only the first call has any effect.
+     */
+    public void register(@NonNull Context context) {
+        if (!registered) {
+            registered = true;
+            context.getApplicationContext().registerComponentCallbacks(this);
+        }
+    }
+
+    /**
+     * take back the player parked under the key, and release the parked players of other keys.
+     *
+     * @return the entry, or null when the player has to be built
+     */
+    @Nullable
+    public Entry acquire(@NonNull String key) {
+        Entry entry = parked.remove(key);
+
+        // the other players are of a movie which is not coming back.
+        Iterator<Entry> iterator = parked.values().iterator();
+        while (iterator.hasNext()) {
+            Entry other = iterator.next();
+            if (!other.key.startsWith(mediaOf(key))) {
+                iterator.remove();
+                other.release();
+            }
+        }
+
+        ExoPlayerLogger.d(TAG, "acquire {}: {}", key, entry != null ? "warm" : "miss");
+        return entry;
+    }
+
+    /**
+     * keep a paused player to hand it back for the key, the oldest one is released past {@link #MAX_PARKED}.
+     */
+    public void park(@NonNull String key, @NonNull Entry entry) {
+        Entry previous = parked.remove(key);
+        if (previous != null && previous != entry) {
+            previous.release();
+        }
+
+        entry.key = key;
+        entry.parkedAtMs = SystemClock.elapsedRealtime();
+        parked.put(key, entry);
+        while (parked.size() > MAX_PARKED) {
+            Iterator<Entry> iterator = parked.values().iterator();
+            Entry oldest = iterator.next();
+            iterator.remove();
+            oldest.release();
+        }
+
+        handler.removeCallbacks(evictIdle);
+        handler.postDelayed(evictIdle, idleTimeoutMs);
+    }
+
+    /**
+     * release the player parked under the key, if any.
+     */
+    public void evict(@NonNull String key) {
+        Entry entry = parked.remove(key);
+        if (entry != null) {
+            entry.release();
+        }
+    }
+
+    public int size() {
+        return parked.size();
+    }
+
+    /**
+     * release every parked player.
+     */
+    public void evictAll() {
+        handler.removeCallbacks(evictIdle);
+        for (Entry entry : parked.values()) {
+            entry.release();
+        }
+        parked.clear();
+    }
+
+    private void evictIdle() {
+        long now = SystemClock.elapsedRealtime();
+        Iterator<Map.Entry<String, Entry>> iterator = parked.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (now - entry.parkedAtMs >= idleTimeoutMs) {
+                iterator.remove();
+                entry.release();
+            }
+        }
+
+        if (!parked.isEmpty()) {
+            handler.postDelayed(evictIdle, idleTimeoutMs);
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        // hiding the UI and the top of the background lru list are the short trip the pool is for, the process is
+        // only about to be killed from the middle of the list.
+        if (level >= TRIM_MEMORY_MODERATE && !parked.isEmpty()) {
+            ExoPlayerLogger.i(TAG, "trim memory {}, release {} players", level, parked.size());
+            evictAll();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    /**
+     * @return the key of a player of the role playing the media
+     */
+    @NonNull
+    public static String keyOf(@NonNull String role, @Nullable Object media) {
+        return media + "|" + role;
+    }
+
+    private static String mediaOf(String key) {
+        return key.substring(0, key.lastIndexOf('|') + 1);
+    }
+
+    /**
+     * a parked player with what was built along with it.
+     */
+    public static class Entry {
+
+        @NonNull
+        public final SimpleExoPlayer player;
+
+        @Nullable
+        public final DefaultTrackSelector trackSelector;
+
+        @Nullable
+        public final LoadControl loadControl;
+
+        private String key;
+
+        private long parkedAtMs;
+
+        public Entry(@NonNull SimpleExoPlayer player, @Nullable DefaultTrackSelector trackSelector,
+                @Nullable LoadControl loadControl) {
+            this.player = player;
+            this.trackSelector = trackSelector;
+            this.loadControl = loadControl;
+        }
+
+        public void release() {
+            player.release();
+        }
+    }
+}
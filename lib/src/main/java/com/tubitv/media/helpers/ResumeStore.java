@@ -0,0 +1,395 @@
+package com.tubitv.media.helpers;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.tubitv.media.models.SessionState;
+import com.tubitv.media.utilities.ExoPlayerLogger;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * On-device store of the {@link SessionState} of the recently played movies, keyed by video, so a movie resumes where
+ * it was left even after the process has been killed.
+ * <p>
+ * The states are kept in memory and appended to a log file on a writer thread, so a save never blocks the main thread
+ * and costs one small append, and only the last state of a video waiting for the writer is written. The log is read
+ * once when the store is created, the last record of a video wins. A record cut short by a kill in the middle of an
+ * append fails its checksum, it is dropped with whatever follows it. Once the log holds {@link #COMPACT_FACTOR} times
+ * more records than there are videos, it is rewritten with one record per video. Only the {@link #MAX_VIDEOS} last
+ * saved videos are kept.
+ */
+public class ResumeStore {
+
+    private static final String TAG = ResumeStore.class.getSimpleName();
+
+    public static final int MAX_VIDEOS = 100;
+
+    /**
+     * how often the content position is saved while the movie plays.
+     */
+    public static final long SAVE_INTERVAL_MS = 5000;
+
+    private static final int COMPACT_FACTOR = 4;
+
+    private static final int MIN_RECORDS_TO_COMPACT = 64;
+
+    /**
+     * larger than any record, a length above it is a corrupted one.
+     */
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private static final String FILE_NAME = "tubi_resume_store";
+
+    private static final byte RECORD_STATE = 1;
+
+    private static final byte RECORD_REMOVED = 2;
+
+    private static ResumeStore sharedStore;
+
+    private final File file;
+
+    private final Executor writer;
+
+    /**
+     * the states by video, least recently saved first.
+     */
+    private final LinkedHashMap<String, SessionState> states = new LinkedHashMap<>();
+
+    /**
+     * the states waiting for the writer, a null state removes the video.
+     */
+    private final LinkedHashMap<String, SessionState> pending = new LinkedHashMap<>();
+
+    private final CountDownLatch loaded = new CountDownLatch(1);
+
+    /**
+     * the records in the log, only used by the writer.
+     */
+    private int recordCount;
+
+    /**
+     * @param file   the log of the states
+     * @param writer runs the reads and the writes of the log, one at a time
+     */
+    public ResumeStore(@NonNull File file, @NonNull Executor writer) {
+        this.file = file;
+        this.writer = writer;
+        writer.execute(this::load);
+    }
+
+    /**
+     * @return the store of the application, in its files directory
+     */
+    @NonNull
+    public static synchronized ResumeStore get(@NonNull Context context) {
+        if (sharedStore == null) {
+            File file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+            sharedStore = new ResumeStore(file, Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ResumeStore");
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+        return sharedStore;
+    }
+
+    /**
+     * @return a copy of the state of the video, or null when it has not been saved. Waits for the log to be read
+     * the first time, which is a few kilobytes at most, so not to be called on the main thread, see {@link
+     * #read(String, Callback)}.
+     */
+    @Nullable
+    public SessionState read(@NonNull String videoId) {
+        try {
+            loaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        SessionState state;
+        synchronized (states) {
+            state = states.get(videoId);
+        }
+        return state != null ? state.copy() : null;
+    }
+
+    /**
+     * read the state of the video without waiting, the callback is called on the writer once the log has been read.
+     */
+    public void read(@NonNull String videoId, @NonNull Callback callback) {
+        writer.execute(() -> callback.onRead(read(videoId)));
+    }
+
+    /**
+     * keep a copy of the state, and append it to the log on the writer.
+     */
+    public void save(@NonNull SessionState state) {
+        SessionState copy = state.copy();
+        synchronized (states) {
+            states.remove(copy.getVideoId());
+            states.put(copy.getVideoId(), copy);
+            trim(states);
+        }
+        enqueue(copy.getVideoId(), copy);
+    }
+
+    /**
+     * forget the video, like a movie watched to the end.
+     */
+    public void remove(@NonNull String videoId) {
+        synchronized (states) {
+            states.remove(videoId);
+        }
+        enqueue(videoId, null);
+    }
+
+    public int size() {
+        synchronized (states) {
+            return states.size();
+        }
+    }
+
+    private void enqueue(String videoId, @Nullable SessionState state) {
+        boolean scheduled;
+        synchronized (pending) {
+            scheduled = !pending.isEmpty();
+            pending.remove(videoId);
+            pending.put(videoId, state);
+        }
+        if (!scheduled) {
+            writer.execute(this::flush);
+        }
+    }
+
+    private void load() {
+        LinkedHashMap<String, SessionState> read = new LinkedHashMap<>();
+        boolean intact = true;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            intact = readRecords(in, read);
+        } catch (FileNotFoundException e) {
+            // nothing has been saved yet.
+        } catch (IOException e) {
+            ExoPlayerLogger.e(TAG, "read failed", e);
+            intact = false;
+        } finally {
+            closeQuietly(in);
+        }
+
+        trim(read);
+        synchronized (states) {
+            // a save made while the log was read is newer than the log.
+            for (Map.Entry<String, SessionState> entry : read.entrySet()) {
+                if (!states.containsKey(entry.getKey())) {
+                    states.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        loaded.countDown();
+
+        // the appends would follow the damaged record, and be dropped with it on the next read.
+        if (!intact) {
+            compact();
+        }
+    }
+
+    /**
+     * @return false when the log ends with a damaged record
+     */
+    private boolean readRecords(DataInputStream in, Map<String, SessionState> read) throws IOException {
+        CRC32 crc = new CRC32();
+        while (true) {
+            // the first byte tells the end of the log from a length cut short.
+            int first = in.read();
+            if (first < 0) {
+                return true;
+            }
+
+            try {
+                int length = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedShort();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    return false;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                long checksum = in.readLong();
+                crc.reset();
+                crc.update(payload, 0, length);
+                if (crc.getValue() != checksum) {
+                    return false;
+                }
+
+                recordCount++;
+                readRecord(payload, read);
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+    }
+
+    private static void readRecord(byte[] payload, Map<String, SessionState> read) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String videoId = in.readUTF();
+        read.remove(videoId);
+        if (type != RECORD_STATE) {
+            return;
+        }
+
+        long contentPositionMs = in.readLong();
+        long[] consumedCuePoints = new long[in.readInt()];
+        for (int i = 0; i < consumedCuePoints.length; i++) {
+            consumedCuePoints[i] = in.readLong();
+        }
+        long adBreakCuePoint = in.readLong();
+        int adsPlayed = in.readInt();
+        boolean subtitlesEnabled = in.readBoolean();
+
+        SessionState state = new SessionState(videoId);
+        state.restore(contentPositionMs, consumedCuePoints, adBreakCuePoint, adsPlayed, subtitlesEnabled);
+        read.put(videoId, state);
+    }
+
+    private void flush() {
+        List<Map.Entry<String, SessionState>> batch;
+        synchronized (pending) {
+            batch = new ArrayList<>(pending.entrySet());
+            pending.clear();
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        DataOutputStream out = null;
+        try {
+            // the append is in the page cache as soon as it returns, which a process kill does not lose.
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+            for (Map.Entry<String, SessionState> entry : batch) {
+                writeRecord(out, entry.getKey(), entry.getValue());
+                recordCount++;
+            }
+        } catch (IOException e) {
+            ExoPlayerLogger.e(TAG, "append failed", e);
+        } finally {
+            closeQuietly(out);
+        }
+
+        if (recordCount >= MIN_RECORDS_TO_COMPACT && recordCount > size() * COMPACT_FACTOR) {
+            compact();
+        }
+    }
+
+    /**
+     * rewrite the log with the last state of every video, the new log replaces the old one in one rename.
+     */
+    private void compact() {
+        List<SessionState> snapshot = new ArrayList<>();
+        synchronized (states) {
+            for (SessionState state : states.values()) {
+                snapshot.add(state.copy());
+            }
+        }
+
+        File compacted = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        boolean written = false;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compacted)));
+            for (SessionState state : snapshot) {
+                writeRecord(out, state.getVideoId(), state);
+            }
+            out.close();
+            out = null;
+            written = compacted.renameTo(file);
+        } catch (IOException e) {
+            ExoPlayerLogger.e(TAG, "compaction failed", e);
+        } finally {
+            closeQuietly(out);
+        }
+
+        if (written) {
+            recordCount = snapshot.size();
+        } else {
+            compacted.delete();
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, String videoId, @Nullable SessionState state)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream payload = new DataOutputStream(bytes);
+        payload.writeByte(state != null ? RECORD_STATE : RECORD_REMOVED);
+        payload.writeUTF(videoId);
+        if (state != null) {
+            payload.writeLong(state.getContentPositionMs());
+            long[] consumedCuePoints = state.getConsumedCuePoints();
+            payload.writeInt(consumedCuePoints.length);
+            for (long cuePoint : consumedCuePoints) {
+                payload.writeLong(cuePoint);
+            }
+            payload.writeLong(state.getAdBreakCuePoint());
+            payload.writeInt(state.getAdsPlayed());
+            payload.writeBoolean(state.isSubtitlesEnabled());
+        }
+        payload.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+        out.writeLong(crc.getValue());
+    }
+
+    private static void trim(LinkedHashMap<String, SessionState> states) {
+        Iterator<String> iterator = states.keySet().iterator();
+        while (states.size() > MAX_VIDEOS && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            ExoPlayerLogger.e(TAG, "close failed", e);
+        }
+    }
+
+    /**
+     * receive the state read without waiting, on the writer thread.
+     */
+    public interface Callback {
+
+        /**
+         * @param state a copy of the state of the video, or null when it has not been saved
+         */
+        void onRead(@Nullable SessionState state);
+    }
+}
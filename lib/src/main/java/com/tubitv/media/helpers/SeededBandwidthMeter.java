@@ -0,0 +1,218 @@
+package com.tubitv.media.helpers;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.google.android.exoplayer2.util.SlidingPercentile;
+import com.tubitv.media.utilities.ExoPlayerLogger;
+
+/**
+ * The bandwidth estimate shared by the content and the ad players, which starts from the estimate of a {@link
+ * ThroughputHistory} rather than from the default one.
+ * <p>
+ * Each player measures its transfers through its own {@link Source}, and the samples of both go to one sliding
+ * median weighted like the {@link com.google.android.exoplayer2.upstream.DefaultBandwidthMeter} one, by the square
+ * root of the bytes, times the weight of the source. The window only holds the latest samples, so the movie resumes
+ * after an ad break at what the ad downloads have just measured, not at the estimate from before the break. The ad
+ * creatives come from other servers than the content, their samples weigh less.
+ * <p>
+ * Until enough has been measured for an estimate, the meter answers the estimate of the history for the current
+ * network. The adaptive track selections are created with this meter, so their initial track is the one the seeded
+ * estimate affords. Only the content samples are kept in the history.
+ * <p>
+ * The meter is meant to live as long as the process, {@link #seed(String)} is called before a player is created: when
+ * the network has changed since the last seed, the measures of the previous network are dropped. The meter itself is
+ * the transfer listener of the content source.
+ */
+public class SeededBandwidthMeter implements BandwidthMeter, TransferListener<Object> {
+
+    private static final String TAG = SeededBandwidthMeter.class.getSimpleName();
+
+    public static final int SOURCE_CONTENT = 0;
+
+    public static final int SOURCE_AD = 1;
+
+    private static final float[] SOURCE_WEIGHTS = {1f, 0.5f};
+
+    /**
+     * the window and the amounts measured before an estimate, the ones of the default meter.
+     */
+    private static final int SLIDING_WINDOW_MAX_WEIGHT = 2000;
+    private static final long ELAPSED_MS_FOR_ESTIMATE = 2000;
+    private static final long BYTES_FOR_ESTIMATE = 512 * 1024;
+
+    private static final SeededBandwidthMeter DEFAULT = new SeededBandwidthMeter();
+
+    private final Source[] sources = {new Source(SOURCE_CONTENT), new Source(SOURCE_AD)};
+
+    @Nullable
+    private volatile ThroughputHistory history;
+
+    private SlidingPercentile slidingPercentile = new SlidingPercentile(SLIDING_WINDOW_MAX_WEIGHT);
+
+    private String networkKey = ThroughputHistory.NO_NETWORK;
+
+    private long seedEstimate = NO_ESTIMATE;
+
+    private long measuredElapsedMs;
+
+    private long measuredBytes;
+
+    private long bitrateEstimate = NO_ESTIMATE;
+
+    /**
+     * @return the meter of the process, shared by the players and by the preloading of a movie
+     */
+    @NonNull
+    public static SeededBandwidthMeter getDefault() {
+        return DEFAULT;
+    }
+
+    @Nullable
+    public ThroughputHistory getHistory() {
+        return history;
+    }
+
+    public void setHistory(@Nullable ThroughputHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * @param source {@link #SOURCE_CONTENT} or {@link #SOURCE_AD}
+     * @return the meter measuring the transfers of the player, its estimate is the shared one
+     */
+    @NonNull
+    public Source forSource(int source) {
+        return sources[source];
+    }
+
+    /**
+     * start from the estimate of the history for the network, when the measures are not already of this network.
+     *
+     * @param networkKey the network the next transfers go through, see {@link ThroughputHistory#networkKey}
+     */
+    public synchronized void seed(@NonNull String networkKey) {
+        if (!networkKey.equals(this.networkKey)) {
+            slidingPercentile = new SlidingPercentile(SLIDING_WINDOW_MAX_WEIGHT);
+            measuredElapsedMs = 0;
+            measuredBytes = 0;
+            bitrateEstimate = NO_ESTIMATE;
+        }
+
+        ThroughputHistory history = this.history;
+        this.networkKey = networkKey;
+        seedEstimate = history != null ? history.getEstimate(networkKey) : NO_ESTIMATE;
+        ExoPlayerLogger.i(TAG, "seeded {} with {}", networkKey, seedEstimate);
+    }
+
+    @Override
+    public synchronized long getBitrateEstimate() {
+        return bitrateEstimate != NO_ESTIMATE ? bitrateEstimate : seedEstimate;
+    }
+
+    /**
+     * add a measured transfer to the estimate.
+     *
+     * @param source    {@link #SOURCE_CONTENT} or {@link #SOURCE_AD}
+     * @param elapsedMs how long the transfer took
+     * @param bytes     the bytes transferred
+     */
+    public void onSample(int source, long elapsedMs, long bytes) {
+        if (elapsedMs <= 0) {
+            return;
+        }
+
+        long bitrate = bytes * 8000 / elapsedMs;
+        String sampleNetworkKey;
+        synchronized (this) {
+            measuredElapsedMs += elapsedMs;
+            measuredBytes += bytes;
+            if (bitrate > 0) {
+                int weight = Math.max(1, (int) (Math.sqrt(bytes) * SOURCE_WEIGHTS[source]));
+                slidingPercentile.addSample(weight, bitrate);
+                if (measuredElapsedMs >= ELAPSED_MS_FOR_ESTIMATE || measuredBytes >= BYTES_FOR_ESTIMATE) {
+                    bitrateEstimate = (long) slidingPercentile.getPercentile(0.5f);
+                }
+            }
+            sampleNetworkKey = networkKey;
+        }
+
+        ThroughputHistory history = this.history;
+        if (history != null && source == SOURCE_CONTENT) {
+            history.addSample(sampleNetworkKey, bytes, bitrate);
+        }
+    }
+
+    @Override
+    public void onTransferStart(Object source, DataSpec dataSpec) {
+        sources[SOURCE_CONTENT].onTransferStart(source, dataSpec);
+    }
+
+    @Override
+    public void onBytesTransferred(Object source, int bytesTransferred) {
+        sources[SOURCE_CONTENT].onBytesTransferred(source, bytesTransferred);
+    }
+
+    @Override
+    public void onTransferEnd(Object source) {
+        sources[SOURCE_CONTENT].onTransferEnd(source);
+    }
+
+    /**
+     * measure the transfers of one player, the overlapping transfers make one sample like in the default meter.
+     */
+    public final class Source implements BandwidthMeter, TransferListener<Object> {
+
+        private final int source;
+
+        private int streamCount;
+
+        private long sampleStartMs;
+
+        private long sampleBytes;
+
+        Source(int source) {
+            this.source = source;
+        }
+
+        @Override
+        public long getBitrateEstimate() {
+            return SeededBandwidthMeter.this.getBitrateEstimate();
+        }
+
+        @Override
+        public synchronized void onTransferStart(Object dataSource, DataSpec dataSpec) {
+            if (streamCount == 0) {
+                sampleStartMs = SystemClock.elapsedRealtime();
+            }
+            streamCount++;
+        }
+
+        @Override
+        public synchronized void onBytesTransferred(Object dataSource, int bytesTransferred) {
+            sampleBytes += bytesTransferred;
+        }
+
+        @Override
+        public void onTransferEnd(Object dataSource) {
+            long elapsedMs;
+            long bytes;
+            synchronized (this) {
+                if (streamCount == 0) {
+                    return;
+                }
+
+                long now = SystemClock.elapsedRealtime();
+                elapsedMs = now - sampleStartMs;
+                bytes = sampleBytes;
+                streamCount--;
+                sampleStartMs = now;
+                sampleBytes = 0;
+            }
+            onSample(source, elapsedMs, bytes);
+        }
+    }
+}
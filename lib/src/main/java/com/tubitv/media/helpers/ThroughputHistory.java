@@ -0,0 +1,173 @@
+package com.tubitv.media.helpers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The recent bandwidth samples of the previous sessions, kept per network type across launches, so a session can start
+ * from the throughput the device usually gets on its current network instead of the default estimate.
+ * <p>
+ * Only the last {@link #MAX_SAMPLES} samples of a network type are kept, and the estimate is their median, so one
+ * slow or fast transfer does not move it much.
+ */
+public class ThroughputHistory {
+
+    public static final int MAX_SAMPLES = 16;
+
+    /**
+     * the transfers below this size, like the manifests, are mostly latency and tell little about the throughput.
+     */
+    public static final long MIN_SAMPLE_BYTES = 128 * 1024;
+
+    public static final String NO_NETWORK = "none";
+
+    private static final String PREFERENCES_NAME = "tubi_throughput_history";
+
+    private final Store store;
+
+    /**
+     * the samples of each network type, oldest first, read from the store when first needed.
+     */
+    private final Map<String, long[]> samples = new HashMap<>();
+
+    public ThroughputHistory(@NonNull Store store) {
+        this.store = store;
+    }
+
+    /**
+     * @return a history kept in the shared preferences of the application
+     */
+    @NonNull
+    public static ThroughputHistory create(@NonNull Context context) {
+        SharedPreferences preferences = context.getApplicationContext()
+                .getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        return new ThroughputHistory(new Store() {
+            @Nullable
+            @Override
+            public String read(@NonNull String key) {
+                return preferences.getString(key, null);
+            }
+
+            @Override
+            public void write(@NonNull String key, @NonNull String value) {
+                preferences.edit().putString(key, value).apply();
+            }
+        });
+    }
+
+    /**
+     * @return the key of the active network, the type and for the mobile networks the subtype like "mobile-LTE"
+     */
+    @NonNull
+    public static String networkKey(@NonNull Context context) {
+        ConnectivityManager manager = (ConnectivityManager) context.getApplicationContext()
+                .getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo info = manager != null ? manager.getActiveNetworkInfo() : null;
+        if (info == null || !info.isConnected()) {
+            return NO_NETWORK;
+        }
+
+        switch (info.getType()) {
+            case ConnectivityManager.TYPE_WIFI:
+                return "wifi";
+            case ConnectivityManager.TYPE_ETHERNET:
+                return "ethernet";
+            case ConnectivityManager.TYPE_MOBILE:
+                return "mobile-" + info.getSubtypeName();
+            default:
+                return "other-" + info.getType();
+        }
+    }
+
+    /**
+     * @return the median of the samples of the network, or {@link BandwidthMeter#NO_ESTIMATE} when there are none
+     */
+    public synchronized long getEstimate(@NonNull String networkKey) {
+        long[] networkSamples = samplesOf(networkKey);
+        if (networkSamples.length == 0) {
+            return BandwidthMeter.NO_ESTIMATE;
+        }
+
+        long[] sorted = networkSamples.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * keep a sample of the network, the oldest one is dropped once there are {@link #MAX_SAMPLES}.
+     *
+     * @param bytes   the size of the transfer
+     * @param bitrate the bits per second measured
+     */
+    public synchronized void addSample(@NonNull String networkKey, long bytes, long bitrate) {
+        if (bytes < MIN_SAMPLE_BYTES || bitrate <= 0 || NO_NETWORK.equals(networkKey)) {
+            return;
+        }
+
+        long[] networkSamples = samplesOf(networkKey);
+        int kept = Math.min(networkSamples.length, MAX_SAMPLES - 1);
+        long[] updated = new long[kept + 1];
+        System.arraycopy(networkSamples, networkSamples.length - kept, updated, 0, kept);
+        updated[kept] = bitrate;
+        samples.put(networkKey, updated);
+
+        StringBuilder value = new StringBuilder(updated.length * 9);
+        for (int i = 0; i < updated.length; i++) {
+            if (i > 0) {
+                value.append(',');
+            }
+            value.append(updated[i]);
+        }
+        store.write(networkKey, value.toString());
+    }
+
+    private long[] samplesOf(String networkKey) {
+        long[] networkSamples = samples.get(networkKey);
+        if (networkSamples == null) {
+            networkSamples = parse(store.read(networkKey));
+            samples.put(networkKey, networkSamples);
+        }
+        return networkSamples;
+    }
+
+    private static long[] parse(@Nullable String value) {
+        if (value == null || value.isEmpty()) {
+            return new long[0];
+        }
+
+        String[] parts = value.split(",");
+        long[] parsed = new long[parts.length];
+        int count = 0;
+        for (String part : parts) {
+            try {
+                long bitrate = Long.parseLong(part);
+                if (bitrate > 0) {
+                    parsed[count++] = bitrate;
+                }
+            } catch (NumberFormatException e) {
+                // a corrupted sample is dropped, the others are still good.
+            }
+        }
+        return Arrays.copyOfRange(parsed, Math.max(0, count - MAX_SAMPLES), count);
+    }
+
+    /**
+     * where the samples are persisted, one comma separated value per network type.
+     */
+    public interface Store {
+
+        @Nullable
+        String read(@NonNull String key);
+
+        void write(@NonNull String key, @NonNull String value);
+    }
+}
@@ -0,0 +1,193 @@
+package com.tubitv.media.models;
+
+import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.C;
+import java.util.Arrays;
+
+/**
+ * What is needed to resume a movie where the viewer left it: the content position, the ad breaks already watched,
+ * the break which was playing and how many of its ads were played, and whether the subtitles were on.
+ * <p>
+ * The state is updated on the main thread and on the fsm worker, and read by the writer of the store, so every access
+ * is synchronized.
+ */
+public class SessionState {
+
+    /**
+     * a break watched this shortly before the resume position is not played again when the movie resumes.
+     */
+    public static final long RECENT_BREAK_MS = 2 * 60 * 1000;
+
+    @NonNull
+    private final String videoId;
+
+    private long contentPositionMs = C.TIME_UNSET;
+
+    private long[] consumedCuePoints = new long[0];
+
+    private long adBreakCuePoint = C.TIME_UNSET;
+
+    private int adsPlayed;
+
+    private boolean subtitlesEnabled = true;
+
+    public SessionState(@NonNull String videoId) {
+        this.videoId = videoId;
+    }
+
+    @NonNull
+    public String getVideoId() {
+        return videoId;
+    }
+
+    public synchronized long getContentPositionMs() {
+        return contentPositionMs;
+    }
+
+    public synchronized void setContentPositionMs(long contentPositionMs) {
+        this.contentPositionMs = contentPositionMs;
+    }
+
+    /**
+     * @return the cue points of the breaks which have been watched, in order
+     */
+    @NonNull
+    public synchronized long[] getConsumedCuePoints() {
+        return consumedCuePoints.clone();
+    }
+
+    public synchronized boolean isInAdBreak() {
+        return adBreakCuePoint != C.TIME_UNSET;
+    }
+
+    /**
+     * @return the cue point of the break which is playing, or {@link C#TIME_UNSET}
+     */
+    public synchronized long getAdBreakCuePoint() {
+        return adBreakCuePoint;
+    }
+
+    /**
+     * @return the ads of the playing break which have been played to the end
+     */
+    public synchronized int getAdsPlayed() {
+        return adsPlayed;
+    }
+
+    public synchronized boolean isSubtitlesEnabled() {
+        return subtitlesEnabled;
+    }
+
+    public synchronized void setSubtitlesEnabled(boolean subtitlesEnabled) {
+        this.subtitlesEnabled = subtitlesEnabled;
+    }
+
+    /**
+     * the break of the cue point starts playing, unless a break is already playing, like the one resumed.
+     */
+    public synchronized void startAdBreak(long cuePoint) {
+        if (adBreakCuePoint == C.TIME_UNSET) {
+            adBreakCuePoint = cuePoint;
+            adsPlayed = 0;
+        }
+    }
+
+    public synchronized void onAdPlayed() {
+        if (adBreakCuePoint != C.TIME_UNSET) {
+            adsPlayed++;
+        }
+    }
+
+    /**
+     * the playing break is over, its cue point is consumed.
+     */
+    public synchronized void finishAdBreak() {
+        if (adBreakCuePoint == C.TIME_UNSET) {
+            return;
+        }
+
+        if (Arrays.binarySearch(consumedCuePoints, adBreakCuePoint) < 0) {
+            long[] updated = Arrays.copyOf(consumedCuePoints, consumedCuePoints.length + 1);
+            updated[consumedCuePoints.length] = adBreakCuePoint;
+            Arrays.sort(updated);
+            consumedCuePoints = updated;
+        }
+        adBreakCuePoint = C.TIME_UNSET;
+        adsPlayed = 0;
+    }
+
+    /**
+     * @return true when a break has been watched within {@link #RECENT_BREAK_MS} before the content position, the
+     * break of the resume is not needed then
+     */
+    public synchronized boolean hasRecentBreak() {
+        if (contentPositionMs == C.TIME_UNSET) {
+            return false;
+        }
+
+        for (long cuePoint : consumedCuePoints) {
+            if (cuePoint <= contentPositionMs && contentPositionMs - cuePoint <= RECENT_BREAK_MS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the cue points without the ones of the breaks already watched
+     */
+    @NonNull
+    public synchronized long[] removeConsumed(@NonNull long[] cuePoints) {
+        long[] remaining = new long[cuePoints.length];
+        int count = 0;
+        for (long cuePoint : cuePoints) {
+            if (Arrays.binarySearch(consumedCuePoints, cuePoint) < 0) {
+                remaining[count++] = cuePoint;
+            }
+        }
+        return count == cuePoints.length ? cuePoints : Arrays.copyOf(remaining, count);
+    }
+
+    /**
+     * @return the cue points without the one of the break left in the middle, when the break of the resume stands in
+     * for it
+     */
+    @NonNull
+    public synchronized long[] removeAdBreak(@NonNull long[] cuePoints) {
+        if (adBreakCuePoint == C.TIME_UNSET) {
+            return cuePoints;
+        }
+
+        long[] remaining = new long[cuePoints.length];
+        int count = 0;
+        for (long cuePoint : cuePoints) {
+            if (cuePoint != adBreakCuePoint) {
+                remaining[count++] = cuePoint;
+            }
+        }
+        return count == cuePoints.length ? cuePoints : Arrays.copyOf(remaining, count);
+    }
+
+    /**
+     * @return a copy to hand to another thread
+     */
+    @NonNull
+    public synchronized SessionState copy() {
+        SessionState copy = new SessionState(videoId);
+        copy.restore(contentPositionMs, consumedCuePoints, adBreakCuePoint, adsPlayed, subtitlesEnabled);
+        return copy;
+    }
+
+    /**
+     * set every field at once, from a stored state.
+     */
+    public synchronized void restore(long contentPositionMs, @NonNull long[] consumedCuePoints, long adBreakCuePoint,
+            int adsPlayed, boolean subtitlesEnabled) {
+        this.contentPositionMs = contentPositionMs;
+        this.consumedCuePoints = consumedCuePoints.clone();
+        Arrays.sort(this.consumedCuePoints);
+        this.adBreakCuePoint = adBreakCuePoint;
+        this.adsPlayed = adsPlayed;
+        this.subtitlesEnabled = subtitlesEnabled;
+    }
+}
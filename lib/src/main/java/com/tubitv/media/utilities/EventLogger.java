@@ -18,7 +18,6 @@ package com.tubitv.media.utilities;
 import android.net.NetworkInfo;
 import android.os.SystemClock;
 import android.support.annotation.Nullable;
-import android.util.Log;
 import android.view.Surface;
 import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.ExoPlaybackException;
@@ -53,7 +52,7 @@ import java.text.NumberFormat;
 import java.util.Locale;
 
 /**
- * Logs player events using {@link Log}.
+ * Logs player events using the {@link ExoPlayerLogger}, the messages are only built when its level lets them through.
  */
 public class EventLogger implements AnalyticsListener,
         MediaSourceEventListener,
@@ -147,13 +146,15 @@ public class EventLogger implements AnalyticsListener,
 
     @Override
     public void onLoadingChanged(EventTime eventTime, boolean isLoading) {
-        Log.d(TAG, "loading [" + isLoading + "]");
+        ExoPlayerLogger.d(TAG, "loading [{}]", isLoading);
     }
 
     @Override
     public void onPlayerStateChanged(EventTime eventTime, boolean playWhenReady, int playbackState) {
-        Log.d(TAG, "state [" + getSessionTimeString() + ", " + playWhenReady + ", "
-                + getStateString(playbackState) + "]");
+        if (ExoPlayerLogger.isLoggable(TAG, ExoPlayerLogger.DEBUG)) {
+            ExoPlayerLogger.log(ExoPlayerLogger.DEBUG, TAG, "state [{}, {}, {}]", getSessionTimeString(), playWhenReady,
+                    getStateString(playbackState));
+        }
     }
 
     @Override
@@ -170,7 +171,7 @@ public class EventLogger implements AnalyticsListener,
 
     @Override
     public void onPositionDiscontinuity(final EventTime eventTime, final int reason) {
-        Log.d(TAG, "positionDiscontinuity");
+        ExoPlayerLogger.d(TAG, "positionDiscontinuity");
     }
 
     @Override
@@ -190,100 +191,109 @@ public class EventLogger implements AnalyticsListener,
 
     @Override
     public void onTimelineChanged(EventTime eventTime, final int reason) {
+        if (!ExoPlayerLogger.isLoggable(TAG, ExoPlayerLogger.DEBUG)) {
+            return;
+        }
         int periodCount = eventTime.timeline.getPeriodCount();
         int windowCount = eventTime.timeline.getWindowCount();
-        Log.d(TAG, "sourceInfo [periodCount=" + periodCount + ", windowCount=" + windowCount);
+        ExoPlayerLogger.d(TAG, "sourceInfo [periodCount=" + periodCount + ", windowCount=" + windowCount);
         for (int i = 0; i < Math.min(periodCount, MAX_TIMELINE_ITEM_LINES); i++) {
             eventTime.timeline.getPeriod(i, period);
-            Log.d(TAG, "  " + "period [" + getTimeString(period.getDurationMs()) + "]");
+            ExoPlayerLogger.d(TAG, "  " + "period [" + getTimeString(period.getDurationMs()) + "]");
         }
         if (periodCount > MAX_TIMELINE_ITEM_LINES) {
-            Log.d(TAG, "  ...");
+            ExoPlayerLogger.d(TAG, "  ...");
         }
         for (int i = 0; i < Math.min(windowCount, MAX_TIMELINE_ITEM_LINES); i++) {
             eventTime.timeline.getWindow(i, window);
-            Log.d(TAG, "  " + "window [" + getTimeString(window.getDurationMs()) + ", "
+            ExoPlayerLogger.d(TAG, "  " + "window [" + getTimeString(window.getDurationMs()) + ", "
                     + window.isSeekable + ", " + window.isDynamic + "]");
         }
         if (windowCount > MAX_TIMELINE_ITEM_LINES) {
-            Log.d(TAG, "  ...");
+            ExoPlayerLogger.d(TAG, "  ...");
         }
-        Log.d(TAG, "]");
+        ExoPlayerLogger.d(TAG, "]");
     }
 
     @Override
     public void onPlayerError(EventTime eventTime, ExoPlaybackException e) {
-        Log.e(TAG, "playerFailed [" + getSessionTimeString() + "]", e);
+        if (ExoPlayerLogger.isLoggable(TAG, ExoPlayerLogger.ERROR)) {
+            ExoPlayerLogger.e(TAG, "playerFailed [" + getSessionTimeString() + "]", e);
+        }
     }
 
     @Override
     public void onTracksChanged(EventTime eventTime, TrackGroupArray ignored, TrackSelectionArray trackSelections) {
+        if (!ExoPlayerLogger.isLoggable(TAG, ExoPlayerLogger.DEBUG)) {
+            return;
+        }
         if (trackSelector == null) {
-            Log.d(TAG, "Track selector is null");
+            ExoPlayerLogger.d(TAG, "Track selector is null");
             return;
         }
         MappedTrackInfo mappedTrackInfo = trackSelector.getCurrentMappedTrackInfo();
         if (mappedTrackInfo == null) {
-            Log.d(TAG, "Tracks []");
+            ExoPlayerLogger.d(TAG, "Tracks []");
             return;
         }
-        Log.d(TAG, "Tracks [");
+        ExoPlayerLogger.d(TAG, "Tracks [");
         // Log tracks associated to renderers.
         for (int rendererIndex = 0; rendererIndex < mappedTrackInfo.length; rendererIndex++) {
             TrackGroupArray rendererTrackGroups = mappedTrackInfo.getTrackGroups(rendererIndex);
             TrackSelection trackSelection = trackSelections.get(rendererIndex);
             if (rendererTrackGroups.length > 0) {
-                Log.d(TAG, "  Renderer:" + rendererIndex + " [");
+                ExoPlayerLogger.d(TAG, "  Renderer:" + rendererIndex + " [");
                 for (int groupIndex = 0; groupIndex < rendererTrackGroups.length; groupIndex++) {
                     TrackGroup trackGroup = rendererTrackGroups.get(groupIndex);
                     String adaptiveSupport = getAdaptiveSupportString(trackGroup.length,
                             mappedTrackInfo.getAdaptiveSupport(rendererIndex, groupIndex, false));
-                    Log.d(TAG, "    Group:" + groupIndex + ", adaptive_supported=" + adaptiveSupport + " [");
+                    ExoPlayerLogger.d(TAG, "    Group:" + groupIndex + ", adaptive_supported=" + adaptiveSupport
+                            + " [");
                     for (int trackIndex = 0; trackIndex < trackGroup.length; trackIndex++) {
                         String status = getTrackStatusString(trackSelection, trackGroup, trackIndex);
                         String formatSupport = getFormatSupportString(
                                 mappedTrackInfo.getTrackFormatSupport(rendererIndex, groupIndex, trackIndex));
-                        Log.d(TAG, "      " + status + " Track:" + trackIndex + ", "
+                        ExoPlayerLogger.d(TAG, "      " + status + " Track:" + trackIndex + ", "
                                 + Format.toLogString(trackGroup.getFormat(trackIndex))
                                 + ", supported=" + formatSupport);
                     }
-                    Log.d(TAG, "    ]");
+                    ExoPlayerLogger.d(TAG, "    ]");
                 }
                 // Log metadata for at most one of the tracks selected for the renderer.
                 if (trackSelection != null) {
                     for (int selectionIndex = 0; selectionIndex < trackSelection.length(); selectionIndex++) {
                         Metadata metadata = trackSelection.getFormat(selectionIndex).metadata;
                         if (metadata != null) {
-                            Log.d(TAG, "    Metadata [");
+                            ExoPlayerLogger.d(TAG, "    Metadata [");
                             printMetadata(metadata, "      ");
-                            Log.d(TAG, "    ]");
+                            ExoPlayerLogger.d(TAG, "    ]");
                             break;
                         }
                     }
                 }
-                Log.d(TAG, "  ]");
+                ExoPlayerLogger.d(TAG, "  ]");
             }
         }
         // Log tracks not associated with a renderer.
         TrackGroupArray unassociatedTrackGroups = mappedTrackInfo.getUnassociatedTrackGroups();
         if (unassociatedTrackGroups.length > 0) {
-            Log.d(TAG, "  Renderer:None [");
+            ExoPlayerLogger.d(TAG, "  Renderer:None [");
             for (int groupIndex = 0; groupIndex < unassociatedTrackGroups.length; groupIndex++) {
-                Log.d(TAG, "    Group:" + groupIndex + " [");
+                ExoPlayerLogger.d(TAG, "    Group:" + groupIndex + " [");
                 TrackGroup trackGroup = unassociatedTrackGroups.get(groupIndex);
                 for (int trackIndex = 0; trackIndex < trackGroup.length; trackIndex++) {
                     String status = getTrackStatusString(false);
                     String formatSupport = getFormatSupportString(
                             RendererCapabilities.FORMAT_UNSUPPORTED_TYPE);
-                    Log.d(TAG, "      " + status + " Track:" + trackIndex + ", "
+                    ExoPlayerLogger.d(TAG, "      " + status + " Track:" + trackIndex + ", "
                             + Format.toLogString(trackGroup.getFormat(trackIndex))
                             + ", supported=" + formatSupport);
                 }
-                Log.d(TAG, "    ]");
+                ExoPlayerLogger.d(TAG, "    ]");
             }
-            Log.d(TAG, "  ]");
+            ExoPlayerLogger.d(TAG, "  ]");
         }
-        Log.d(TAG, "]");
+        ExoPlayerLogger.d(TAG, "]");
     }
 
     @Override
@@ -309,13 +319,18 @@ public class EventLogger implements AnalyticsListener,
 
     @Override
     public void onMetadata(Metadata metadata) {
-        Log.d(TAG, "onMetadata [");
+        if (!ExoPlayerLogger.isLoggable(TAG, ExoPlayerLogger.DEBUG)) {
+            return;
+        }
+        ExoPlayerLogger.d(TAG, "onMetadata [");
         printMetadata(metadata, "  ");
-        Log.d(TAG, "]");
+        ExoPlayerLogger.d(TAG, "]");
     }
 
     private void printInternalError(String type, Exception e) {
-        Log.e(TAG, "internalError [" + getSessionTimeString() + ", " + type + "]", e);
+        if (ExoPlayerLogger.isLoggable(TAG, ExoPlayerLogger.ERROR)) {
+            ExoPlayerLogger.e(TAG, "internalError [" + getSessionTimeString() + ", " + type + "]", e);
+        }
     }
 
     private void printMetadata(Metadata metadata, String prefix) {
@@ -323,32 +338,32 @@ public class EventLogger implements AnalyticsListener,
             Metadata.Entry entry = metadata.get(i);
             if (entry instanceof TextInformationFrame) {
                 TextInformationFrame textInformationFrame = (TextInformationFrame) entry;
-                Log.d(TAG, prefix + String.format("%s: value=%s", textInformationFrame.id,
+                ExoPlayerLogger.d(TAG, prefix + String.format("%s: value=%s", textInformationFrame.id,
                         textInformationFrame.value));
             } else if (entry instanceof UrlLinkFrame) {
                 UrlLinkFrame urlLinkFrame = (UrlLinkFrame) entry;
-                Log.d(TAG, prefix + String.format("%s: url=%s", urlLinkFrame.id, urlLinkFrame.url));
+                ExoPlayerLogger.d(TAG, prefix + String.format("%s: url=%s", urlLinkFrame.id, urlLinkFrame.url));
             } else if (entry instanceof PrivFrame) {
                 PrivFrame privFrame = (PrivFrame) entry;
-                Log.d(TAG, prefix + String.format("%s: owner=%s", privFrame.id, privFrame.owner));
+                ExoPlayerLogger.d(TAG, prefix + String.format("%s: owner=%s", privFrame.id, privFrame.owner));
             } else if (entry instanceof GeobFrame) {
                 GeobFrame geobFrame = (GeobFrame) entry;
-                Log.d(TAG, prefix + String.format("%s: mimeType=%s, filename=%s, description=%s",
+                ExoPlayerLogger.d(TAG, prefix + String.format("%s: mimeType=%s, filename=%s, description=%s",
                         geobFrame.id, geobFrame.mimeType, geobFrame.filename, geobFrame.description));
             } else if (entry instanceof ApicFrame) {
                 ApicFrame apicFrame = (ApicFrame) entry;
-                Log.d(TAG, prefix + String.format("%s: mimeType=%s, description=%s",
+                ExoPlayerLogger.d(TAG, prefix + String.format("%s: mimeType=%s, description=%s",
                         apicFrame.id, apicFrame.mimeType, apicFrame.description));
             } else if (entry instanceof CommentFrame) {
                 CommentFrame commentFrame = (CommentFrame) entry;
-                Log.d(TAG, prefix + String.format("%s: language=%s, description=%s", commentFrame.id,
+                ExoPlayerLogger.d(TAG, prefix + String.format("%s: language=%s, description=%s", commentFrame.id,
                         commentFrame.language, commentFrame.description));
             } else if (entry instanceof Id3Frame) {
                 Id3Frame id3Frame = (Id3Frame) entry;
-                Log.d(TAG, prefix + String.format("%s", id3Frame.id));
+                ExoPlayerLogger.d(TAG, prefix + String.format("%s", id3Frame.id));
             } else if (entry instanceof EventMessage) {
                 EventMessage eventMessage = (EventMessage) entry;
-                Log.d(TAG, prefix + String.format("EMSG: scheme=%s, id=%d, value=%s",
+                ExoPlayerLogger.d(TAG, prefix + String.format("EMSG: scheme=%s, id=%d, value=%s",
                         eventMessage.schemeIdUri, eventMessage.id, eventMessage.value));
             }
         }
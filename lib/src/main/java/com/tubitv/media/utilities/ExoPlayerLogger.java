@@ -1,47 +1,271 @@
 package com.tubitv.media.utilities;
 
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
+import com.tubitv.media.BuildConfig;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Created by allensun on 9/12/17.
  * on Tubitv.com, allengotstuff@gmail.com
+ * <p>
+ * The messages are patterns with {@code {}} placeholders, the arguments are only formatted once the level of the tag
+ * has been checked, so a filtered call costs no string concatenation and no boxing of a {@code long} argument. A
+ * {@link Class} argument renders as its simple name.
+ * <p>
+ * The emitted records go to logcat and to the {@link #RECENT} ring buffer, which keeps the last ones for crash
+ * reports. In release builds {@link #ENABLED} is false and every call does nothing.
  */
 public class ExoPlayerLogger {
 
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+
+    /**
+     * a level above every other, to silence a tag.
+     */
+    public static final int NONE = Log.ASSERT + 1;
+
+    /**
+     * the build config flag, a block guarded by {@code if (ExoPlayerLogger.ENABLED)} is compiled away in release.
+     */
+    public static final boolean ENABLED = BuildConfig.PLAYER_LOGGING;
+
+    public static final RingBufferSink RECENT = new RingBufferSink(256);
+
     public static Boolean SHOW_LOGGING = true;
 
+    private static final Sink LOGCAT = record -> {
+        String message = record.getMessage();
+        if (record.error != null) {
+            message = message + '\n' + Log.getStackTraceString(record.error);
+        }
+        Log.println(record.level, record.tag, message);
+    };
+
+    private static volatile int defaultLevel = VERBOSE;
+
+    /**
+     * copied on write, the levels are read on every call.
+     */
+    private static volatile Map<String, Integer> tagLevels = new HashMap<>();
+
+    private static volatile Sink[] sinks = {LOGCAT, RECENT};
+
+    /**
+     * @return true if a message of the level would be emitted for the tag, to guard the messages costly to build
+     */
+    public static boolean isLoggable(@Nullable String tag, int level) {
+        if (!ENABLED || !SHOW_LOGGING) {
+            return false;
+        }
+
+        Integer tagLevel = tagLevels.get(tag);
+        return level >= (tagLevel != null ? tagLevel : defaultLevel);
+    }
+
+    /**
+     * @param level the minimum level emitted for the tags without their own level
+     */
+    public static void setDefaultLevel(int level) {
+        defaultLevel = level;
+    }
+
+    /**
+     * @param level the minimum level emitted for the tag, or {@link #NONE} to silence it
+     */
+    public static synchronized void setLevel(@NonNull String tag, int level) {
+        Map<String, Integer> levels = new HashMap<>(tagLevels);
+        levels.put(tag, level);
+        tagLevels = levels;
+    }
+
+    public static synchronized void addSink(@NonNull Sink sink) {
+        Sink[] newSinks = new Sink[sinks.length + 1];
+        System.arraycopy(sinks, 0, newSinks, 0, sinks.length);
+        newSinks[sinks.length] = sink;
+        sinks = newSinks;
+    }
+
+    public static synchronized void removeSink(@NonNull Sink sink) {
+        for (int i = 0; i < sinks.length; i++) {
+            if (sinks[i] == sink) {
+                Sink[] newSinks = new Sink[sinks.length - 1];
+                System.arraycopy(sinks, 0, newSinks, 0, i);
+                System.arraycopy(sinks, i + 1, newSinks, i, newSinks.length - i);
+                sinks = newSinks;
+                return;
+            }
+        }
+    }
+
     public static void d(String tag, String message) {
-        if (SHOW_LOGGING) {
-            // do something for a debug build
-            Log.d(tag, message);
+        log(DEBUG, tag, message, null);
+    }
+
+    public static void d(String tag, String pattern, @Nullable Object arg) {
+        if (isLoggable(tag, DEBUG)) {
+            emit(DEBUG, tag, pattern, new Object[]{arg}, null);
+        }
+    }
+
+    public static void d(String tag, String pattern, long arg) {
+        if (isLoggable(tag, DEBUG)) {
+            emit(DEBUG, tag, pattern, new Object[]{arg}, null);
+        }
+    }
+
+    public static void d(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isLoggable(tag, DEBUG)) {
+            emit(DEBUG, tag, pattern, new Object[]{arg1, arg2}, null);
         }
     }
 
     public static void i(String tag, String message) {
-        if (SHOW_LOGGING) {
-            // do something for a debug build
-            Log.i(tag, message);
+        log(INFO, tag, message, null);
+    }
+
+    public static void i(String tag, String pattern, @Nullable Object arg) {
+        if (isLoggable(tag, INFO)) {
+            emit(INFO, tag, pattern, new Object[]{arg}, null);
+        }
+    }
+
+    public static void i(String tag, String pattern, long arg) {
+        if (isLoggable(tag, INFO)) {
+            emit(INFO, tag, pattern, new Object[]{arg}, null);
+        }
+    }
+
+    public static void i(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isLoggable(tag, INFO)) {
+            emit(INFO, tag, pattern, new Object[]{arg1, arg2}, null);
         }
     }
 
     public static void w(String tag, String message) {
-        if (SHOW_LOGGING) {
-            // do something for a debug build
-            Log.w(tag, message);
+        log(WARN, tag, message, null);
+    }
+
+    public static void w(String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2) {
+        if (isLoggable(tag, WARN)) {
+            emit(WARN, tag, pattern, new Object[]{arg1, arg2}, null);
         }
     }
 
     public static void e(String tag, String message) {
-        if (SHOW_LOGGING) {
-            // do something for a debug build
-            Log.e(tag, message);
-        }
+        log(ERROR, tag, message, null);
+    }
+
+    public static void e(String tag, String message, @Nullable Throwable error) {
+        log(ERROR, tag, message, error);
     }
 
     public static void v(String tag, String message) {
-        if (SHOW_LOGGING) {
-            // do something for a debug build
-            Log.v(tag, message);
+        log(VERBOSE, tag, message, null);
+    }
+
+    /**
+     * a message without arguments, the message is not parsed for placeholders.
+     */
+    public static void log(int level, String tag, String message, @Nullable Throwable error) {
+        if (isLoggable(tag, level)) {
+            emit(level, tag, message, null, error);
+        }
+    }
+
+    public static void log(int level, String tag, String pattern, @Nullable Object arg1, @Nullable Object arg2,
+            @Nullable Object arg3) {
+        if (isLoggable(tag, level)) {
+            emit(level, tag, pattern, new Object[]{arg1, arg2, arg3}, null);
+        }
+    }
+
+    /**
+     * replace the {@code {}} placeholders of the pattern with the arguments in order, the extra placeholders are kept.
+     */
+    @NonNull
+    public static String format(@Nullable String pattern, @Nullable Object[] args) {
+        if (pattern == null) {
+            return "null";
+        }
+        if (args == null || args.length == 0) {
+            return pattern;
+        }
+
+        StringBuilder builder = new StringBuilder(pattern.length() + 16 * args.length);
+        int start = 0;
+        for (Object arg : args) {
+            int placeholder = pattern.indexOf("{}", start);
+            if (placeholder < 0) {
+                break;
+            }
+            builder.append(pattern, start, placeholder);
+            builder.append(arg instanceof Class ? ((Class) arg).getSimpleName() : String.valueOf(arg));
+            start = placeholder + 2;
+        }
+        return builder.append(pattern, start, pattern.length()).toString();
+    }
+
+    private static void emit(int level, String tag, String pattern, @Nullable Object[] args,
+            @Nullable Throwable error) {
+        LogRecord record = new LogRecord(level, tag, pattern, args, error);
+        for (Sink sink : sinks) {
+            sink.log(record);
+        }
+    }
+
+    /**
+     * where the emitted records go, called on the thread which logged.
+     */
+    public interface Sink {
+
+        void log(@NonNull LogRecord record);
+    }
+
+    /**
+     * one emitted message, formatted the first time it is read. The arguments are kept as they are, so they should be
+     * values which do not change after the call.
+     */
+    public static final class LogRecord {
+
+        public final int level;
+
+        public final String tag;
+
+        public final long timeMs;
+
+        public final String pattern;
+
+        @Nullable
+        public final Object[] args;
+
+        @Nullable
+        public final Throwable error;
+
+        @Nullable
+        private String message;
+
+        LogRecord(int level, String tag, String pattern, @Nullable Object[] args, @Nullable Throwable error) {
+            this.level = level;
+            this.tag = tag;
+            this.timeMs = System.currentTimeMillis();
+            this.pattern = pattern;
+            this.args = args;
+            this.error = error;
+        }
+
+        @NonNull
+        public String getMessage() {
+            if (message == null) {
+                message = format(pattern, args);
+            }
+            return message;
         }
     }
 }
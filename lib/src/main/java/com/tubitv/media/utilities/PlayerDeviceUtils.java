@@ -1,8 +1,10 @@
 package com.tubitv.media.utilities;
 
+import android.app.ActivityManager;
 import android.app.UiModeManager;
 import android.content.Context;
 import android.content.res.Configuration;
+import android.os.Build;
 import com.google.android.exoplayer2.util.Util;
 
 import static android.content.Context.UI_MODE_SERVICE;
@@ -12,7 +14,9 @@ public class PlayerDeviceUtils {
     private static final String XIAOMI_MANUFACTURER = "Xiaomi";
     private static final String MI_BOX_DEVICE = "once";
     private static final String AMAZON_FEATURE_FIRE_TV = "amazon.hardware.fire_tv";
+    private static final long LOW_RAM_TOTAL_BYTES = 1024L * 1024 * 1024;
     private static Boolean sIsTVDevice = null;
+    private static Boolean sIsLowRamDevice = null;
 
     public static boolean isTVDevice(final Context context) {
         if (sIsTVDevice == null) {
@@ -26,6 +30,25 @@ public class PlayerDeviceUtils {
         return sIsTVDevice;
     }
 
+    /**
+     * Check if the device is flagged as low RAM, or has 1GB of memory or less, where two players with full buffers run
+     * out of memory.
+     */
+    public static boolean isLowRamDevice(final Context context) {
+        if (sIsLowRamDevice == null) {
+            ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            if (activityManager == null) {
+                return false;
+            }
+
+            ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+            activityManager.getMemoryInfo(memoryInfo);
+            sIsLowRamDevice = (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && activityManager.isLowRamDevice())
+                    || memoryInfo.totalMem <= LOW_RAM_TOTAL_BYTES;
+        }
+        return sIsLowRamDevice;
+    }
+
     /**
      * Check if we should use one player instance instead of two to handle video and ads playback
      * Single player instance will only use content player without initializing ads player
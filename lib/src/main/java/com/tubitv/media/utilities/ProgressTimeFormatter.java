@@ -0,0 +1,78 @@
+package com.tubitv.media.utilities;
+
+import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.C;
+
+/**
+ * Format a playback time as {@code mm:ss}, or {@code h:mm:ss} from one hour, into a char buffer, without the
+ * {@link java.util.Formatter} and its boxed arguments.
+ * <p>
+ * Every method only uses the buffer it is given, so the formatter can be used from any thread.
+ */
+public final class ProgressTimeFormatter {
+
+    /**
+     * long enough for the sign and the hours of any long number of milliseconds.
+     */
+    public static final int MAX_LENGTH = 32;
+
+    private ProgressTimeFormatter() {
+    }
+
+    /**
+     * @param timeMs    the time to format, {@link C#TIME_UNSET} and negative times are formatted as 0
+     * @param remaining true to prefix the time with a minus sign, unless it is 0
+     * @param buffer    the buffer written from index 0, at least {@link #MAX_LENGTH} long
+     * @return the number of chars written
+     */
+    public static int format(long timeMs, boolean remaining, @NonNull char[] buffer) {
+        if (timeMs == C.TIME_UNSET || timeMs < 0) {
+            timeMs = 0;
+        }
+
+        // rounded to the nearest second, without overflowing for the longest times.
+        long totalSeconds = timeMs / 1000 + (timeMs % 1000 >= 500 ? 1 : 0);
+        int seconds = (int) (totalSeconds % 60);
+        int minutes = (int) ((totalSeconds / 60) % 60);
+        long hours = totalSeconds / 3600;
+
+        int length = 0;
+        if (remaining && timeMs != 0) {
+            buffer[length++] = '-';
+        }
+        if (hours > 0) {
+            length = writeNumber(hours, buffer, length);
+            buffer[length++] = ':';
+        }
+        length = writeTwoDigits(minutes, buffer, length);
+        buffer[length++] = ':';
+        return writeTwoDigits(seconds, buffer, length);
+    }
+
+    /**
+     * same as {@link #format(long, boolean, char[])}, for the callers which need a string.
+     */
+    @NonNull
+    public static String format(long timeMs, boolean remaining) {
+        char[] buffer = new char[MAX_LENGTH];
+        return new String(buffer, 0, format(timeMs, remaining, buffer));
+    }
+
+    private static int writeTwoDigits(int value, char[] buffer, int offset) {
+        buffer[offset] = (char) ('0' + value / 10);
+        buffer[offset + 1] = (char) ('0' + value % 10);
+        return offset + 2;
+    }
+
+    private static int writeNumber(long value, char[] buffer, int offset) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + digits;
+    }
+}
@@ -0,0 +1,76 @@
+package com.tubitv.media.utilities;
+
+import android.support.annotation.NonNull;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Keep the last records of the {@link ExoPlayerLogger}, to attach to a crash report. Storing a record is one array
+ * write, the records are only formatted when they are dumped.
+ */
+public class RingBufferSink implements ExoPlayerLogger.Sink {
+
+    private static final char[] LEVELS = {'?', '?', 'V', 'D', 'I', 'W', 'E', 'A'};
+
+    private final ExoPlayerLogger.LogRecord[] records;
+
+    private int next;
+
+    private int count;
+
+    public RingBufferSink(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        records = new ExoPlayerLogger.LogRecord[capacity];
+    }
+
+    @Override
+    public synchronized void log(@NonNull ExoPlayerLogger.LogRecord record) {
+        records[next] = record;
+        next = (next + 1) % records.length;
+        count = Math.min(count + 1, records.length);
+    }
+
+    /**
+     * @return the records kept, the oldest first
+     */
+    @NonNull
+    public synchronized List<ExoPlayerLogger.LogRecord> snapshot() {
+        List<ExoPlayerLogger.LogRecord> list = new ArrayList<>(count);
+        int first = (next - count + records.length) % records.length;
+        for (int i = 0; i < count; i++) {
+            list.add(records[(first + i) % records.length]);
+        }
+        return list;
+    }
+
+    /**
+     * @return the records kept, one line each like logcat, the oldest first
+     */
+    @NonNull
+    public String dump() {
+        SimpleDateFormat timeFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+        StringBuilder builder = new StringBuilder();
+        for (ExoPlayerLogger.LogRecord record : snapshot()) {
+            builder.append(timeFormat.format(new Date(record.timeMs))).append(' ')
+                    .append(record.level >= 0 && record.level < LEVELS.length ? LEVELS[record.level] : '?')
+                    .append('/').append(record.tag).append(": ").append(record.getMessage()).append('\n');
+            if (record.error != null) {
+                builder.append("    ").append(record.error).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < records.length; i++) {
+            records[i] = null;
+        }
+        next = 0;
+        count = 0;
+    }
+}
@@ -16,22 +16,18 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
-import com.google.android.exoplayer2.ExoPlaybackException;
-import com.google.android.exoplayer2.ExoPlayer;
-import com.google.android.exoplayer2.PlaybackParameters;
 import com.google.android.exoplayer2.SimpleExoPlayer;
-import com.google.android.exoplayer2.Timeline;
-import com.google.android.exoplayer2.source.TrackGroupArray;
 import com.google.android.exoplayer2.text.CaptionStyleCompat;
 import com.google.android.exoplayer2.text.Cue;
 import com.google.android.exoplayer2.text.TextRenderer;
-import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
 import com.google.android.exoplayer2.ui.AspectRatioFrameLayout;
 import com.google.android.exoplayer2.ui.SubtitleView;
 import com.google.android.exoplayer2.util.Assertions;
 import com.google.android.exoplayer2.util.Util;
 import com.tubitv.media.R;
 import com.tubitv.media.bindings.UserController;
+import com.tubitv.media.helpers.PlayerEvent;
+import com.tubitv.media.helpers.PlayerEventBus;
 import com.tubitv.media.interfaces.PlaybackActionCallback;
 import com.tubitv.media.interfaces.TubiPlaybackControlInterface;
 import com.tubitv.media.models.MediaModel;
@@ -54,6 +50,9 @@ public class TubiExoPlayerView extends FrameLayout {
     private static final int SURFACE_TYPE_TEXTURE_VIEW = 2;
     private static final float TV_SUBTITLES_TEXT_SIZE = 24f; // In dp
 
+    private static final long VIDEO_EVENT_MASK = PlayerEvent.maskOf(PlayerEvent.VIDEO_SIZE_CHANGED,
+            PlayerEvent.RENDERED_FIRST_FRAME);
+
     private final AspectRatioFrameLayout contentFrame;
     private final View shutterView;
     private final View surfaceView;
@@ -213,20 +212,19 @@ public class TubiExoPlayerView extends FrameLayout {
     }
 
     /**
-     * Set the {@link SimpleExoPlayer} to use. The {@link SimpleExoPlayer#setTextOutput} and
-     * {@link SimpleExoPlayer#setVideoListener} method of the player will be called and previous
-     * assignments are overridden.
+     * Set the {@link SimpleExoPlayer} to use. The {@link SimpleExoPlayer#setTextOutput} method of the player will be
+     * called and previous assignments are overridden, the video events are received from its {@link PlayerEventBus}.
      *
-     * @param player The {@link SimpleExoPlayer} to use.
+     * @param player The {@link SimpleExoPlayer} to use, or null to detach the view from the player before it is
+     *               released or parked.
      */
-    public void setPlayer(SimpleExoPlayer player, @NonNull PlaybackActionCallback playbackActionCallback) {
+    public void setPlayer(@Nullable SimpleExoPlayer player, @NonNull PlaybackActionCallback playbackActionCallback) {
         if (this.player == player) {
             return;
         }
         if (this.player != null) {
-            this.player.removeListener(componentListener);
+            PlayerEventBus.of(this.player).unsubscribe(componentListener);
             this.player.clearTextOutput(componentListener);
-            this.player.clearVideoListener(componentListener);
             if (surfaceView instanceof TextureView) {
                 this.player.clearVideoTextureView((TextureView) surfaceView);
             } else if (surfaceView instanceof SurfaceView) {
@@ -236,7 +234,11 @@ public class TubiExoPlayerView extends FrameLayout {
         this.player = player;
 
         if (userController != null) {
-            userController.setPlayer(player, playbackActionCallback, this);
+            if (player != null) {
+                userController.setPlayer(player, playbackActionCallback, this);
+            } else {
+                userController.clearPlayer();
+            }
         }
 
         if (shutterView != null) {
@@ -248,9 +250,8 @@ public class TubiExoPlayerView extends FrameLayout {
             } else if (surfaceView instanceof SurfaceView) {
                 player.setVideoSurfaceView((SurfaceView) surfaceView);
             }
-            player.setVideoListener(componentListener);
             player.setTextOutput(componentListener);
-            player.addListener(componentListener);
+            PlayerEventBus.of(player).subscribe(componentListener, VIDEO_EVENT_MASK);
         }
     }
 
@@ -286,8 +287,7 @@ public class TubiExoPlayerView extends FrameLayout {
         }
     }
 
-    private final class ComponentListener implements SimpleExoPlayer.VideoListener,
-            TextRenderer.Output, ExoPlayer.EventListener {
+    private final class ComponentListener implements TextRenderer.Output, PlayerEventBus.Subscriber {
 
         // TextRenderer.Output implementation
 
@@ -298,76 +298,27 @@ public class TubiExoPlayerView extends FrameLayout {
             }
         }
 
-        // SimpleExoPlayer.VideoListener implementation
+        // PlayerEventBus.Subscriber implementation, the video events only
 
         @Override
-        public void onVideoSizeChanged(int width, int height, int unappliedRotationDegrees,
-                float pixelWidthHeightRatio) {
-            if (contentFrame != null) {
-                float aspectRatio = height == 0 ? 1 : (width * pixelWidthHeightRatio) / height;
-                contentFrame.setAspectRatio(aspectRatio);
+        public void onPlayerEvent(@NonNull PlayerEvent event) {
+            switch (event.type) {
+                case PlayerEvent.VIDEO_SIZE_CHANGED:
+                    if (contentFrame != null) {
+                        float aspectRatio = event.height == 0 ? 1
+                                : (event.width * event.pixelWidthHeightRatio) / event.height;
+                        contentFrame.setAspectRatio(aspectRatio);
+                    }
+                    break;
+                case PlayerEvent.RENDERED_FIRST_FRAME:
+                    if (shutterView != null) {
+                        shutterView.setVisibility(INVISIBLE);
+                    }
+                    break;
+                default:
+                    break;
             }
         }
-
-        @Override
-        public void onRenderedFirstFrame() {
-            if (shutterView != null) {
-                shutterView.setVisibility(INVISIBLE);
-            }
-        }
-
-        @Override
-        public void onTracksChanged(TrackGroupArray tracks, TrackSelectionArray selections) {
-
-        }
-
-        // ExoPlayer.EventListener implementation
-
-        @Override
-        public void onLoadingChanged(boolean isLoading) {
-            // Do nothing.
-        }
-
-        @Override
-        public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
-            //            maybeShowController(false);
-        }
-
-        @Override
-        public void onRepeatModeChanged(final int repeatMode) {
-
-        }
-
-        @Override
-        public void onShuffleModeEnabledChanged(final boolean shuffleModeEnabled) {
-
-        }
-
-        @Override
-        public void onPlayerError(ExoPlaybackException e) {
-            // Do nothing.
-        }
-
-        @Override
-        public void onPositionDiscontinuity(final int reason) {
-            // Do nothing.
-        }
-
-        @Override
-        public void onPlaybackParametersChanged(PlaybackParameters playbackParameters) {
-            // Do nothing.
-        }
-
-        @Override
-        public void onSeekProcessed() {
-
-        }
-
-        @Override
-        public void onTimelineChanged(final Timeline timeline, final Object manifest, final int reason) {
-            // Do nothing.
-        }
-
     }
 
 }
@@ -28,7 +28,7 @@ public class UIControllerView extends FrameLayout {
     private Runnable hideUIAction = new Runnable() {
         @Override
         public void run() {
-            binding.controllerPanel.setVisibility(GONE);
+            setControllerPanelVisible(false);
         }
     };
 
@@ -55,6 +55,7 @@ public class UIControllerView extends FrameLayout {
 
         if (binding != null) {
             binding.setController(userController);
+            userController.setControlsVisible(binding.controllerPanel.getVisibility() == VISIBLE);
         }
         return this;
     }
@@ -71,10 +72,10 @@ public class UIControllerView extends FrameLayout {
         countdownHandler.removeCallbacks(hideUIAction);
 
         if (binding.controllerPanel.getVisibility() == VISIBLE) {
-            binding.controllerPanel.setVisibility(GONE);
+            setControllerPanelVisible(false);
         } else {
             if (userController.playerPlaybackState.get() != Player.STATE_IDLE) {
-                binding.controllerPanel.setVisibility(VISIBLE);
+                setControllerPanelVisible(true);
                 hideUiTimeout();
             }
         }
@@ -88,6 +89,16 @@ public class UIControllerView extends FrameLayout {
         countdownHandler = new Handler();
     }
 
+    /**
+     * the progress of the seek bar and the time labels is only updated while the panel is shown.
+     */
+    private void setControllerPanelVisible(boolean visible) {
+        binding.controllerPanel.setVisibility(visible ? VISIBLE : GONE);
+        if (userController != null) {
+            userController.setControlsVisible(visible);
+        }
+    }
+
     private void hideUiTimeout() {
         countdownHandler.postDelayed(hideUIAction, TIME_TO_HIDE_CONTROL);
     }
@@ -0,0 +1,170 @@
+package com.tubitv.demo;
+
+import com.tubitv.media.controller.AdBreakPrefetcher;
+import com.tubitv.media.controller.AdFetchCoordinator;
+import com.tubitv.media.fsm.callback.AdInterface;
+import com.tubitv.media.fsm.callback.CuePointCallBack;
+import com.tubitv.media.fsm.callback.RetrieveAdCallback;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.AdRetriever;
+import com.tubitv.media.models.CuePointsRetriever;
+import com.tubitv.media.models.MediaModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class AdBreakPrefetcherTest {
+
+    private static final long TTL = 60000;
+
+    /**
+     * how far the cue points are fetched ahead with the time to live of the test.
+     */
+    private static final long WINDOW = TTL - AdBreakPrefetcher.FETCH_MARGIN_MS;
+
+    FakeClock clock;
+
+    CountingAdInterface adInterface;
+
+    ScheduledExecutorService scheduler;
+
+    AdBreakPrefetcher prefetcher;
+
+    AdRetriever retriever;
+
+    @Before
+    public void setup() {
+        clock = new FakeClock();
+        adInterface = new CountingAdInterface();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        AdFetchCoordinator coordinator = new AdFetchCoordinator(adInterface, null, scheduler, Runnable::run);
+        prefetcher = new AdBreakPrefetcher(coordinator, 2, TTL, clock);
+        retriever = new AdRetriever("videoId", "publisherId", 0);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void fetchesOnlyTheLookahead() {
+        prefetcher.prefetch(retriever, new long[] { 10000, 20000, 25000 }, 0);
+
+        assertThat(adInterface.requestedCuePoints.size(), is(2));
+        assertThat(adInterface.requestedCuePoints.get(0), is(10000L));
+        assertThat(adInterface.requestedCuePoints.get(1), is(20000L));
+    }
+
+    @Test
+    public void breakIsFetchedOnceWithinTheWindow() {
+        long[] cuePoints = { 60000, 900000 };
+        prefetcher.prefetch(retriever, cuePoints, 0);
+        assertThat(adInterface.requestedCuePoints.size(), is(0));
+        assertThat(prefetcher.nextPrefetchDelayMs(cuePoints, 0), is(60000 - WINDOW));
+
+        prefetcher.prefetch(retriever, cuePoints, 60000 - WINDOW);
+        assertThat(adInterface.requestedCuePoints.size(), is(1));
+        assertThat(adInterface.requestedCuePoints.get(0), is(60000L));
+        assertThat(prefetcher.nextPrefetchDelayMs(cuePoints, 60000 - WINDOW), is(840000L));
+    }
+
+    @Test
+    public void freshBreakIsTakenOnce() {
+        prefetcher.prefetch(retriever, new long[] { 20000 }, 0);
+
+        assertThat(prefetcher.take(20000) != null, is(true));
+        assertThat(prefetcher.take(20000), is(nullValue()));
+    }
+
+    @Test
+    public void freshBreakIsNotFetchedAgain() {
+        prefetcher.prefetch(retriever, new long[] { 20000 }, 0);
+        clock.now += 10000;
+        prefetcher.prefetch(retriever, new long[] { 20000 }, 10000);
+
+        assertThat(adInterface.requestedCuePoints.size(), is(1));
+        assertThat(prefetcher.nextPrefetchDelayMs(new long[] { 20000 }, 10000), is(AdBreakPrefetcher.NO_PREFETCH));
+    }
+
+    @Test
+    public void breakStaleAtItsCuePointIsFetchedAgain() {
+        prefetcher.prefetch(retriever, new long[] { 20000 }, 0);
+
+        // paused long enough for the break to expire before the movie reaches its cue point.
+        clock.now += TTL - 10000;
+        assertThat(prefetcher.nextPrefetchDelayMs(new long[] { 20000 }, 0), is(0L));
+
+        prefetcher.prefetch(retriever, new long[] { 20000 }, 0);
+        assertThat(adInterface.requestedCuePoints.size(), is(2));
+    }
+
+    @Test
+    public void staleBreakIsNotTaken() {
+        prefetcher.prefetch(retriever, new long[] { 20000 }, 0);
+        clock.now += TTL;
+
+        assertThat(prefetcher.take(20000), is(nullValue()));
+    }
+
+    @Test
+    public void emptyBreakIsFetchedAgainAfterTheRetryDelay() {
+        adInterface.respondEmpty = true;
+        prefetcher.prefetch(retriever, new long[] { 20000 }, 0);
+
+        prefetcher.prefetch(retriever, new long[] { 20000 }, 0);
+        assertThat(adInterface.requestedCuePoints.size(), is(1));
+        assertThat(prefetcher.nextPrefetchDelayMs(new long[] { 20000 }, 0), is(AdBreakPrefetcher.RETRY_DELAY_MS));
+
+        clock.now += AdBreakPrefetcher.RETRY_DELAY_MS;
+        prefetcher.prefetch(retriever, new long[] { 20000 }, 0);
+        assertThat(adInterface.requestedCuePoints.size(), is(2));
+        assertThat(prefetcher.take(20000), is(nullValue()));
+    }
+
+    private static class FakeClock implements AdBreakPrefetcher.TimeSource {
+
+        long now = 1000;
+
+        @Override
+        public long elapsedRealtimeMs() {
+            return now;
+        }
+    }
+
+    /**
+     * ad server answering right away.
+     */
+    private static class CountingAdInterface implements AdInterface {
+
+        List<Long> requestedCuePoints = new ArrayList<>();
+
+        boolean respondEmpty = false;
+
+        @Override
+        public void fetchAd(AdRetriever retriever, RetrieveAdCallback callback) {
+            requestedCuePoints.add(retriever.getCubPoint());
+
+            if (respondEmpty) {
+                callback.onEmptyAdReceived();
+                return;
+            }
+
+            List<MediaModel> ads = new ArrayList<>();
+            ads.add(MediaModel.ad(null, String.valueOf(retriever.getCubPoint()), false));
+            callback.onReceiveAd(new AdMediaModel(ads));
+        }
+
+        @Override
+        public void fetchQuePoint(CuePointsRetriever retriever, CuePointCallBack callBack) {
+        }
+    }
+}
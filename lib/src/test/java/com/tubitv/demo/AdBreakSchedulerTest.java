@@ -0,0 +1,102 @@
+package com.tubitv.demo;
+
+import com.tubitv.media.fsm.listener.AdBreakScheduler;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class AdBreakSchedulerTest {
+
+    private static final long RANGE = 1500;
+
+    private static final long THRESHOLD = 4000;
+
+    AdBreakScheduler scheduler;
+
+    long[] cuePoints;
+
+    long[] adCallPoints;
+
+    @Before
+    public void setup() {
+        cuePoints = new long[] { 60000, 900000, 1800000 };
+        adCallPoints = new long[] { 55000, 895000, 1795000 };
+
+        scheduler = new AdBreakScheduler(RANGE, THRESHOLD);
+        scheduler.setBreaks(cuePoints, adCallPoints);
+    }
+
+    @Test
+    public void firesEachBreakOnce() {
+        int adCalls = 0;
+        int cues = 0;
+
+        // tick every 500ms through the range boundaries of the first break.
+        for (long position = 50000; position <= 65000; position += 500) {
+            scheduler.updatePosition(position);
+
+            int adCallBreak = scheduler.pollAdCall(position);
+            if (adCallBreak != AdBreakScheduler.NO_BREAK) {
+                assertThat(adCallBreak, is(0));
+                adCalls++;
+            }
+
+            int cueBreak = scheduler.pollCue(position);
+            if (cueBreak != AdBreakScheduler.NO_BREAK) {
+                assertThat(cueBreak, is(0));
+                cues++;
+            }
+        }
+
+        assertThat(adCalls, is(1));
+        assertThat(cues, is(1));
+        assertThat(scheduler.getNextCuePoint(), is(900000L));
+        assertThat(scheduler.getNextAdCallPoint(), is(895000L));
+    }
+
+    @Test
+    public void firesWithinRangeBeforePoint() {
+        scheduler.updatePosition(53000);
+        assertThat(scheduler.pollAdCall(53000), is(AdBreakScheduler.NO_BREAK));
+
+        scheduler.updatePosition(54000);
+        assertThat(scheduler.pollAdCall(54000), is(0));
+    }
+
+    @Test
+    public void seekForwardSkipsPassedBreaks() {
+        scheduler.updatePosition(10000);
+        scheduler.updatePosition(1000000);
+
+        assertThat(scheduler.pollAdCall(1000000), is(AdBreakScheduler.NO_BREAK));
+        assertThat(scheduler.pollCue(1000000), is(AdBreakScheduler.NO_BREAK));
+        assertThat(scheduler.getNextCuePoint(), is(1800000L));
+
+        scheduler.updatePosition(1795000);
+        assertThat(scheduler.pollAdCall(1795000), is(2));
+    }
+
+    @Test
+    public void seekBackwardReArmsBreaks() {
+        scheduler.updatePosition(55000);
+        assertThat(scheduler.pollAdCall(55000), is(0));
+        scheduler.updatePosition(58500);
+        assertThat(scheduler.pollCue(58500), is(0));
+
+        scheduler.seekTo(30000);
+        assertThat(scheduler.getNextCuePoint(), is(60000L));
+        assertThat(scheduler.getLastFiredCueIndex(), is(0));
+    }
+
+    @Test
+    public void noBreaks() {
+        scheduler.setBreaks(null, null);
+        scheduler.updatePosition(60000);
+
+        assertThat(scheduler.pollAdCall(60000), is(AdBreakScheduler.NO_BREAK));
+        assertThat(scheduler.pollCue(60000), is(AdBreakScheduler.NO_BREAK));
+        assertThat(scheduler.getNextCuePoint(), is(AdBreakScheduler.NO_POINT));
+    }
+}
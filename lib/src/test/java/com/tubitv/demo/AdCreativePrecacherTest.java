@@ -0,0 +1,157 @@
+package com.tubitv.demo;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+import com.google.android.exoplayer2.Format;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMasterPlaylist;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.util.MimeTypes;
+import com.tubitv.media.helpers.AdCreativePrecacher;
+import com.tubitv.media.helpers.MediaCache;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.MediaModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AdCreativePrecacherTest {
+
+    private static final long WAIT_SECONDS = 5;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    RecordingPrecacher precacher;
+
+    @Before
+    public void setup() {
+        // nothing is precached without the cache to read the creatives from.
+        Context context = mock(Context.class);
+        when(context.getApplicationContext()).thenReturn(context);
+        when(context.getCacheDir()).thenReturn(folder.getRoot());
+        MediaCache.initialize(context, MediaCache.DEFAULT_MAX_BYTES);
+
+        precacher = new RecordingPrecacher();
+    }
+
+    @Test
+    public void variantIsTheOneTheAdPlayerStartsWith() {
+        List<HlsMasterPlaylist.HlsUrl> variants = Arrays.asList(variant(1500000), variant(400000), variant(3000000),
+                variant(700000));
+
+        // within the default initial bitrate without estimate.
+        assertThat(AdCreativePrecacher.selectVariant(variants, BandwidthMeter.NO_ESTIMATE).format.bitrate,
+                is(700000));
+        // within the bandwidth fraction of the estimate.
+        assertThat(AdCreativePrecacher.selectVariant(variants, 4000000).format.bitrate, is(3000000));
+        assertThat(AdCreativePrecacher.selectVariant(variants, 1000000).format.bitrate, is(700000));
+        // the lowest when none fits.
+        assertThat(AdCreativePrecacher.selectVariant(variants, 100000).format.bitrate, is(400000));
+    }
+
+    @Test
+    public void earliestCuePointIsDownloadedFirst() throws InterruptedException {
+        precacher.precache(adBreak("running"), 0);
+        assertThat(precacher.started.await(WAIT_SECONDS, TimeUnit.SECONDS), is(true));
+
+        precacher.precache(adBreak("c1", "c2"), 600000);
+        precacher.precache(adBreak("b1", "b2"), 300000);
+        precacher.awaitDownloads(5);
+
+        assertThat(precacher.downloaded, is(Arrays.asList("running", "b1", "b2", "c1", "c2")));
+    }
+
+    @Test
+    public void canceledBreakStopsItsRemainingDownloads() throws InterruptedException {
+        AdMediaModel running = adBreak("running");
+        precacher.precache(running, 0);
+        assertThat(precacher.started.await(WAIT_SECONDS, TimeUnit.SECONDS), is(true));
+
+        AdMediaModel consumed = adBreak("a1", "a2");
+        precacher.precache(consumed, 300000);
+        precacher.precache(adBreak("b1"), 600000);
+        precacher.cancel(consumed);
+        precacher.cancel(running);
+        precacher.awaitDownloads(2);
+
+        assertThat(precacher.downloaded, is(Arrays.asList("running", "b1")));
+        assertThat(precacher.runningCanceled, is(true));
+    }
+
+    private static HlsMasterPlaylist.HlsUrl variant(int bitrate) {
+        return new HlsMasterPlaylist.HlsUrl("variant-" + bitrate + ".m3u8",
+                Format.createSampleFormat(null, MimeTypes.VIDEO_H264, null, bitrate, null));
+    }
+
+    private static AdMediaModel adBreak(String... names) {
+        List<MediaModel> ads = new ArrayList<>();
+        for (String name : names) {
+            // the click through url names the ad, the uris cannot be parsed in the unit tests.
+            ads.add(MediaModel.ad("http://tubitv.com/" + name + ".mp4", name, false));
+        }
+        return new AdMediaModel(ads);
+    }
+
+    /**
+     * records the ads in the order they are downloaded, with a single download at a time. The first download waits
+     * until the test has queued the others.
+     */
+    static class RecordingPrecacher extends AdCreativePrecacher {
+
+        final List<String> downloaded = Collections.synchronizedList(new ArrayList<String>());
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch queued = new CountDownLatch(1);
+
+        private final Object lock = new Object();
+
+        volatile boolean runningCanceled;
+
+        RecordingPrecacher() {
+            super(mock(DataSource.Factory.class), mock(DataSource.Factory.class), mock(BandwidthMeter.class), 1,
+                    DEFAULT_HLS_PRECACHE_SECONDS);
+        }
+
+        @Override
+        protected void download(@NonNull MediaModel ad, @NonNull Download download) {
+            if (started.getCount() > 0) {
+                started.countDown();
+                try {
+                    queued.await(WAIT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                runningCanceled = download.isCanceled();
+            }
+
+            synchronized (lock) {
+                downloaded.add(ad.getClickThroughUrl());
+                lock.notifyAll();
+            }
+        }
+
+        void awaitDownloads(int count) throws InterruptedException {
+            queued.countDown();
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(WAIT_SECONDS);
+            synchronized (lock) {
+                while (downloaded.size() < count && System.currentTimeMillis() < deadline) {
+                    lock.wait(100);
+                }
+            }
+        }
+    }
+}
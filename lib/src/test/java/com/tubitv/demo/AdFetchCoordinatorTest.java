@@ -0,0 +1,249 @@
+package com.tubitv.demo;
+
+import com.tubitv.media.controller.AdFetchCoordinator;
+import com.tubitv.media.fsm.callback.AdInterface;
+import com.tubitv.media.fsm.callback.CuePointCallBack;
+import com.tubitv.media.fsm.callback.RetrieveAdCallback;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.AdRetriever;
+import com.tubitv.media.models.CuePointsRetriever;
+import com.tubitv.media.models.MediaModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class AdFetchCoordinatorTest {
+
+    private static final long DEADLINE = 200;
+
+    ScheduledExecutorService scheduler;
+
+    RecordingCallback callback;
+
+    AdRetriever retriever;
+
+    @Before
+    public void setup() {
+        scheduler = Executors.newScheduledThreadPool(2);
+        callback = new RecordingCallback();
+        retriever = new AdRetriever("videoId", "publisherId", 60000);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void fastPrimaryIsDeliveredBeforeDeadline() throws InterruptedException {
+        AdMediaModel primaryBreak = adBreak(2);
+        AdFetchCoordinator coordinator = new AdFetchCoordinator(
+                new FakeAdInterface(scheduler, 10, primaryBreak), new FakeAdInterface(scheduler, -1, null),
+                scheduler, Runnable::run);
+
+        long start = System.currentTimeMillis();
+        coordinator.fetchAd(retriever, DEADLINE, callback);
+
+        assertThat(callback.await(), is(true));
+        assertThat(System.currentTimeMillis() - start < DEADLINE, is(true));
+        assertThat(callback.received == primaryBreak, is(true));
+    }
+
+    @Test
+    public void slowPrimaryFallsBackAtDeadline() throws InterruptedException {
+        AdMediaModel fallbackBreak = adBreak(1);
+        AdFetchCoordinator coordinator = new AdFetchCoordinator(
+                new FakeAdInterface(scheduler, 5000, adBreak(3)), new FakeAdInterface(scheduler, 10, fallbackBreak),
+                scheduler, Runnable::run);
+
+        coordinator.fetchAd(retriever, DEADLINE, callback);
+
+        assertThat(callback.await(), is(true));
+        assertThat(callback.received == fallbackBreak, is(true));
+    }
+
+    @Test
+    public void nothingResolvedIsEmptyAtDeadline() throws InterruptedException {
+        AdFetchCoordinator coordinator = new AdFetchCoordinator(
+                new FakeAdInterface(scheduler, -1, null), null, scheduler, Runnable::run);
+
+        long start = System.currentTimeMillis();
+        coordinator.fetchAd(retriever, DEADLINE, callback);
+
+        assertThat(callback.await(), is(true));
+        assertThat(System.currentTimeMillis() - start >= DEADLINE, is(true));
+        assertThat(callback.empty, is(true));
+    }
+
+    @Test
+    public void lateResponseIsDropped() throws InterruptedException {
+        AdFetchCoordinator coordinator = new AdFetchCoordinator(
+                new FakeAdInterface(scheduler, DEADLINE + 100, adBreak(2)), null, scheduler, Runnable::run);
+
+        coordinator.fetchAd(retriever, DEADLINE, callback);
+
+        assertThat(callback.await(), is(true));
+        Thread.sleep(DEADLINE + 200);
+        assertThat(callback.calls, is(1));
+        assertThat(callback.empty, is(true));
+    }
+
+    @Test
+    public void everyRequestFailedIsError() throws InterruptedException {
+        AdFetchCoordinator coordinator = new AdFetchCoordinator(
+                new FakeAdInterface(scheduler, 10, null, true), new FakeAdInterface(scheduler, 20, null, true),
+                scheduler, Runnable::run);
+
+        coordinator.fetchAd(retriever, DEADLINE, callback);
+
+        assertThat(callback.await(), is(true));
+        assertThat(callback.error, is(true));
+    }
+
+    @Test
+    public void canceledFetchIsNotDelivered() throws InterruptedException {
+        AdFetchCoordinator coordinator = new AdFetchCoordinator(
+                new FakeAdInterface(scheduler, 50, adBreak(1)), null, scheduler, Runnable::run);
+
+        coordinator.fetchAd(retriever, DEADLINE, callback).cancel();
+
+        Thread.sleep(DEADLINE + 100);
+        assertThat(callback.calls, is(0));
+    }
+
+    @Test
+    public void deliveryPostedBeforeCancelIsDropped() throws InterruptedException {
+        List<Runnable> posted = new ArrayList<>();
+        AdFetchCoordinator coordinator = new AdFetchCoordinator(
+                new FakeAdInterface(scheduler, 10, adBreak(1)), null, scheduler, posted::add);
+
+        AdFetchCoordinator.PendingFetch fetch = coordinator.fetchAd(retriever, DEADLINE, callback);
+        Thread.sleep(100);
+        assertThat(fetch.isDone(), is(true));
+
+        // the main thread runs the posted delivery after the fsm has moved on.
+        fetch.cancel();
+        for (Runnable runnable : posted) {
+            runnable.run();
+        }
+        assertThat(posted.size(), is(1));
+        assertThat(callback.calls, is(0));
+    }
+
+    @Test
+    public void latencyIsReportedForEveryDeliveredFetch() throws InterruptedException {
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<Long>());
+        AdFetchCoordinator coordinator = new AdFetchCoordinator(
+                new FakeAdInterface(scheduler, 10, adBreak(1)), null, scheduler, Runnable::run);
+        coordinator.setFetchListener(latencies::add);
+
+        coordinator.fetchAd(retriever, DEADLINE, callback);
+        assertThat(callback.await(), is(true));
+        coordinator.fetchAd(retriever, DEADLINE, new RecordingCallback()).cancel();
+
+        Thread.sleep(100);
+        assertThat(latencies.size(), is(1));
+    }
+
+    private static AdMediaModel adBreak(int size) {
+        List<MediaModel> ads = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ads.add(MediaModel.ad(null, String.valueOf(i), false));
+        }
+        return new AdMediaModel(ads);
+    }
+
+    /**
+     * ad server answering after a delay, or never when the delay is negative.
+     */
+    private static class FakeAdInterface implements AdInterface {
+
+        private final ScheduledExecutorService scheduler;
+
+        private final long delayMs;
+
+        private final AdMediaModel response;
+
+        private final boolean fail;
+
+        FakeAdInterface(ScheduledExecutorService scheduler, long delayMs, AdMediaModel response) {
+            this(scheduler, delayMs, response, false);
+        }
+
+        FakeAdInterface(ScheduledExecutorService scheduler, long delayMs, AdMediaModel response, boolean fail) {
+            this.scheduler = scheduler;
+            this.delayMs = delayMs;
+            this.response = response;
+            this.fail = fail;
+        }
+
+        @Override
+        public void fetchAd(AdRetriever retriever, RetrieveAdCallback callback) {
+            if (delayMs < 0) {
+                return;
+            }
+
+            scheduler.schedule(() -> {
+                if (fail) {
+                    callback.onError();
+                } else if (response == null) {
+                    callback.onEmptyAdReceived();
+                } else {
+                    callback.onReceiveAd(response);
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void fetchQuePoint(CuePointsRetriever retriever, CuePointCallBack callBack) {
+        }
+    }
+
+    private static class RecordingCallback implements RetrieveAdCallback {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        volatile AdMediaModel received;
+
+        volatile boolean empty = false;
+
+        volatile boolean error = false;
+
+        volatile int calls = 0;
+
+        boolean await() throws InterruptedException {
+            return latch.await(2, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public void onReceiveAd(AdMediaModel mediaModels) {
+            received = mediaModels;
+            calls++;
+            latch.countDown();
+        }
+
+        @Override
+        public void onError() {
+            error = true;
+            calls++;
+            latch.countDown();
+        }
+
+        @Override
+        public void onEmptyAdReceived() {
+            empty = true;
+            calls++;
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.tubitv.demo;
+
+import android.support.annotation.NonNull;
+import com.tubitv.media.controller.DeferredPreroll;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.MediaModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class DeferredPrerollTest {
+
+    ScheduledExecutorService scheduler;
+
+    RecordingCallback callback;
+
+    @Before
+    public void setup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        callback = new RecordingCallback();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void answerBeforeTheDeadlineIsDelivered() throws InterruptedException {
+        DeferredPreroll preroll = new DeferredPreroll(callback, scheduler, Runnable::run, 200);
+        preroll.onReceiveAd(new AdMediaModel(new ArrayList<MediaModel>()));
+
+        Thread.sleep(300);
+        assertThat(callback.events.toString(), is("[received]"));
+        assertThat(preroll.isMissed(), is(false));
+    }
+
+    @Test
+    public void lateBreakIsHandedOverAfterTheMiss() throws InterruptedException {
+        DeferredPreroll preroll = new DeferredPreroll(callback, scheduler, Runnable::run, 50);
+
+        assertThat(callback.missed.await(1, TimeUnit.SECONDS), is(true));
+        assertThat(preroll.isMissed(), is(true));
+
+        preroll.onReceiveAd(new AdMediaModel(new ArrayList<MediaModel>()));
+        assertThat(callback.events.toString(), is("[missed, late]"));
+    }
+
+    @Test
+    public void lateEmptyAnswerIsDropped() throws InterruptedException {
+        DeferredPreroll preroll = new DeferredPreroll(callback, scheduler, Runnable::run, 50);
+
+        assertThat(callback.missed.await(1, TimeUnit.SECONDS), is(true));
+        preroll.onEmptyAdReceived();
+        preroll.onError();
+        assertThat(callback.events.toString(), is("[missed]"));
+    }
+
+    static class RecordingCallback implements DeferredPreroll.Callback {
+
+        final List<String> events = new ArrayList<>();
+
+        final CountDownLatch missed = new CountDownLatch(1);
+
+        @Override
+        public synchronized void onPrerollMissed() {
+            events.add("missed");
+            missed.countDown();
+        }
+
+        @Override
+        public synchronized void onLateAdReceived(@NonNull AdMediaModel adMediaModel) {
+            events.add("late");
+        }
+
+        @Override
+        public synchronized void onReceiveAd(AdMediaModel mediaModels) {
+            events.add("received");
+        }
+
+        @Override
+        public synchronized void onError() {
+            events.add("error");
+        }
+
+        @Override
+        public synchronized void onEmptyAdReceived() {
+            events.add("empty");
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.tubitv.demo;
 
+import com.tubitv.media.controller.AdFetchCoordinator;
 import com.tubitv.media.controller.PlayerUIController;
 import com.tubitv.media.di.PlayerModuleDefault;
 import com.tubitv.media.di.component.DaggerFsmComonent;
 import com.tubitv.media.di.component.FsmComonent;
 import com.tubitv.media.fsm.Input;
 import com.tubitv.media.fsm.callback.AdInterface;
+import com.tubitv.media.fsm.callback.CuePointCallBack;
+import com.tubitv.media.fsm.callback.RetrieveAdCallback;
 import com.tubitv.media.fsm.concrete.AdPlayingState;
 import com.tubitv.media.fsm.concrete.FetchCuePointState;
 import com.tubitv.media.fsm.concrete.FinishState;
@@ -19,7 +22,10 @@ import com.tubitv.media.fsm.concrete.factory.StateFactory;
 import com.tubitv.media.fsm.state_machine.FsmPlayer;
 import com.tubitv.media.fsm.state_machine.FsmPlayerImperial;
 import com.tubitv.media.models.AdRetriever;
+import com.tubitv.media.models.CuePointsRetriever;
 import com.tubitv.media.models.MediaModel;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 import org.junit.Before;
 import org.junit.Test;
@@ -27,6 +33,8 @@ import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 import org.mockito.Mock;
 
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 
 /**
@@ -447,4 +455,42 @@ public class ExoPlayerFSMTest {
         assertTrue(playerFsm.getCurrentState() instanceof FinishState);
     }
 
+    @Test
+    public void testSpeculativePrerollIsDroppedWithoutPreroll() {
+        playerFsm = new FsmPlayerImperial(comonent.getStateFactory()) {
+            @Override
+            public Class initializeState() {
+                return FetchCuePointState.class;
+            }
+        };
+
+        final int[] adCalls = {0};
+        AdInterface adInterface = new AdInterface() {
+            @Override
+            public void fetchAd(AdRetriever retriever, RetrieveAdCallback callback) {
+                adCalls[0]++;
+            }
+
+            @Override
+            public void fetchQuePoint(CuePointsRetriever retriever, CuePointCallBack callBack) {
+            }
+        };
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        playerFsm.setAdServerInterface(adInterface);
+        playerFsm.setAdFetchCoordinator(new AdFetchCoordinator(adInterface, null, scheduler, Runnable::run));
+        playerFsm.setAdRetriever(new AdRetriever());
+
+        // off by default, the pre-roll call waits for the cue points.
+        playerFsm.startSpeculativePreroll();
+        assertEquals(0, adCalls[0]);
+
+        playerFsm.setSpeculativeStartup(true);
+        playerFsm.startSpeculativePreroll();
+        assertEquals(1, adCalls[0]);
+
+        playerFsm.discardSpeculativePreroll();
+        assertFalse(playerFsm.receivePendingPreroll(AdFetchCoordinator.PREROLL_TIMEOUT_MS));
+
+        scheduler.shutdownNow();
+    }
 }
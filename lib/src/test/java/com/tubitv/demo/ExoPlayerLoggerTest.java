@@ -0,0 +1,77 @@
+package com.tubitv.demo;
+
+import com.tubitv.media.utilities.ExoPlayerLogger;
+import com.tubitv.media.utilities.RingBufferSink;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ExoPlayerLoggerTest {
+
+    private static final String TAG = "ExoPlayerLoggerTest";
+
+    @Before
+    public void setup() {
+        ExoPlayerLogger.RECENT.clear();
+    }
+
+    @After
+    public void tearDown() {
+        ExoPlayerLogger.setLevel(TAG, ExoPlayerLogger.VERBOSE);
+        ExoPlayerLogger.RECENT.clear();
+    }
+
+    @Test
+    public void formatReplacesPlaceholdersInOrder() {
+        assertThat(ExoPlayerLogger.format("transit to: {}", new Object[]{ExoPlayerLoggerTest.class}),
+                is("transit to: ExoPlayerLoggerTest"));
+        assertThat(ExoPlayerLogger.format("{} of {}", new Object[]{3L, 5}), is("3 of 5"));
+        assertThat(ExoPlayerLogger.format("{} and {}", new Object[]{"one"}), is("one and {}"));
+        assertThat(ExoPlayerLogger.format("no placeholder", new Object[]{"extra"}), is("no placeholder"));
+        assertThat(ExoPlayerLogger.format("{}", null), is("{}"));
+    }
+
+    @Test
+    public void tagLevelFiltersBeforeRecording() {
+        ExoPlayerLogger.setLevel(TAG, ExoPlayerLogger.INFO);
+
+        ExoPlayerLogger.d(TAG, "filtered {}", 1L);
+        ExoPlayerLogger.i(TAG, "kept {}", 2L);
+
+        List<ExoPlayerLogger.LogRecord> records = ExoPlayerLogger.RECENT.snapshot();
+        assertThat(ExoPlayerLogger.isLoggable(TAG, ExoPlayerLogger.DEBUG), is(false));
+        assertThat(records.size(), is(1));
+        assertThat(records.get(0).getMessage(), is("kept 2"));
+        assertThat(records.get(0).level, is(ExoPlayerLogger.INFO));
+    }
+
+    @Test
+    public void silencedTagRecordsNothing() {
+        ExoPlayerLogger.setLevel(TAG, ExoPlayerLogger.NONE);
+
+        ExoPlayerLogger.e(TAG, "silenced");
+
+        assertThat(ExoPlayerLogger.RECENT.snapshot().isEmpty(), is(true));
+    }
+
+    @Test
+    public void ringBufferKeepsLastRecords() {
+        RingBufferSink sink = new RingBufferSink(3);
+        ExoPlayerLogger.addSink(sink);
+        for (int i = 0; i < 5; i++) {
+            ExoPlayerLogger.i(TAG, "record {}", i);
+        }
+        ExoPlayerLogger.removeSink(sink);
+
+        List<ExoPlayerLogger.LogRecord> records = sink.snapshot();
+        assertThat(records.size(), is(3));
+        assertThat(records.get(0).getMessage(), is("record 2"));
+        assertThat(records.get(2).getMessage(), is("record 4"));
+        assertThat(sink.dump().split("\n").length, is(3));
+        assertThat(sink.dump().contains("I/" + TAG + ": record 4"), is(true));
+    }
+}
@@ -0,0 +1,68 @@
+package com.tubitv.demo;
+
+import android.net.Uri;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.tubitv.media.helpers.MediaCache;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MediaCacheTest {
+
+    @Test
+    public void cacheKeyDropsToken() {
+        String first = "http://c11.adrise.tv/ads/transcodes/003572/940826/segment-1.ts?token=abc&exp=1";
+        String second = "http://c11.adrise.tv/ads/transcodes/003572/940826/segment-1.ts?token=xyz&exp=2";
+
+        assertThat(MediaCache.buildCacheKey(first), is(MediaCache.buildCacheKey(second)));
+        assertThat(MediaCache.buildCacheKey(first),
+                is("http://c11.adrise.tv/ads/transcodes/003572/940826/segment-1.ts"));
+    }
+
+    @Test
+    public void cacheKeyDropsFragment() {
+        assertThat(MediaCache.buildCacheKey("http://tubitv.com/movie.mp4#t=10"), is("http://tubitv.com/movie.mp4"));
+        assertThat(MediaCache.buildCacheKey("http://tubitv.com/movie.mp4"), is("http://tubitv.com/movie.mp4"));
+    }
+
+    @Test
+    public void cacheKeyKeepsContentParameters() {
+        String first = "http://tubitv.com/segment?id=1&Signature=abc&Key-Pair-Id=k&Policy=p";
+        String second = "http://tubitv.com/segment?id=2&Signature=xyz&Key-Pair-Id=k&Policy=q";
+
+        assertThat(MediaCache.buildCacheKey(first), is("http://tubitv.com/segment?id=1"));
+        assertThat(MediaCache.buildCacheKey(second), is("http://tubitv.com/segment?id=2"));
+        assertThat(MediaCache.buildCacheKey("http://tubitv.com/segment.ts?hdnts=exp~1&quality=hd#t=1"),
+                is("http://tubitv.com/segment.ts?quality=hd"));
+    }
+
+    @Test
+    public void cacheKeyDropsConfiguredTokens() {
+        MediaCache.setTokenParameters(Arrays.asList("Auth", "ts"));
+        try {
+            assertThat(MediaCache.buildCacheKey("http://tubitv.com/segment.ts?auth=abc&ts=1&token=t"),
+                    is("http://tubitv.com/segment.ts?token=t"));
+        } finally {
+            MediaCache.setTokenParameters(MediaCache.DEFAULT_TOKEN_PARAMETERS);
+        }
+    }
+
+    @Test
+    public void manifestsAreNotCached() {
+        assertThat(MediaCache.isCacheable(dataSpecOf("/ad/master.m3u8")), is(false));
+        assertThat(MediaCache.isCacheable(dataSpecOf("/movie/manifest.mpd")), is(false));
+        assertThat(MediaCache.isCacheable(dataSpecOf("/movie.ism/Manifest")), is(false));
+        assertThat(MediaCache.isCacheable(dataSpecOf("/ad/segment-1.ts")), is(true));
+        assertThat(MediaCache.isCacheable(dataSpecOf("/ad/creative.mp4")), is(true));
+    }
+
+    private static DataSpec dataSpecOf(String path) {
+        Uri uri = mock(Uri.class);
+        when(uri.getPath()).thenReturn(path);
+        return new DataSpec(uri);
+    }
+}
@@ -0,0 +1,100 @@
+package com.tubitv.demo;
+
+import com.tubitv.media.controller.PendingAdResponse;
+import com.tubitv.media.fsm.callback.RetrieveAdCallback;
+import com.tubitv.media.models.AdMediaModel;
+import com.tubitv.media.models.MediaModel;
+import java.util.ArrayList;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class PendingAdResponseTest {
+
+    PendingAdResponse response;
+
+    RecordingCallback callback;
+
+    @Before
+    public void setup() {
+        response = new PendingAdResponse(0);
+        callback = new RecordingCallback();
+    }
+
+    @Test
+    public void answerBeforeSubscriptionIsDeliveredOnSubscription() {
+        AdMediaModel adBreak = new AdMediaModel(new ArrayList<MediaModel>());
+        response.onReceiveAd(adBreak);
+        assertThat(response.isAnswered(), is(true));
+
+        assertThat(response.deliverTo(callback), is(true));
+        assertThat(callback.received, is(adBreak));
+        assertThat(callback.count, is(1));
+    }
+
+    @Test
+    public void answerAfterSubscriptionIsDeliveredOnAnswer() {
+        response.deliverTo(callback);
+        assertThat(callback.count, is(0));
+
+        response.onEmptyAdReceived();
+        assertThat(callback.empty, is(true));
+        assertThat(callback.count, is(1));
+    }
+
+    @Test
+    public void onlyTheFirstAnswerAndCallbackCount() {
+        response.onError();
+        response.onEmptyAdReceived();
+        response.deliverTo(callback);
+
+        RecordingCallback late = new RecordingCallback();
+        assertThat(response.deliverTo(late), is(false));
+        assertThat(callback.failed, is(true));
+        assertThat(callback.count, is(1));
+        assertThat(late.count, is(0));
+    }
+
+    @Test
+    public void secondAdCallThroughTheInterfaceFails() {
+        response.onEmptyAdReceived();
+        RecordingCallback late = new RecordingCallback();
+
+        response.asAdInterface().fetchAd(null, callback);
+        response.asAdInterface().fetchAd(null, late);
+
+        assertThat(callback.empty, is(true));
+        assertThat(late.failed, is(true));
+    }
+
+    static class RecordingCallback implements RetrieveAdCallback {
+
+        int count;
+
+        AdMediaModel received;
+
+        boolean empty;
+
+        boolean failed;
+
+        @Override
+        public void onReceiveAd(AdMediaModel mediaModels) {
+            count++;
+            received = mediaModels;
+        }
+
+        @Override
+        public void onError() {
+            count++;
+            failed = true;
+        }
+
+        @Override
+        public void onEmptyAdReceived() {
+            count++;
+            empty = true;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.tubitv.demo;
+
+import com.tubitv.media.helpers.LoadControlProfile;
+import com.tubitv.media.helpers.PhasedLoadControl;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class PhasedLoadControlTest {
+
+    private static final long SECOND_US = 1000000L;
+
+    PhasedLoadControl loadControl;
+
+    @Before
+    public void setup() {
+        loadControl = new PhasedLoadControl(LoadControlProfile.PHONE, LoadControlProfile.BACKGROUND);
+    }
+
+    @Test
+    public void playingPhaseLoadsToThePlayingProfile() {
+        assertThat(loadControl.getPhase(), is(PhasedLoadControl.PHASE_PLAYING));
+        assertThat(loadControl.shouldContinueLoading(12 * SECOND_US, 1f), is(true));
+    }
+
+    @Test
+    public void backgroundPhaseStopsAtTheBackgroundCap() {
+        loadControl.setPhase(PhasedLoadControl.PHASE_BACKGROUND);
+
+        assertThat(loadControl.shouldContinueLoading(5 * SECOND_US, 1f), is(true));
+        assertThat(loadControl.shouldContinueLoading(12 * SECOND_US, 1f), is(false));
+    }
+
+    @Test
+    public void playingPhaseResumesLoading() {
+        loadControl.setPhase(PhasedLoadControl.PHASE_BACKGROUND);
+        assertThat(loadControl.shouldContinueLoading(12 * SECOND_US, 1f), is(false));
+
+        loadControl.setPhase(PhasedLoadControl.PHASE_PLAYING);
+        assertThat(loadControl.shouldContinueLoading(12 * SECOND_US, 1f), is(true));
+    }
+}
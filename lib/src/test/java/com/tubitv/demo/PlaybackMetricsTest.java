@@ -0,0 +1,134 @@
+package com.tubitv.demo;
+
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.tubitv.media.helpers.PlaybackMetrics;
+import com.tubitv.media.helpers.PlayerEvent;
+import com.tubitv.media.helpers.PlayerEventBus;
+import com.tubitv.media.helpers.PlayerPool;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+
+public class PlaybackMetricsTest {
+
+    long now;
+
+    PlaybackMetrics metrics;
+
+    SimpleExoPlayer contentPlayer;
+
+    SimpleExoPlayer adPlayer;
+
+    @Before
+    public void setup() {
+        now = 0;
+        metrics = new PlaybackMetrics(() -> now);
+        contentPlayer = mock(SimpleExoPlayer.class);
+        adPlayer = mock(SimpleExoPlayer.class);
+    }
+
+    @Test
+    public void prerollThenContentSession() {
+        metrics.attach(contentPlayer, null);
+        PlayerEventBus bus = PlayerEventBus.of(contentPlayer);
+
+        now = 400;
+        metrics.onAdFetched(300);
+        metrics.onAdStart();
+        now = 900;
+        bus.onRenderedFirstFrame(null, null);
+
+        now = 5000;
+        metrics.onContentStart();
+        bus.onPlayerStateChanged(null, true, Player.STATE_BUFFERING);
+        now = 5600;
+        bus.onPlayerStateChanged(null, true, Player.STATE_READY);
+        now = 5700;
+        bus.onRenderedFirstFrame(null, null);
+        now = 10000;
+        bus.onPlayerStateChanged(null, true, Player.STATE_BUFFERING);
+        now = 11000;
+        bus.onPlayerStateChanged(null, true, Player.STATE_READY);
+        bus.onDroppedVideoFrames(null, 84, 1000);
+        // the mid-roll was prefetched, the ad call did not wait on the ad servers.
+        metrics.onAdPrefetchHit();
+        now = 15000;
+
+        PlaybackMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.startupTimeMs, is(900L));
+        assertThat(snapshot.adFetchLatencyMs.length, is(1));
+        assertThat(snapshot.adFetchLatencyMs[0], is(300L));
+        assertThat(snapshot.adPrefetchHitCount, is(1));
+        assertThat(snapshot.adTimeToFirstFrameMs[0], is(500L));
+        assertThat(snapshot.contentTimeToFirstFrameMs[0], is(700L));
+        assertThat(snapshot.rebufferCount, is(1));
+        assertThat(snapshot.rebufferTimeMs, is(1000L));
+        assertThat(snapshot.playTimeMs, is(8400L));
+        assertThat(snapshot.getRebufferRatio(), is(1000.0 / 9400));
+        assertThat(snapshot.getDroppedFramesPerMinute(), is(600.0));
+    }
+
+    @Test
+    public void seekAndAdPlayerBufferingAreNotRebuffers() {
+        metrics.attach(contentPlayer, adPlayer);
+        PlayerEventBus contentBus = PlayerEventBus.of(contentPlayer);
+        PlayerEventBus adBus = PlayerEventBus.of(adPlayer);
+
+        metrics.onContentStart();
+        contentBus.onPlayerStateChanged(null, true, Player.STATE_READY);
+
+        now = 1000;
+        contentBus.onSeekStarted(null);
+        contentBus.onPlayerStateChanged(null, true, Player.STATE_BUFFERING);
+        now = 1500;
+        contentBus.onPlayerStateChanged(null, true, Player.STATE_READY);
+
+        // the ad player buffers the next ad ahead while the content plays.
+        adBus.onPlayerStateChanged(null, false, Player.STATE_READY);
+        adBus.onPlayerStateChanged(null, true, Player.STATE_BUFFERING);
+        now = 2000;
+
+        PlaybackMetrics.Snapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.rebufferCount, is(0));
+        assertThat(snapshot.playTimeMs, is(1500L));
+    }
+
+    @Test
+    public void parkedPlayerIsTrackedAgainWhenReacquired() {
+        metrics.attach(contentPlayer, null);
+        PlayerPool pool = new PlayerPool(PlayerPool.DEFAULT_IDLE_TIMEOUT_MS);
+        String key = PlayerPool.keyOf(PlayerPool.ROLE_CONTENT, "movie");
+
+        PlayerEventBus parkedBus = PlayerEventBus.of(contentPlayer);
+        PlayerEventBus.release(contentPlayer);
+        pool.park(key, new PlayerPool.Entry(contentPlayer, null, null));
+        assertThat(parkedBus.hasSubscribers(PlayerEvent.PLAYER_STATE_CHANGED), is(false));
+
+        SimpleExoPlayer reacquired = pool.acquire(key).player;
+        metrics.attach(reacquired, null);
+        PlayerEventBus bus = PlayerEventBus.of(reacquired);
+        assertThat(bus.hasSubscribers(PlayerEvent.PLAYER_STATE_CHANGED), is(true));
+
+        metrics.onContentStart();
+        bus.onPlayerStateChanged(null, true, Player.STATE_READY);
+        now = 3000;
+
+        assertThat(metrics.snapshot().playTimeMs, is(3000L));
+    }
+
+    @Test
+    public void exportersReceiveSnapshot() {
+        PlaybackMetrics.Snapshot[] exported = new PlaybackMetrics.Snapshot[1];
+        metrics.addExporter(snapshot -> exported[0] = snapshot);
+
+        now = 2500;
+        metrics.export();
+
+        assertThat(exported[0].sessionTimeMs, is(2500L));
+        assertThat(exported[0].getRebufferRatio(), is(0.0));
+    }
+}
@@ -0,0 +1,101 @@
+package com.tubitv.demo;
+
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.analytics.AnalyticsListener;
+import com.tubitv.media.helpers.PlayerEvent;
+import com.tubitv.media.helpers.PlayerEventBus;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+public class PlayerEventBusTest {
+
+    PlayerEventBus bus;
+
+    List<String> received;
+
+    PlayerEventBus.Subscriber subscriber;
+
+    @Before
+    public void setup() {
+        bus = new PlayerEventBus();
+        received = new ArrayList<>();
+        subscriber = event -> received.add(event.type + ":" + event.playbackState + ":" + event.reason);
+    }
+
+    @Test
+    public void onlyMaskedEventsAreDispatched() {
+        bus.subscribe(subscriber, PlayerEvent.maskOf(PlayerEvent.PLAYER_STATE_CHANGED));
+
+        bus.onPlayerStateChanged(null, true, Player.STATE_READY);
+        bus.onPositionDiscontinuity(null, Player.DISCONTINUITY_REASON_SEEK);
+        bus.onLoadingChanged(null, true);
+
+        assertThat(received.size(), is(1));
+        assertThat(received.get(0), is(PlayerEvent.PLAYER_STATE_CHANGED + ":" + Player.STATE_READY + ":0"));
+        assertThat(bus.hasSubscribers(PlayerEvent.LOADING_CHANGED), is(false));
+    }
+
+    @Test
+    public void subscribeAgainChangesMask() {
+        bus.subscribe(subscriber, PlayerEvent.maskOf(PlayerEvent.PLAYER_STATE_CHANGED));
+        bus.subscribe(subscriber, PlayerEvent.maskOf(PlayerEvent.POSITION_DISCONTINUITY));
+
+        bus.onPlayerStateChanged(null, true, Player.STATE_READY);
+        bus.onPositionDiscontinuity(null, Player.DISCONTINUITY_REASON_SEEK);
+
+        assertThat(received.size(), is(1));
+        assertThat(received.get(0),
+                is(PlayerEvent.POSITION_DISCONTINUITY + ":0:" + Player.DISCONTINUITY_REASON_SEEK));
+    }
+
+    @Test
+    public void unsubscribedReceivesNothing() {
+        bus.subscribe(subscriber, PlayerEvent.MASK_ALL);
+        bus.unsubscribe(subscriber);
+
+        bus.onPlayerStateChanged(null, true, Player.STATE_READY);
+
+        assertThat(received.isEmpty(), is(true));
+        assertThat(bus.hasSubscribers(PlayerEvent.PLAYER_STATE_CHANGED), is(false));
+    }
+
+    @Test
+    public void nestedDispatchKeepsOuterEvent() {
+        bus.subscribe(event -> {
+            if (event.type == PlayerEvent.PLAYER_STATE_CHANGED) {
+                // a subscriber calling the player, which calls the bus back.
+                bus.onPositionDiscontinuity(null, Player.DISCONTINUITY_REASON_SEEK);
+                received.add("outer:" + event.type + ":" + event.playbackState);
+            }
+        }, PlayerEvent.MASK_ALL);
+        bus.subscribe(subscriber, PlayerEvent.MASK_PLAYBACK);
+
+        bus.onPlayerStateChanged(null, false, Player.STATE_BUFFERING);
+
+        assertThat(received.get(0),
+                is(PlayerEvent.POSITION_DISCONTINUITY + ":0:" + Player.DISCONTINUITY_REASON_SEEK));
+        assertThat(received.get(1), is("outer:" + PlayerEvent.PLAYER_STATE_CHANGED + ":" + Player.STATE_BUFFERING));
+        assertThat(received.get(2),
+                is(PlayerEvent.PLAYER_STATE_CHANGED + ":" + Player.STATE_BUFFERING + ":0"));
+    }
+
+    @Test
+    public void analyticsListenerReceivesMaskedCalls() {
+        AnalyticsListener listener = mock(AnalyticsListener.class);
+        bus.subscribe(listener, PlayerEvent.maskOf(PlayerEvent.DROPPED_VIDEO_FRAMES));
+
+        bus.onPlayerStateChanged(null, true, Player.STATE_READY);
+        bus.onDroppedVideoFrames(null, 12, 1000);
+
+        verify(listener).onDroppedVideoFrames(null, 12, 1000);
+        verifyNoMoreInteractions(listener);
+    }
+}
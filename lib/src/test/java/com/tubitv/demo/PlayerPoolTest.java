@@ -0,0 +1,93 @@
+package com.tubitv.demo;
+
+import android.content.ComponentCallbacks2;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.tubitv.media.helpers.PlayerPool;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.mockito.Mockito.mock;
+
+public class PlayerPoolTest {
+
+    private static final String MOVIE_CONTENT = PlayerPool.keyOf("content", "movie");
+    private static final String MOVIE_AD = PlayerPool.keyOf("ad", "movie");
+    private static final String OTHER_CONTENT = PlayerPool.keyOf("content", "other");
+
+    PlayerPool pool;
+
+    @Before
+    public void setup() {
+        pool = new PlayerPool(PlayerPool.DEFAULT_IDLE_TIMEOUT_MS);
+    }
+
+    @Test
+    public void parkedPlayerIsHandedBackForItsKey() {
+        CountingEntry content = new CountingEntry();
+        CountingEntry ad = new CountingEntry();
+        pool.park(MOVIE_CONTENT, content);
+        pool.park(MOVIE_AD, ad);
+
+        assertThat(pool.acquire(MOVIE_CONTENT), is((PlayerPool.Entry) content));
+        assertThat(pool.acquire(MOVIE_AD), is((PlayerPool.Entry) ad));
+        assertThat(pool.size(), is(0));
+        assertThat(content.releaseCount + ad.releaseCount, is(0));
+    }
+
+    @Test
+    public void anotherMovieReleasesTheParkedPlayers() {
+        CountingEntry content = new CountingEntry();
+        CountingEntry ad = new CountingEntry();
+        pool.park(MOVIE_CONTENT, content);
+        pool.park(MOVIE_AD, ad);
+
+        assertThat(pool.acquire(OTHER_CONTENT), is(nullValue()));
+        assertThat(pool.size(), is(0));
+        assertThat(content.releaseCount, is(1));
+        assertThat(ad.releaseCount, is(1));
+    }
+
+    @Test
+    public void oldestIsReleasedPastTheLimit() {
+        CountingEntry first = new CountingEntry();
+        pool.park(MOVIE_CONTENT, first);
+        pool.park(MOVIE_AD, new CountingEntry());
+        pool.park(OTHER_CONTENT, new CountingEntry());
+
+        assertThat(pool.size(), is(PlayerPool.MAX_PARKED));
+        assertThat(first.releaseCount, is(1));
+    }
+
+    @Test
+    public void memoryPressureReleasesEverything() {
+        CountingEntry content = new CountingEntry();
+        pool.park(MOVIE_CONTENT, content);
+
+        pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+        assertThat(pool.size(), is(1));
+
+        pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        assertThat(pool.size(), is(1));
+
+        pool.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+        assertThat(pool.size(), is(0));
+        assertThat(content.releaseCount, is(1));
+    }
+
+    static class CountingEntry extends PlayerPool.Entry {
+
+        int releaseCount;
+
+        CountingEntry() {
+            super(mock(SimpleExoPlayer.class), null, null);
+        }
+
+        @Override
+        public void release() {
+            releaseCount++;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.tubitv.demo;
+
+import com.tubitv.media.controller.ProgressScheduler;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ProgressSchedulerTest {
+
+    ProgressScheduler scheduler;
+
+    int invalidateCount;
+
+    @Before
+    public void setup() {
+        scheduler = new ProgressScheduler();
+        scheduler.setInvalidateListener(() -> invalidateCount++);
+    }
+
+    @Test
+    public void defaultDelayWithoutConsumer() {
+        assertThat(scheduler.nextDelayMs(12345), is(ProgressScheduler.DEFAULT_DELAY_MS));
+    }
+
+    @Test
+    public void earliestConsumerWins() {
+        scheduler.register(ProgressScheduler.atResolution(1000));
+        scheduler.register(positionMs -> 5000 - positionMs);
+
+        assertThat(scheduler.nextDelayMs(4600), is(400L));
+        assertThat(scheduler.nextDelayMs(4800), is(200L));
+        assertThat(invalidateCount, is(2));
+    }
+
+    @Test
+    public void delayIsClampedToMinimum() {
+        scheduler.register(positionMs -> 0);
+
+        assertThat(scheduler.nextDelayMs(0), is(ProgressScheduler.MIN_DELAY_MS));
+    }
+
+    @Test
+    public void sleepsWhenNoConsumerNeedsUpdate() {
+        ProgressScheduler.Consumer consumer = positionMs -> ProgressScheduler.SLEEP;
+        scheduler.register(consumer);
+        scheduler.register(consumer);
+
+        assertThat(scheduler.nextDelayMs(0), is(ProgressScheduler.SLEEP));
+        assertThat(invalidateCount, is(1));
+
+        scheduler.unregister(consumer);
+        assertThat(scheduler.nextDelayMs(0), is(ProgressScheduler.DEFAULT_DELAY_MS));
+    }
+}
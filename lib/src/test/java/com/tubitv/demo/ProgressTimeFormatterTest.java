@@ -0,0 +1,52 @@
+package com.tubitv.demo;
+
+import com.google.android.exoplayer2.C;
+import com.tubitv.media.utilities.ProgressTimeFormatter;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ProgressTimeFormatterTest {
+
+    @Test
+    public void formatsMinutesAndSeconds() {
+        assertThat(ProgressTimeFormatter.format(0, false), is("00:00"));
+        assertThat(ProgressTimeFormatter.format(9 * 1000, false), is("00:09"));
+        assertThat(ProgressTimeFormatter.format(59 * 60 * 1000 + 59 * 1000, false), is("59:59"));
+    }
+
+    @Test
+    public void formatsHours() {
+        assertThat(ProgressTimeFormatter.format(60 * 60 * 1000, false), is("1:00:00"));
+        assertThat(ProgressTimeFormatter.format((12 * 3600 + 5 * 60 + 7) * 1000L, false), is("12:05:07"));
+    }
+
+    @Test
+    public void roundsToNearestSecond() {
+        assertThat(ProgressTimeFormatter.format(1499, false), is("00:01"));
+        assertThat(ProgressTimeFormatter.format(1500, false), is("00:02"));
+    }
+
+    @Test
+    public void remainingTimeHasMinusSign() {
+        assertThat(ProgressTimeFormatter.format(65 * 1000, true), is("-01:05"));
+        assertThat(ProgressTimeFormatter.format(0, true), is("00:00"));
+    }
+
+    @Test
+    public void unsetAndNegativeTimesAreZero() {
+        assertThat(ProgressTimeFormatter.format(C.TIME_UNSET, false), is("00:00"));
+        assertThat(ProgressTimeFormatter.format(-5000, false), is("00:00"));
+    }
+
+    @Test
+    public void writesIntoBuffer() {
+        char[] buffer = new char[ProgressTimeFormatter.MAX_LENGTH];
+
+        int length = ProgressTimeFormatter.format(Long.MAX_VALUE, true, buffer);
+
+        assertThat(new String(buffer, 0, length), is(ProgressTimeFormatter.format(Long.MAX_VALUE, true)));
+        assertThat(new String(buffer, 0, length).matches("-\\d+:\\d\\d:\\d\\d"), is(true));
+    }
+}
@@ -0,0 +1,135 @@
+package com.tubitv.demo;
+
+import com.google.android.exoplayer2.C;
+import com.tubitv.media.helpers.ResumeStore;
+import com.tubitv.media.models.SessionState;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+
+public class ResumeStoreTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = new File(folder.getRoot(), "resume");
+    }
+
+    @Test
+    public void sessionIsReadBackAfterReopening() {
+        SessionState state = new SessionState("movie");
+        state.setContentPositionMs(125000);
+        state.startAdBreak(60000);
+        state.finishAdBreak();
+        state.startAdBreak(120000);
+        state.onAdPlayed();
+        state.setSubtitlesEnabled(false);
+        new ResumeStore(file, DIRECT).save(state);
+
+        SessionState read = new ResumeStore(file, DIRECT).read("movie");
+        assertThat(read.getContentPositionMs(), is(125000L));
+        assertThat(read.getConsumedCuePoints(), is(new long[]{60000}));
+        assertThat(read.getAdBreakCuePoint(), is(120000L));
+        assertThat(read.getAdsPlayed(), is(1));
+        assertThat(read.isSubtitlesEnabled(), is(false));
+    }
+
+    @Test
+    public void lastSaveOfAVideoWins() {
+        ResumeStore store = new ResumeStore(file, DIRECT);
+        SessionState state = new SessionState("movie");
+        for (int i = 1; i <= 200; i++) {
+            state.setContentPositionMs(i * 1000L);
+            store.save(state);
+        }
+        store.remove("other");
+
+        ResumeStore reopened = new ResumeStore(file, DIRECT);
+        assertThat(reopened.read("movie").getContentPositionMs(), is(200000L));
+        assertThat(reopened.read("other"), is(nullValue()));
+        assertThat(reopened.size(), is(1));
+    }
+
+    @Test
+    public void readWithoutWaitingIsCalledBackOnceTheLogIsRead() {
+        SessionState state = new SessionState("movie");
+        state.setSubtitlesEnabled(false);
+        new ResumeStore(file, DIRECT).save(state);
+
+        List<Runnable> tasks = new ArrayList<>();
+        ResumeStore reopened = new ResumeStore(file, tasks::add);
+        SessionState[] read = new SessionState[1];
+        reopened.read("movie", session -> read[0] = session);
+        assertThat(read[0], is(nullValue()));
+
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        assertThat(read[0].isSubtitlesEnabled(), is(false));
+    }
+
+    @Test
+    public void recordCutShortIsDropped() throws IOException {
+        SessionState state = new SessionState("movie");
+        state.setContentPositionMs(30000);
+        new ResumeStore(file, DIRECT).save(state);
+
+        // a kill in the middle of the next append.
+        FileOutputStream out = new FileOutputStream(file, true);
+        out.write(new byte[]{0, 0, 0, 40, 1, 0});
+        out.close();
+
+        ResumeStore reopened = new ResumeStore(file, DIRECT);
+        assertThat(reopened.read("movie").getContentPositionMs(), is(30000L));
+
+        state.setContentPositionMs(45000);
+        reopened.save(state);
+        assertThat(new ResumeStore(file, DIRECT).read("movie").getContentPositionMs(), is(45000L));
+    }
+
+    @Test
+    public void watchedBreaksAreNotScheduledAgain() {
+        SessionState state = new SessionState("movie");
+        state.startAdBreak(0);
+        state.finishAdBreak();
+        state.startAdBreak(600000);
+        state.finishAdBreak();
+
+        assertThat(state.removeConsumed(new long[]{0, 600000, 1200000}), is(new long[]{1200000}));
+        assertThat(state.isInAdBreak(), is(false));
+        assertThat(state.getAdBreakCuePoint(), is(C.TIME_UNSET));
+
+        state.setContentPositionMs(610000);
+        assertThat(state.hasRecentBreak(), is(true));
+        state.setContentPositionMs(600000 + SessionState.RECENT_BREAK_MS + 1);
+        assertThat(state.hasRecentBreak(), is(false));
+    }
+
+    @Test
+    public void interruptedBreakIsDroppedWhenTheResumeBreakStandsIn() {
+        SessionState state = new SessionState("movie");
+        long[] cuePoints = {600000, 1200000};
+        assertThat(state.removeAdBreak(cuePoints), is(cuePoints));
+
+        state.startAdBreak(600000);
+        state.onAdPlayed();
+        assertThat(state.removeAdBreak(cuePoints), is(new long[]{1200000}));
+    }
+}
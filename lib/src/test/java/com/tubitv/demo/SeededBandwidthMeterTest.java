@@ -0,0 +1,75 @@
+package com.tubitv.demo;
+
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.tubitv.media.helpers.SeededBandwidthMeter;
+import com.tubitv.media.helpers.ThroughputHistory;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class SeededBandwidthMeterTest {
+
+    private static final long MEGABYTE = 1024 * 1024;
+
+    ThroughputHistoryTest.MapStore store;
+
+    ThroughputHistory history;
+
+    SeededBandwidthMeter meter;
+
+    @Before
+    public void setup() {
+        store = new ThroughputHistoryTest.MapStore();
+        history = new ThroughputHistory(store);
+        history.addSample("wifi", MEGABYTE, 3000000);
+        meter = new SeededBandwidthMeter();
+        meter.setHistory(history);
+    }
+
+    @Test
+    public void seedIsUsedUntilEnoughIsMeasured() {
+        meter.seed("wifi");
+        assertThat(meter.getBitrateEstimate(), is(3000000L));
+
+        // 100 kB in 200 ms, not enough for an estimate of its own.
+        meter.onSample(SeededBandwidthMeter.SOURCE_CONTENT, 200, 100000);
+        assertThat(meter.getBitrateEstimate(), is(3000000L));
+
+        meter.onSample(SeededBandwidthMeter.SOURCE_CONTENT, 1600, MEGABYTE);
+        assertThat(meter.getBitrateEstimate(), is(MEGABYTE * 8000 / 1600));
+        assertThat(meter.forSource(SeededBandwidthMeter.SOURCE_AD).getBitrateEstimate(),
+                is(meter.getBitrateEstimate()));
+    }
+
+    @Test
+    public void adSamplesMoveTheContentEstimate() {
+        meter.seed("wifi");
+        meter.onSample(SeededBandwidthMeter.SOURCE_CONTENT, 1000, MEGABYTE);
+        meter.onSample(SeededBandwidthMeter.SOURCE_CONTENT, 1000, MEGABYTE);
+        assertThat(meter.getBitrateEstimate(), is(MEGABYTE * 8));
+
+        // the network got slower during the ad break.
+        for (int i = 0; i < 4; i++) {
+            meter.onSample(SeededBandwidthMeter.SOURCE_AD, 4000, MEGABYTE);
+        }
+
+        assertThat(meter.getBitrateEstimate(), is(MEGABYTE * 2));
+        // only the content samples are kept for the next sessions.
+        assertThat(store.values.get("wifi").split(",").length, is(3));
+    }
+
+    @Test
+    public void networkChangeDropsTheMeasures() {
+        meter.seed("wifi");
+        meter.onSample(SeededBandwidthMeter.SOURCE_CONTENT, 1000, MEGABYTE);
+        assertThat(meter.getBitrateEstimate(), is(MEGABYTE * 8));
+
+        meter.seed("mobile-LTE");
+        assertThat(meter.getBitrateEstimate(), is(BandwidthMeter.NO_ESTIMATE));
+
+        meter.seed("wifi");
+        assertThat(meter.getBitrateEstimate(), is(history.getEstimate("wifi")));
+    }
+}
@@ -0,0 +1,89 @@
+package com.tubitv.demo;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.tubitv.media.helpers.ThroughputHistory;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ThroughputHistoryTest {
+
+    private static final long BYTES = ThroughputHistory.MIN_SAMPLE_BYTES;
+
+    MapStore store;
+
+    @Before
+    public void setup() {
+        store = new MapStore();
+    }
+
+    @Test
+    public void estimateIsMedianOfTheNetwork() {
+        ThroughputHistory history = new ThroughputHistory(store);
+        assertThat(history.getEstimate("wifi"), is(BandwidthMeter.NO_ESTIMATE));
+
+        history.addSample("wifi", BYTES, 8000000);
+        history.addSample("wifi", BYTES, 1000000);
+        history.addSample("wifi", BYTES, 5000000);
+        history.addSample("mobile-LTE", BYTES, 2000000);
+
+        assertThat(history.getEstimate("wifi"), is(5000000L));
+        assertThat(history.getEstimate("mobile-LTE"), is(2000000L));
+
+        history.addSample("wifi", BYTES, 3000000);
+        assertThat(history.getEstimate("wifi"), is(4000000L));
+    }
+
+    @Test
+    public void smallTransfersAndNoNetworkAreIgnored() {
+        ThroughputHistory history = new ThroughputHistory(store);
+
+        history.addSample("wifi", BYTES - 1, 1000000);
+        history.addSample(ThroughputHistory.NO_NETWORK, BYTES, 1000000);
+
+        assertThat(history.getEstimate("wifi"), is(BandwidthMeter.NO_ESTIMATE));
+        assertThat(store.values.isEmpty(), is(true));
+    }
+
+    @Test
+    public void samplesSurviveANewHistory() {
+        ThroughputHistory history = new ThroughputHistory(store);
+        for (int i = 1; i <= ThroughputHistory.MAX_SAMPLES + 4; i++) {
+            history.addSample("wifi", BYTES, i * 1000);
+        }
+
+        ThroughputHistory next = new ThroughputHistory(store);
+        // only the last samples are kept: 5000 to 20000.
+        assertThat(next.getEstimate("wifi"), is(12500L));
+        assertThat(store.values.get("wifi").split(",").length, is(ThroughputHistory.MAX_SAMPLES));
+    }
+
+    @Test
+    public void corruptedSamplesAreDropped() {
+        store.values.put("wifi", "3000,garbage,,-5,1000");
+
+        assertThat(new ThroughputHistory(store).getEstimate("wifi"), is(2000L));
+    }
+
+    static class MapStore implements ThroughputHistory.Store {
+
+        final Map<String, String> values = new HashMap<>();
+
+        @Nullable
+        @Override
+        public String read(@NonNull String key) {
+            return values.get(key);
+        }
+
+        @Override
+        public void write(@NonNull String key, @NonNull String value) {
+            values.put(key, value);
+        }
+    }
+}
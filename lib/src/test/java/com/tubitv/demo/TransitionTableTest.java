@@ -0,0 +1,82 @@
+package com.tubitv.demo;
+
+import com.tubitv.media.fsm.Input;
+import com.tubitv.media.fsm.State;
+import com.tubitv.media.fsm.concrete.AdPlayingState;
+import com.tubitv.media.fsm.concrete.MakingAdCallState;
+import com.tubitv.media.fsm.concrete.MoviePlayingState;
+import com.tubitv.media.fsm.concrete.factory.StateFactory;
+import com.tubitv.media.fsm.concrete.factory.TransitionTable;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class TransitionTableTest {
+
+    StateFactory factory;
+
+    TransitionTable table;
+
+    @Before
+    public void setup() {
+        factory = new StateFactory();
+        table = factory.getTransitionTable();
+    }
+
+    @Test
+    public void tableMatchesStateTransitions() {
+        for (int i = 0; i < table.getStateCount(); i++) {
+            State state = table.getState(i);
+            for (Input input : Input.values()) {
+                State expected = state.transformToState(input, factory);
+                int next = table.transit(i, input);
+
+                if (expected == null) {
+                    assertThat(next, is(TransitionTable.NO_TRANSITION));
+                } else {
+                    assertThat(table.getState(next) == expected, is(true));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void statesAreTheFactoryInstances() {
+        State movieState = factory.createState(MoviePlayingState.class);
+        int movieIndex = table.indexOf(movieState);
+
+        assertThat(table.getState(movieIndex) == movieState, is(true));
+        assertThat(table.getState(table.transit(movieIndex, Input.MAKE_AD_CALL))
+                == factory.createState(MakingAdCallState.class), is(true));
+        assertThat(table.transit(movieIndex, Input.AD_CLICK), is(TransitionTable.NO_TRANSITION));
+    }
+
+    @Test
+    public void customStateIsInTable() {
+        factory.overrideStateCreation(ExoPlayerFactoryTest.TestMoviePlayingState.class);
+        table = factory.getTransitionTable();
+
+        int adIndex = table.indexOf(factory.createState(AdPlayingState.class));
+        State next = table.getState(table.transit(adIndex, Input.AD_FINISH));
+
+        assertThat(next instanceof ExoPlayerFactoryTest.TestMoviePlayingState, is(true));
+    }
+
+    @Test
+    public void exportCopiesTable() {
+        int[][] rows = table.export();
+
+        assertThat(rows.length, is(table.getStateCount()));
+        for (int i = 0; i < rows.length; i++) {
+            assertThat(rows[i].length, is(Input.values().length));
+            for (Input input : Input.values()) {
+                assertThat(rows[i][input.ordinal()], is(table.transit(i, input)));
+            }
+        }
+
+        assertThat(table.toDot().contains("MoviePlayingState -> MakingAdCallState [label=\"MAKE_AD_CALL\"];"),
+                is(true));
+    }
+}
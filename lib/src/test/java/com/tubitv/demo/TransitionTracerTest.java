@@ -0,0 +1,133 @@
+package com.tubitv.demo;
+
+import android.support.annotation.NonNull;
+import com.tubitv.media.fsm.Input;
+import com.tubitv.media.fsm.State;
+import com.tubitv.media.fsm.concrete.factory.StateFactory;
+import com.tubitv.media.fsm.state_machine.FsmPlayer;
+import com.tubitv.media.fsm.state_machine.TransitionTracer;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class TransitionTracerTest {
+
+    private static final long MS = 1000000L;
+
+    long now;
+
+    TransitionTracer tracer;
+
+    @Before
+    public void setup() {
+        now = 0;
+        tracer = new TransitionTracer(3, () -> now);
+    }
+
+    @Test
+    public void dwellIsRecordedForTheStateLeft() {
+        State adCall = new AdCallState();
+        State movie = new MovieState();
+
+        long first = tracer.onTransition(Input.INITIALIZE, null, adCall, 0);
+        now = 2 * MS;
+        tracer.onUiWorkDone(first, adCall, 2 * MS);
+        now = 300 * MS;
+        tracer.onTransition(Input.EMPTY_AD, adCall, movie, 0);
+        now = 350 * MS;
+
+        TransitionTracer.StateStats adCallStats = tracer.getStats(AdCallState.class);
+        assertThat(adCallStats.entries, is(1));
+        assertThat(adCallStats.dwell.getCount(), is(1L));
+        assertThat(adCallStats.dwell.getMaxNs(), is(300 * MS));
+        assertThat(adCallStats.uiWork.getMeanNs(), is(2 * MS));
+        assertThat(tracer.getStats(MovieState.class).dwell.getCount(), is(0L));
+        assertThat(tracer.getCurrentDwellNs(), is(50 * MS));
+
+        List<TransitionTracer.Transition> transitions = tracer.getRecentTransitions();
+        assertThat(transitions.size(), is(2));
+        assertThat(transitions.get(0).uiWorkNs, is(2 * MS));
+        assertThat(transitions.get(1).input, is(Input.EMPTY_AD));
+        assertThat(transitions.get(1).dwellNs, is(300 * MS));
+        assertThat(transitions.get(1).uiWorkNs, is(-1L));
+    }
+
+    @Test
+    public void fallbackAndFlowErrorsAreFlagged() {
+        State adCall = new AdCallState();
+        State movie = new MovieState();
+
+        tracer.onTransition(Input.INITIALIZE, null, adCall, 0);
+        tracer.onTransition(Input.NEXT_AD, adCall, movie, TransitionTracer.FLAG_FALLBACK);
+        tracer.onFlowError(Input.AD_CLICK, movie);
+
+        List<TransitionTracer.Transition> transitions = tracer.getRecentTransitions();
+        assertThat(tracer.getFlowErrorCount(), is(2));
+        assertThat(transitions.get(1).isFallback(), is(true));
+        assertThat(transitions.get(2).flags, is(TransitionTracer.FLAG_FLOW_ERROR));
+        assertThat(tracer.dump().contains("NEXT_AD: AdCallState -> MovieState"), is(true));
+    }
+
+    @Test
+    public void bufferKeepsLastTransitions() {
+        State adCall = new AdCallState();
+        State movie = new MovieState();
+
+        long first = tracer.onTransition(Input.INITIALIZE, null, movie, 0);
+        for (int i = 0; i < 2; i++) {
+            tracer.onTransition(Input.MAKE_AD_CALL, movie, adCall, 0);
+            tracer.onTransition(Input.EMPTY_AD, adCall, movie, 0);
+        }
+        // the entry of the first transition has been reused, only the histogram records its UI work.
+        tracer.onUiWorkDone(first, movie, MS);
+
+        List<TransitionTracer.Transition> transitions = tracer.getRecentTransitions();
+        assertThat(transitions.size(), is(3));
+        assertThat(transitions.get(0).sequence, is(2L));
+        assertThat(transitions.get(0).uiWorkNs, is(-1L));
+        assertThat(tracer.getStats(MovieState.class).entries, is(3));
+        assertThat(tracer.getStats(MovieState.class).uiWork.getCount(), is(1L));
+    }
+
+    @Test
+    public void percentileIsBucketUpperBound() {
+        State movie = new MovieState();
+        State adCall = new AdCallState();
+
+        for (int i = 1; i <= 100; i++) {
+            tracer.onTransition(Input.MAKE_AD_CALL, movie, adCall, 0);
+            now += i * MS;
+            tracer.onTransition(Input.EMPTY_AD, adCall, movie, 0);
+        }
+
+        TransitionTracer.Histogram dwell = tracer.getStats(AdCallState.class).dwell;
+        assertThat(dwell.getCount(), is(100L));
+        assertThat(dwell.getPercentileNs(50), is(65536 * 1000L));
+        assertThat(dwell.getPercentileNs(100), is(100 * MS));
+    }
+
+    private static class TestState implements State {
+
+        @Override
+        public State transformToState(@NonNull Input input, @NonNull StateFactory factory) {
+            return null;
+        }
+
+        @Override
+        public void performWorkAndUpdatePlayerUI(@NonNull FsmPlayer fsmPlayer) {
+        }
+
+        @Override
+        public void performBackgroundWork(@NonNull FsmPlayer fsmPlayer) {
+        }
+    }
+
+    private static class AdCallState extends TestState {
+    }
+
+    private static class MovieState extends TestState {
+    }
+}
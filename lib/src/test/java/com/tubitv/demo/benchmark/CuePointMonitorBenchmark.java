@@ -0,0 +1,81 @@
+package com.tubitv.demo.benchmark;
+
+import com.tubitv.media.fsm.Input;
+import com.tubitv.media.fsm.concrete.MoviePlayingState;
+import com.tubitv.media.fsm.concrete.factory.StateFactory;
+import com.tubitv.media.fsm.listener.CuePointMonitor;
+import com.tubitv.media.fsm.state_machine.FsmPlayer;
+import com.tubitv.media.fsm.state_machine.FsmPlayerImperial;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one progress tick of the movie in {@link CuePointMonitor#onMovieProgress(long, long)}, with the cue points
+ * spread over a two hour movie. The ticks go through the movie again and again, so the breaks are fired too.
+ * <p>
+ * Run with {@code ./gradlew :lib:jmh -Pjmh.include=CuePointMonitorBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CuePointMonitorBenchmark {
+
+    private static final long MOVIE_DURATION_MS = 2 * 60 * 60 * 1000;
+
+    private static final long TICK_MS = 1000;
+
+    @Param({ "10", "100", "1000", "10000" })
+    int cuePointCount;
+
+    private CuePointMonitor monitor;
+
+    private long position;
+
+    @Setup
+    public void setup() {
+        FsmPlayer fsmPlayer = new FsmPlayerImperial(new StateFactory()) {
+            @Override
+            public Class initializeState() {
+                return MoviePlayingState.class;
+            }
+        };
+        fsmPlayer.transit(Input.INITIALIZE);
+
+        monitor = new CuePointMonitor(fsmPlayer) {
+            @Override
+            public int networkingAhead() {
+                return 5000;
+            }
+        };
+
+        long[] cuePoints = new long[cuePointCount];
+        for (int i = 0; i < cuePointCount; i++) {
+            cuePoints[i] = (i + 1) * MOVIE_DURATION_MS / (cuePointCount + 1);
+        }
+        monitor.setQuePoints(cuePoints);
+        position = 0;
+    }
+
+    @Benchmark
+    public void onMovieProgress() {
+        position += TICK_MS;
+        if (position > MOVIE_DURATION_MS) {
+            position = 0;
+            monitor.onSeek(position);
+        }
+        monitor.onMovieProgress(position, MOVIE_DURATION_MS);
+    }
+}
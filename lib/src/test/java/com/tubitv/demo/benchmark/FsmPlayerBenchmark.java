@@ -0,0 +1,98 @@
+package com.tubitv.demo.benchmark;
+
+import com.tubitv.media.fsm.Input;
+import com.tubitv.media.fsm.State;
+import com.tubitv.media.fsm.concrete.FetchCuePointState;
+import com.tubitv.media.fsm.concrete.MoviePlayingState;
+import com.tubitv.media.fsm.concrete.factory.StateFactory;
+import com.tubitv.media.fsm.state_machine.FsmPlayer;
+import com.tubitv.media.fsm.state_machine.FsmPlayerImperial;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Round trips of {@link FsmPlayer#transit(Input)} through the ad breaks of a movie. The player has no UI components,
+ * so the states skip their work and only the transitions, the logging and the state bookkeeping are measured.
+ * <p>
+ * Run with {@code ./gradlew :lib:jmh -Pjmh.include=FsmPlayerBenchmark}.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FsmPlayerBenchmark {
+
+    /**
+     * cue point fetch -> pre-roll -> movie.
+     */
+    private static final Input[] PRE_ROLL_CYCLE = {
+            Input.INITIALIZE,
+            Input.HAS_PREROLL_AD,
+            Input.PRE_ROLL_AD_RECEIVED,
+            Input.AD_FINISH
+    };
+
+    /**
+     * movie -> ad call -> ad received -> two ads -> movie.
+     */
+    private static final Input[] MID_ROLL_CYCLE = {
+            Input.MAKE_AD_CALL,
+            Input.AD_RECEIVED,
+            Input.SHOW_ADS,
+            Input.NEXT_AD,
+            Input.AD_FINISH
+    };
+
+    private StateFactory factory;
+
+    private FsmPlayer moviePlayer;
+
+    @Setup
+    public void setup() {
+        factory = new StateFactory();
+        moviePlayer = newFsmPlayer(factory, MoviePlayingState.class);
+        moviePlayer.transit(Input.INITIALIZE);
+    }
+
+    /**
+     * a new movie from its cue point fetch, through the pre-roll and one mid-roll, including the fsmPlayer creation.
+     */
+    @Benchmark
+    public State preRollAndMidRollCycle() {
+        FsmPlayer fsmPlayer = newFsmPlayer(factory, FetchCuePointState.class);
+        for (Input input : PRE_ROLL_CYCLE) {
+            fsmPlayer.transit(input);
+        }
+        for (Input input : MID_ROLL_CYCLE) {
+            fsmPlayer.transit(input);
+        }
+        return fsmPlayer.getCurrentState();
+    }
+
+    @Benchmark
+    public State midRollCycle() {
+        for (Input input : MID_ROLL_CYCLE) {
+            moviePlayer.transit(input);
+        }
+        return moviePlayer.getCurrentState();
+    }
+
+    private static FsmPlayer newFsmPlayer(StateFactory factory, final Class initializeState) {
+        return new FsmPlayerImperial(factory) {
+            @Override
+            public Class initializeState() {
+                return initializeState;
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package com.tubitv.demo.benchmark;
+
+import com.tubitv.media.fsm.Input;
+import com.tubitv.media.fsm.State;
+import com.tubitv.media.fsm.concrete.MoviePlayingState;
+import com.tubitv.media.fsm.concrete.factory.StateFactory;
+import com.tubitv.media.fsm.concrete.factory.TransitionTable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of one ad break cycle of the fsm, through the switches of the states and through the transition table.
+ * <p>
+ * Run with {@code ./gradlew :lib:jmh -Pjmh.include=FsmTransitionBenchmark}.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FsmTransitionBenchmark {
+
+    /**
+     * movie -> ad call -> ad received -> two ads -> movie.
+     */
+    private static final Input[] AD_BREAK_CYCLE = {
+            Input.MAKE_AD_CALL,
+            Input.AD_RECEIVED,
+            Input.SHOW_ADS,
+            Input.NEXT_AD,
+            Input.AD_FINISH
+    };
+
+    private StateFactory factory;
+
+    private TransitionTable table;
+
+    private LegacyStateCache legacyCache;
+
+    private State movieState;
+
+    private int movieIndex;
+
+    @Setup
+    public void setup() {
+        factory = new StateFactory();
+        table = factory.getTransitionTable();
+        legacyCache = new LegacyStateCache();
+        movieState = factory.createState(MoviePlayingState.class);
+        movieIndex = table.indexOf(movieState);
+    }
+
+    /**
+     * the switch of every state, each next state looked up in the {@link StateFactory}.
+     */
+    @Benchmark
+    public State switchTransition() {
+        State state = movieState;
+        for (Input input : AD_BREAK_CYCLE) {
+            state = state.transformToState(input, factory);
+        }
+        return state;
+    }
+
+    /**
+     * the switch of every state, each next state looked up like the factory did before the table, in the map of the
+     * custom types and the synchronized map of the instances.
+     */
+    @Benchmark
+    public State legacyFactoryTransition() {
+        State state = movieState;
+        for (Input input : AD_BREAK_CYCLE) {
+            state = legacyCache.get(state.transformToState(input, factory).getClass());
+        }
+        return state;
+    }
+
+    @Benchmark
+    public int tableTransition() {
+        int stateIndex = movieIndex;
+        for (Input input : AD_BREAK_CYCLE) {
+            stateIndex = table.transit(stateIndex, input);
+        }
+        return stateIndex;
+    }
+
+    /**
+     * the lookup of the reflective factory, with the instances already created.
+     */
+    private final class LegacyStateCache {
+
+        private final Map<Class, State> stateInstance = new HashMap<>();
+
+        private final Map<Class, Class> customStateType = new HashMap<>();
+
+        LegacyStateCache() {
+            for (int i = 0; i < table.getStateCount(); i++) {
+                stateInstance.put(table.getState(i).getClass(), table.getState(i));
+            }
+        }
+
+        State get(Class classType) {
+            if (!State.class.isAssignableFrom(classType)) {
+                throw new IllegalStateException();
+            }
+
+            Class finalClassType = customStateType.get(classType);
+            if (finalClassType == null) {
+                finalClassType = classType;
+            }
+
+            synchronized (this) {
+                return stateInstance.get(finalClassType);
+            }
+        }
+    }
+}
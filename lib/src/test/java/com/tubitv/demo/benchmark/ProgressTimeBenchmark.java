@@ -0,0 +1,86 @@
+package com.tubitv.demo.benchmark;
+
+import com.tubitv.media.utilities.ProgressTimeFormatter;
+import com.tubitv.media.utilities.SeekCalculator;
+import com.tubitv.media.utilities.Utils;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The work of every UI progress tick and of every seek key repeat: {@link Utils#getProgressTime(long, boolean)} for
+ * the position and the remaining time, and {@link SeekCalculator#getSeekRate(long, long)}.
+ * <p>
+ * Run with {@code ./gradlew :lib:jmh -Pjmh.include=ProgressTimeBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProgressTimeBenchmark {
+
+    private static final long DURATION_MS = 2 * 60 * 60 * 1000 + 17 * 60 * 1000;
+
+    private static final long SEEK_REPEAT_MS = 50;
+
+    private static final long SEEK_HOLD_MS = 10 * 1000;
+
+    private final char[] buffer = new char[ProgressTimeFormatter.MAX_LENGTH];
+
+    private long position = 0;
+
+    private long seekStart = 0;
+
+    private long seekTime = 0;
+
+    /**
+     * the position and the remaining time, like the UI controller on every tick.
+     */
+    @Benchmark
+    public String progressTick() {
+        position = (position + 1000) % DURATION_MS;
+        Utils.getProgressTime(DURATION_MS - position, true);
+        return Utils.getProgressTime(position, false);
+    }
+
+    /**
+     * the same tick formatted into a reused buffer, like the bound time texts of the UI controller.
+     */
+    @Benchmark
+    public int progressTickBuffer() {
+        position = (position + 1000) % DURATION_MS;
+        ProgressTimeFormatter.format(DURATION_MS - position, true, buffer);
+        return ProgressTimeFormatter.format(position, false, buffer);
+    }
+
+    @Benchmark
+    public String progressTimeMinutes() {
+        return Utils.getProgressTime(59 * 60 * 1000 + 59 * 1000, false);
+    }
+
+    @Benchmark
+    public String progressTimeHours() {
+        return Utils.getProgressTime(DURATION_MS, true);
+    }
+
+    /**
+     * a seek key held down, the rate moves through all its speeds.
+     */
+    @Benchmark
+    public long seekRate() {
+        seekTime += SEEK_REPEAT_MS;
+        if (seekTime - seekStart > SEEK_HOLD_MS) {
+            seekStart = seekTime;
+        }
+        return SeekCalculator.getSeekRate(seekStart, seekTime);
+    }
+}
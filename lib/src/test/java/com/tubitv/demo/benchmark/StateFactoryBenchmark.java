@@ -0,0 +1,82 @@
+package com.tubitv.demo.benchmark;
+
+import com.tubitv.demo.ExoPlayerFactoryTest;
+import com.tubitv.media.fsm.State;
+import com.tubitv.media.fsm.concrete.AdPlayingState;
+import com.tubitv.media.fsm.concrete.FetchCuePointState;
+import com.tubitv.media.fsm.concrete.MakingAdCallState;
+import com.tubitv.media.fsm.concrete.MoviePlayingState;
+import com.tubitv.media.fsm.concrete.ReceiveAdState;
+import com.tubitv.media.fsm.concrete.factory.StateFactory;
+import com.tubitv.media.fsm.concrete.factory.TransitionTable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link StateFactory#createState(Class)} of the states a movie goes through, with the default and the custom states,
+ * and the compilation of the {@link TransitionTable} of a new factory.
+ * <p>
+ * Run with {@code ./gradlew :lib:jmh -Pjmh.include=StateFactoryBenchmark}.
+ */
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateFactoryBenchmark {
+
+    private static final Class[] STATE_TYPES = {
+            FetchCuePointState.class,
+            MoviePlayingState.class,
+            MakingAdCallState.class,
+            ReceiveAdState.class,
+            AdPlayingState.class
+    };
+
+    private StateFactory defaultFactory;
+
+    private StateFactory customFactory;
+
+    @Setup
+    public void setup() {
+        defaultFactory = new StateFactory();
+        customFactory = new StateFactory();
+        customFactory.overrideStateCreation(ExoPlayerFactoryTest.TestMoviePlayingState.class);
+        customFactory.overrideStateCreation(ExoPlayerFactoryTest.TestAdPlayingState.class);
+    }
+
+    @Benchmark
+    public State createDefaultStates() {
+        State state = null;
+        for (Class type : STATE_TYPES) {
+            state = defaultFactory.createState(type);
+        }
+        return state;
+    }
+
+    @Benchmark
+    public State createCustomStates() {
+        State state = null;
+        for (Class type : STATE_TYPES) {
+            state = customFactory.createState(type);
+        }
+        return state;
+    }
+
+    /**
+     * the one time cost of a new factory, paid by the first transition of a movie.
+     */
+    @Benchmark
+    public TransitionTable compileTransitionTable() {
+        return new StateFactory().getTransitionTable();
+    }
+}